@@ -0,0 +1,199 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+import jdk.jfr.EventType;
+
+/**
+ * Emits the simulation events through the flight recorder. This class is only 
+ * compiled when the JDK contains the flight recorder API, and only loaded when 
+ * the flight recorder is available in the virtual machine.
+ * @author Xavier
+ */
+class FlightRecorderEvents implements EventRecorder {
+    //Constants
+    private final static EventType PHASE_EVENT_TYPE            = EventType.getEventType(PhaseEvent.class),
+                                   UPDATE_STAGE_EVENT_TYPE     = EventType.getEventType(UpdateStageEvent.class),
+                                   WALL_DESTRUCTION_EVENT_TYPE = EventType.getEventType(WallDestructionEvent.class),
+                                   ZOMBIFICATION_EVENT_TYPE    = EventType.getEventType(ZombificationEvent.class),
+                                   PURCHASE_EVENT_TYPE         = EventType.getEventType(PurchaseEvent.class);
+    
+    //Public Constructors
+    /**
+     * Creates the emitter of the events.
+     * @throws IllegalStateException if the flight recorder can't be used in this
+     * virtual machine
+     */
+    public FlightRecorderEvents() {
+        if(!jdk.jfr.FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("El Flight Recorder no està disponible.");
+        }
+    }
+    
+    //Overriden Methods
+    /**
+     * Starts a phase event.
+     * @param phase the number of the phase
+     * @return the event (<code>null</code> if the event isn't enabled)
+     */
+    @Override
+    public Object beginPhase(int phase) {
+        PhaseEvent event;
+        
+        event = null;
+        
+        if(PHASE_EVENT_TYPE.isEnabled()) {
+            event       = new PhaseEvent();
+            event.phase = phase;
+            
+            event.begin();
+        }
+        
+        return event;
+    }
+    
+    /**
+     * Ends and commits a phase event.
+     * @param phaseEvent the event returned by <code>beginPhase</code>
+     * @param agents the number of agents updated in the phase
+     * @param healthyCount the number of healthy humans at the end of the phase
+     * @param infectedCount the number of infected humans at the end of the phase
+     * @param zombifiedCount the number of zombies at the end of the phase
+     */
+    @Override
+    public void endPhase(Object phaseEvent, int agents, int healthyCount, int infectedCount, 
+                                int zombifiedCount) {
+        PhaseEvent event;
+        
+        event                = (PhaseEvent)phaseEvent;
+        event.agents         = agents;
+        event.healthyCount   = healthyCount;
+        event.infectedCount  = infectedCount;
+        event.zombifiedCount = zombifiedCount;
+        
+        event.commit();
+    }
+    
+    /**
+     * Starts an update stage event.
+     * @param phase the number of the phase
+     * @param stage the name of the stage
+     * @return the event (<code>null</code> if the event isn't enabled)
+     */
+    @Override
+    public Object beginUpdateStage(int phase, String stage) {
+        UpdateStageEvent event;
+        
+        event = null;
+        
+        if(UPDATE_STAGE_EVENT_TYPE.isEnabled()) {
+            event       = new UpdateStageEvent();
+            event.phase = phase;
+            event.stage = stage;
+            
+            event.begin();
+        }
+        
+        return event;
+    }
+    
+    /**
+     * Ends and commits an update stage event.
+     * @param updateStageEvent the event returned by <code>beginUpdateStage</code>
+     * @param agents the number of agents processed in the stage
+     * @param cellsVisited the number of cells visited in the stage
+     */
+    @Override
+    public void endUpdateStage(Object updateStageEvent, int agents, int cellsVisited) {
+        UpdateStageEvent event;
+        
+        event              = (UpdateStageEvent)updateStageEvent;
+        event.agents       = agents;
+        event.cellsVisited = cellsVisited;
+        
+        event.commit();
+    }
+    
+    /**
+     * Commits a wall destruction event.
+     * @param phase the number of the phase
+     * @param row the row of the cell where the wall has been destroyed
+     * @param column the column of the cell where the wall has been destroyed
+     * @param destroyedLength the length of the destroyed part
+     * @param walls the number of walls after the destruction
+     */
+    @Override
+    public void wallDestroyed(int phase, int row, int column, double destroyedLength, int walls) {
+        WallDestructionEvent event;
+        
+        if(WALL_DESTRUCTION_EVENT_TYPE.isEnabled()) {
+            event                 = new WallDestructionEvent();
+            event.phase           = phase;
+            event.row             = row;
+            event.column          = column;
+            event.destroyedLength = destroyedLength;
+            event.walls           = walls;
+            
+            event.commit();
+        }
+    }
+    
+    /**
+     * Commits a zombification event.
+     * @param phase the number of the phase
+     * @param zombified the number of humans transformed into zombies
+     * @param infected the number of humans that remain infected
+     */
+    @Override
+    public void zombificationBatch(int phase, int zombified, int infected) {
+        ZombificationEvent event;
+        
+        if(ZOMBIFICATION_EVENT_TYPE.isEnabled()) {
+            event           = new ZombificationEvent();
+            event.phase     = phase;
+            event.zombified = zombified;
+            event.infected  = infected;
+            
+            event.commit();
+        }
+    }
+    
+    /**
+     * Commits a purchase event.
+     * @param phase the number of the phase
+     * @param resource the name of the resource bought
+     * @param units the number of units bought
+     * @param cost the total cost of the units
+     * @param resourcesAvailable the resources available after the purchase
+     */
+    @Override
+    public void purchase(int phase, String resource, int units, int cost, int resourcesAvailable) {
+        PurchaseEvent event;
+        
+        if(PURCHASE_EVENT_TYPE.isEnabled()) {
+            event                    = new PurchaseEvent();
+            event.phase              = phase;
+            event.resource           = resource;
+            event.units              = units;
+            event.cost               = cost;
+            event.resourcesAvailable = resourcesAvailable;
+            
+            event.commit();
+        }
+    }
+}
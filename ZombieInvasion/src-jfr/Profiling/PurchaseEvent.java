@@ -0,0 +1,50 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event emitted when the user buys resources.
+ * @author Xavier
+ */
+@Name("ZombieInvasion.Purchase")
+@Label("Purchase")
+@Description("Resources bought by the user")
+@Category({"Zombie Invasion"})
+class PurchaseEvent extends jdk.jfr.Event {
+    //Attributes
+    @Label("Phase")
+    int phase;
+    
+    @Label("Resource")
+    String resource;
+    
+    @Label("Units")
+    int units;
+    
+    @Label("Cost")
+    int cost;
+    
+    @Label("Resources Available")
+    @Description("Resources available after the purchase")
+    int resourcesAvailable;
+}
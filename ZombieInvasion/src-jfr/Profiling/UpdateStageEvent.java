@@ -0,0 +1,50 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event that spans one of the stages of the update of the environment
+ * (agents update, conflicts resolution, zombification, walls destruction and shots processing).
+ * @author Xavier
+ */
+@Name("ZombieInvasion.UpdateStage")
+@Label("Update Stage")
+@Description("Stage of the update of the environment")
+@Category({"Zombie Invasion"})
+@StackTrace(false)
+class UpdateStageEvent extends jdk.jfr.Event {
+    //Attributes
+    @Label("Phase")
+    int phase;
+    
+    @Label("Stage")
+    String stage;
+    
+    @Label("Agents")
+    @Description("Number of agents processed in the stage")
+    int agents;
+    
+    @Label("Cells Visited")
+    int cellsVisited;
+}
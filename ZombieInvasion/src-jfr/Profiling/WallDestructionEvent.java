@@ -0,0 +1,52 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted when the zombies destroy a part of a wall.
+ * @author Xavier
+ */
+@Name("ZombieInvasion.WallDestruction")
+@Label("Wall Destruction")
+@Description("Part of a wall destroyed by the zombies")
+@Category({"Zombie Invasion"})
+@StackTrace(false)
+class WallDestructionEvent extends jdk.jfr.Event {
+    //Attributes
+    @Label("Phase")
+    int phase;
+    
+    @Label("Row")
+    int row;
+    
+    @Label("Column")
+    int column;
+    
+    @Label("Destroyed Length")
+    double destroyedLength;
+    
+    @Label("Walls")
+    @Description("Number of walls of the environment after the destruction")
+    int walls;
+}
@@ -0,0 +1,46 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted when a batch of infected humans is transformed into zombies.
+ * @author Xavier
+ */
+@Name("ZombieInvasion.Zombification")
+@Label("Zombification")
+@Description("Infected humans transformed into zombies in one phase")
+@Category({"Zombie Invasion"})
+@StackTrace(false)
+class ZombificationEvent extends jdk.jfr.Event {
+    //Attributes
+    @Label("Phase")
+    int phase;
+    
+    @Label("Zombified")
+    @Description("Number of humans transformed in the batch")
+    int zombified;
+    
+    @Label("Still Infected")
+    int infected;
+}
@@ -116,4 +116,16 @@ public abstract class BaseAction implements Action {
         
         this.direction.reflect(reflectionVector);
     }
+    
+    /**
+     * Set the type and the direction of the action (used to restore a saved action).
+     * @param actionType the type of the action
+     * @param directionX the X component of the direction
+     * @param directionY the Y component of the direction
+     */
+    public void set(ActionType actionType, double directionX, double directionY) {
+        this.actionType = actionType;
+        
+        this.direction.setDirection(directionX, directionY);
+    }
 }
@@ -22,10 +22,10 @@ import Geometry.Vector2D;
 import StandardAgentFramework.Action;
 import StandardAgentFramework.Agent;
 import StandardAgentFramework.Perceptions;
+import StandardAgentFramework.SimulationRandom;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.Collection;
-import java.util.Random;
 
 /**
  * Base class for the agents classes of the zombie epidemic environment
@@ -45,7 +45,7 @@ public abstract class BaseAgent<PerceptionsType extends BasePerceptions, ActionT
     /**
      * Object used in random decisions
      */
-    protected final Random rnd;
+    protected final SimulationRandom rnd;
     
     /**
      * Agent's width in the environment
@@ -69,7 +69,7 @@ public abstract class BaseAgent<PerceptionsType extends BasePerceptions, ActionT
     
     //Public Constructors
     public BaseAgent(int agentWidth, int agentHeight, int visionDistance, int speed) {
-        this.rnd            = new Random();
+        this.rnd            = new SimulationRandom();
         this.agentWidth     = agentWidth;
         this.agentHeight    = agentHeight;
         this.visionDistance = visionDistance;
@@ -91,6 +91,21 @@ public abstract class BaseAgent<PerceptionsType extends BasePerceptions, ActionT
      */
     public abstract ActionType act(PerceptionsType perceptions);
     
+    /**
+     * Returns the action object of the agent (it contains the last action decided).
+     * @return the action object
+     */
+    public abstract ActionType getCurrentAction();
+    
+    //Public Methods
+    /**
+     * Returns the random numbers generator used by the agent in its decisions.
+     * @return the random numbers generator
+     */
+    public SimulationRandom getRandom() {
+        return this.rnd;
+    }
+    
     //Protected Methods
     
     /**
@@ -36,6 +36,13 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
      */
     private final static int MOVEMENT_DEGREES = 90;
     
+    /**
+     * Minimum magnitude of a weighted mean of directions to be used as the moving
+     * direction (opposite directions can cancel each other, and a null direction
+     * can't be normalized).
+     */
+    private final static double MIN_DIRECTION_MAGNITUDE = 1e-9;
+    
     /**
      * Minimum allowed safe distance to a zombie.
      */
@@ -70,15 +77,23 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
         final Collection<Point2D> nearHumans, nearZombies;
         final Collection<Line2D> walls;
         final boolean vaccinated, armed;
+        final double farZombiesX, farZombiesY, farZombiesWeight;
         
-        nearHumans     = perceptions.getNearHumans();
-        nearZombies    = perceptions.getNearZombies();
-        walls          = perceptions.getWalls();
-        vaccinated     = perceptions.isVaccinated();
-        armed          = perceptions.getBullets() > 0;
+        nearHumans       = perceptions.getNearHumans();
+        nearZombies      = perceptions.getNearZombies();
+        walls            = perceptions.getWalls();
+        vaccinated       = perceptions.isVaccinated();
+        armed            = perceptions.getBullets() > 0;
+        farZombiesX      = perceptions.getFarZombiesX();
+        farZombiesY      = perceptions.getFarZombiesY();
+        farZombiesWeight = perceptions.getFarZombiesWeight();
         
         if(!nearZombies.isEmpty()) {
-            this.setMoveWhenThereAreZombies(vaccinated, armed, nearHumans, nearZombies, walls);
+            this.setMoveWhenThereAreZombies(vaccinated, armed, nearHumans, nearZombies, walls, 
+                                            farZombiesX, farZombiesY, farZombiesWeight);
+        }
+        else if(farZombiesWeight > 0) {
+            this.setActionToEscapeAllZombies(nearZombies, walls, farZombiesX, farZombiesY, farZombiesWeight);
         }
         else {
             this.setMoveWhenThereAreNotEnemies(HumanAgent.MOVEMENT_DEGREES, this.speed, 
@@ -88,12 +103,18 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
         return this.action;
     }
     
+    @Override
+    public HumanAction getCurrentAction() {
+        return this.action;
+    }
+    
     //Private Methods
     /**
      * Set the appropiate action when the human perceives zombies.
      */
     private void setMoveWhenThereAreZombies(boolean vaccinated, boolean armed, Collection<Point2D> nearHumans, 
-                                            Collection<Point2D> nearZombies, Collection<Line2D> walls) {
+                                            Collection<Point2D> nearZombies, Collection<Line2D> walls,
+                                            double farZombiesX, double farZombiesY, double farZombiesWeight) {
             
         if(armed) {
             this.setActionToTryToShootZombie(nearHumans, nearZombies, walls);
@@ -102,7 +123,7 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
             this.setActionToEscapeNearestZombie(nearZombies, walls);
         }
         else {
-            this.setActionToEscapeAllZombies(nearZombies, walls);
+            this.setActionToEscapeAllZombies(nearZombies, walls, farZombiesX, farZombiesY, farZombiesWeight);
         }
         
         
@@ -131,7 +152,7 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
         }
         else {
             //The zombie is too near to wait until is safe to shoot
-            this.setActionToEscapeAllZombies(nearZombies, walls);
+            this.setActionToEscapeAllZombies(nearZombies, walls, 0, 0, 0);
         }
     }
     
@@ -164,9 +185,13 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
     }
     
     /**
-     * Set the appropiate action when the human has to escape all near zombies.
+     * Set the appropiate action when the human has to escape all near zombies 
+     * (and the zombies that aren't near, whose directions are already summed).
+     * If the directions of the near and the far zombies cancel each other, only 
+     * the near zombies are escaped.
      */
-    private void setActionToEscapeAllZombies(Collection<Point2D> nearZombies, Collection<Line2D> walls) {
+    private void setActionToEscapeAllZombies(Collection<Point2D> nearZombies, Collection<Line2D> walls,
+                                             double farZombiesX, double farZombiesY, double farZombiesWeight) {
         double sumOfX, sumOfY, weight, totalWeight;
         Vector2D vectorDirection;
         
@@ -189,6 +214,14 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
             }
         }
         
+        //Add the directions of the far zombies unless they cancel the directions 
+        //of the near zombies
+        if(this.isValidDirection(sumOfX + farZombiesX, sumOfY + farZombiesY, totalWeight + farZombiesWeight)) {
+            sumOfX      += farZombiesX;
+            sumOfY      += farZombiesY;
+            totalWeight += farZombiesWeight;
+        }
+        
         //Add the walls' normal vectors to the direction to move
         this.setActionToMoveAvoidingWalls(walls, sumOfX, sumOfY, totalWeight);
     }
@@ -196,7 +229,8 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
     /**
      * This function takes the weighted sum of X and Y components of all the directions the
      * human want to move, adds the walls' normal vectors' directions and divide
-     * by the total weight to obtain the direction to move.
+     * by the total weight to obtain the direction to move. If the directions cancel
+     * each other, the human moves as if there weren't zombies.
      */
     private void setActionToMoveAvoidingWalls(Collection<Line2D> walls, double sumOfX, 
                                               double sumOfY, double totalWeight) {
@@ -216,12 +250,29 @@ public class HumanAgent extends BaseAgent<HumanPerceptions, HumanAction> {
         
         //Set the action to moving in the direction obtained by perform the
         //weighted mean of the opposite directions of zombies and walls.
-        if(totalWeight != 0) {
+        if(this.isValidDirection(sumOfX, sumOfY, totalWeight)) {
             x = sumOfX / totalWeight;
             y = sumOfY / totalWeight;
 
             this.action.setMove(x, y);
         }
+        else if(totalWeight != 0) {
+            this.setMoveWhenThereAreNotEnemies(HumanAgent.MOVEMENT_DEGREES, this.speed, 
+                                               walls, this.action);
+        }
+    }
+    
+    /**
+     * Check if the weighted mean of some directions can be used as a moving direction.
+     * @param sumOfX the weighted sum of the X components of the directions
+     * @param sumOfY the weighted sum of the Y components of the directions
+     * @param totalWeight the sum of the weights
+     * @return <code>true</code> if the weighted mean isn't a null direction,
+     * <code>false</code> otherwise.
+     */
+    private boolean isValidDirection(double sumOfX, double sumOfY, double totalWeight) {
+        return totalWeight != 0 && 
+               Math.hypot(sumOfX / totalWeight, sumOfY / totalWeight) >= HumanAgent.MIN_DIRECTION_MAGNITUDE;
     }
     
     /**
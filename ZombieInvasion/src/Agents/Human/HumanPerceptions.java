@@ -37,12 +37,22 @@ public class HumanPerceptions extends BasePerceptions implements Perceptions{
      */
     private final int bullets;
     
+    /**
+     * Weighted sums of the X and Y components of the directions to escape from 
+     * the zombies that aren't near, and sum of their weights (all of them are zero
+     * if the human looks at all the zombies seen one by one).
+     */
+    private double farZombiesX, farZombiesY, farZombiesWeight;
+    
     //Public Constructors
     public HumanPerceptions(boolean vaccinated, int bullets) {
         super();
         
-        this.vaccinated = vaccinated;
-        this.bullets    = bullets;
+        this.vaccinated       = vaccinated;
+        this.bullets          = bullets;
+        this.farZombiesX      = 0;
+        this.farZombiesY      = 0;
+        this.farZombiesWeight = 0;
     }
     
     //Public Methods
@@ -62,4 +72,42 @@ public class HumanPerceptions extends BasePerceptions implements Perceptions{
     public int getBullets() {
         return this.bullets;
     }
+    
+    /**
+     * Returns the weighted sum of the X components of the directions to escape 
+     * from the zombies that aren't near.
+     * @return the weighted sum of the X components
+     */
+    public double getFarZombiesX() {
+        return this.farZombiesX;
+    }
+    
+    /**
+     * Returns the weighted sum of the Y components of the directions to escape 
+     * from the zombies that aren't near.
+     * @return the weighted sum of the Y components
+     */
+    public double getFarZombiesY() {
+        return this.farZombiesY;
+    }
+    
+    /**
+     * Returns the sum of the weights of the zombies that aren't near.
+     * @return the sum of the weights (zero if there aren't zombies that aren't near)
+     */
+    public double getFarZombiesWeight() {
+        return this.farZombiesWeight;
+    }
+    
+    /**
+     * Sets the weighted sums of the directions to escape from the zombies that aren't near.
+     * @param x the weighted sum of the X components of the directions
+     * @param y the weighted sum of the Y components of the directions
+     * @param weight the sum of the weights of the zombies
+     */
+    public void setFarZombies(double x, double y, double weight) {
+        this.farZombiesX      = x;
+        this.farZombiesY      = y;
+        this.farZombiesWeight = weight;
+    }
 }
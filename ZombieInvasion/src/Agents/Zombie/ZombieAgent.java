@@ -74,10 +74,12 @@ public class ZombieAgent extends BaseAgent<ZombiePerceptions, ZombieAction> {
     public ZombieAction act(ZombiePerceptions perceptions) {
         Collection<Point2D> nearHumans, smelledHumans;
         Collection<Line2D> walls;
+        Point2D pursuitTarget;
         
         nearHumans    = perceptions.getNearHumans();
         smelledHumans = perceptions.getSmelledHumans();
         walls         = perceptions.getWalls();
+        pursuitTarget = perceptions.getPursuitTarget();
         
         if(!nearHumans.isEmpty()) {
             this.setMoveWhenHumansAreSeen(nearHumans);
@@ -85,6 +87,9 @@ public class ZombieAgent extends BaseAgent<ZombiePerceptions, ZombieAction> {
         else if(!smelledHumans.isEmpty()) {
             this.setMoveWhenHumansAreSmelled(smelledHumans);
         }
+        else if(pursuitTarget != null) {
+            this.setMoveWhenHumansArePursued(pursuitTarget);
+        }
         else {
             this.setMoveWhenThereAreNotEnemies(ZombieAgent.MOVEMENT_DEGREES, this.speedAtRest, 
                                                walls, this.action);
@@ -93,6 +98,11 @@ public class ZombieAgent extends BaseAgent<ZombiePerceptions, ZombieAction> {
         return this.action;
     }
     
+    @Override
+    public ZombieAction getCurrentAction() {
+        return this.action;
+    }
+    
     //Private Methods
     
     /**
@@ -109,6 +119,16 @@ public class ZombieAgent extends BaseAgent<ZombiePerceptions, ZombieAction> {
         this.setMoveWhenHumansArePerceived(smelledHumans);
     }
     
+    /**
+     * Set the direction of the zombie to the next step towards the nearest human
+     * when no human is perceived.
+     */
+    private void setMoveWhenHumansArePursued(Point2D pursuitTarget) {
+        if(pursuitTarget.getX() != 0 || pursuitTarget.getY() != 0) {
+            this.action.setMove(pursuitTarget.getX(), pursuitTarget.getY());
+        }
+    }
+    
     /**
      * Set the direction of the zombie to the nearest human perceived.
      */
@@ -32,6 +32,13 @@ public class ZombiePerceptions extends BasePerceptions implements Perceptions{
     private final ArrayList<Point2D> nearInfectedHumans, smelledHumans, 
                                      smelledInfectedHumans, smelledZombies;
     
+    /**
+     * Position of the next step towards the nearest healthy human when no human 
+     * is perceived (the origin of coordinates is the agent's current position),
+     * or <code>null</code> if the zombie doesn't pursue any human.
+     */
+    private Point2D pursuitTarget;
+    
     //Public Constructors
     public ZombiePerceptions() {
         super();
@@ -40,6 +47,7 @@ public class ZombiePerceptions extends BasePerceptions implements Perceptions{
         this.smelledHumans         = new ArrayList<>();
         this.smelledInfectedHumans = new ArrayList<>();
         this.smelledZombies        = new ArrayList<>();
+        this.pursuitTarget         = null;
     }
 
     //Public Methods
@@ -79,6 +87,24 @@ public class ZombiePerceptions extends BasePerceptions implements Perceptions{
         return this.smelledZombies;
     }
     
+    /**
+     * Returns the position of the next step towards the nearest healthy human 
+     * when no human is perceived (the origin of coordinates is the agent's current position)
+     * @return the position of the next step, or <code>null</code> if the zombie doesn't pursue any human
+     */
+    public Point2D getPursuitTarget() {
+        return this.pursuitTarget;
+    }
+    
+    /**
+     * Sets the position of the next step towards the nearest healthy human
+     * @param x the X component of the position of the next step
+     * @param y the Y component of the position of the next step
+     */
+    public void setPursuitTarget(double x, double y) {
+        this.pursuitTarget = new Point2D.Double(x, y);
+    }
+    
     /**
      * Add the position of an infected human seen
      * @param position the infected human's position
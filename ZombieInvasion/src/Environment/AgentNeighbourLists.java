@@ -0,0 +1,358 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Agents.Base.AgentsUtils;
+import Agents.Base.BaseAgent;
+import Agents.Base.BaseInformation;
+import Agents.Human.HumanAgent;
+import Agents.Human.HumanInformation;
+import Agents.Zombie.ZombieAgent;
+import Agents.Zombie.ZombieInformation;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains the lists of neighbour candidates of the agents (Verlet lists).
+ * Each agent has an anchor position and never is farther than half the skin 
+ * distance from it. The list of an agent contains the agents whose anchor is 
+ * nearer than its perception distance plus the skin distance from its own anchor,
+ * so it contains all the agents that the agent can perceive. When an agent goes 
+ * farther than half the skin distance the anchors of all the agents are moved to 
+ * their positions and each list is calculated again the next time it is used.
+ * <p>
+ * The agents added after the anchors were moved aren't in the lists: they are 
+ * candidates of all the agents. The candidates are returned in the order the 
+ * agents were added, so the order doesn't depend on when the lists were calculated.
+ * @author Xavier
+ */
+class AgentNeighbourLists {
+    //Constants
+    /**
+     * The anchors are moved when the agents added since the last move are more 
+     * than the agents divided by this value.
+     */
+    private final static int MAX_ADDED_FRACTION = 8;
+    
+    /**
+     * Compares the entries of the agents by the order they were added.
+     */
+    private final static Comparator<Entry> ADDITION_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry entry1, Entry entry2) {
+            return Long.compare(entry1.order, entry2.order);
+        }
+    };
+    
+    //Attributes
+    /**
+     * Cells of the environment.
+     */
+    private final EnvironmentCellGrid environment;
+    
+    /**
+     * Dimensions of the cells.
+     */
+    private final int cellWidth, cellHeight;
+    
+    /**
+     * Extra distance of the lists.
+     */
+    private final double skin;
+    
+    /**
+     * Entries of the agents.
+     */
+    private final Map<BaseAgent<?, ?>, Entry> entries;
+    
+    /**
+     * Entries of the agents added since the last move of the anchors (by order of addition).
+     */
+    private final List<Entry> addedEntries;
+    
+    /**
+     * Order of the next agent added.
+     */
+    private long nextOrder;
+    
+    /**
+     * Order of the first agent added since the last move of the anchors.
+     */
+    private long firstAddedOrder;
+    
+    /**
+     * Number of moves of the anchors.
+     */
+    private int anchorsMoves;
+    
+    /**
+     * Boolean value indicating if an agent has gone farther than half the skin 
+     * distance from its anchor.
+     */
+    private boolean anchorsExceeded;
+    
+    //Public Constructors
+    /**
+     * Creates the neighbour lists of an environment without agents.
+     * @param environment the cells of the environment
+     * @param cellWidth the width of the cells
+     * @param cellHeight the height of the cells
+     * @param skin the extra distance of the lists
+     */
+    public AgentNeighbourLists(EnvironmentCellGrid environment, int cellWidth, int cellHeight, double skin) {
+        this.environment  = environment;
+        this.cellWidth    = cellWidth;
+        this.cellHeight   = cellHeight;
+        this.skin         = skin;
+        this.entries      = new HashMap<>();
+        this.addedEntries = new ArrayList<>();
+    }
+    
+    //Public Methods
+    /**
+     * Adds an agent. It will be a candidate of all the lists until the anchors are moved.
+     * @param agent the agent
+     * @param information the information of the agent
+     */
+    public void add(BaseAgent<?, ?> agent, BaseInformation information) {
+        Entry entry;
+        
+        entry = new Entry(agent, information, this.nextOrder++);
+        
+        this.entries.put(agent, entry);
+        this.addedEntries.add(entry);
+    }
+    
+    /**
+     * Removes an agent (dead or transformed into zombie).
+     * @param agent the agent
+     */
+    public void remove(BaseAgent<?, ?> agent) {
+        this.entries.remove(agent).removed = true;
+    }
+    
+    /**
+     * Checks if an agent that has moved has gone farther than half the skin 
+     * distance from its anchor.
+     * @param agent the agent
+     */
+    public void moved(BaseAgent<?, ?> agent) {
+        Entry entry;
+        
+        entry = this.entries.get(agent);
+        
+        if(entry.information.getPosition().distance(entry.anchorX, entry.anchorY) > this.skin / 2) {
+            this.anchorsExceeded = true;
+        }
+    }
+    
+    /**
+     * Gets the neighbour candidates of an agent: all the agents that are nearer
+     * than a perception distance are included.
+     * @param agent the agent
+     * @param distance the perception distance of the agent
+     * @param humans the collection where the information of the human candidates is added
+     * @param zombies the collection where the information of the zombie candidates is added
+     */
+    public void getCandidates(BaseAgent<?, ?> agent, double distance, Collection<HumanInformation> humans, 
+                              Collection<ZombieInformation> zombies) {
+        Entry entry;
+        
+        if(this.anchorsExceeded || this.addedEntries.size() * MAX_ADDED_FRACTION > this.entries.size()) {
+            this.moveAnchors();
+        }
+        
+        entry = this.entries.get(agent);
+        
+        if(entry.anchorsMove != this.anchorsMoves || entry.distance != distance) {
+            this.calculateList(entry, distance);
+        }
+        
+        //The candidates of the list and the agents added later (the order of addition is kept)
+        for(Entry candidate: entry.humans) {
+            if(!candidate.removed) {
+                humans.add((HumanInformation)candidate.information);
+            }
+        }
+        
+        for(Entry candidate: entry.zombies) {
+            if(!candidate.removed) {
+                zombies.add((ZombieInformation)candidate.information);
+            }
+        }
+        
+        for(Entry candidate: this.addedEntries) {
+            if(!candidate.removed && candidate != entry) {
+                if(candidate.human) {
+                    humans.add((HumanInformation)candidate.information);
+                }
+                else {
+                    zombies.add((ZombieInformation)candidate.information);
+                }
+            }
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Moves the anchors of all the agents to their positions, so the lists will
+     * be calculated again.
+     */
+    private void moveAnchors() {
+        Point2D position;
+        
+        for(Entry entry: this.entries.values()) {
+            position      = entry.information.getPosition();
+            entry.anchorX = position.getX();
+            entry.anchorY = position.getY();
+        }
+        
+        this.addedEntries.clear();
+        this.firstAddedOrder = this.nextOrder;
+        this.anchorsMoves++;
+        this.anchorsExceeded = false;
+    }
+    
+    /**
+     * Calculates the list of an agent from the agents located in the cells near
+     * its anchor.
+     * @param entry the entry of the agent
+     * @param distance the perception distance of the agent
+     */
+    private void calculateList(Entry entry, double distance) {
+        final int rows, columns, minRow, maxRow, minColumn, maxColumn;
+        final double listDistance, searchDistance;
+        final List<Entry> humans, zombies;
+        Entry candidate;
+        
+        //The agents are at most half the skin distance from their anchors
+        rows           = this.environment.getRows();
+        columns        = this.environment.getColumns();
+        listDistance   = distance + this.skin;
+        searchDistance = listDistance + this.skin / 2;
+        minRow         = Math.max((int)Math.floor((entry.anchorY - searchDistance) / this.cellHeight), 0);
+        maxRow         = Math.min((int)Math.floor((entry.anchorY + searchDistance) / this.cellHeight), rows - 1);
+        minColumn      = Math.max((int)Math.floor((entry.anchorX - searchDistance) / this.cellWidth), 0);
+        maxColumn      = Math.min((int)Math.floor((entry.anchorX + searchDistance) / this.cellWidth), columns - 1);
+        humans         = new ArrayList<>();
+        zombies        = new ArrayList<>();
+        
+        for(int row = minRow; row <= maxRow; row++) {
+            for(int column = minColumn; column <= maxColumn; column++) {
+                for(HumanAgent human: this.environment.getCell(row, column).getHumans()) {
+                    candidate = this.entries.get(human);
+                    
+                    if(this.isListCandidate(entry, candidate, listDistance)) {
+                        humans.add(candidate);
+                    }
+                }
+                
+                for(ZombieAgent zombie: this.environment.getCell(row, column).getZombies()) {
+                    candidate = this.entries.get(zombie);
+                    
+                    if(this.isListCandidate(entry, candidate, listDistance)) {
+                        zombies.add(candidate);
+                    }
+                }
+            }
+        }
+        
+        entry.humans      = humans.toArray(new Entry[humans.size()]);
+        entry.zombies     = zombies.toArray(new Entry[zombies.size()]);
+        entry.distance    = distance;
+        entry.anchorsMove = this.anchorsMoves;
+        
+        Arrays.sort(entry.humans, ADDITION_ORDER);
+        Arrays.sort(entry.zombies, ADDITION_ORDER);
+    }
+    
+    /**
+     * Returns if an agent has to be included in the list of another agent: it 
+     * isn't the agent itself, it isn't added after the last move of the anchors
+     * and the distance between their anchors is lower than the list distance.
+     * @param entry the entry of the agent whose list is calculated
+     * @param candidate the entry of the agent
+     * @param listDistance the distance of the list
+     * @return <code>true</code> if the agent has to be included in the list
+     */
+    private boolean isListCandidate(Entry entry, Entry candidate, double listDistance) {
+        return candidate != entry && candidate.order < this.firstAddedOrder
+               && Point2D.distance(entry.anchorX, entry.anchorY, candidate.anchorX, candidate.anchorY) <= listDistance;
+    }
+    
+    //Private Classes
+    /**
+     * The anchor and the list of an agent.
+     */
+    private static class Entry {
+        /**
+         * Information of the agent.
+         */
+        private final BaseInformation information;
+        
+        /**
+         * Boolean value indicating if the agent is a human.
+         */
+        private final boolean human;
+        
+        /**
+         * Order of addition of the agent.
+         */
+        private final long order;
+        
+        /**
+         * Coordinates of the anchor of the agent.
+         */
+        private double anchorX, anchorY;
+        
+        /**
+         * Boolean value indicating if the agent has been removed.
+         */
+        private boolean removed;
+        
+        /**
+         * Human and zombie candidates of the list (by order of addition).
+         */
+        private Entry[] humans, zombies;
+        
+        /**
+         * Perception distance of the list.
+         */
+        private double distance;
+        
+        /**
+         * Number of moves of the anchors when the list was calculated.
+         */
+        private int anchorsMove;
+        
+        public Entry(BaseAgent<?, ?> agent, BaseInformation information, long order) {
+            this.information = information;
+            this.human       = AgentsUtils.isHuman(agent);
+            this.order       = order;
+            this.anchorX     = information.getPosition().getX();
+            this.anchorY     = information.getPosition().getY();
+            this.anchorsMove = -1;
+        }
+    }
+}
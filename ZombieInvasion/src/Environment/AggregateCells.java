@@ -0,0 +1,484 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Agents.Base.BaseInformation;
+import Agents.Human.HumanHealthStatus;
+import Agents.Human.HumanInformation;
+import Agents.Zombie.ZombieInformation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class contains the healthy humans and the zombies of the cells that are
+ * far from the places where humans and zombies can meet, which are kept as the 
+ * number of agents of each kind of each cell instead of as agents. Every phase 
+ * a part of the agents of each cell drifts to the neighbouring cells, and the 
+ * cells where humans and zombies come close enough are expanded again into agents.
+ * It also counts all the healthy humans and zombies (aggregated or not), so it 
+ * can tell in constant time if both kinds are near a cell.
+ * @author Xavier
+ */
+class AggregateCells {
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Moves between the cells blocked by the walls or by the inaccessible cells.
+     */
+    private final CellPassages passages;
+    
+    /**
+     * Number of cells around a cell where healthy humans and zombies must be to
+     * expand the cell, and where they mustn't be to aggregate it again.
+     */
+    private final int expandDistance, collapseDistance;
+    
+    /**
+     * Probabilities that an aggregated healthy human and an aggregated zombie
+     * leave their cell in a phase.
+     */
+    private final double humanLeaveProbability, zombieLeaveProbability;
+    
+    /**
+     * Number of aggregated healthy humans and zombies of each cell 
+     * (indexed by <code>row * columns + column</code>).
+     */
+    private final int[] healthyHumans, zombies;
+    
+    /**
+     * Number of aggregated healthy humans and zombies arriving to each cell 
+     * during the drift of a phase.
+     */
+    private final int[] arrivingHealthyHumans, arrivingZombies;
+    
+    /**
+     * Summed-area tables of all the healthy humans and zombies: the position 
+     * <code>row * (columns + 1) + column</code> contains the number of agents 
+     * of the cells above and to the left of that row and column.
+     */
+    private final int[] healthyHumansSums, zombiesSums;
+    
+    /**
+     * Information objects that stand for the aggregated healthy humans and zombies
+     * of each cell in the information of the environment, by cell index (they are
+     * kept while the cell has aggregated agents, so the successive informations 
+     * of the environment show the same objects for the same aggregated agents).
+     */
+    private final Map<Integer, List<HumanInformation>> healthyHumansInformation;
+    private final Map<Integer, List<ZombieInformation>> zombiesInformation;
+    
+    //Public Constructors
+    public AggregateCells(CellPassages passages, int expandDistance, double humanLeaveProbability, 
+                          double zombieLeaveProbability) {
+        
+        this.rows                   = passages.getRows();
+        this.columns                = passages.getColumns();
+        this.passages               = passages;
+        this.expandDistance         = expandDistance;
+        this.collapseDistance       = expandDistance + 1;
+        this.humanLeaveProbability  = humanLeaveProbability;
+        this.zombieLeaveProbability = zombieLeaveProbability;
+        this.healthyHumans          = new int[this.rows * this.columns];
+        this.zombies                = new int[this.rows * this.columns];
+        this.arrivingHealthyHumans  = new int[this.rows * this.columns];
+        this.arrivingZombies        = new int[this.rows * this.columns];
+        this.healthyHumansSums      = new int[(this.rows + 1) * (this.columns + 1)];
+        this.zombiesSums            = new int[(this.rows + 1) * (this.columns + 1)];
+        this.healthyHumansInformation = new HashMap<>();
+        this.zombiesInformation       = new HashMap<>();
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of aggregated healthy humans of a cell.
+     * @param cell the index of the cell (<code>row * columns + column</code>)
+     * @return the number of healthy humans
+     */
+    public int getHealthyHumans(int cell) {
+        return this.healthyHumans[cell];
+    }
+    
+    /**
+     * Returns the number of aggregated zombies of a cell.
+     * @param cell the index of the cell (<code>row * columns + column</code>)
+     * @return the number of zombies
+     */
+    public int getZombies(int cell) {
+        return this.zombies[cell];
+    }
+    
+    /**
+     * Aggregates a healthy human in a cell.
+     * @param cell the index of the cell (<code>row * columns + column</code>)
+     */
+    public void addHealthyHuman(int cell) {
+        this.healthyHumans[cell]++;
+    }
+    
+    /**
+     * Aggregates a zombie in a cell.
+     * @param cell the index of the cell (<code>row * columns + column</code>)
+     */
+    public void addZombie(int cell) {
+        this.zombies[cell]++;
+    }
+    
+    /**
+     * Removes the aggregated agents of a cell, when they are expanded into agents.
+     * @param cell the index of the cell (<code>row * columns + column</code>)
+     */
+    public void clear(int cell) {
+        this.healthyHumans[cell] = 0;
+        this.zombies[cell]       = 0;
+    }
+    
+    /**
+     * Removes the healthy humans and the zombies counted as agents in the cells.
+     */
+    public void clearAgents() {
+        Arrays.fill(this.healthyHumansSums, 0);
+        Arrays.fill(this.zombiesSums, 0);
+    }
+    
+    /**
+     * Counts a healthy human that is kept as an agent in a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void addHealthyHumanAgent(int row, int column) {
+        this.healthyHumansSums[(row + 1) * (this.columns + 1) + column + 1]++;
+    }
+    
+    /**
+     * Counts a zombie that is kept as an agent in a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void addZombieAgent(int row, int column) {
+        this.zombiesSums[(row + 1) * (this.columns + 1) + column + 1]++;
+    }
+    
+    /**
+     * Adds the aggregated agents to the agents counted in the cells and calculates
+     * the summed-area tables of all the healthy humans and zombies.
+     */
+    public void update() {
+        final int width;
+        int sum;
+        
+        width = this.columns + 1;
+        
+        for(int row = 0; row < this.rows; row++) {
+            for(int column = 0; column < this.columns; column++) {
+                sum = (row + 1) * width + column + 1;
+                
+                this.healthyHumansSums[sum] += this.healthyHumans[row * this.columns + column] 
+                                               + this.healthyHumansSums[sum - width] 
+                                               + this.healthyHumansSums[sum - 1]
+                                               - this.healthyHumansSums[sum - width - 1];
+                this.zombiesSums[sum]       += this.zombies[row * this.columns + column] 
+                                               + this.zombiesSums[sum - width] 
+                                               + this.zombiesSums[sum - 1]
+                                               - this.zombiesSums[sum - width - 1];
+            }
+        }
+    }
+    
+    /**
+     * Checks if a cell has to be kept as agents: there are both healthy humans
+     * and zombies near it.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return <code>true</code> if the cell has to be expanded, <code>false</code> otherwise
+     */
+    public boolean isNearFrontier(int row, int column) {
+        return this.containsAgents(this.healthyHumansSums, row, column, this.expandDistance)
+               && this.containsAgents(this.zombiesSums, row, column, this.expandDistance);
+    }
+    
+    /**
+     * Checks if a cell can be aggregated: there aren't both healthy humans and 
+     * zombies near it, a bit farther than the distance that expands the cells.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return <code>true</code> if the cell can be aggregated, <code>false</code> otherwise
+     */
+    public boolean isQuiet(int row, int column) {
+        return !this.containsAgents(this.healthyHumansSums, row, column, this.collapseDistance)
+               || !this.containsAgents(this.zombiesSums, row, column, this.collapseDistance);
+    }
+    
+    /**
+     * Moves a part of the aggregated agents of each cell to its neighbouring cells
+     * (the expected part of the agents that would leave the cell walking in 
+     * random directions, rounded randomly).
+     * @param random the random numbers generator
+     */
+    public void drift(Random random) {
+        Arrays.fill(this.arrivingHealthyHumans, 0);
+        Arrays.fill(this.arrivingZombies, 0);
+        
+        for(int cell = 0; cell < this.healthyHumans.length; cell++) {
+            if(this.healthyHumans[cell] > 0) {
+                this.healthyHumans[cell] -= this.spread(cell, this.healthyHumans[cell], this.humanLeaveProbability, 
+                                                        this.arrivingHealthyHumans, random);
+            }
+            
+            if(this.zombies[cell] > 0) {
+                this.zombies[cell] -= this.spread(cell, this.zombies[cell], this.zombieLeaveProbability, 
+                                                  this.arrivingZombies, random);
+            }
+        }
+        
+        for(int cell = 0; cell < this.healthyHumans.length; cell++) {
+            this.healthyHumans[cell] += this.arrivingHealthyHumans[cell];
+            this.zombies[cell]       += this.arrivingZombies[cell];
+        }
+    }
+    
+    /**
+     * Adds the information of the aggregated healthy humans and zombies to the 
+     * alive population of the information of the environment. The agents of 
+     * each cell are shown at the points of a regular lattice that fills the cell.
+     * @param alive the alive population where the information is added
+     * @param cellWidth the width of a cell
+     * @param cellHeight the height of a cell
+     * @param latencyPeriod the number of phases needed for infected humans to 
+     * become zombies
+     */
+    public void addInformation(Collection<BaseInformation> alive, int cellWidth, int cellHeight, 
+                               int latencyPeriod) {
+        List<HumanInformation> humansInformation;
+        List<ZombieInformation> cellZombiesInformation;
+        int side;
+        
+        for(int cell = 0; cell < this.healthyHumans.length; cell++) {
+            if(this.healthyHumans[cell] == 0) {
+                this.healthyHumansInformation.remove(cell);
+            }
+            
+            if(this.zombies[cell] == 0) {
+                this.zombiesInformation.remove(cell);
+            }
+            
+            if(this.healthyHumans[cell] > 0 || this.zombies[cell] > 0) {
+                side = (int)Math.ceil(Math.sqrt(this.healthyHumans[cell] + this.zombies[cell]));
+                
+                if(this.healthyHumans[cell] > 0) {
+                    humansInformation = this.healthyHumansInformation.get(cell);
+                    
+                    if(humansInformation == null) {
+                        humansInformation = new ArrayList<>();
+                        
+                        this.healthyHumansInformation.put(cell, humansInformation);
+                    }
+                    
+                    while(humansInformation.size() < this.healthyHumans[cell]) {
+                        humansInformation.add(new HumanInformation(HumanHealthStatus.Healthy, 0, 0, latencyPeriod, false, 0));
+                    }
+                    
+                    while(humansInformation.size() > this.healthyHumans[cell]) {
+                        humansInformation.remove(humansInformation.size() - 1);
+                    }
+                    
+                    for(int i = 0; i < humansInformation.size(); i++) {
+                        this.placeInformation(humansInformation.get(i), cell, i, side, cellWidth, cellHeight);
+                    }
+                    
+                    alive.addAll(humansInformation);
+                }
+                
+                if(this.zombies[cell] > 0) {
+                    cellZombiesInformation = this.zombiesInformation.get(cell);
+                    
+                    if(cellZombiesInformation == null) {
+                        cellZombiesInformation = new ArrayList<>();
+                        
+                        this.zombiesInformation.put(cell, cellZombiesInformation);
+                    }
+                    
+                    while(cellZombiesInformation.size() < this.zombies[cell]) {
+                        cellZombiesInformation.add(new ZombieInformation(0, 0));
+                    }
+                    
+                    while(cellZombiesInformation.size() > this.zombies[cell]) {
+                        cellZombiesInformation.remove(cellZombiesInformation.size() - 1);
+                    }
+                    
+                    for(int i = 0; i < cellZombiesInformation.size(); i++) {
+                        this.placeInformation(cellZombiesInformation.get(i), cell, this.healthyHumans[cell] + i, 
+                                              side, cellWidth, cellHeight);
+                    }
+                    
+                    alive.addAll(cellZombiesInformation);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies the aggregated agents of the cells of another environment with the
+     * same dimensions.
+     * @param original the aggregated cells whose agents are copied
+     */
+    public void copyCells(AggregateCells original) {
+        System.arraycopy(original.healthyHumans, 0, this.healthyHumans, 0, this.healthyHumans.length);
+        System.arraycopy(original.zombies, 0, this.zombies, 0, this.zombies.length);
+    }
+    
+    /**
+     * Writes the aggregated agents of the cells in a checkpoint (only the cells
+     * with aggregated agents).
+     * @param output the checkpoint output
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCells(CheckpointOutput output) throws IOException {
+        int aggregatedCells;
+        
+        aggregatedCells = 0;
+        
+        for(int cell = 0; cell < this.healthyHumans.length; cell++) {
+            if(this.healthyHumans[cell] > 0 || this.zombies[cell] > 0) {
+                aggregatedCells++;
+            }
+        }
+        
+        output.writeInt(aggregatedCells);
+        
+        for(int cell = 0; cell < this.healthyHumans.length; cell++) {
+            if(this.healthyHumans[cell] > 0 || this.zombies[cell] > 0) {
+                output.writeInt(cell);
+                output.writeInt(this.healthyHumans[cell]);
+                output.writeInt(this.zombies[cell]);
+            }
+        }
+    }
+    
+    /**
+     * Reads the aggregated agents of the cells from a checkpoint.
+     * @param input the checkpoint input
+     * @throws IOException if an I/O error occurs or the cells read aren't valid
+     */
+    public void readCells(CheckpointInput input) throws IOException {
+        final int aggregatedCells;
+        int cell;
+        
+        aggregatedCells = input.readNonNegativeInt();
+        
+        for(int i = 0; i < aggregatedCells; i++) {
+            cell = input.readNonNegativeInt();
+            
+            if(cell >= this.healthyHumans.length || !this.passages.isAccessible(cell / this.columns, cell % this.columns)) {
+                throw new IOException("El fitxer de punt de control està malmès.");
+            }
+            
+            this.healthyHumans[cell] = input.readNonNegativeInt();
+            this.zombies[cell]       = input.readNonNegativeInt();
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Moves the information of an aggregated agent to its point of the lattice 
+     * of its cell.
+     * @param information the information of the agent
+     * @param cell the index of the cell
+     * @param index the index of the agent in the cell
+     * @param side the number of points of each side of the lattice
+     * @param cellWidth the width of a cell
+     * @param cellHeight the height of a cell
+     */
+    private void placeInformation(BaseInformation information, int cell, int index, int side, 
+                                  int cellWidth, int cellHeight) {
+        final double x, y;
+        
+        x = (cell % this.columns + (index % side + 0.5) / side) * cellWidth;
+        y = (cell / this.columns + (index / side + 0.5) / side) * cellHeight;
+        
+        information.getPosition().setLocation(x, y);
+    }
+    
+    /**
+     * Checks if there are agents in the cells around a cell.
+     * @param sums the summed-area table of the agents
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @param distance the number of cells around the cell
+     * @return <code>true</code> if any cell around contains agents, <code>false</code> otherwise
+     */
+    private boolean containsAgents(int[] sums, int row, int column, int distance) {
+        final int width, minRow, maxRow, minColumn, maxColumn;
+        
+        width     = this.columns + 1;
+        minRow    = Math.max(row - distance, 0);
+        maxRow    = Math.min(row + distance, this.rows - 1);
+        minColumn = Math.max(column - distance, 0);
+        maxColumn = Math.min(column + distance, this.columns - 1);
+        
+        return sums[(maxRow + 1) * width + maxColumn + 1] - sums[minRow * width + maxColumn + 1]
+               - sums[(maxRow + 1) * width + minColumn] + sums[minRow * width + minColumn] > 0;
+    }
+    
+    /**
+     * Moves the aggregated agents of a cell that leave it to the neighbouring
+     * cells that can be reached from it, evenly.
+     * @param cell the index of the cell
+     * @param agents the number of agents of the cell
+     * @param leaveProbability the probability that an agent leaves the cell
+     * @param arriving the number of agents arriving to each cell
+     * @param random the random numbers generator
+     * @return the number of agents that leave the cell
+     */
+    private int spread(int cell, int agents, double leaveProbability, int[] arriving, Random random) {
+        final int blocked, openDirections;
+        int leaving, share, remainder, first, openDirection;
+        
+        blocked        = this.passages.getBlockedDirections(cell);
+        openDirections = CellPassages.DIRECTIONS - Integer.bitCount(blocked);
+        leaving        = 0;
+        
+        if(openDirections > 0) {
+            leaving       = Math.min(agents, (int)(agents * leaveProbability + random.nextDouble()));
+            share         = leaving / openDirections;
+            remainder     = leaving % openDirections;
+            first         = remainder > 0 ? random.nextInt(openDirections) : 0;
+            openDirection = 0;
+            
+            for(int direction = 0; direction < CellPassages.DIRECTIONS; direction++) {
+                if((blocked & (1 << direction)) == 0) {
+                    arriving[this.passages.getNeighbour(cell, direction)] += 
+                            share + ((openDirection - first + openDirections) % openDirections < remainder ? 1 : 0);
+                    
+                    openDirection++;
+                }
+            }
+        }
+        
+        return leaving;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Geometry.Cell;
+import Geometry.GeometryUtils;
+import java.awt.geom.Line2D;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * This class contains the moves between neighbouring cells of the environment
+ * that are blocked by the walls or by the inaccessible cells. The fields computed 
+ * on the cells (distances, scents...) use it to not cross the walls.
+ * The cells are indexed by <code>row * columns + column</code>.
+ * @author Xavier
+ */
+class CellPassages {
+    //Constants
+    /**
+     * Row and column offsets of the neighbouring cells of each direction. The 
+     * opposite direction of the direction <code>d</code> is the direction 
+     * <code>DIRECTIONS - 1 - d</code>.
+     */
+    public final static int[] ROW_OFFSETS    = {-1, -1, -1,  0, 0,  1, 1, 1},
+                              COLUMN_OFFSETS = {-1,  0,  1, -1, 1, -1, 0, 1};
+    
+    /**
+     * Number of directions.
+     */
+    public final static int DIRECTIONS = ROW_OFFSETS.length;
+    
+    /**
+     * Directions to the horizontal and vertical neighbouring cells.
+     */
+    public final static int NORTH = 1, WEST = 3, EAST = 4, SOUTH = 6;
+    
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Dimensions of the cells.
+     */
+    private final double cellWidth, cellHeight;
+    
+    /**
+     * Bits of the inaccessible cells.
+     */
+    private final BitSet inaccessibleCells;
+    
+    /**
+     * Bits of the directions of each cell whose move to the neighbouring cell is blocked.
+     */
+    private final byte[] blockedDirections;
+    
+    /**
+     * Boolean value indicating if the walls have changed since the blocked moves
+     * were calculated.
+     */
+    private boolean wallsChanged;
+    
+    //Public Constructors
+    public CellPassages(int rows, int columns, double cellWidth, double cellHeight, BitSet inaccessibleCells) {
+        this.rows              = rows;
+        this.columns           = columns;
+        this.cellWidth         = cellWidth;
+        this.cellHeight        = cellHeight;
+        this.inaccessibleCells = inaccessibleCells;
+        this.blockedDirections = new byte[rows * columns];
+        this.wallsChanged      = true;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of rows of the environment.
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+    
+    /**
+     * Returns the number of columns of the environment.
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+    
+    /**
+     * Returns the width of the cells.
+     * @return the width
+     */
+    public double getCellWidth() {
+        return this.cellWidth;
+    }
+    
+    /**
+     * Returns the height of the cells.
+     * @return the height
+     */
+    public double getCellHeight() {
+        return this.cellHeight;
+    }
+    
+    /**
+     * Checks if a cell is inside the environment and accessible.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return <code>true</code> if the cell is accessible, <code>false</code> otherwise
+     */
+    public boolean isAccessible(int row, int column) {
+        return row >= 0 && row < this.rows && column >= 0 && column < this.columns 
+               && !this.inaccessibleCells.get(row * this.columns + column);
+    }
+    
+    /**
+     * Returns the bits of the directions whose move from a cell is blocked.
+     * @param cell the cell
+     * @return the bits of the blocked directions (the bit <code>1 << d</code> 
+     * is set if the direction <code>d</code> is blocked)
+     */
+    public int getBlockedDirections(int cell) {
+        return this.blockedDirections[cell] & 0xFF;
+    }
+    
+    /**
+     * Returns the neighbouring cell of a cell in a direction.
+     * @param cell the cell
+     * @param direction the direction
+     * @return the neighbouring cell
+     */
+    public int getNeighbour(int cell, int direction) {
+        return cell + ROW_OFFSETS[direction] * this.columns + COLUMN_OFFSETS[direction];
+    }
+    
+    /**
+     * Reports that the walls of the environment have changed, so the blocked moves
+     * will be calculated again in the next update.
+     */
+    public void invalidateWalls() {
+        this.wallsChanged = true;
+    }
+    
+    /**
+     * Calculates again the blocked moves if the walls have changed.
+     * @param walls the walls of the environment
+     */
+    public void update(Collection<EnvironmentWall> walls) {
+        if(this.wallsChanged) {
+            this.calculateBlockedDirections(walls);
+            
+            this.wallsChanged = false;
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Calculates the moves between neighbouring cells that are blocked: the moves
+     * outside the environment, to inaccessible cells, the diagonal moves that 
+     * cut the corner of an inaccessible cell and the moves whose segment between 
+     * the centers of the cells crosses a wall.
+     * @param walls the walls of the environment
+     */
+    private void calculateBlockedDirections(Collection<EnvironmentWall> walls) {
+        int neighbourRow, neighbourColumn, blocked;
+        
+        for(int row = 0; row < this.rows; row++) {
+            for(int column = 0; column < this.columns; column++) {
+                blocked = 0;
+                
+                for(int direction = 0; direction < DIRECTIONS; direction++) {
+                    neighbourRow    = row + ROW_OFFSETS[direction];
+                    neighbourColumn = column + COLUMN_OFFSETS[direction];
+                    
+                    if(!this.isAccessible(neighbourRow, neighbourColumn) 
+                       || !this.isAccessible(row, neighbourColumn) 
+                       || !this.isAccessible(neighbourRow, column)) {
+                        
+                        blocked |= 1 << direction;
+                    }
+                }
+                
+                this.blockedDirections[row * this.columns + column] = (byte)blocked;
+            }
+        }
+        
+        //A wall can only block the moves from the cells it crosses or from their neighbouring cells
+        synchronized(walls) {
+            for(EnvironmentWall wall: walls) {
+                for(Cell cell: GeometryUtils.getGridCellsCrossedByLine(wall, this.cellWidth, this.cellHeight)) {
+                    for(int row = cell.getRow() - 1; row <= cell.getRow() + 1; row++) {
+                        for(int column = cell.getColumn() - 1; column <= cell.getColumn() + 1; column++) {
+                            if(this.isAccessible(row, column)) {
+                                this.blockDirectionsCrossed(row, column, wall);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Blocks the moves from a cell whose segment between the centers of the 
+     * cells crosses a wall (and the opposite moves).
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @param wall the wall
+     */
+    private void blockDirectionsCrossed(int row, int column, Line2D wall) {
+        final int cell;
+        final double centerX, centerY;
+        int neighbour;
+        
+        cell    = row * this.columns + column;
+        centerX = (column + 0.5) * this.cellWidth;
+        centerY = (row + 0.5) * this.cellHeight;
+        
+        for(int direction = 0; direction < DIRECTIONS; direction++) {
+            if((this.blockedDirections[cell] & (1 << direction)) == 0 
+               && wall.intersectsLine(centerX, centerY, 
+                                      centerX + COLUMN_OFFSETS[direction] * this.cellWidth, 
+                                      centerY + ROW_OFFSETS[direction] * this.cellHeight)) {
+                
+                neighbour = this.getNeighbour(cell, direction);
+                
+                this.blockedDirections[cell]      |= 1 << direction;
+                this.blockedDirections[neighbour] |= 1 << (DIRECTIONS - 1 - direction);
+            }
+        }
+    }
+}
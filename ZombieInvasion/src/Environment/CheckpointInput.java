@@ -0,0 +1,168 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered reader of the primitive values of a checkpoint from a channel.
+ * @author Xavier
+ */
+class CheckpointInput {
+    //Constants
+    private final static int BUFFER_SIZE = 1 << 16;
+    
+    //Attributes
+    /**
+     * The channel where the values are read from.
+     */
+    private final ReadableByteChannel channel;
+    
+    /**
+     * Buffer of the values read and not consumed.
+     */
+    private final ByteBuffer buffer;
+    
+    //Public Constructors
+    public CheckpointInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer  = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        
+        //The buffer is initially empty
+        this.buffer.flip();
+    }
+    
+    //Public Methods
+    /**
+     * Reads a byte value.
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public int readByte() throws IOException {
+        this.ensureAvailable(1);
+        
+        return this.buffer.get();
+    }
+    
+    /**
+     * Reads a boolean value.
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean readBoolean() throws IOException {
+        return this.readByte() != 0;
+    }
+    
+    /**
+     * Reads an int value.
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public int readInt() throws IOException {
+        this.ensureAvailable(4);
+        
+        return this.buffer.getInt();
+    }
+    
+    /**
+     * Reads a long value.
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public long readLong() throws IOException {
+        this.ensureAvailable(8);
+        
+        return this.buffer.getLong();
+    }
+    
+    /**
+     * Reads a double value.
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public double readDouble() throws IOException {
+        this.ensureAvailable(8);
+        
+        return this.buffer.getDouble();
+    }
+    
+    /**
+     * Reads an array of bytes preceded by its length.
+     * @return the array
+     * @throws IOException if an I/O error occurs
+     */
+    public byte[] readBytes() throws IOException {
+        final byte[] bytes;
+        int offset, length;
+        
+        bytes  = new byte[this.readNonNegativeInt()];
+        offset = 0;
+        
+        while(offset < bytes.length) {
+            this.ensureAvailable(1);
+            
+            length = Math.min(this.buffer.remaining(), bytes.length - offset);
+            
+            this.buffer.get(bytes, offset, length);
+            
+            offset += length;
+        }
+        
+        return bytes;
+    }
+    
+    /**
+     * Reads a number of elements (it can't be negative).
+     * @return the number
+     * @throws IOException if an I/O error occurs or the number is negative
+     */
+    public int readNonNegativeInt() throws IOException {
+        final int value;
+        
+        value = this.readInt();
+        
+        if(value < 0) {
+            throw new IOException("El fitxer de punt de control està malmès.");
+        }
+        
+        return value;
+    }
+    
+    //Private Methods
+    /**
+     * Reads values from the channel until the buffer contains the number of bytes needed.
+     * @param bytes the number of bytes needed
+     * @throws IOException if an I/O error occurs or the end of the channel is reached
+     */
+    private void ensureAvailable(int bytes) throws IOException {
+        if(this.buffer.remaining() < bytes) {
+            this.buffer.compact();
+            
+            while(this.buffer.position() < bytes) {
+                if(this.channel.read(this.buffer) < 0) {
+                    throw new EOFException("El fitxer de punt de control està incomplet.");
+                }
+            }
+            
+            this.buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered writer of the primitive values of a checkpoint into a channel.
+ * @author Xavier
+ */
+class CheckpointOutput {
+    //Constants
+    private final static int BUFFER_SIZE = 1 << 16;
+    
+    //Attributes
+    /**
+     * The channel where the values are written.
+     */
+    private final WritableByteChannel channel;
+    
+    /**
+     * Buffer of the values pending to be written.
+     */
+    private final ByteBuffer buffer;
+    
+    //Public Constructors
+    public CheckpointOutput(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer  = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+    
+    //Public Methods
+    /**
+     * Writes a byte value.
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeByte(int value) throws IOException {
+        this.ensureCapacity(1);
+        this.buffer.put((byte)value);
+    }
+    
+    /**
+     * Writes a boolean value.
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        this.writeByte(value ? 1 : 0);
+    }
+    
+    /**
+     * Writes an int value.
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeInt(int value) throws IOException {
+        this.ensureCapacity(4);
+        this.buffer.putInt(value);
+    }
+    
+    /**
+     * Writes a long value.
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeLong(long value) throws IOException {
+        this.ensureCapacity(8);
+        this.buffer.putLong(value);
+    }
+    
+    /**
+     * Writes a double value.
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeDouble(double value) throws IOException {
+        this.ensureCapacity(8);
+        this.buffer.putDouble(value);
+    }
+    
+    /**
+     * Writes an array of bytes preceded by its length.
+     * @param bytes the array
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        int offset, length;
+        
+        this.writeInt(bytes.length);
+        
+        offset = 0;
+        
+        while(offset < bytes.length) {
+            this.ensureCapacity(1);
+            
+            length  = Math.min(this.buffer.remaining(), bytes.length - offset);
+            
+            this.buffer.put(bytes, offset, length);
+            
+            offset += length;
+        }
+    }
+    
+    /**
+     * Writes into the channel all the values pending.
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        
+        while(this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        
+        this.buffer.clear();
+    }
+    
+    //Private Methods
+    /**
+     * Writes the pending values into the channel if the buffer hasn't enough space.
+     * @param bytes the number of bytes needed
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if(this.buffer.remaining() < bytes) {
+            this.flush();
+        }
+    }
+}
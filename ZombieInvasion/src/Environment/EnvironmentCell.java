@@ -25,44 +25,49 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 /**
- * This class contains the elements of an environment cell
+ * This class contains the elements of an environment cell. The group of agents
+ * and the list of destructible walls are created the first time an element is
+ * added, so the cells that never contain agents or walls only take the space of
+ * the cell itself.
  * @author Xavier
  */
 public class EnvironmentCell {
     //Attributes
     /**
-     * Group of agents located in the cell.
+     * Group of agents located in the cell (<code>null</code> until an agent is added).
      */
-    private final AgentsGroup agents;
+    private AgentsGroup agents;
     
     /**
-     * List of the destructible walls that cross the cell.
+     * List of the destructible walls that cross the cell (<code>null</code> until 
+     * a wall is added).
      */
-    private final Collection<EnvironmentWall> destructibleWalls; 
+    private Collection<EnvironmentWall> destructibleWalls; 
     
     //Public Constructors
     public EnvironmentCell() {
-        this.agents              = new AgentsGroup();
-        this.destructibleWalls   = Collections.synchronizedList(new ArrayList<EnvironmentWall>());
+        this.agents            = null;
+        this.destructibleWalls = null;
     }
     
     //Public Methods
     /**
-     * Returns a list of the humans located in the cell.
+     * Returns a list of the humans located in the cell, in the order they arrived.
      * @return the list of humans
      */
-    public Collection<HumanAgent> getHumans() {
-        return this.agents.getHumans();
+    public List<HumanAgent> getHumans() {
+        return this.agents == null ? Collections.<HumanAgent>emptyList() : this.agents.getHumans();
     }
     
     /**
-     * Returns a list of the zombies located in the cell.
+     * Returns a list of the zombies located in the cell, in the order they arrived.
      * @return the list of zombies
      */
-    public Collection<ZombieAgent> getZombies() {
-        return this.agents.getZombies();
+    public List<ZombieAgent> getZombies() {
+        return this.agents == null ? Collections.<ZombieAgent>emptyList() : this.agents.getZombies();
     }
     
     /**
@@ -70,6 +75,10 @@ public class EnvironmentCell {
      * @return the iterator
      */
     public Iterator<BaseAgent> getAgentsIterator() {
+        if(this.agents == null) {
+            return Collections.emptyIterator();
+        }
+        
         return this.agents.iterator();
     }
     
@@ -78,7 +87,7 @@ public class EnvironmentCell {
      * @return the list of destructible walls
      */
     public Collection<EnvironmentWall> getDestructibleWalls() {
-        return this.destructibleWalls;
+        return this.destructibleWalls == null ? Collections.<EnvironmentWall>emptyList() : this.destructibleWalls;
     }
     
     /**
@@ -102,7 +111,7 @@ public class EnvironmentCell {
      * @return the number of destructible walls
      */
     public int getNumberOfDestructibleWalls() {
-        return this.destructibleWalls.size();
+        return this.getDestructibleWalls().size();
     }
     
     /**
@@ -110,7 +119,7 @@ public class EnvironmentCell {
      * @param human the human to add
      */
     public void add(HumanAgent human) {
-        this.getHumans().add(human);
+        this.getAgentsGroup().getHumans().add(human);
     }
     
     /**
@@ -118,7 +127,7 @@ public class EnvironmentCell {
      * @param zombie the zombie to add
      */
     public void add(ZombieAgent zombie) {
-        this.getZombies().add(zombie);
+        this.getAgentsGroup().getZombies().add(zombie);
     }
     
     /**
@@ -140,6 +149,10 @@ public class EnvironmentCell {
      */
     public void add(EnvironmentWall wall) {
         if(wall.isDestructible()) {
+            if(this.destructibleWalls == null) {
+                this.destructibleWalls = Collections.synchronizedList(new ArrayList<EnvironmentWall>());
+            }
+            
             this.destructibleWalls.add(wall);
         } 
     }
@@ -178,13 +191,26 @@ public class EnvironmentCell {
      * @param wall  the wall to remove
      */
     public void remove(EnvironmentWall wall) {
-        this.destructibleWalls.remove(wall);
+        this.getDestructibleWalls().remove(wall);
     }
     
     /**
      * Remove all the destructible walls in the cell.
      */
     public void removeAllDestructibleWalls() {
-        this.destructibleWalls.clear();
+        this.getDestructibleWalls().clear();
+    }
+    
+    //Private Methods
+    /**
+     * Returns the group of agents of the cell, which is created the first time.
+     * @return the group of agents
+     */
+    private AgentsGroup getAgentsGroup() {
+        if(this.agents == null) {
+            this.agents = new AgentsGroup();
+        }
+        
+        return this.agents;
     }
 }
@@ -0,0 +1,166 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+/**
+ * This class contains the cells of the environment, stored in square chunks 
+ * that are created the first time one of their cells is used. The cells of 
+ * the chunks that have never contained agents or walls don't exist, so the 
+ * memory used depends on the area occupied and not on the size of the 
+ * environment.
+ * @author Xavier
+ */
+class EnvironmentCellGrid {
+    //Constants
+    /**
+     * Base 2 logarithm of the number of rows and columns of cells of a chunk.
+     */
+    private final static int CHUNK_BITS = 6;
+    
+    /**
+     * Number of rows and columns of cells of a chunk.
+     */
+    private final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Number of columns of chunks.
+     */
+    private final int chunkColumns;
+    
+    /**
+     * Cells of each chunk (indexed by <code>chunkRow * chunkColumns + chunkColumn</code>),
+     * by rows (<code>null</code> for the chunks not created).
+     */
+    private final EnvironmentCell[][] chunks;
+    
+    //Public Constructors
+    public EnvironmentCellGrid(int rows, int columns) {
+        this.rows         = rows;
+        this.columns      = columns;
+        this.chunkColumns = (columns + CHUNK_SIZE - 1) >> CHUNK_BITS;
+        this.chunks       = new EnvironmentCell[((rows + CHUNK_SIZE - 1) >> CHUNK_BITS) * this.chunkColumns][];
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of rows of the environment.
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+    
+    /**
+     * Returns the number of columns of the environment.
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+    
+    /**
+     * Returns a cell, creating its chunk if it doesn't exist.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the cell
+     */
+    public EnvironmentCell getCell(int row, int column) {
+        final int chunk;
+        
+        if(row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+            throw new IndexOutOfBoundsException("La cel·la (" + row + ", " + column + ") és fora de l'entorn.");
+        }
+        
+        chunk = this.getChunkIndex(row, column);
+        
+        if(this.chunks[chunk] == null) {
+            this.createChunk(chunk);
+        }
+        
+        return this.chunks[chunk][((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1))];
+    }
+    
+    /**
+     * Returns a cell if its chunk has been created.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the cell, or <code>null</code> if its chunk doesn't exist (the
+     * cell has never contained agents nor walls)
+     */
+    public EnvironmentCell getCreatedCell(int row, int column) {
+        final EnvironmentCell[] chunk;
+        
+        chunk = this.chunks[this.getChunkIndex(row, column)];
+        
+        return chunk == null ? null : chunk[((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1))];
+    }
+    
+    /**
+     * Returns the first column of a row, starting from a column, whose cell 
+     * exists. The created cells of a row are visited in order with:
+     * <code>for(column = nextCreatedColumn(row, 0); column &lt; columns; column = nextCreatedColumn(row, column + 1))</code>
+     * @param row the row
+     * @param column the first column looked at
+     * @return the column, or the number of columns if no cell from the column exists
+     */
+    public int nextCreatedColumn(int row, int column) {
+        int nextColumn;
+        
+        nextColumn = column;
+        
+        while(nextColumn < this.columns && this.chunks[this.getChunkIndex(row, nextColumn)] == null) {
+            //Skip to the first column of the next chunk
+            nextColumn = ((nextColumn >> CHUNK_BITS) + 1) << CHUNK_BITS;
+        }
+        
+        return Math.min(nextColumn, this.columns);
+    }
+    
+    //Private Methods
+    /**
+     * Returns the index of the chunk of a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the index of the chunk
+     */
+    private int getChunkIndex(int row, int column) {
+        return (row >> CHUNK_BITS) * this.chunkColumns + (column >> CHUNK_BITS);
+    }
+    
+    /**
+     * Creates the cells of a chunk.
+     * @param chunk the index of the chunk
+     */
+    private void createChunk(int chunk) {
+        final EnvironmentCell[] cells;
+        
+        cells = new EnvironmentCell[CHUNK_SIZE * CHUNK_SIZE];
+        
+        for(int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = new EnvironmentCell();
+        }
+        
+        this.chunks[chunk] = cells;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Agents.Human.HumanPerceptions;
+
+/**
+ * This class contains, for each cell of the environment, the weighted sum of the 
+ * directions to escape from the zombies that a human located at the center of the 
+ * cell would see. The humans take from it the zombies that aren't near, so the cost 
+ * of escaping doesn't grow with the number of zombies seen, and only look at the 
+ * zombies of the near cells one by one.
+ * The contribution of the zombies of a cell is a fixed stamp (the zombies are 
+ * located at the center of their cell) that is added or subtracted when the number 
+ * of zombies of the cell changes. The sums are kept as fixed point integers, so 
+ * they don't depend on the order of the changes.
+ * @author Xavier
+ */
+class HumanDangerField {
+    //Constants
+    /**
+     * Number of rings of cells around the cell of a human whose zombies are 
+     * looked at one by one.
+     */
+    private final static int NEAR_CELLS = 1;
+    
+    /**
+     * Factor of the fixed point representation of the sums.
+     */
+    private final static double SCALE = 1024;
+    
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Number of rows and columns of the stamp at each side of its center.
+     */
+    private final int stampRows, stampColumns;
+    
+    /**
+     * Weighted X and Y components of the direction to escape from a zombie, and
+     * weight of the zombie, for each offset between the cell of the human and the 
+     * cell of the zombie (indexed by <code>(rowOffset + stampRows) * (2 * stampColumns + 1) 
+     * + columnOffset + stampColumns</code>).
+     */
+    private final long[] stampX, stampY, stampWeight;
+    
+    /**
+     * Sums of the weighted X and Y components of the directions to escape and 
+     * of the weights of each cell (indexed by <code>row * columns + column</code>).
+     */
+    private final long[] sumsX, sumsY, sumsWeight;
+    
+    /**
+     * Number of zombies of each cell included in the sums.
+     */
+    private final int[] zombies;
+    
+    //Public Constructors
+    public HumanDangerField(int rows, int columns, double cellWidth, double cellHeight, int visionDistance) {
+        final int stampWidth;
+        double distance, weight;
+        int index;
+        
+        this.rows         = rows;
+        this.columns      = columns;
+        this.stampRows    = Math.max((int)Math.ceil(visionDistance / cellHeight), NEAR_CELLS);
+        this.stampColumns = Math.max((int)Math.ceil(visionDistance / cellWidth), NEAR_CELLS);
+        stampWidth        = 2 * this.stampColumns + 1;
+        this.stampX       = new long[(2 * this.stampRows + 1) * stampWidth];
+        this.stampY       = new long[this.stampX.length];
+        this.stampWeight  = new long[this.stampX.length];
+        this.sumsX        = new long[rows * columns];
+        this.sumsY        = new long[rows * columns];
+        this.sumsWeight   = new long[rows * columns];
+        this.zombies      = new int[rows * columns];
+        
+        //The weight of a zombie is the same that the human uses with the zombies seen
+        for(int rowOffset = - this.stampRows; rowOffset <= this.stampRows; rowOffset++) {
+            for(int columnOffset = - this.stampColumns; columnOffset <= this.stampColumns; columnOffset++) {
+                distance = Math.hypot(columnOffset * cellWidth, rowOffset * cellHeight);
+                
+                if(distance > 0 && distance <= visionDistance) {
+                    index  = (rowOffset + this.stampRows) * stampWidth + columnOffset + this.stampColumns;
+                    weight = (visionDistance + 1) - distance;
+                    
+                    this.stampX[index]      = Math.round(SCALE * weight * columnOffset * cellWidth / distance);
+                    this.stampY[index]      = Math.round(SCALE * weight * rowOffset * cellHeight / distance);
+                    this.stampWeight[index] = Math.round(SCALE * weight);
+                }
+            }
+        }
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of rings of cells around the cell of a human whose
+     * zombies must be looked at one by one.
+     * @return the number of rings of cells
+     */
+    public int getNearCells() {
+        return NEAR_CELLS;
+    }
+    
+    /**
+     * Updates the sums with the cells whose number of zombies has changed (the
+     * cells not created have never contained zombies).
+     * @param environment the cells of the environment
+     */
+    public void update(EnvironmentCellGrid environment) {
+        int difference;
+        
+        for(int row = 0; row < this.rows; row++) {
+            for(int column = environment.nextCreatedColumn(row, 0); column < this.columns; 
+                column = environment.nextCreatedColumn(row, column + 1)) {
+                
+                difference = environment.getCell(row, column).getNumberOfZombies() - this.zombies[row * this.columns + column];
+                
+                if(difference != 0) {
+                    this.addZombies(row, column, difference);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sets in the perceptions of a human the weighted sum of the directions to 
+     * escape from the zombies that aren't in the near cells.
+     * @param perceptions the perceptions of the human
+     * @param row the row of the cell of the human
+     * @param column the column of the cell of the human
+     */
+    public void setFarZombies(HumanPerceptions perceptions, int row, int column) {
+        final int cell;
+        long x, y, weight;
+        int index, cellZombies;
+        
+        cell   = row * this.columns + column;
+        x      = this.sumsX[cell];
+        y      = this.sumsY[cell];
+        weight = this.sumsWeight[cell];
+        
+        //Remove the contribution of the zombies of the near cells
+        for(int nearRow = Math.max(row - NEAR_CELLS, 0); nearRow <= Math.min(row + NEAR_CELLS, this.rows - 1); nearRow++) {
+            for(int nearColumn = Math.max(column - NEAR_CELLS, 0); nearColumn <= Math.min(column + NEAR_CELLS, this.columns - 1); 
+                nearColumn++) {
+                
+                cellZombies = this.zombies[nearRow * this.columns + nearColumn];
+                
+                if(cellZombies > 0) {
+                    index   = this.getStampIndex(row - nearRow, column - nearColumn);
+                    x      -= cellZombies * this.stampX[index];
+                    y      -= cellZombies * this.stampY[index];
+                    weight -= cellZombies * this.stampWeight[index];
+                }
+            }
+        }
+        
+        perceptions.setFarZombies(x / SCALE, y / SCALE, weight / SCALE);
+    }
+    
+    //Private Methods
+    /**
+     * Adds the stamp of some zombies located at a cell to the sums of the cells
+     * around it.
+     * @param row the row of the cell of the zombies
+     * @param column the column of the cell of the zombies
+     * @param count the number of zombies added (negative if they are removed)
+     */
+    private void addZombies(int row, int column, int count) {
+        final int minRow, maxRow, minColumn, maxColumn;
+        int cell, index;
+        
+        minRow    = Math.max(row - this.stampRows, 0);
+        maxRow    = Math.min(row + this.stampRows, this.rows - 1);
+        minColumn = Math.max(column - this.stampColumns, 0);
+        maxColumn = Math.min(column + this.stampColumns, this.columns - 1);
+        
+        for(int humanRow = minRow; humanRow <= maxRow; humanRow++) {
+            for(int humanColumn = minColumn; humanColumn <= maxColumn; humanColumn++) {
+                cell  = humanRow * this.columns + humanColumn;
+                index = this.getStampIndex(humanRow - row, humanColumn - column);
+                
+                this.sumsX[cell]      += count * this.stampX[index];
+                this.sumsY[cell]      += count * this.stampY[index];
+                this.sumsWeight[cell] += count * this.stampWeight[index];
+            }
+        }
+        
+        this.zombies[row * this.columns + column] += count;
+    }
+    
+    /**
+     * Returns the position in the stamp of an offset between the cell of a human
+     * and the cell of a zombie.
+     * @param rowOffset the row of the human minus the row of the zombie
+     * @param columnOffset the column of the human minus the column of the zombie
+     * @return the position in the stamp
+     */
+    private int getStampIndex(int rowOffset, int columnOffset) {
+        return (rowOffset + this.stampRows) * (2 * this.stampColumns + 1) + columnOffset + this.stampColumns;
+    }
+}
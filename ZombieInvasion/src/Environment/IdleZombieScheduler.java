@@ -0,0 +1,236 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Agents.Zombie.ZombieAgent;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class decides which zombies are updated in each phase. The zombies that
+ * have nothing to perceive around them fall asleep and are updated only once
+ * every some phases (moving as far as they would have moved in all of them), 
+ * unless a healthy human enters the cells around them, whose distance is the 
+ * perception distance of the zombies plus the distance they move while asleep.
+ * It counts the healthy humans of the cells once per phase, so it can tell in 
+ * constant time if the cells around a zombie contain healthy humans.
+ * @author Xavier
+ */
+class IdleZombieScheduler {
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Number of phases between the updates of the zombies asleep.
+     */
+    private final int period;
+    
+    /**
+     * Number of rows and columns around a zombie where a healthy human wakes it up.
+     */
+    private final int rowsDistance, columnsDistance;
+    
+    /**
+     * Number of healthy humans of each cell.
+     */
+    private final int[] healthyHumans;
+    
+    /**
+     * Summed-area table of the healthy humans: the position 
+     * <code>row * (columns + 1) + column</code> contains the number of healthy 
+     * humans of the cells above and to the left of that row and column.
+     */
+    private final int[] healthyHumansSums;
+    
+    /**
+     * Phase of the last update of each zombie asleep.
+     */
+    private final Map<ZombieAgent, Integer> sleepPhases;
+    
+    //Public Constructors
+    public IdleZombieScheduler(int rows, int columns, int cellWidth, int cellHeight, int period, 
+                               int perceptionDistance, int speedAtRest) {
+        
+        final int distance;
+        
+        distance               = perceptionDistance + period * speedAtRest;
+        this.rows              = rows;
+        this.columns           = columns;
+        this.period            = period;
+        this.rowsDistance      = (int)Math.ceil((double)distance / cellHeight);
+        this.columnsDistance   = (int)Math.ceil((double)distance / cellWidth);
+        this.healthyHumans     = new int[rows * columns];
+        this.healthyHumansSums = new int[(rows + 1) * (columns + 1)];
+        this.sleepPhases       = new IdentityHashMap<>();
+    }
+    
+    //Public Methods
+    /**
+     * Removes the healthy humans counted in the cells.
+     */
+    public void clearHealthyHumans() {
+        Arrays.fill(this.healthyHumans, 0);
+    }
+    
+    /**
+     * Counts a healthy human in a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void addHealthyHuman(int row, int column) {
+        this.healthyHumans[row * this.columns + column]++;
+    }
+    
+    /**
+     * Calculates the summed-area table of the healthy humans counted.
+     */
+    public void update() {
+        final int width;
+        int rowSum;
+        
+        width = this.columns + 1;
+        
+        for(int row = 0; row < this.rows; row++) {
+            rowSum = 0;
+            
+            for(int column = 0; column < this.columns; column++) {
+                rowSum += this.healthyHumans[row * this.columns + column];
+                
+                this.healthyHumansSums[(row + 1) * width + column + 1] = 
+                        this.healthyHumansSums[row * width + column + 1] + rowSum;
+            }
+        }
+    }
+    
+    /**
+     * Checks if a zombie has to be updated in a phase: it isn't asleep, it has
+     * slept for the whole period or there are healthy humans around it.
+     * @param zombie the zombie
+     * @param row the row of the cell of the zombie
+     * @param column the column of the cell of the zombie
+     * @param phase the phase
+     * @return <code>true</code> if the zombie has to be updated, <code>false</code> otherwise
+     */
+    public boolean hasToUpdate(ZombieAgent zombie, int row, int column, int phase) {
+        final Integer sleepPhase;
+        
+        sleepPhase = this.sleepPhases.get(zombie);
+        
+        return sleepPhase == null || phase - sleepPhase >= this.period || this.containsHealthyHumans(row, column);
+    }
+    
+    /**
+     * Checks if a zombie is asleep.
+     * @param zombie the zombie
+     * @return <code>true</code> if the zombie is asleep, <code>false</code> otherwise
+     */
+    public boolean isAsleep(ZombieAgent zombie) {
+        return this.sleepPhases.containsKey(zombie);
+    }
+    
+    /**
+     * Checks if a zombie can fall asleep: there aren't healthy humans around it.
+     * @param row the row of the cell of the zombie
+     * @param column the column of the cell of the zombie
+     * @return <code>true</code> if the zombie can fall asleep, <code>false</code> otherwise
+     */
+    public boolean canSleep(int row, int column) {
+        return !this.containsHealthyHumans(row, column);
+    }
+    
+    /**
+     * Puts a zombie to sleep after being updated.
+     * @param zombie the zombie
+     * @param phase the phase of the update
+     */
+    public void sleep(ZombieAgent zombie, int phase) {
+        this.sleepPhases.put(zombie, phase);
+    }
+    
+    /**
+     * Wakes up a zombie that is being updated.
+     * @param zombie the zombie
+     * @param phase the phase of the update
+     * @return the number of phases since the last update of the zombie 
+     * (1 if it wasn't asleep)
+     */
+    public int wake(ZombieAgent zombie, int phase) {
+        final Integer sleepPhase;
+        
+        sleepPhase = this.sleepPhases.remove(zombie);
+        
+        return sleepPhase == null ? 1 : phase - sleepPhase;
+    }
+    
+    /**
+     * Forgets a zombie removed from the environment.
+     * @param zombie the zombie
+     */
+    public void remove(ZombieAgent zombie) {
+        this.sleepPhases.remove(zombie);
+    }
+    
+    /**
+     * Returns the phase of the last update of a zombie asleep.
+     * @param zombie the zombie
+     * @return the phase, or -1 if the zombie isn't asleep
+     */
+    public int getSleepPhase(ZombieAgent zombie) {
+        final Integer sleepPhase;
+        
+        sleepPhase = this.sleepPhases.get(zombie);
+        
+        return sleepPhase == null ? -1 : sleepPhase;
+    }
+    
+    /**
+     * Returns the number of zombies asleep.
+     * @return the number of zombies
+     */
+    public int getZombiesAsleep() {
+        return this.sleepPhases.size();
+    }
+    
+    //Private Methods
+    /**
+     * Checks if there are healthy humans in the cells around a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return <code>true</code> if any cell around contains healthy humans,
+     * <code>false</code> otherwise
+     */
+    private boolean containsHealthyHumans(int row, int column) {
+        final int width, minRow, maxRow, minColumn, maxColumn, sum;
+        
+        width     = this.columns + 1;
+        minRow    = Math.max(row - this.rowsDistance, 0);
+        maxRow    = Math.min(row + this.rowsDistance, this.rows - 1);
+        minColumn = Math.max(column - this.columnsDistance, 0);
+        maxColumn = Math.min(column + this.columnsDistance, this.columns - 1);
+        sum       = this.healthyHumansSums[(maxRow + 1) * width + maxColumn + 1] 
+                    - this.healthyHumansSums[minRow * width + maxColumn + 1]
+                    - this.healthyHumansSums[(maxRow + 1) * width + minColumn]
+                    + this.healthyHumansSums[minRow * width + minColumn];
+        
+        return sum > 0;
+    }
+}
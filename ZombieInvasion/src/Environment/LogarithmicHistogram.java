@@ -0,0 +1,166 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+/**
+ * This class represents a histogram of positive long values whose buckets grow
+ * logarithmically: every power of two is divided into a fixed number of sub-buckets,
+ * so the relative error of the percentiles is bounded (~12%) whatever the magnitude
+ * of the values.
+ * @author Xavier
+ */
+class LogarithmicHistogram {
+    //Constants
+    /**
+     * Number of bits used to divide every power of two (2^3 = 8 sub-buckets).
+     */
+    private final static int SUB_BUCKET_BITS = 3;
+    
+    /**
+     * Number of sub-buckets of every power of two.
+     */
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    /**
+     * Total number of buckets (enough to represent any positive long value).
+     */
+    private final static int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    
+    //Attributes
+    /**
+     * Number of values of each bucket.
+     */
+    private final long[] counts;
+    
+    /**
+     * Total number of values in the histogram.
+     */
+    private long totalCount;
+    
+    //Public Constructors
+    public LogarithmicHistogram() {
+        this.counts     = new long[BUCKETS];
+        this.totalCount = 0;
+    }
+    
+    //Public Methods
+    /**
+     * Adds a value to the histogram (negative values are recorded as 0).
+     * @param value the value
+     */
+    public void add(long value) {
+        this.counts[getBucketIndex(value)]++;
+        this.totalCount++;
+    }
+    
+    /**
+     * Removes a value previously added to the histogram.
+     * @param value the value
+     */
+    public void remove(long value) {
+        final int index;
+        
+        index = getBucketIndex(value);
+        
+        if(this.counts[index] > 0) {
+            this.counts[index]--;
+            this.totalCount--;
+        }
+    }
+    
+    /**
+     * Returns the total number of values in the histogram.
+     * @return the number of values
+     */
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+    
+    /**
+     * Returns an approximation of the given percentile of the values of the histogram.
+     * @param percentile the percentile (between 0 and 100)
+     * @return the approximated value of the percentile (0 if the histogram is empty)
+     */
+    public long getPercentile(double percentile) {
+        long rank, accumulated, value;
+        
+        value = 0;
+        
+        if(this.totalCount > 0) {
+            rank        = Math.max(1, (long)Math.ceil(percentile / 100 * this.totalCount));
+            accumulated = 0;
+            
+            for(int i = 0; i < BUCKETS; i++) {
+                accumulated += this.counts[i];
+                
+                if(accumulated >= rank) {
+                    value = getBucketMiddleValue(i);
+                    break;
+                }
+            }
+        }
+        
+        return value;
+    }
+    
+    //Private Static Methods
+    /**
+     * Returns the index of the bucket where a value is placed.
+     * @param value the value
+     * @return the index of the bucket
+     */
+    private static int getBucketIndex(long value) {
+        final int octave, index;
+        
+        if(value < SUB_BUCKETS) {
+            //Small values have their own bucket
+            index = (int)Math.max(value, 0);
+        }
+        else {
+            octave = 63 - Long.numberOfLeadingZeros(value);
+            index  = (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS 
+                     + (int)((value >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Returns the value placed in the middle of a bucket.
+     * @param index the index of the bucket
+     * @return the middle value
+     */
+    private static long getBucketMiddleValue(int index) {
+        final int octave, subBucket;
+        final long lowerBound, width;
+        long value;
+        
+        if(index < SUB_BUCKETS) {
+            value = index;
+        }
+        else {
+            octave     = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            subBucket  = index % SUB_BUCKETS;
+            width      = 1L << (octave - SUB_BUCKET_BITS);
+            lowerBound = (long)(SUB_BUCKETS + subBucket) * width;
+            value      = lowerBound + width / 2;
+        }
+        
+        return value;
+    }
+}
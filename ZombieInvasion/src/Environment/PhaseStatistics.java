@@ -0,0 +1,278 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * This class records the timing of the last phases executed by an environment.
+ * The samples are kept in a ring buffer and summarized in logarithmic histograms
+ * of the phase duration and of the agent updates per second, so the percentiles
+ * only take into account the phases of the window.
+ * @author Xavier
+ */
+class PhaseStatistics {
+    //Constants
+    /**
+     * Default number of phases kept in the ring buffer.
+     */
+    public final static int DEFAULT_CAPACITY = 256;
+    
+    /**
+     * Object used to measure the memory allocated by the thread running the phases
+     * (<code>null</code> if the JVM doesn't support it).
+     */
+    private final static com.sun.management.ThreadMXBean ALLOCATION_BEAN = createAllocationBean();
+    
+    //Attributes
+    /**
+     * Duration (in nanoseconds) of each phase of the window.
+     */
+    private final long[] durations;
+    
+    /**
+     * Agent updates per second of each phase of the window.
+     */
+    private final long[] agentUpdatesPerSecond;
+    
+    /**
+     * Bytes allocated during each phase of the window.
+     */
+    private final long[] allocatedBytes;
+    
+    /**
+     * Instant (in nanoseconds) when each phase of the window finished.
+     */
+    private final long[] endTimes;
+    
+    /**
+     * Histogram of the durations of the window.
+     */
+    private final LogarithmicHistogram durationHistogram;
+    
+    /**
+     * Histogram of the agent updates per second of the window.
+     */
+    private final LogarithmicHistogram agentUpdatesPerSecondHistogram;
+    
+    /**
+     * Position of the ring buffer where the next sample will be stored.
+     */
+    private int next;
+    
+    /**
+     * Number of samples in the ring buffer.
+     */
+    private int size;
+    
+    //Public Constructors
+    public PhaseStatistics(int capacity) {
+        this.durations                      = new long[capacity];
+        this.agentUpdatesPerSecond          = new long[capacity];
+        this.allocatedBytes                 = new long[capacity];
+        this.endTimes                       = new long[capacity];
+        this.durationHistogram              = new LogarithmicHistogram();
+        this.agentUpdatesPerSecondHistogram = new LogarithmicHistogram();
+        this.next                           = 0;
+        this.size                           = 0;
+    }
+    
+    public PhaseStatistics() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    //Public Methods
+    /**
+     * Records the measures of a phase.
+     * @param durationNanos the duration of the phase (in nanoseconds)
+     * @param agentUpdates the number of agents updated in the phase
+     * @param allocated the bytes allocated during the phase (negative if unknown)
+     * @param endTime the instant (in nanoseconds) when the phase finished
+     */
+    public synchronized void record(long durationNanos, int agentUpdates, long allocated, long endTime) {
+        final long updatesPerSecond;
+        
+        durationNanos    = Math.max(durationNanos, 1);
+        updatesPerSecond = agentUpdates * 1000000000L / durationNanos;
+        
+        if(this.size == this.durations.length) {
+            //The window is full -> evict the oldest sample from the histograms
+            this.durationHistogram.remove(this.durations[this.next]);
+            this.agentUpdatesPerSecondHistogram.remove(this.agentUpdatesPerSecond[this.next]);
+        }
+        else {
+            this.size++;
+        }
+        
+        this.durations[this.next]             = durationNanos;
+        this.agentUpdatesPerSecond[this.next] = updatesPerSecond;
+        this.allocatedBytes[this.next]        = allocated;
+        this.endTimes[this.next]              = endTime;
+        this.next                             = (this.next + 1) % this.durations.length;
+        
+        this.durationHistogram.add(durationNanos);
+        this.agentUpdatesPerSecondHistogram.add(updatesPerSecond);
+    }
+    
+    /**
+     * Returns the given percentile of the phase duration of the window.
+     * @param percentile the percentile (between 0 and 100)
+     * @return the duration (in nanoseconds)
+     */
+    public synchronized long getDurationPercentile(double percentile) {
+        return this.durationHistogram.getPercentile(percentile);
+    }
+    
+    /**
+     * Returns the given percentile of the agent updates per second of the window.
+     * @param percentile the percentile (between 0 and 100)
+     * @return the agent updates per second
+     */
+    public synchronized long getAgentUpdatesPerSecondPercentile(double percentile) {
+        return this.agentUpdatesPerSecondHistogram.getPercentile(percentile);
+    }
+    
+    /**
+     * Returns the agent updates per second of the last phase recorded.
+     * @return the agent updates per second (0 if no phase has been recorded)
+     */
+    public synchronized long getLastAgentUpdatesPerSecond() {
+        return this.size == 0 ? 0 : this.agentUpdatesPerSecond[this.getLastIndex()];
+    }
+    
+    /**
+     * Returns the number of phases per second executed in the window.
+     * @return the phase rate (0 if there are less than two phases in the window)
+     */
+    public synchronized double getPhaseRate() {
+        final long elapsed;
+        double rate;
+        
+        rate = 0;
+        
+        if(this.size > 1) {
+            elapsed = this.endTimes[this.getLastIndex()] - this.endTimes[this.getFirstIndex()];
+            
+            if(elapsed > 0) {
+                rate = (this.size - 1) * 1e9 / elapsed;
+            }
+        }
+        
+        return rate;
+    }
+    
+    /**
+     * Returns the bytes allocated per second by the phases of the window.
+     * @return the allocation rate (negative if it can't be measured)
+     */
+    public synchronized double getAllocationRate() {
+        long totalAllocated, totalDuration;
+        int index;
+        double rate;
+        
+        totalAllocated = 0;
+        totalDuration  = 0;
+        rate           = -1;
+        
+        for(int i = 0; i < this.size; i++) {
+            index = (this.getFirstIndex() + i) % this.durations.length;
+            
+            if(this.allocatedBytes[index] < 0) {
+                //Allocation isn't measured
+                totalDuration = 0;
+                break;
+            }
+            
+            totalAllocated += this.allocatedBytes[index];
+            totalDuration  += this.durations[index];
+        }
+        
+        if(totalDuration > 0) {
+            rate = totalAllocated * 1e9 / totalDuration;
+        }
+        
+        return rate;
+    }
+    
+    //Public Static Methods
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     * @return the number of bytes (negative if the JVM can't measure it)
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        long allocated;
+        
+        allocated = -1;
+        
+        if(ALLOCATION_BEAN != null) {
+            allocated = ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        
+        return allocated;
+    }
+    
+    //Private Methods
+    /**
+     * Returns the position of the oldest sample of the ring buffer.
+     * @return the position
+     */
+    private int getFirstIndex() {
+        return (this.next - this.size + this.durations.length) % this.durations.length;
+    }
+    
+    /**
+     * Returns the position of the newest sample of the ring buffer.
+     * @return the position
+     */
+    private int getLastIndex() {
+        return (this.next - 1 + this.durations.length) % this.durations.length;
+    }
+    
+    //Private Static Methods
+    /**
+     * Returns the bean that measures the memory allocated by the threads, if the
+     * JVM supports it.
+     * @return the bean (<code>null</code> if it isn't supported)
+     */
+    private static com.sun.management.ThreadMXBean createAllocationBean() {
+        ThreadMXBean threadBean;
+        com.sun.management.ThreadMXBean allocationBean;
+        
+        allocationBean = null;
+        
+        try {
+            threadBean = ManagementFactory.getThreadMXBean();
+            
+            if(threadBean instanceof com.sun.management.ThreadMXBean) {
+                allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+                
+                if(allocationBean.isThreadAllocatedMemorySupported()) {
+                    allocationBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                else {
+                    allocationBean = null;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException ex) {
+            allocationBean = null;
+        }
+        
+        return allocationBean;
+    }
+}
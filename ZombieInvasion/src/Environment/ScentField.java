@@ -0,0 +1,339 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class contains the scent left by the healthy humans in each cell of the 
+ * environment. Each phase the humans deposit scent in their cells, and the scent 
+ * diffuses to the horizontal and vertical neighbouring cells (not across the walls
+ * or to the inaccessible cells) and decays. The zombies smell a human when the scent 
+ * of their cell reaches the scent that a motionless human leaves at the olfactory 
+ * distance, and they follow its gradient, so the cost of smelling doesn't depend 
+ * on the olfactory distance.
+ * The new scent of a cell only depends on the scents of the previous phase, so 
+ * the rows of the large environments are updated in parallel.
+ * @author Xavier
+ */
+class ScentField {
+    //Constants
+    /**
+     * Fraction of the difference of scent with each neighbouring cell exchanged 
+     * in a phase (it must be lower than 0.25 to be stable).
+     */
+    private final static double DIFFUSION = 0.2;
+    
+    /**
+     * Fraction of the scent that remains after a phase.
+     */
+    private final static double DECAY = 0.9;
+    
+    /**
+     * Minimum number of cells of a group of rows to update it in parallel.
+     */
+    private final static int MIN_PARALLEL_CELLS = 1 << 15;
+    
+    /**
+     * Number of phases simulated to obtain the scent left by a motionless human.
+     */
+    private final static int THRESHOLD_PHASES = 400;
+    
+    /**
+     * Number of cells added around the olfactory distance in the simulation of 
+     * the scent left by a motionless human (the scent beyond them is negligible).
+     */
+    private final static int THRESHOLD_MARGIN = 12;
+    
+    /**
+     * Directions of the neighbouring cells the scent diffuses to.
+     */
+    private final static int[] DIFFUSION_DIRECTIONS = {CellPassages.NORTH, CellPassages.WEST, 
+                                                       CellPassages.EAST, CellPassages.SOUTH};
+    
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Moves between the cells blocked by the walls or by the inaccessible cells.
+     */
+    private final CellPassages passages;
+    
+    /**
+     * Scent of each cell (indexed by <code>row * columns + column</code>), and 
+     * buffer where the scent of the next phase is calculated.
+     */
+    private double[] scents, nextScents;
+    
+    /**
+     * Number of healthy humans of each cell that deposit scent in the next update.
+     */
+    private final int[] deposits;
+    
+    /**
+     * Minimum scent that the zombies smell.
+     */
+    private final double threshold;
+    
+    //Public Constructors
+    /**
+     * Creates a scent field.
+     * @param passages the moves between the cells of the environment
+     * @param olfactoryCells the olfactory distance of the zombies (in cells)
+     */
+    public ScentField(CellPassages passages, double olfactoryCells) {
+        this.rows       = passages.getRows();
+        this.columns    = passages.getColumns();
+        this.passages   = passages;
+        this.scents     = new double[this.rows * this.columns];
+        this.nextScents = new double[this.rows * this.columns];
+        this.deposits   = new int[this.rows * this.columns];
+        this.threshold  = calculateThreshold(olfactoryCells);
+    }
+    
+    //Public Methods
+    /**
+     * Removes the healthy humans counted in the cells.
+     */
+    public void clearHealthyHumans() {
+        Arrays.fill(this.deposits, 0);
+    }
+    
+    /**
+     * Counts a healthy human in a cell, that will deposit scent in the next update.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void addHealthyHuman(int row, int column) {
+        this.deposits[row * this.columns + column]++;
+    }
+    
+    /**
+     * Diffuses and decays the scent one phase and adds the scent deposited by the
+     * healthy humans counted. The passages must be up to date.
+     */
+    public void update() {
+        final double[] updatedScents;
+        
+        if(this.rows * this.columns >= 2 * MIN_PARALLEL_CELLS) {
+            PoolHolder.POOL.invoke(new UpdateRows(0, this.rows));
+        }
+        else {
+            this.updateRows(0, this.rows);
+        }
+        
+        updatedScents   = this.nextScents;
+        this.nextScents = this.scents;
+        this.scents     = updatedScents;
+    }
+    
+    /**
+     * Returns the direction where the scent of a cell increases, if a zombie 
+     * located in the cell smells it.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the direction (its length is the width of a cell), or <code>null</code>
+     * if the scent isn't smelled or doesn't increase in any direction
+     */
+    public Point2D getScentDirection(int row, int column) {
+        final int cell, blocked;
+        final double scent, x, y, length;
+        double[] neighbourScents;
+        
+        cell  = row * this.columns + column;
+        scent = this.scents[cell];
+        
+        if(scent < this.threshold) {
+            return null;
+        }
+        
+        //The scent of the blocked neighbouring cells is the scent of the cell
+        blocked         = this.passages.getBlockedDirections(cell);
+        neighbourScents = new double[CellPassages.DIRECTIONS];
+        
+        for(int direction: DIFFUSION_DIRECTIONS) {
+            neighbourScents[direction] = (blocked & (1 << direction)) == 0 ? 
+                                         this.scents[this.passages.getNeighbour(cell, direction)] : scent;
+        }
+        
+        x      = (neighbourScents[CellPassages.EAST] - neighbourScents[CellPassages.WEST]) / this.passages.getCellWidth();
+        y      = (neighbourScents[CellPassages.SOUTH] - neighbourScents[CellPassages.NORTH]) / this.passages.getCellHeight();
+        length = Math.hypot(x, y);
+        
+        return length == 0 ? null : new Point2D.Double(x / length * this.passages.getCellWidth(), 
+                                                       y / length * this.passages.getCellWidth());
+    }
+    
+    /**
+     * Copies the scent of the cells of another scent field of the same size.
+     * @param original the scent field copied
+     */
+    public void copyScents(ScentField original) {
+        System.arraycopy(original.scents, 0, this.scents, 0, this.scents.length);
+    }
+    
+    /**
+     * Writes the scent of the cells in a checkpoint.
+     * @param output the checkpoint output
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeScents(CheckpointOutput output) throws IOException {
+        for(double scent: this.scents) {
+            output.writeDouble(scent);
+        }
+    }
+    
+    /**
+     * Reads the scent of the cells from a checkpoint.
+     * @param input the checkpoint input
+     * @throws IOException if an I/O error occurs or the scent read isn't valid
+     */
+    public void readScents(CheckpointInput input) throws IOException {
+        double scent;
+        
+        for(int i = 0; i < this.scents.length; i++) {
+            scent = input.readDouble();
+            
+            if(!(scent >= 0) || Double.isInfinite(scent)) {
+                throw new IOException("El fitxer de punt de control està malmès.");
+            }
+            
+            this.scents[i] = scent;
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Calculates the scent of the next phase of a group of rows.
+     * @param minRow the first row
+     * @param maxRow the row after the last row
+     */
+    private void updateRows(int minRow, int maxRow) {
+        int cell, blocked;
+        double scent, exchanged;
+        
+        for(int row = minRow; row < maxRow; row++) {
+            for(int column = 0; column < this.columns; column++) {
+                cell = row * this.columns + column;
+                
+                if(this.passages.isAccessible(row, column)) {
+                    scent     = this.scents[cell];
+                    blocked   = this.passages.getBlockedDirections(cell);
+                    exchanged = 0;
+                    
+                    for(int direction: DIFFUSION_DIRECTIONS) {
+                        if((blocked & (1 << direction)) == 0) {
+                            exchanged += this.scents[this.passages.getNeighbour(cell, direction)] - scent;
+                        }
+                    }
+                    
+                    this.nextScents[cell] = DECAY * (scent + DIFFUSION * exchanged) + this.deposits[cell];
+                }
+                else {
+                    this.nextScents[cell] = 0;
+                }
+            }
+        }
+    }
+    
+    //Private Static Methods
+    /**
+     * Calculates the scent that a motionless human leaves at the olfactory distance
+     * (after a long time) in an environment without walls.
+     * @param olfactoryCells the olfactory distance (in cells)
+     * @return the scent, or infinity if the olfactory distance isn't positive
+     */
+    private static double calculateThreshold(double olfactoryCells) {
+        final int center, size, cell;
+        final double fraction;
+        final CellPassages passages;
+        final ScentField field;
+        
+        if(olfactoryCells <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        
+        //All the cells are accessible
+        center   = (int)Math.ceil(olfactoryCells) + THRESHOLD_MARGIN;
+        size     = 2 * center + 1;
+        passages = new CellPassages(size, size, 1, 1, new BitSet());
+        
+        passages.update(Collections.<EnvironmentWall>emptyList());
+        
+        field = new ScentField(passages, 0);
+        
+        for(int i = 0; i < THRESHOLD_PHASES; i++) {
+            field.clearHealthyHumans();
+            field.addHealthyHuman(center, center);
+            field.update();
+        }
+        
+        //Interpolate the scent between the cells around the olfactory distance
+        cell     = center * size + center + (int)olfactoryCells;
+        fraction = olfactoryCells - (int)olfactoryCells;
+        
+        return (1 - fraction) * field.scents[cell] + fraction * field.scents[cell + 1];
+    }
+    
+    //Private Classes
+    /**
+     * Task that updates a group of rows, splitting it while it is large.
+     */
+    private class UpdateRows extends RecursiveAction {
+        /**
+         * The first row and the row after the last row.
+         */
+        private final int minRow, maxRow;
+        
+        public UpdateRows(int minRow, int maxRow) {
+            this.minRow = minRow;
+            this.maxRow = maxRow;
+        }
+        
+        @Override
+        protected void compute() {
+            final int middleRow;
+            
+            if((this.maxRow - this.minRow) * columns < 2 * MIN_PARALLEL_CELLS) {
+                updateRows(this.minRow, this.maxRow);
+            }
+            else {
+                middleRow = (this.minRow + this.maxRow) / 2;
+                
+                invokeAll(new UpdateRows(this.minRow, middleRow), new UpdateRows(middleRow, this.maxRow));
+            }
+        }
+    }
+    
+    /**
+     * Holder of the pool of threads that update the large environments (it's 
+     * created the first time it's used). Its threads are daemon threads.
+     */
+    private static class PoolHolder {
+        private final static ForkJoinPool POOL = new ForkJoinPool();
+    }
+}
@@ -0,0 +1,330 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import Agents.Base.BaseInformation;
+import Agents.Human.HumanInformation;
+import Agents.Zombie.ZombieInformation;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class contains the agents of the environment sorted by cell, rebuilt 
+ * every phase with a counting sort over the cells of the agents. The cells are 
+ * sorted in Morton order (the bits of the row and the column interleaved), so 
+ * the agents of near cells are near in the arrays. The positions and the 
+ * information of the humans and the zombies are copied to separate arrays 
+ * where the agents of each cell are a contiguous range, so the agents around 
+ * a position are read from a few contiguous ranges and the farthest ones are 
+ * discarded without reading their information.
+ * <p>
+ * The sort is stable: the agents of a cell keep the order of the population.
+ * @author Xavier
+ */
+class SortedAgentGrid {
+    //Attributes
+    /**
+     * Number of columns of the environment.
+     */
+    private final int columns;
+    
+    /**
+     * Dimensions of the cells.
+     */
+    private final int cellWidth, cellHeight;
+    
+    /**
+     * Position of each cell in the Morton order (indexed by <code>row * columns + column</code>).
+     */
+    private final int[] cellRanks;
+    
+    /**
+     * Humans sorted by cell.
+     */
+    private final AgentRanges humans;
+    
+    /**
+     * Zombies sorted by cell.
+     */
+    private final AgentRanges zombies;
+    
+    /**
+     * Position in the Morton order of the cell of each agent, by order of the
+     * population (used during the sort).
+     */
+    private int[] agentRanks;
+    
+    /**
+     * Information of the agents by order of the population (used during the sort).
+     */
+    private BaseInformation[] agents;
+    
+    //Public Constructors
+    public SortedAgentGrid(int rows, int columns, int cellWidth, int cellHeight) {
+        final long[] codes;
+        
+        this.columns    = columns;
+        this.cellWidth  = cellWidth;
+        this.cellHeight = cellHeight;
+        this.cellRanks  = new int[rows * columns];
+        this.humans     = new AgentRanges(rows * columns);
+        this.zombies    = new AgentRanges(rows * columns);
+        this.agentRanks = new int[0];
+        this.agents     = new BaseInformation[0];
+        codes           = new long[rows * columns];
+        
+        //The rank of a cell is the position of its code among the sorted codes
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                codes[row * columns + column] = getMortonCode(row, column);
+            }
+        }
+        
+        Arrays.sort(codes);
+        
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                this.cellRanks[row * columns + column] = Arrays.binarySearch(codes, getMortonCode(row, column));
+            }
+        }
+    }
+    
+    //Public Methods
+    /**
+     * Sorts the agents by cell.
+     * @param population the information of the agents, by order of the population
+     */
+    public void sort(Collection<BaseInformation> population) {
+        final int numberOfAgents;
+        int agent;
+        Point2D position;
+        
+        numberOfAgents = population.size();
+        agent          = 0;
+        
+        if(this.agents.length < numberOfAgents) {
+            this.agents     = new BaseInformation[Math.max(numberOfAgents, 2 * this.agents.length)];
+            this.agentRanks = new int[this.agents.length];
+        }
+        
+        this.humans.clear();
+        this.zombies.clear();
+        
+        //Count the agents of each cell
+        for(BaseInformation information: population) {
+            position                = information.getPosition();
+            this.agents[agent]      = information;
+            this.agentRanks[agent]  = this.cellRanks[(int)(position.getY() / this.cellHeight) * this.columns
+                                                     + (int)(position.getX() / this.cellWidth)];
+            
+            if(information instanceof HumanInformation) {
+                this.humans.count(this.agentRanks[agent]);
+            }
+            else {
+                this.zombies.count(this.agentRanks[agent]);
+            }
+            
+            agent++;
+        }
+        
+        //Place each agent after the agents of the previous cells
+        this.humans.startRanges();
+        this.zombies.startRanges();
+        
+        for(agent = 0; agent < numberOfAgents; agent++) {
+            if(this.agents[agent] instanceof HumanInformation) {
+                this.humans.place(this.agentRanks[agent], this.agents[agent]);
+            }
+            else {
+                this.zombies.place(this.agentRanks[agent], this.agents[agent]);
+            }
+            
+            this.agents[agent] = null;
+        }
+    }
+    
+    /**
+     * Gets the agents of a rectangle of cells that are near a position: the 
+     * agents farther than the distance (plus one unit, so the rounding of the 
+     * distances never leaves out an agent) are left out. The cells are visited 
+     * by rows and the agents of a cell by order of the population.
+     * @param minRow the first row of the rectangle
+     * @param maxRow the last row of the rectangle
+     * @param minColumn the first column of the rectangle
+     * @param maxColumn the last column of the rectangle
+     * @param position the position
+     * @param distance the distance
+     * @param information the information of the agent that is left out (the agent
+     * at the position)
+     * @param nearHumans the collection where the information of the near humans is added
+     * @param nearZombies the collection where the information of the near zombies is added
+     */
+    public void getCandidates(int minRow, int maxRow, int minColumn, int maxColumn, Point2D position, 
+                              double distance, BaseInformation information, Collection<HumanInformation> nearHumans, 
+                              Collection<ZombieInformation> nearZombies) {
+        
+        final double x, y, maxSquaredDistance;
+        int rank;
+        
+        x                  = position.getX();
+        y                  = position.getY();
+        maxSquaredDistance = (distance + 1) * (distance + 1);
+        
+        for(int row = minRow; row <= maxRow; row++) {
+            for(int column = minColumn; column <= maxColumn; column++) {
+                rank = this.cellRanks[row * this.columns + column];
+                
+                for(int agent = this.humans.start[rank]; agent < this.humans.start[rank + 1]; agent++) {
+                    if(this.humans.isNear(agent, x, y, maxSquaredDistance) && this.humans.informations[agent] != information) {
+                        nearHumans.add((HumanInformation)this.humans.informations[agent]);
+                    }
+                }
+                
+                for(int agent = this.zombies.start[rank]; agent < this.zombies.start[rank + 1]; agent++) {
+                    if(this.zombies.isNear(agent, x, y, maxSquaredDistance) && this.zombies.informations[agent] != information) {
+                        nearZombies.add((ZombieInformation)this.zombies.informations[agent]);
+                    }
+                }
+            }
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Returns the Morton code of a cell: the bits of the column and the row 
+     * interleaved (the column in the even bits and the row in the odd bits).
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the code
+     */
+    private static long getMortonCode(int row, int column) {
+        long code;
+        
+        code = 0;
+        
+        for(int bit = 0; bit < 31; bit++) {
+            code |= (long)((column >> bit) & 1) << (2 * bit);
+            code |= (long)((row >> bit) & 1) << (2 * bit + 1);
+        }
+        
+        return code;
+    }
+    
+    //Private Classes
+    /**
+     * The agents of one kind sorted by cell.
+     */
+    private static class AgentRanges {
+        /**
+         * First position of the agents of each cell (indexed by the rank of the
+         * cell; the last position is the number of agents). While the agents are
+         * counted it contains the number of agents of the previous cell, and 
+         * while they are placed the next free position of the previous cell.
+         */
+        private final int[] start;
+        
+        /**
+         * Coordinates of the agents.
+         */
+        private double[] xs, ys;
+        
+        /**
+         * Information of the agents.
+         */
+        private BaseInformation[] informations;
+        
+        public AgentRanges(int cells) {
+            this.start        = new int[cells + 1];
+            this.xs           = new double[0];
+            this.ys           = new double[0];
+            this.informations = new BaseInformation[0];
+        }
+        
+        /**
+         * Removes all the agents.
+         */
+        private void clear() {
+            Arrays.fill(this.start, 0);
+            Arrays.fill(this.informations, null);
+        }
+        
+        /**
+         * Counts an agent of a cell.
+         * @param rank the rank of the cell
+         */
+        private void count(int rank) {
+            this.start[rank + 1]++;
+        }
+        
+        /**
+         * Calculates the position where the agents of each cell will start from
+         * the number of agents of each cell (the prefix sums of the counts).
+         */
+        private void startRanges() {
+            final int numberOfAgents;
+            
+            for(int rank = 1; rank < this.start.length; rank++) {
+                this.start[rank] += this.start[rank - 1];
+            }
+            
+            numberOfAgents = this.start[this.start.length - 1];
+            
+            if(this.informations.length < numberOfAgents) {
+                this.xs           = new double[Math.max(numberOfAgents, 2 * this.informations.length)];
+                this.ys           = new double[this.xs.length];
+                this.informations = new BaseInformation[this.xs.length];
+            }
+            
+            //Each cell is filled from the start of the previous one, so the starts
+            //are in their place again once all the agents are placed
+            System.arraycopy(this.start, 0, this.start, 1, this.start.length - 1);
+        }
+        
+        /**
+         * Places an agent after the agents of its cell already placed.
+         * @param rank the rank of the cell
+         * @param information the information of the agent
+         */
+        private void place(int rank, BaseInformation information) {
+            final int agent;
+            
+            agent                    = this.start[rank + 1]++;
+            this.xs[agent]           = information.getPosition().getX();
+            this.ys[agent]           = information.getPosition().getY();
+            this.informations[agent] = information;
+        }
+        
+        /**
+         * Returns if an agent is nearer than a distance from a position.
+         * @param agent the position of the agent in the arrays
+         * @param x the X coordinate of the position
+         * @param y the Y coordinate of the position
+         * @param maxSquaredDistance the square of the distance
+         * @return <code>true</code> if the agent is near, <code>false</code> otherwise
+         */
+        private boolean isNear(int agent, double x, double y, double maxSquaredDistance) {
+            final double dx, dy;
+            
+            dx = this.xs[agent] - x;
+            dy = this.ys[agent] - y;
+            
+            return dx * dx + dy * dy <= maxSquaredDistance;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class contains the distance to the nearest wall sampled on a raster of
+ * points finer than the cells of the environment. The distances are limited to
+ * a maximum distance, so adding or removing a wall only changes the points near
+ * it. The clearance of a position is obtained from its nearest point of the 
+ * raster in constant time and it never exceeds the actual distance to the walls,
+ * so the environment can skip the walls when they are farther than it needs.
+ * <p>
+ * The raster is split in square chunks whose distances are calculated the 
+ * first time a position inside them is queried, so only the chunks of the 
+ * places visited by the agents are stored.
+ * @author Xavier
+ */
+class WallDistanceField {
+    //Constants
+    /**
+     * Margin subtracted from the clearances to absorb the rounding errors of 
+     * the distances.
+     */
+    private final static double ROUNDING_MARGIN = 1e-6;
+    
+    /**
+     * Base 2 logarithm of the number of rows and columns of points of a chunk.
+     */
+    private final static int CHUNK_BITS = 6;
+    
+    /**
+     * Number of rows and columns of points of a chunk.
+     */
+    private final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    
+    //Attributes
+    /**
+     * Coordinates of the first point of the raster.
+     */
+    private final double minX, minY;
+    
+    /**
+     * Distance between neighbouring points of the raster.
+     */
+    private final double spacing;
+    
+    /**
+     * Maximum distance stored.
+     */
+    private final double maxDistance;
+    
+    /**
+     * Number of rows and columns of points of the raster.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Number of columns of chunks.
+     */
+    private final int chunkColumns;
+    
+    /**
+     * Walls of the environment.
+     */
+    private final Collection<EnvironmentWall> walls;
+    
+    /**
+     * Distance from each point of each chunk (indexed by <code>chunkRow * chunkColumns
+     * + chunkColumn</code>, and the points by rows inside the chunk) to the nearest
+     * wall, or the maximum distance if it is farther (<code>null</code> for the
+     * chunks not calculated).
+     */
+    private final double[][] chunks;
+    
+    /**
+     * Boolean value indicating if the walls have changed without updating the
+     * distances.
+     */
+    private boolean wallsChanged;
+    
+    //Public Constructors
+    /**
+     * Creates a distance field without distances. The distances will be calculated
+     * by chunks after the first update.
+     * @param minX the minimum X coordinate of the environment
+     * @param minY the minimum Y coordinate of the environment
+     * @param width the width of the environment
+     * @param height the height of the environment
+     * @param spacing the distance between neighbouring points of the raster
+     * @param maxDistance the maximum distance stored
+     * @param walls the walls of the environment
+     */
+    public WallDistanceField(double minX, double minY, double width, double height, 
+                             double spacing, double maxDistance, Collection<EnvironmentWall> walls) {
+        this.minX         = minX;
+        this.minY         = minY;
+        this.spacing      = spacing;
+        this.maxDistance  = maxDistance;
+        this.rows         = (int)Math.ceil(height / spacing) + 1;
+        this.columns      = (int)Math.ceil(width / spacing) + 1;
+        this.chunkColumns = (this.columns + CHUNK_SIZE - 1) >> CHUNK_BITS;
+        this.walls        = walls;
+        this.chunks       = new double[((this.rows + CHUNK_SIZE - 1) >> CHUNK_BITS) * this.chunkColumns][];
+        this.wallsChanged = true;
+    }
+    
+    //Public Methods
+    /**
+     * Reports that the walls of the environment have changed without updating
+     * the distances, so they will be calculated again after the next update.
+     */
+    public void invalidateWalls() {
+        this.wallsChanged = true;
+    }
+    
+    /**
+     * Discards all the distances if the walls have changed. They will be 
+     * calculated again by chunks when they are queried.
+     */
+    public void update() {
+        if(this.wallsChanged) {
+            Arrays.fill(this.chunks, null);
+            
+            this.wallsChanged = false;
+        }
+    }
+    
+    /**
+     * Updates the distances of the points near a wall added in the environment.
+     * @param wall the wall added
+     */
+    public void addWall(Line2D wall) {
+        if(!this.wallsChanged) {
+            this.addWall(wall, 0, this.rows - 1, 0, this.columns - 1);
+        }
+    }
+    
+    /**
+     * Calculates again the distances of the points near a wall that has been 
+     * shortened, split or removed.
+     * @param x1 the X component of the start point of the wall before the change
+     * @param y1 the Y component of the start point of the wall before the change
+     * @param x2 the X component of the end point of the wall before the change
+     * @param y2 the Y component of the end point of the wall before the change
+     */
+    public void removeWall(double x1, double y1, double x2, double y2) {
+        final int minRow, maxRow, minColumn, maxColumn;
+        double[] chunk;
+        
+        if(!this.wallsChanged) {
+            minRow    = this.getRow(Math.min(y1, y2) - this.maxDistance);
+            maxRow    = this.getRow(Math.max(y1, y2) + this.maxDistance);
+            minColumn = this.getColumn(Math.min(x1, x2) - this.maxDistance);
+            maxColumn = this.getColumn(Math.max(x1, x2) + this.maxDistance);
+            
+            for(int row = minRow; row <= maxRow; row++) {
+                for(int column = minColumn; column <= maxColumn; column++) {
+                    chunk = this.chunks[this.getChunkIndex(row, column)];
+                    
+                    if(chunk != null) {
+                        chunk[getPointIndex(row, column)] = this.maxDistance;
+                    }
+                }
+            }
+            
+            synchronized(this.walls) {
+                for(EnvironmentWall wall: this.walls) {
+                    this.addWall(wall, minRow, maxRow, minColumn, maxColumn);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns a distance from a position to the walls that is not greater than
+     * the actual distance to the nearest wall.
+     * @param x the X component of the position
+     * @param y the Y component of the position
+     * @return the clearance (it is 0 if the distances aren't updated)
+     */
+    public double getClearance(double x, double y) {
+        final int row, column;
+        double clearance;
+        
+        clearance = 0;
+        
+        if(!this.wallsChanged) {
+            //The distance of the nearest point minus the distance to the point
+            row       = this.getRow(y);
+            column    = this.getColumn(x);
+            clearance = this.getChunk(row, column)[getPointIndex(row, column)] 
+                        - Point2D.distance(x, y, this.minX + column * this.spacing, this.minY + row * this.spacing) 
+                        - ROUNDING_MARGIN;
+        }
+        
+        return Math.max(clearance, 0);
+    }
+    
+    //Private Methods
+    /**
+     * Returns the distances of the chunk of a point, calculating them if the
+     * chunk hasn't been calculated.
+     * @param row the row of the point
+     * @param column the column of the point
+     * @return the distances of the chunk
+     */
+    private double[] getChunk(int row, int column) {
+        final int chunkIndex, minRow, minColumn;
+        double[] chunk;
+        
+        chunkIndex = this.getChunkIndex(row, column);
+        chunk      = this.chunks[chunkIndex];
+        
+        if(chunk == null) {
+            minRow                  = row & ~(CHUNK_SIZE - 1);
+            minColumn               = column & ~(CHUNK_SIZE - 1);
+            chunk                   = new double[CHUNK_SIZE * CHUNK_SIZE];
+            this.chunks[chunkIndex] = chunk;
+            
+            Arrays.fill(chunk, this.maxDistance);
+            
+            synchronized(this.walls) {
+                for(EnvironmentWall wall: this.walls) {
+                    this.addWall(wall, minRow, Math.min(minRow + CHUNK_SIZE - 1, this.rows - 1), 
+                                 minColumn, Math.min(minColumn + CHUNK_SIZE - 1, this.columns - 1));
+                }
+            }
+        }
+        
+        return chunk;
+    }
+    
+    /**
+     * Reduces the distances of the points of a rectangle of the raster that are
+     * nearer to a wall (only in the chunks calculated).
+     * @param wall the wall
+     * @param minRow the first row of the rectangle
+     * @param maxRow the last row of the rectangle
+     * @param minColumn the first column of the rectangle
+     * @param maxColumn the last column of the rectangle
+     */
+    private void addWall(Line2D wall, int minRow, int maxRow, int minColumn, int maxColumn) {
+        final int firstRow, lastRow, firstColumn, lastColumn;
+        double distance;
+        double[] chunk;
+        int point;
+        
+        //Only the points whose distance to the wall can be lower than the maximum distance
+        firstRow    = Math.max(minRow, this.getRow(Math.min(wall.getY1(), wall.getY2()) - this.maxDistance));
+        lastRow     = Math.min(maxRow, this.getRow(Math.max(wall.getY1(), wall.getY2()) + this.maxDistance));
+        firstColumn = Math.max(minColumn, this.getColumn(Math.min(wall.getX1(), wall.getX2()) - this.maxDistance));
+        lastColumn  = Math.min(maxColumn, this.getColumn(Math.max(wall.getX1(), wall.getX2()) + this.maxDistance));
+        
+        for(int row = firstRow; row <= lastRow; row++) {
+            for(int column = firstColumn; column <= lastColumn; column++) {
+                chunk = this.chunks[this.getChunkIndex(row, column)];
+                
+                if(chunk == null) {
+                    //Skip to the first column of the next chunk
+                    column = (column | (CHUNK_SIZE - 1));
+                }
+                else {
+                    point    = getPointIndex(row, column);
+                    distance = wall.ptSegDist(this.minX + column * this.spacing, this.minY + row * this.spacing);
+                    
+                    if(distance < chunk[point]) {
+                        chunk[point] = distance;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of the chunk of a point of the raster.
+     * @param row the row of the point
+     * @param column the column of the point
+     * @return the index of the chunk
+     */
+    private int getChunkIndex(int row, int column) {
+        return (row >> CHUNK_BITS) * this.chunkColumns + (column >> CHUNK_BITS);
+    }
+    
+    /**
+     * Returns the index of a point of the raster inside its chunk.
+     * @param row the row of the point
+     * @param column the column of the point
+     * @return the index of the point
+     */
+    private static int getPointIndex(int row, int column) {
+        return ((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1));
+    }
+    
+    /**
+     * Returns the row of the raster nearest to a Y coordinate.
+     * @param y the Y coordinate
+     * @return the row (limited to the raster)
+     */
+    private int getRow(double y) {
+        return Math.max(0, Math.min(this.rows - 1, (int)Math.round((y - this.minY) / this.spacing)));
+    }
+    
+    /**
+     * Returns the column of the raster nearest to a X coordinate.
+     * @param x the X coordinate
+     * @return the column (limited to the raster)
+     */
+    private int getColumn(double x) {
+        return Math.max(0, Math.min(this.columns - 1, (int)Math.round((x - this.minX) / this.spacing)));
+    }
+}
@@ -18,6 +18,7 @@
 package Environment;
 
 import Agents.Base.ActionType;
+import Agents.Base.BaseAction;
 import Agents.Base.AgentLifeStatus;
 import Agents.Base.AgentsUtils;
 import Agents.Base.BaseAgent;
@@ -35,27 +36,82 @@ import Agents.Zombie.ZombiePerceptions;
 import Geometry.Cell;
 import Geometry.GeometryUtils;
 import Geometry.Vector2D;
+import Profiling.SimulationEvents;
 import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import SimulationConfigurationFileAdapter.XMLFileError;
 import StandardAgentFramework.Action;
 import StandardAgentFramework.Agent;
 import StandardAgentFramework.AgentOnePhaseInformation;
 import StandardAgentFramework.Environment;
 import StandardAgentFramework.Perceptions;
+import StandardAgentFramework.SimulationRandom;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
+import javax.management.ObjectName;
+import javax.xml.bind.JAXBException;
 
 /**
  * Environment of the zombie epidemic simulation.
  * @author Xavier
  */
 public class ZombieEpidemicEnvironment extends Environment {
+    //Constants
+    /**
+     * Extension of the checkpoint files of the simulation.
+     */
+    public final static String CHECKPOINT_FILE_EXTENSION = "zck";
+    
+    /**
+     * Version of the simulation engine. It must be incremented when a change 
+     * modifies the outcome of the simulations, so the outcomes stored by the 
+     * previous versions aren't reused.
+     */
+    public final static int ENGINE_VERSION = 1;
+    
+    /**
+     * Number identifying the checkpoint files of the simulation ("ZECK").
+     */
+    private final static int CHECKPOINT_MAGIC_NUMBER = 0x5A45434B;
+    
+    /**
+     * Version of the format of the checkpoint files (the version 1 didn't store
+     * the order of the agents in the cells and the versions 1 and 2 didn't store
+     * the counters of events, and they can still be read).
+     */
+    private final static int CHECKPOINT_VERSION = 3;
+    
+    /**
+     * Kinds of agents stored in the checkpoint files.
+     */
+    private final static byte HUMAN_KIND = 0, ZOMBIE_KIND = 1;
+    
+    /**
+     * Positions of the counts of each status in the counts of a cell returned by
+     * <code>countAgentsByCell</code>, and number of statuses.
+     */
+    public final static int HEALTHY_CELL_COUNT = 0, INFECTED_CELL_COUNT = 1, ZOMBIE_CELL_COUNT = 2, 
+                            DEAD_CELL_COUNT = 3, CELL_COUNTS = 4;
+    
     //Attributes
     
     /**
@@ -69,9 +125,13 @@ public class ZombieEpidemicEnvironment extends Environment {
     private final List<EnvironmentWall> walls;
     
     /**
-     * Map between the agents and their information.
+     * Map between the agents and their information. The agents are kept in the
+     * order they were added, so the order in which they act depends only on the 
+     * seed, and the checkpoints and the forks (which add the agents in this order)
+     * continue the simulation exactly. It is only accessed while holding the lock
+     * of the environment.
      */
-    private final ConcurrentHashMap<Agent, BaseInformation> population;
+    private final Map<Agent, BaseInformation> population;
     
     /**
      * List of the infected humans.
@@ -89,9 +149,9 @@ public class ZombieEpidemicEnvironment extends Environment {
     private final ArrayList<Line2D> humanShots;
     
     /**
-     * Matrix of the cells' information.
+     * Cells of the environment (created by chunks when they are used).
      */
-    private final EnvironmentCell[][] environment;
+    private final EnvironmentCellGrid environment;
     
     /**
      * Number of remaining healthy humans.
@@ -108,6 +168,36 @@ public class ZombieEpidemicEnvironment extends Environment {
      */
     private int zombifiedCount;
     
+    /**
+     * Number of humans killed by zombies in a confrontation.
+     */
+    private int humansKilledByZombiesCount;
+    
+    /**
+     * Number of zombies killed by humans in a confrontation.
+     */
+    private int zombiesKilledByHumansCount;
+    
+    /**
+     * Number of humans killed by shots.
+     */
+    private int humansKilledByShotsCount;
+    
+    /**
+     * Number of zombies killed by shots.
+     */
+    private int zombiesKilledByShotsCount;
+    
+    /**
+     * Number of shots fired.
+     */
+    private int shotsFiredCount;
+    
+    /**
+     * Total length of the walls destroyed by zombies.
+     */
+    private double wallLengthDestroyed;
+    
     /**
      * Number of remaining resources.
      */
@@ -128,19 +218,118 @@ public class ZombieEpidemicEnvironment extends Environment {
      */
     private int weaponKitsAvailable;
     
+    /**
+     * Number of phases executed.
+     */
+    private int phase;
+    
+    /**
+     * Timing measures of the last phases executed.
+     */
+    private final PhaseStatistics statistics;
+    
+    /**
+     * Name of the monitor of the environment registered in the platform MBean server.
+     */
+    private ObjectName monitorName;
+    
+    /**
+     * Random numbers generator of the environment. All the random decisions of 
+     * the simulation derive from it, so the same seed produces the same simulation.
+     */
+    private final SimulationRandom random;
+    
+    /**
+     * Moves between the cells blocked by the walls, used by the fields calculated
+     * on the cells (<code>null</code> if no field that uses it is enabled).
+     */
+    private final CellPassages passages;
+    
+    /**
+     * Distances to the nearest healthy humans followed by the zombies that don't 
+     * perceive any human (<code>null</code> if the pursuit field isn't enabled).
+     */
+    private final ZombiePursuitField pursuitField;
+    
+    /**
+     * Scent left by the healthy humans that the zombies smell (<code>null</code> 
+     * if the scent field isn't enabled).
+     */
+    private final ScentField scentField;
+    
+    /**
+     * Directions to escape from the zombies that aren't near used by the humans 
+     * (<code>null</code> if the danger field isn't enabled).
+     */
+    private final HumanDangerField dangerField;
+    
+    /**
+     * Distances to the nearest wall sampled on a raster finer than the cells, used
+     * to skip the walls that are far from the agents.
+     */
+    private final WallDistanceField wallDistances;
+    
+    /**
+     * Lists of neighbour candidates of the agents, kept between phases (<code>null</code>
+     * if the neighbours are looked for in the cells every phase).
+     */
+    private final AgentNeighbourLists neighbourLists;
+    
+    /**
+     * Zombies asleep because they have nothing to perceive around them, which 
+     * aren't updated in every phase (<code>null</code> if all the zombies are 
+     * updated in every phase).
+     */
+    private final IdleZombieScheduler idleZombies;
+    
+    /**
+     * Healthy humans and zombies of the cells far from the places where humans 
+     * and zombies meet, kept as the number of agents of each cell (<code>null</code>
+     * if all the agents are kept as agents).
+     */
+    private final AggregateCells aggregateCells;
+    
+    /**
+     * Agents sorted by cell every phase, where the perceptions look for the near
+     * agents (<code>null</code> if they are looked for in the cells).
+     */
+    private final SortedAgentGrid sortedGrid;
+    
+    /**
+     * Number of agents updated in the current phase.
+     */
+    private int agentsToUpdate;
+    
     //Public Constructors
     public ZombieEpidemicEnvironment(SimulationConfiguration configuration) {
-        int rows, columns;
+        this(configuration, new Random().nextLong());
+    }
+    
+    public ZombieEpidemicEnvironment(SimulationConfiguration configuration, long seed) {
+        this(configuration, seed, true);
+    }
+    
+    //Private Constructors
+    /**
+     * Creates an environment.
+     * @param configuration the configuration of the simulation
+     * @param seed the seed of the random numbers generator
+     * @param generate boolean value indicating if the initial walls and population 
+     * have to be generated (<code>false</code> when the state is restored from a checkpoint)
+     */
+    private ZombieEpidemicEnvironment(SimulationConfiguration configuration, long seed, boolean generate) {
+        int rows, columns, maxPerceptionDistance, expandDistance;
+        double wallSpacing, maxWallDistance, cellPerimeterRatio;
    
         rows                          = configuration.getEnvironment().getNumberOfRows();
         columns                       = configuration.getEnvironment().getNumberOfColumns();
         this.configuration            = configuration;
         this.walls                    = Collections.synchronizedList(new ArrayList<EnvironmentWall>());
-        this.population               = new ConcurrentHashMap<>();
+        this.population               = new LinkedHashMap<>();
         this.deadPopulation           = new ArrayList<>();
         this.infectedHumans           = new ArrayList<>();
         this.humanShots               = new ArrayList<>();
-        this.environment              = new EnvironmentCell[rows][columns];
+        this.environment              = new EnvironmentCellGrid(rows, columns);
         this.resourcesAvailable       = configuration.getResources().getTotalResourcesAvailable();
         this.vaccinationKitsAvailable = 0;
         this.wallLengthAvailable      = 0;
@@ -148,21 +337,189 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.healthyCount             = 0;
         this.infectedCount            = 0;
         this.zombifiedCount           = 0;
+        this.phase                    = 0;
+        this.statistics               = new PhaseStatistics();
+        this.random                   = new SimulationRandom(seed);
+        
+        //The wall distances cover the farthest walls seen by the agents and the
+        //nearest wall hit by a move, with a margin for the spacing of the raster
+        wallSpacing        = Math.min(configuration.getEnvironment().getCellWidth(), 
+                                      configuration.getEnvironment().getCellHeight()) / 4.0;
+        maxWallDistance    = Math.max(Math.max(configuration.getHuman().getVisionDistance(), 
+                                               configuration.getZombieEpidemic().getZombieVisionDistance()), 
+                                      Math.max(configuration.getHuman().getSpeed(), 
+                                               Math.max(configuration.getZombieEpidemic().getZombieSpeed(), 
+                                                        configuration.getZombieEpidemic().getZombieSpeedAtRest()))
+                                      + Math.hypot(configuration.getEnvironment().getAgentWidth(), 
+                                                   configuration.getEnvironment().getAgentHeight()) / 2)
+                             + 2 * wallSpacing;
+        this.wallDistances = new WallDistanceField(configuration.getEnvironment().getMinX(), configuration.getEnvironment().getMinY(),
+                                                   configuration.getEnvironment().getEnvironmentWidth(), 
+                                                   configuration.getEnvironment().getEnvironmentHeight(), 
+                                                   wallSpacing, maxWallDistance, this.walls);
+        
+        if(configuration.getZombieEpidemic().isPursuitFieldEnabled() || configuration.getZombieEpidemic().isScentFieldEnabled()
+           || configuration.getEnvironment().isAggregateDistantCells()) {
+            
+            this.passages = new CellPassages(rows, columns, configuration.getEnvironment().getCellWidth(),
+                                             configuration.getEnvironment().getCellHeight(), this.getInaccessibleCells());
+        }
+        else {
+            this.passages = null;
+        }
         
-        for(int i = 0; i < rows; i++) {
-            for(int j = 0; j < columns; j++) {
-                this.environment[i][j] = new EnvironmentCell();
-            }
+        if(configuration.getZombieEpidemic().isPursuitFieldEnabled()) {
+            this.pursuitField = new ZombiePursuitField(this.passages);
+        }
+        else {
+            this.pursuitField = null;
         }
         
-        this.generateInitialWalls();
-        this.generatePopulation();
+        if(configuration.getZombieEpidemic().isScentFieldEnabled()) {
+            this.scentField = new ScentField(this.passages, 2.0 * configuration.getZombieEpidemic().getZombieOlfactoryDistance() 
+                                                            / (configuration.getEnvironment().getCellWidth() 
+                                                               + configuration.getEnvironment().getCellHeight()));
+        }
+        else {
+            this.scentField = null;
+        }
+        
+        if(configuration.getHuman().isDangerFieldEnabled()) {
+            this.dangerField = new HumanDangerField(rows, columns, configuration.getEnvironment().getCellWidth(),
+                                                    configuration.getEnvironment().getCellHeight(), 
+                                                    configuration.getHuman().getVisionDistance());
+        }
+        else {
+            this.dangerField = null;
+        }
+        
+        if(configuration.getEnvironment().getNeighbourListSkin() > 0) {
+            this.neighbourLists = new AgentNeighbourLists(this.environment, configuration.getEnvironment().getCellWidth(),
+                                                          configuration.getEnvironment().getCellHeight(), 
+                                                          configuration.getEnvironment().getNeighbourListSkin());
+        }
+        else {
+            this.neighbourLists = null;
+        }
+        
+        if(configuration.getEnvironment().isSortedCellRanges()) {
+            this.sortedGrid = new SortedAgentGrid(rows, columns, configuration.getEnvironment().getCellWidth(),
+                                                  configuration.getEnvironment().getCellHeight());
+        }
+        else {
+            this.sortedGrid = null;
+        }
+        
+        if(configuration.getZombieEpidemic().getIdleZombieUpdatePeriod() > 1) {
+            this.idleZombies = new IdleZombieScheduler(rows, columns, configuration.getEnvironment().getCellWidth(),
+                                                       configuration.getEnvironment().getCellHeight(), 
+                                                       configuration.getZombieEpidemic().getIdleZombieUpdatePeriod(),
+                                                       Math.max(configuration.getZombieEpidemic().getZombieVisionDistance(), 
+                                                                configuration.getZombieEpidemic().getZombieOlfactoryDistance()),
+                                                       configuration.getZombieEpidemic().getZombieSpeedAtRest());
+        }
+        else {
+            this.idleZombies = null;
+        }
+        
+        //The cells are expanded when the agents of both kinds are near enough to perceive 
+        //each other after moving. The aggregated agents leave their cell with the probability 
+        //of an agent walking at its speed in a random direction (perimeter / (pi * area) 
+        //crossings per unit of length)
+        if(configuration.getEnvironment().isAggregateDistantCells()) {
+            maxPerceptionDistance = Math.max(Math.max(configuration.getHuman().getVisionDistance(), 
+                                                      configuration.getZombieEpidemic().getZombieVisionDistance()),
+                                             configuration.getZombieEpidemic().getZombieOlfactoryDistance());
+            expandDistance        = (int)Math.ceil((double)(maxPerceptionDistance + configuration.getHuman().getSpeed() 
+                                                            + configuration.getZombieEpidemic().getZombieSpeed()) 
+                                                   / Math.min(configuration.getEnvironment().getCellWidth(), 
+                                                              configuration.getEnvironment().getCellHeight())) + 1;
+            cellPerimeterRatio    = 2.0 * (configuration.getEnvironment().getCellWidth() + configuration.getEnvironment().getCellHeight())
+                                    / (Math.PI * configuration.getEnvironment().getCellWidth() 
+                                       * configuration.getEnvironment().getCellHeight());
+            this.aggregateCells   = new AggregateCells(this.passages, expandDistance, 
+                                                       Math.min(1, configuration.getHuman().getSpeed() * cellPerimeterRatio),
+                                                       Math.min(1, configuration.getZombieEpidemic().getZombieSpeedAtRest() 
+                                                                   * cellPerimeterRatio));
+        }
+        else {
+            this.aggregateCells = null;
+        }
+        
+        if(generate) {
+            this.generateInitialWalls();
+            this.generatePopulation();
+        }
+        
+        this.monitorName = ZombieEpidemicEnvironmentMonitor.register(this);
     }
     
     //Overridden Methods
+    @Override
+    public synchronized void runOnePhase() {
+        final long startTime, endTime, allocatedBefore, allocatedAfter;
+        final int agentUpdates;
+        final Object phaseEvent;
+        
+        phaseEvent      = SimulationEvents.beginPhase(this.phase + 1);
+        allocatedBefore = PhaseStatistics.getCurrentThreadAllocatedBytes();
+        startTime       = System.nanoTime();
+        
+        this.wallDistances.update();
+        
+        if(this.aggregateCells != null) {
+            this.updateAggregateCells();
+        }
+        
+        if(this.passages != null || this.idleZombies != null) {
+            this.updateCellFields();
+        }
+        
+        if(this.dangerField != null) {
+            this.dangerField.update(this.environment);
+        }
+        
+        if(this.sortedGrid != null) {
+            this.sortedGrid.sort(this.population.values());
+        }
+        
+        super.runOnePhase();
+        
+        endTime        = System.nanoTime();
+        allocatedAfter = PhaseStatistics.getCurrentThreadAllocatedBytes();
+        agentUpdates   = this.agentsToUpdate;
+        
+        this.phase++;
+        
+        SimulationEvents.endPhase(phaseEvent, agentUpdates, this.healthyCount, this.infectedCount, 
+                                  this.zombifiedCount);
+        this.statistics.record(endTime - startTime, agentUpdates, 
+                               allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore, endTime);
+    }
+    
     @Override
     protected Collection<Agent> getAgents() {
-        return this.population.keySet();
+        final int currentPhase;
+        Collection<Agent> agents;
+        
+        if(this.idleZombies == null) {
+            agents = this.population.keySet();
+        }
+        else {
+            //The zombies asleep are left out of the phase until they have to wake up
+            currentPhase = this.phase + 1;
+            agents       = new ArrayList<>(this.population.size());
+            
+            for(Agent agent: this.population.keySet()) {
+                if(AgentsUtils.isHuman(agent) || this.hasToUpdate((ZombieAgent)agent, currentPhase)) {
+                    agents.add(agent);
+                }
+            }
+        }
+        
+        this.agentsToUpdate = agents.size();
+        
+        return agents;
     }
     
     @Override
@@ -183,30 +540,56 @@ public class ZombieEpidemicEnvironment extends Environment {
     
     @Override
     protected void update(Collection<AgentOnePhaseInformation> agents) {
+        final int currentPhase, numberOfCells, cellsVisitedByShots;
+        Object stageEvent;
+        
+        currentPhase  = this.phase + 1;
+        numberOfCells = this.configuration.getEnvironment().getNumberOfRows() 
+                        * this.configuration.getEnvironment().getNumberOfColumns();
+        
         //Remove the shots of the last phase
         this.humanShots.clear();
         
         //Update agents' information
+        stageEvent = SimulationEvents.beginUpdateStage(currentPhase, SimulationEvents.AGENTS_UPDATE_STAGE);
+        
         for(AgentOnePhaseInformation agentInformation: agents) {
             this.update(agentInformation.getAgent(), agentInformation.getPerceptions(), 
                         agentInformation.getAction());
         }
         
+        SimulationEvents.endUpdateStage(stageEvent, agents.size(), 0);
+        
         //Resolve confrontations between humans and zombies
+        stageEvent = SimulationEvents.beginUpdateStage(currentPhase, SimulationEvents.CONFLICTS_STAGE);
+        
         this.resolveConflicts();
         
+        SimulationEvents.endUpdateStage(stageEvent, this.population.size(), numberOfCells);
+        
         //Transform into zombie the infected humans
+        stageEvent = SimulationEvents.beginUpdateStage(currentPhase, SimulationEvents.ZOMBIFICATION_STAGE);
+        
         this.zombifyInfected();
         
+        SimulationEvents.endUpdateStage(stageEvent, this.infectedHumans.size(), 0);
+        
         //Destroy walls pushed by zombies
+        stageEvent = SimulationEvents.beginUpdateStage(currentPhase, SimulationEvents.WALLS_DESTRUCTION_STAGE);
+        
         this.destroyWalls();
         
+        SimulationEvents.endUpdateStage(stageEvent, 0, numberOfCells);
+        
         //Process the shots performed in this phase
-        this.processShots();
+        stageEvent          = SimulationEvents.beginUpdateStage(currentPhase, SimulationEvents.SHOTS_STAGE);
+        cellsVisitedByShots = this.processShots();
+        
+        SimulationEvents.endUpdateStage(stageEvent, this.humanShots.size(), cellsVisitedByShots);
     }
     
     @Override
-    protected boolean finalStateAchieved() {
+    public boolean finalStateAchieved() {
         //Simulation will stop when there aren't infected infected humans and 
         //there are only healthy humans or zombies
         return this.infectedCount == 0 && (this.healthyCount == 0 || this.zombifiedCount == 0);
@@ -214,10 +597,12 @@ public class ZombieEpidemicEnvironment extends Environment {
     
     //Public Methods
     /**
-     * Returns information about the state of the environment.
+     * Returns information about the state of the environment. The aggregated 
+     * healthy humans and zombies are included in the alive population, at fixed
+     * points of their cells.
      * @return the information about the environment
      */
-    public ZombieEpidemicEnvironmentInformation getEnvironmentInformation() {
+    public synchronized ZombieEpidemicEnvironmentInformation getEnvironmentInformation() {
         Collection<BaseInformation> dead, alive;
         Collection<EnvironmentWall> environmentWalls;
         Collection<Line2D> shots;
@@ -227,10 +612,82 @@ public class ZombieEpidemicEnvironment extends Environment {
         environmentWalls     = new ArrayList<>(this.walls);
         shots                = new ArrayList<>(this.humanShots);
         
+        //Aggregated agents (shown at fixed points of their cells)
+        if(this.aggregateCells != null) {
+            this.aggregateCells.addInformation(alive, this.configuration.getEnvironment().getCellWidth(), 
+                                               this.configuration.getEnvironment().getCellHeight(),
+                                               this.configuration.getZombieEpidemic().getInfectedLatencyPeriod());
+        }
+        
         return new ZombieEpidemicEnvironmentInformation(dead, alive, environmentWalls, 
                                                         shots);
     }
     
+    /**
+     * Counts the healthy humans, infected humans, zombies and dead agents located 
+     * in each cell of the environment. The counts are stored by row, column and 
+     * status (<code>CELL_COUNTS</code> values per cell).
+     * @param counts the array where the counts are stored (its length must be
+     * rows * columns * <code>CELL_COUNTS</code>)
+     */
+    public synchronized void countAgentsByCell(int[] counts) {
+        final int rows, columns, cellWidth, cellHeight;
+        EnvironmentCell cell;
+        int index, infected, row, column;
+        
+        rows       = this.configuration.getEnvironment().getNumberOfRows();
+        columns    = this.configuration.getEnvironment().getNumberOfColumns();
+        cellWidth  = this.configuration.getEnvironment().getCellWidth();
+        cellHeight = this.configuration.getEnvironment().getCellHeight();
+        
+        if(counts.length != rows * columns * CELL_COUNTS) {
+            throw new IllegalArgumentException("La mida del vector de comptadors no correspon a l'entorn.");
+        }
+        
+        Arrays.fill(counts, 0);
+        
+        //Alive agents, from the cells (the cells not created are empty)
+        for(row = 0; row < rows; row++) {
+            for(column = this.environment.nextCreatedColumn(row, 0); column < columns; 
+                column = this.environment.nextCreatedColumn(row, column + 1)) {
+                
+                cell     = this.environment.getCell(row, column);
+                index    = (row * columns + column) * CELL_COUNTS;
+                infected = 0;
+                
+                for(HumanAgent human: cell.getHumans()) {
+                    if(((HumanInformation)this.population.get(human)).getHealthStatus() == HumanHealthStatus.Infected) {
+                        infected++;
+                    }
+                }
+                
+                counts[index + HEALTHY_CELL_COUNT]  = cell.getNumberOfHumans() - infected;
+                counts[index + INFECTED_CELL_COUNT] = infected;
+                counts[index + ZOMBIE_CELL_COUNT]   = cell.getNumberOfZombies();
+            }
+        }
+        
+        //Aggregated agents of the cells
+        if(this.aggregateCells != null) {
+            for(row = 0; row < rows; row++) {
+                for(column = 0; column < columns; column++) {
+                    index = (row * columns + column) * CELL_COUNTS;
+                    
+                    counts[index + HEALTHY_CELL_COUNT] += this.aggregateCells.getHealthyHumans(row * columns + column);
+                    counts[index + ZOMBIE_CELL_COUNT]  += this.aggregateCells.getZombies(row * columns + column);
+                }
+            }
+        }
+        
+        //Dead agents, from their positions
+        for(BaseInformation information: this.deadPopulation) {
+            row    = Math.min((int)(information.getPosition().getY() / cellHeight), rows - 1);
+            column = Math.min((int)(information.getPosition().getX() / cellWidth), columns - 1);
+            
+            counts[(row * columns + column) * CELL_COUNTS + DEAD_CELL_COUNT]++;
+        }
+    }
+    
     /**
      * Returns information about the current resources available
      * @return the information about the resources available
@@ -240,12 +697,368 @@ public class ZombieEpidemicEnvironment extends Environment {
                                                       this.wallLengthAvailable, this.weaponKitsAvailable);
     }
     
+    /**
+     * Returns the performance measures of the last phases and the current population counters.
+     * @return the statistics information
+     */
+    public ZombieEpidemicStatisticsInformation getStatisticsInformation() {
+        return new ZombieEpidemicStatisticsInformation(this.phase, this.statistics.getPhaseRate(),
+                                                       this.statistics.getDurationPercentile(50),
+                                                       this.statistics.getDurationPercentile(99),
+                                                       this.statistics.getLastAgentUpdatesPerSecond(),
+                                                       this.statistics.getAgentUpdatesPerSecondPercentile(50),
+                                                       this.statistics.getAllocationRate(),
+                                                       this.healthyCount, this.infectedCount, this.zombifiedCount);
+    }
+    
+    /**
+     * Returns the number of phases executed.
+     * @return the number of phases
+     */
+    public int getPhase() {
+        return this.phase;
+    }
+    
+    /**
+     * Returns the number of healthy humans.
+     * @return the number of healthy humans
+     */
+    public int getHealthyCount() {
+        return this.healthyCount;
+    }
+    
+    /**
+     * Returns the number of infected humans.
+     * @return the number of infected humans
+     */
+    public int getInfectedCount() {
+        return this.infectedCount;
+    }
+    
+    /**
+     * Returns the number of zombies.
+     * @return the number of zombies
+     */
+    public int getZombifiedCount() {
+        return this.zombifiedCount;
+    }
+    
+    /**
+     * Returns the number of dead agents (humans and zombies).
+     * @return the number of dead agents
+     */
+    public int getDeadCount() {
+        return this.deadPopulation.size();
+    }
+    
+    /**
+     * Returns the number of humans killed by zombies in a confrontation since 
+     * the environment was created.
+     * @return the number of humans killed by zombies
+     */
+    public int getHumansKilledByZombiesCount() {
+        return this.humansKilledByZombiesCount;
+    }
+    
+    /**
+     * Returns the number of zombies killed by humans in a confrontation since 
+     * the environment was created.
+     * @return the number of zombies killed by humans
+     */
+    public int getZombiesKilledByHumansCount() {
+        return this.zombiesKilledByHumansCount;
+    }
+    
+    /**
+     * Returns the number of humans killed by shots since the environment was 
+     * created.
+     * @return the number of humans killed by shots
+     */
+    public int getHumansKilledByShotsCount() {
+        return this.humansKilledByShotsCount;
+    }
+    
+    /**
+     * Returns the number of zombies killed by shots since the environment was 
+     * created.
+     * @return the number of zombies killed by shots
+     */
+    public int getZombiesKilledByShotsCount() {
+        return this.zombiesKilledByShotsCount;
+    }
+    
+    /**
+     * Returns the number of shots fired since the environment was created.
+     * @return the number of shots fired
+     */
+    public int getShotsFiredCount() {
+        return this.shotsFiredCount;
+    }
+    
+    /**
+     * Returns the total length of the walls destroyed by zombies since the 
+     * environment was created.
+     * @return the length of the walls destroyed
+     */
+    public double getWallLengthDestroyed() {
+        return this.wallLengthDestroyed;
+    }
+    
+    /**
+     * Returns the configuration of the simulation.
+     * @return the configuration
+     */
+    public SimulationConfiguration getConfiguration() {
+        return this.configuration;
+    }
+    
+    /**
+     * Returns the number of walls of the environment.
+     * @return the number of walls
+     */
+    public int getWallCount() {
+        return this.walls.size();
+    }
+    
+    /**
+     * Stops the execution of the environment and removes its monitor from the 
+     * platform MBean server. This function must be called when the environment 
+     * isn't used anymore.
+     */
+    public void dispose() {
+        this.stop();
+        
+        if(this.monitorName != null) {
+            ZombieEpidemicEnvironmentMonitor.unregister(this.monitorName);
+            
+            this.monitorName = null;
+        }
+    }
+    
+    /**
+     * Writes a checkpoint with the complete state of the simulation (configuration,
+     * walls, population, resources, counters, random generators and phase). The 
+     * environment can be restored with <code>readCheckpoint</code>. The checkpoint 
+     * mustn't be written while the environment is executing a phase (this function 
+     * waits for the end of the current phase).
+     * @param channel the channel where the checkpoint is written (it isn't closed)
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void writeCheckpoint(WritableByteChannel channel) throws IOException {
+        final CheckpointOutput output;
+        final ByteArrayOutputStream configurationXML;
+        final IdentityHashMap<EnvironmentWall, Integer> wallIndices;
+        final IdentityHashMap<Agent, Integer> agentIndices;
+        Collection<EnvironmentWall> cellWalls;
+        EnvironmentCell cell;
+        BaseAgent<?, ?> agent;
+        BaseAction action;
+        Integer wallIndex;
+        int sleepPhase;
+        
+        output           = new CheckpointOutput(channel);
+        configurationXML = new ByteArrayOutputStream();
+        wallIndices      = new IdentityHashMap<>();
+        agentIndices     = new IdentityHashMap<>();
+        
+        //Header and configuration of the simulation
+        try {
+            new SimulationConfigurationFileAdapter().write(this.configuration, configurationXML);
+        }
+        catch (JAXBException ex) {
+            throw new IOException(ex);
+        }
+        
+        output.writeInt(CHECKPOINT_MAGIC_NUMBER);
+        output.writeInt(CHECKPOINT_VERSION);
+        output.writeBytes(configurationXML.toByteArray());
+        
+        //Phase, counters and resources
+        output.writeInt(this.phase);
+        output.writeInt(this.healthyCount);
+        output.writeInt(this.infectedCount);
+        output.writeInt(this.zombifiedCount);
+        output.writeInt(this.resourcesAvailable);
+        output.writeInt(this.vaccinationKitsAvailable);
+        output.writeInt(this.wallLengthAvailable);
+        output.writeInt(this.weaponKitsAvailable);
+        output.writeInt(this.humansKilledByZombiesCount);
+        output.writeInt(this.zombiesKilledByHumansCount);
+        output.writeInt(this.humansKilledByShotsCount);
+        output.writeInt(this.zombiesKilledByShotsCount);
+        output.writeInt(this.shotsFiredCount);
+        output.writeDouble(this.wallLengthDestroyed);
+        
+        //Walls (including the fragments of the partially destroyed walls)
+        synchronized(this.walls) {
+            output.writeInt(this.walls.size());
+            
+            for(EnvironmentWall wall: this.walls) {
+                wallIndices.put(wall, wallIndices.size());
+                
+                output.writeDouble(wall.getX1());
+                output.writeDouble(wall.getY1());
+                output.writeDouble(wall.getX2());
+                output.writeDouble(wall.getY2());
+                output.writeBoolean(wall.isDestructible());
+            }
+        }
+        
+        //Destructible walls of each cell (as indices of the list of walls; the
+        //cells not created have none)
+        for(int row = 0; row < this.environment.getRows(); row++) {
+            for(int column = 0; column < this.environment.getColumns(); column++) {
+                cell = this.environment.getCreatedCell(row, column);
+                
+                if(cell == null) {
+                    output.writeInt(0);
+                }
+                else {
+                    cellWalls = cell.getDestructibleWalls();
+                    
+                    synchronized(cellWalls) {
+                        output.writeInt(cellWalls.size());
+                        
+                        for(EnvironmentWall wall: cellWalls) {
+                            wallIndex = wallIndices.get(wall);
+                            
+                            //Walls already removed from the environment are stored as -1
+                            output.writeInt(wallIndex == null ? -1 : wallIndex);
+                        }
+                    }
+                }
+            }
+        }
+        
+        //Alive population
+        output.writeInt(this.population.size());
+        
+        for(Map.Entry<Agent, BaseInformation> entry: this.population.entrySet()) {
+            agent  = (BaseAgent<?, ?>)entry.getKey();
+            action = agent.getCurrentAction();
+            
+            agentIndices.put(agent, agentIndices.size());
+            
+            this.writeInformation(output, entry.getValue());
+            output.writeLong(agent.getRandom().getState());
+            output.writeByte(action.getActionType().ordinal());
+            output.writeDouble(action.getDirectionX());
+            output.writeDouble(action.getDirectionY());
+        }
+        
+        //Order of the agents in each cell (as indices of the population), because
+        //the conflicts between them are resolved in this order
+        for(int row = 0; row < this.environment.getRows(); row++) {
+            for(int column = this.environment.nextCreatedColumn(row, 0); column < this.environment.getColumns(); 
+                column = this.environment.nextCreatedColumn(row, column + 1)) {
+                
+                cell = this.environment.getCell(row, column);
+                
+                for(HumanAgent human: cell.getHumans()) {
+                    output.writeInt(agentIndices.get(human));
+                }
+                
+                for(ZombieAgent zombie: cell.getZombies()) {
+                    output.writeInt(agentIndices.get(zombie));
+                }
+            }
+        }
+        
+        //Infected humans (as indices of the population)
+        output.writeInt(this.infectedHumans.size());
+        
+        for(HumanAgent human: this.infectedHumans) {
+            output.writeInt(agentIndices.get(human));
+        }
+        
+        //Dead population
+        output.writeInt(this.deadPopulation.size());
+        
+        for(BaseInformation information: this.deadPopulation) {
+            this.writeInformation(output, information);
+        }
+        
+        //Shots of the last phase
+        output.writeInt(this.humanShots.size());
+        
+        for(Line2D shot: this.humanShots) {
+            output.writeDouble(shot.getX1());
+            output.writeDouble(shot.getY1());
+            output.writeDouble(shot.getX2());
+            output.writeDouble(shot.getY2());
+        }
+        
+        //Random numbers generator of the environment
+        output.writeLong(this.random.getState());
+        
+        //Scent of the cells (only when the scent field is enabled)
+        if(this.scentField != null) {
+            this.scentField.writeScents(output);
+        }
+        
+        //Zombies asleep and the phase of their last update (only when the idle 
+        //zombies aren't updated in every phase)
+        if(this.idleZombies != null) {
+            output.writeInt(this.idleZombies.getZombiesAsleep());
+            
+            for(Agent populationAgent: this.population.keySet()) {
+                if(!AgentsUtils.isHuman(populationAgent)) {
+                    sleepPhase = this.idleZombies.getSleepPhase((ZombieAgent)populationAgent);
+                    
+                    if(sleepPhase >= 0) {
+                        output.writeInt(agentIndices.get(populationAgent));
+                        output.writeInt(sleepPhase);
+                    }
+                }
+            }
+        }
+        
+        //Aggregated agents of the cells (only when the distant cells are aggregated)
+        if(this.aggregateCells != null) {
+            this.aggregateCells.writeCells(output);
+        }
+        
+        output.flush();
+    }
+    
+    /**
+     * Writes a checkpoint of the simulation in a file.
+     * @param file the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void saveCheckpoint(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, 
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            this.writeCheckpoint(channel);
+        }
+    }
+    
+    /**
+     * Creates an independent branch of the simulation from its current state 
+     * (including the state of the random numbers generators). The branch can be
+     * executed in parallel with this environment and with other branches.
+     * <p>
+     * The parts of the state that never change (the configuration, the 
+     * indestructible walls and the information of the dead population) are shared
+     * with the branch; the rest is copied.
+     * @return the new environment (it has to be disposed when it isn't used anymore)
+     */
+    public synchronized ZombieEpidemicEnvironment fork() {
+        final ZombieEpidemicEnvironment branch;
+        
+        branch = new ZombieEpidemicEnvironment(this.configuration, 0, false);
+        
+        branch.copyState(this);
+        
+        return branch;
+    }
+    
     /**
      * Buys a number of vaccination kits (if there are enough resources available).
      * @param units the number of vaccination kits
      * @return the number of vaccination kits bought
      */
-    public int buyVaccinationKits(int units) {
+    public synchronized int buyVaccinationKits(int units) {
         final int unitsBought, vaccinationKitCost;
         
         vaccinationKitCost = this.configuration.getResources().getVaccination().getVaccinationKitCost();
@@ -262,6 +1075,11 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.resourcesAvailable       -= vaccinationKitCost * unitsBought;
         this.vaccinationKitsAvailable += unitsBought;
         
+        if(unitsBought > 0) {
+            SimulationEvents.purchase(this.phase, "Vaccination kit", unitsBought, vaccinationKitCost * unitsBought, 
+                                      this.resourcesAvailable);
+        }
+        
         //Return the number of units bought
         return unitsBought;
     }
@@ -270,7 +1088,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Buy one vaccination kit (if there are enough resources available).
      * @return <code>true</code> if the kit has been bought, <code>false</code> otherwise
      */
-    public boolean buyVaccinationKit() {
+    public synchronized boolean buyVaccinationKit() {
         final int unitsBought;
         final boolean canBuy;
         
@@ -284,7 +1102,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Use a vaccination kit (if there are any available)
      * @return <code>true</code> if a kit has been used, <code>false</code> otherwise
      */
-    public boolean useVaccinationKit() {
+    public synchronized boolean useVaccinationKit() {
         final boolean canUse;
         
         canUse = this.vaccinationKitsAvailable > 0;
@@ -301,7 +1119,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Buys one vaccination kit and uses it
      * @return <code>true</code> if a kit has been bought and used, <code>false</code> otherwise
      */
-    public boolean buyAndUseVaccinationKit() {
+    public synchronized boolean buyAndUseVaccinationKit() {
         final boolean bought;
         
         bought = this.buyVaccinationKit();
@@ -318,7 +1136,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param units the number of walls
      * @return the number of wall units bought
      */
-    public int buyWallUnits(int units) {
+    public synchronized int buyWallUnits(int units) {
         final int unitsBought, wallUnitCost, wallUnitLength;
         
         wallUnitCost   = this.configuration.getResources().getWall().getWallUnitCost();
@@ -336,6 +1154,11 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.resourcesAvailable  -= wallUnitCost * unitsBought;
         this.wallLengthAvailable += unitsBought * wallUnitLength;
         
+        if(unitsBought > 0) {
+            SimulationEvents.purchase(this.phase, "Wall unit", unitsBought, wallUnitCost * unitsBought, 
+                                      this.resourcesAvailable);
+        }
+        
         //Return the number of units bought
         return unitsBought;
     }
@@ -344,7 +1167,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Buys one wall unit.
      * @return <code>true</code> if the wall unit has been bought, <code>false</code> otherwise
      */
-    public boolean buyWallUnit() {
+    public synchronized boolean buyWallUnit() {
         final int unitsBought;
         final boolean canBuy;
         
@@ -361,7 +1184,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param destructible boolean value indicating if the wall is destructible or not
      * @return the length of the wall built
      */
-    public double buildWall(Point2D p1, Point2D p2, boolean destructible) {
+    public synchronized double buildWall(Point2D p1, Point2D p2, boolean destructible) {
         double wallLength, x1, y1, x2, y2;
         Vector2D lineVector;
         
@@ -400,7 +1223,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param destructible boolean value indicating if the wall is destructible or not
      * @return the length of the wall built
      */
-    public double buyAndBuildWall(Point2D p1, Point2D p2, boolean destructible) {
+    public synchronized double buyAndBuildWall(Point2D p1, Point2D p2, boolean destructible) {
         final double wallLengthToBuild, wallUnitLength;
         final int wallUnits;
         
@@ -424,7 +1247,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param units the number of kits
      * @return the number of weapon kits bought
      */
-    public int buyWeaponKits(int units) {
+    public synchronized int buyWeaponKits(int units) {
         final int unitsBought, weaponKitCost;
         
         weaponKitCost = this.configuration.getResources().getWeapon().getWeaponKitCost();
@@ -441,6 +1264,11 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.resourcesAvailable  -= weaponKitCost * unitsBought;
         this.weaponKitsAvailable += unitsBought;
         
+        if(unitsBought > 0) {
+            SimulationEvents.purchase(this.phase, "Weapon kit", unitsBought, weaponKitCost * unitsBought, 
+                                      this.resourcesAvailable);
+        }
+        
         //Return the units bought
         return unitsBought;
     }
@@ -449,7 +1277,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Buys one weapon kit.
      * @return <code>true</code> if the kit has been bought, <code>false</code> otherwise
      */
-    public boolean buyWeaponKit() {
+    public synchronized boolean buyWeaponKit() {
         final int unitsBought;
         final boolean canBuy;
         
@@ -463,7 +1291,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Uses one weapon kit
      * @return <code>true</code> if the kit has been used, <code>false</code> otherwise
      */
-    public boolean useWeaponKit() {
+    public synchronized boolean useWeaponKit() {
         final boolean canUse;
         
         canUse = this.weaponKitsAvailable > 0;
@@ -480,7 +1308,7 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Buys one weapon kit and uses it.
      * @return <code>true</code> if a kit has been bought and used, <code>false</code> otherwise
      */
-    public boolean buyAndUseWeaponKit() {
+    public synchronized boolean buyAndUseWeaponKit() {
         final boolean bought;
         
         bought = this.buyWeaponKit();
@@ -494,34 +1322,24 @@ public class ZombieEpidemicEnvironment extends Environment {
     
     //Private Methods 
     /**
-     * Returns a boolean matrix representing the environment, where <code>true</code>
-     * means that the cell is accesible and <code>false</code> means that the cell
-     * is inaccessible.
-     * @return a boolean matrix
+     * Returns the set of the inaccessible cells of the environment, where the 
+     * bit <code>row * columns + column</code> of each inaccessible cell is set.
+     * @return the bits of the inaccessible cells
      */
-    private boolean[][] getAccessibleCells() {
-        final int numberOfRows, numberOfColumns;
+    private BitSet getInaccessibleCells() {
+        final int numberOfColumns;
         final Collection<Cell> inaccessibleCells;
-        boolean accessibleCells[][];
+        BitSet inaccessibleCellsBits;
         
-        numberOfRows      = this.configuration.getEnvironment().getNumberOfRows();
-        numberOfColumns   = this.configuration.getEnvironment().getNumberOfColumns();
-        inaccessibleCells = this.configuration.getEnvironment().getInaccessibleCells();
-        accessibleCells   = new boolean[numberOfRows][numberOfColumns];
-        
-        //Sets all matrix with the true value
-        for(int i = 0; i < numberOfRows; i++) {
-            for(int j = 0; j < numberOfColumns; j++) {
-                accessibleCells[i][j] = true;
-            }
-        }
+        numberOfColumns       = this.configuration.getEnvironment().getNumberOfColumns();
+        inaccessibleCells     = this.configuration.getEnvironment().getInaccessibleCells();
+        inaccessibleCellsBits = new BitSet();
         
-        //Mark inaccessible cells with the false value
         for(Cell cell: inaccessibleCells) {
-            accessibleCells[cell.getRow()][cell.getColumn()] = false;
+            inaccessibleCellsBits.set(cell.getRow() * numberOfColumns + cell.getColumn());
         }
         
-        return accessibleCells;
+        return inaccessibleCellsBits;
     }
     
     /**
@@ -531,9 +1349,7 @@ public class ZombieEpidemicEnvironment extends Environment {
         final int numberOfRows, numberOfColumns;
         int row, column;
         final double x1, y1, x2, y2, x3, y3, x4, y4;
-        boolean accessibleCells[][], buildNorthWall[][], buildSouthWall[][], 
-                buildEastWall[][], buildWestWall[][];
-        final Collection<Cell> inaccessibleCells;
+        final BitSet inaccessibleCells, buildNorthWall, buildSouthWall, buildEastWall, buildWestWall;
         
         //Generate environment borders
         x1 = this.configuration.getEnvironment().getMinX();
@@ -550,54 +1366,47 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.walls.add(new EnvironmentWall(x3, y3, x4, y4, false));
         this.walls.add(new EnvironmentWall(x4, y4, x1, y1, false));
         
-        //Generate inaccesible cells' walls
-        accessibleCells   = this.getAccessibleCells();
-        inaccessibleCells = this.configuration.getEnvironment().getInaccessibleCells();
+        //Generate inaccesible cells' walls (the edges are kept as bits indexed
+        //by row * columns + column, and only the inaccessible cells have them)
+        inaccessibleCells = this.getInaccessibleCells();
         numberOfRows      = this.configuration.getEnvironment().getNumberOfRows();
         numberOfColumns   = this.configuration.getEnvironment().getNumberOfColumns();
-        buildNorthWall    = new boolean[numberOfRows][numberOfColumns]; 
-        buildSouthWall    = new boolean[numberOfRows][numberOfColumns];
-        buildEastWall     = new boolean[numberOfRows][numberOfColumns];
-        buildWestWall     = new boolean[numberOfRows][numberOfColumns];
-        
-        for(int i = 0; i < numberOfRows; i++) {
-            for(int j = 0; j < numberOfColumns; j++) {
-                buildNorthWall[i][j] = false;
-                buildSouthWall[i][j] = false;
-                buildEastWall[i][j]  = false;
-                buildWestWall[i][j]  = false;
-            }
-        }
-        
-        for(Cell cell: inaccessibleCells) {
-            row    = cell.getRow();
-            column = cell.getColumn();
+        buildNorthWall    = new BitSet(); 
+        buildSouthWall    = new BitSet();
+        buildEastWall     = new BitSet();
+        buildWestWall     = new BitSet();
+        
+        for(int cell = inaccessibleCells.nextSetBit(0); cell >= 0; cell = inaccessibleCells.nextSetBit(cell + 1)) {
+            row    = cell / numberOfColumns;
+            column = cell % numberOfColumns;
             
             //Mark the edges of the cell where a wall must be built
-            buildNorthWall[row][column] = row > 0 && accessibleCells[row - 1][column];
-            buildSouthWall[row][column] = row < numberOfRows - 1  && accessibleCells[row + 1][column];
-            buildEastWall[row][column]  = column < numberOfColumns - 1 && accessibleCells[row][column + 1];
-            buildWestWall[row][column]  = column > 0 && accessibleCells[row][column - 1];
+            buildNorthWall.set(cell, row > 0 && !inaccessibleCells.get(cell - numberOfColumns));
+            buildSouthWall.set(cell, row < numberOfRows - 1 && !inaccessibleCells.get(cell + numberOfColumns));
+            buildEastWall.set(cell, column < numberOfColumns - 1 && !inaccessibleCells.get(cell + 1));
+            buildWestWall.set(cell, column > 0 && !inaccessibleCells.get(cell - 1));
         }
         
-        for(int i = 0; i < numberOfRows; i++) {
-            for(int j = 0; j < numberOfColumns; j++) {
-                //Builds the necessary walls
-                if(buildNorthWall[i][j]) {
-                    this.buildHorizontalWall(i, j, buildNorthWall, true);
-                }
-                
-                if(buildSouthWall[i][j]) {
-                    this.buildHorizontalWall(i, j, buildSouthWall, false);
-                }
-                
-                if(buildEastWall[i][j]) {
-                    this.buildVerticalWall(i, j, buildEastWall, false);
-                }
-                
-                if(buildWestWall[i][j]) {
-                    this.buildVerticalWall(i, j, buildWestWall, true);
-                }
+        //The cells are visited by rows and columns
+        for(int cell = inaccessibleCells.nextSetBit(0); cell >= 0; cell = inaccessibleCells.nextSetBit(cell + 1)) {
+            row    = cell / numberOfColumns;
+            column = cell % numberOfColumns;
+            
+            //Builds the necessary walls
+            if(buildNorthWall.get(cell)) {
+                this.buildHorizontalWall(row, column, buildNorthWall, true);
+            }
+            
+            if(buildSouthWall.get(cell)) {
+                this.buildHorizontalWall(row, column, buildSouthWall, false);
+            }
+            
+            if(buildEastWall.get(cell)) {
+                this.buildVerticalWall(row, column, buildEastWall, false);
+            }
+            
+            if(buildWestWall.get(cell)) {
+                this.buildVerticalWall(row, column, buildWestWall, true);
             }
         }
     }
@@ -606,13 +1415,14 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Builds the largest possible horizontal (north or south) wall from a given cell
      * @param row the starting row
      * @param column the starting column
-     * @param buildHorizontalWall matrix of booleans indicating if a wall must be built at the horizontal edge of the cell
+     * @param buildHorizontalWall bits of the cells indicating if a wall must be built at the horizontal edge of the cell
      * @param isNorth boolean indicating it the horizontal wall is north (it will be south otherwise)
      */
-    private void buildHorizontalWall(int row, int column, boolean buildHorizontalWall[][], boolean isNorth) {
+    private void buildHorizontalWall(int row, int column, BitSet buildHorizontalWall, boolean isNorth) {
         int maxColumn;
         double xMin, yMin, xMax, yMax;
-        final double cellWidth, cellHeight, numberOfColumns;
+        final double cellWidth, cellHeight;
+        final int numberOfColumns;
         
         cellWidth       = this.configuration.getEnvironment().getCellWidth();
         cellHeight      = this.configuration.getEnvironment().getCellHeight();
@@ -622,8 +1432,8 @@ public class ZombieEpidemicEnvironment extends Environment {
         //Find the maximum consecutive cell in the row (starting from the given cell) that need
         //a wall in the edge (these edges will be marked as false to avoid build several times
         //the same wall in subsequent calls to the function)
-        while(maxColumn < numberOfColumns && buildHorizontalWall[row][maxColumn]) {
-            buildHorizontalWall[row][maxColumn] = false;
+        while(maxColumn < numberOfColumns && buildHorizontalWall.get(row * numberOfColumns + maxColumn)) {
+            buildHorizontalWall.clear(row * numberOfColumns + maxColumn);
             
             maxColumn++;
         }
@@ -643,24 +1453,26 @@ public class ZombieEpidemicEnvironment extends Environment {
      * Builds the largest possible vertical (east or west) wall from a given cell
      * @param row the starting row
      * @param column the starting column
-     * @param buildVerticalWall matrix of booleans indicating if a wall must be built at the vertical edge of the cell
+     * @param buildVerticalWall bits of the cells indicating if a wall must be built at the vertical edge of the cell
      * @param isWest boolean indicating it the vertical wall is west (it will be east otherwise)
      */
-    private void buildVerticalWall(int row, int column, boolean buildVerticalWall[][], boolean isWest) {
+    private void buildVerticalWall(int row, int column, BitSet buildVerticalWall, boolean isWest) {
         int maxRow;
         double xMin, yMin, xMax, yMax;
-        final double cellWidth, cellHeight, numberOfRows;
+        final double cellWidth, cellHeight;
+        final int numberOfRows, numberOfColumns;
         
-        cellWidth    = this.configuration.getEnvironment().getCellWidth();
-        cellHeight   = this.configuration.getEnvironment().getCellHeight();
-        numberOfRows = this.configuration.getEnvironment().getNumberOfRows();
-        maxRow       = row;
+        cellWidth       = this.configuration.getEnvironment().getCellWidth();
+        cellHeight      = this.configuration.getEnvironment().getCellHeight();
+        numberOfRows    = this.configuration.getEnvironment().getNumberOfRows();
+        numberOfColumns = this.configuration.getEnvironment().getNumberOfColumns();
+        maxRow          = row;
         
         //Find the maximum consecutive cell in the column (starting from the given cell) that need
         //a wall in the edge (these edges will be marked as false to avoid build several times
         //the same wall in subsequent calls to the function)
-        while(maxRow < numberOfRows && buildVerticalWall[maxRow][column]) {
-            buildVerticalWall[maxRow][column] = false;
+        while(maxRow < numberOfRows && buildVerticalWall.get(maxRow * numberOfColumns + column)) {
+            buildVerticalWall.clear(maxRow * numberOfColumns + column);
             
             maxRow++;
         }
@@ -683,11 +1495,10 @@ public class ZombieEpidemicEnvironment extends Environment {
      */
     private void generatePopulation() {
         final int initiallyHealthy, initiallyInfected, initiallyZombified, latencyPeriod, 
-                  agentWidth, agentHeight, humanVisionDistance, zombieVisionDistance,
-                  zombieOlfactoryDistance, humanSpeed, zombieSpeed, zombieSpeedAtRest;
+                  agentWidth, agentHeight;
         final double agentMinX, agentMinY, agentMaxX, agentMaxY;
         double humanX, humanY, zombieX, zombieY;
-        boolean accessibleCells[][];
+        final BitSet inaccessibleCells;
         HumanAgent humanAgent;
         ZombieAgent zombieAgent;
         HumanInformation humanInformation;
@@ -702,24 +1513,18 @@ public class ZombieEpidemicEnvironment extends Environment {
         initiallyHealthy        = this.configuration.getPopulation().getInitiallyHealthy();
         initiallyInfected       = this.configuration.getPopulation().getInitiallyInfected();
         initiallyZombified      = this.configuration.getPopulation().getInitiallyZombified();
-        humanVisionDistance     = this.configuration.getHuman().getVisionDistance();
-        humanSpeed              = this.configuration.getHuman().getSpeed();
-        zombieVisionDistance    = this.configuration.getZombieEpidemic().getZombieVisionDistance();
-        zombieOlfactoryDistance = this.configuration.getZombieEpidemic().getZombieOlfactoryDistance();
-        zombieSpeed             = this.configuration.getZombieEpidemic().getZombieSpeed();
-        zombieSpeedAtRest       = this.configuration.getZombieEpidemic().getZombieSpeedAtRest();
         latencyPeriod           = this.configuration.getZombieEpidemic().getInfectedLatencyPeriod();
-        accessibleCells         = this.getAccessibleCells();
+        inaccessibleCells       = this.getInaccessibleCells();
         
         //Generate the healthy humans
         humanX = agentMinX;
         humanY = agentMaxY;
         for(int i = 0; i < initiallyHealthy; i++) {
-            humanAgent       = new HumanAgent(agentWidth, agentHeight, humanVisionDistance, humanSpeed);
+            humanAgent       = this.createHumanAgent();
             humanInformation = new HumanInformation(HumanHealthStatus.Healthy, humanX, humanY, latencyPeriod, false, 0);
             
-            if(this.agentCanBePlaced(humanX, humanY, agentWidth, agentHeight, accessibleCells)) {
-                this.addHuman(humanAgent, humanInformation);
+            if(this.agentCanBePlaced(humanX, humanY, agentWidth, agentHeight, inaccessibleCells)) {
+                this.addGeneratedHuman(humanAgent, humanInformation);
             }
             else {
                 //Decrement the index to invalidate the next increment
@@ -743,11 +1548,11 @@ public class ZombieEpidemicEnvironment extends Environment {
         
         //Generate the infected humans
         for(int i = 0; i < initiallyInfected; i++) {
-            humanAgent       = new HumanAgent(agentWidth, agentHeight, humanVisionDistance, humanSpeed);
+            humanAgent       = this.createHumanAgent();
             humanInformation = new HumanInformation(HumanHealthStatus.Infected, humanX, humanY, latencyPeriod, false, 0);
             
-            if(this.agentCanBePlaced(humanX, humanY, agentWidth, agentHeight, accessibleCells)) {
-                this.addHuman(humanAgent, humanInformation);
+            if(this.agentCanBePlaced(humanX, humanY, agentWidth, agentHeight, inaccessibleCells)) {
+                this.addGeneratedHuman(humanAgent, humanInformation);
             }
             else {
                 //Decrement the index to invalidate the next increment
@@ -780,12 +1585,11 @@ public class ZombieEpidemicEnvironment extends Environment {
                                                  + "Disminueixi el tamany de la població o augmenti el tamany de l'escentari.");
             }
             
-            zombieAgent       = new ZombieAgent(agentWidth, agentHeight, zombieVisionDistance, zombieOlfactoryDistance,
-                                                zombieSpeed, zombieSpeedAtRest);
+            zombieAgent       = this.createZombieAgent();
             zombieInformation = new ZombieInformation(zombieX, zombieY);
             
-            if(this.agentCanBePlaced(zombieX, zombieY, agentWidth, agentHeight, accessibleCells)) {
-                this.addZombie(zombieAgent, zombieInformation);
+            if(this.agentCanBePlaced(zombieX, zombieY, agentWidth, agentHeight, inaccessibleCells)) {
+                this.addGeneratedZombie(zombieAgent, zombieInformation);
             }
             else {
                 //Decrement the index to invalidate the next increment
@@ -815,12 +1619,12 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param centralY the Y component of the center of the agent
      * @param agentWidth the width of an agent
      * @param agentHeight the height of an agent
-     * @param accessibleCells matrix of the accesibility of the cells
+     * @param inaccessibleCells bits of the inaccessible cells
      * @return <code>true</code> if the agent can be placed at the given position,
      * <code>false</code> otherwise
      */
     private boolean agentCanBePlaced(double centralX, double centralY, double agentWidth, double agentHeight,
-                                     boolean accessibleCells[][]) {
+                                     BitSet inaccessibleCells) {
         final double cellWidth, cellHeight, xMin, yMin, xMax, yMax;
         final int minRow, minColumn, maxRow, maxColumn;
         boolean humanCanBePlaced;
@@ -840,7 +1644,7 @@ public class ZombieEpidemicEnvironment extends Environment {
         //Look for an inaccessible cell placed on the agent area
         for(int row = minRow; row <= maxRow; row++) {
             for(int column = minColumn; column <= maxColumn; column++) {
-                if(!accessibleCells[row][column]) {
+                if(inaccessibleCells.get(row * this.configuration.getEnvironment().getNumberOfColumns() + column)) {
                     humanCanBePlaced = false;
                     break;
                 }
@@ -875,16 +1679,50 @@ public class ZombieEpidemicEnvironment extends Environment {
     }
     
     /**
-     * Adds a zombie in the environment.
-     * @param human the human agent
-     * @param information the information of the human
+     * Adds a zombie in the environment.
+     * @param human the human agent
+     * @param information the information of the human
+     */
+    private void addZombie(ZombieAgent zombie, ZombieInformation information) {
+        //Increment the counter of the zombie population
+        this.zombifiedCount++;
+        
+        //Complete the addition of the zombie
+        this.addAgent(zombie, information);
+    }
+    
+    /**
+     * Adds a human generated at the start of the simulation. When the distant 
+     * cells are aggregated, the human is only counted in its cell, and it will
+     * be expanded into an agent when zombies come near.
+     * @param human the human agent
+     * @param information the information of the human
+     */
+    private void addGeneratedHuman(HumanAgent human, HumanInformation information) {
+        if(this.aggregateCells != null && this.canBeAggregated(information)) {
+            this.healthyCount++;
+            this.aggregateCells.addHealthyHuman(this.getCellIndex(information.getPosition()));
+        }
+        else {
+            this.addHuman(human, information);
+        }
+    }
+    
+    /**
+     * Adds a zombie generated at the start of the simulation. When the distant 
+     * cells are aggregated, the zombie is only counted in its cell, and it will
+     * be expanded into an agent when humans come near.
+     * @param zombie the zombie agent
+     * @param information the information of the zombie
      */
-    private void addZombie(ZombieAgent zombie, ZombieInformation information) {
-        //Increment the counter of the zombie population
-        this.zombifiedCount++;
-        
-        //Complete the addition of the zombie
-        this.addAgent(zombie, information);
+    private void addGeneratedZombie(ZombieAgent zombie, ZombieInformation information) {
+        if(this.aggregateCells != null) {
+            this.zombifiedCount++;
+            this.aggregateCells.addZombie(this.getCellIndex(information.getPosition()));
+        }
+        else {
+            this.addZombie(zombie, information);
+        }
     }
     
     /**
@@ -917,10 +1755,15 @@ public class ZombieEpidemicEnvironment extends Environment {
             //Add the wall in the environment
             wall = new EnvironmentWall(x1, y1, x2, y2, destructible);
             this.walls.add(wall);
+            this.wallDistances.addWall(wall);
             
             //Add the wall at cells crossed by it
             for(Cell cell: GeometryUtils.getGridCellsCrossedByLine(x1, y1, x2, y2, cellWidth, cellHeight)) {
-                this.environment[cell.getRow()][cell.getColumn()].add(wall);
+                this.environment.getCell(cell.getRow(), cell.getColumn()).add(wall);
+            }
+            
+            if(this.passages != null) {
+                this.passages.invalidateWalls();
             }
         }
     }
@@ -944,7 +1787,303 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.population.put(agent, information);
         
         //Include the agent in the cell where it's located
-        this.environment[row][column].add(agent);
+        this.environment.getCell(row, column).add(agent);
+        
+        if(this.neighbourLists != null) {
+            this.neighbourLists.add(agent, information);
+        }
+    }
+    
+    /**
+     * Counts the healthy humans of each cell in the fields calculated on the cells
+     * and updates them: the distances that the zombies will follow during the 
+     * phase, the scent that they will smell and the cells that wake up the
+     * zombies asleep.
+     */
+    private void updateCellFields() {
+        final int cellWidth, cellHeight;
+        int row, column;
+        Point2D position;
+        
+        cellWidth  = this.configuration.getEnvironment().getCellWidth();
+        cellHeight = this.configuration.getEnvironment().getCellHeight();
+        
+        if(this.passages != null) {
+            this.passages.update(this.walls);
+        }
+        
+        if(this.pursuitField != null) {
+            this.pursuitField.clearHealthyHumans();
+        }
+        
+        if(this.scentField != null) {
+            this.scentField.clearHealthyHumans();
+        }
+        
+        if(this.idleZombies != null) {
+            this.idleZombies.clearHealthyHumans();
+        }
+        
+        for(BaseInformation information: this.population.values()) {
+            if(information instanceof HumanInformation 
+               && ((HumanInformation)information).getHealthStatus() == HumanHealthStatus.Healthy) {
+                
+                position = information.getPosition();
+                row      = (int)(position.getY() / cellHeight);
+                column   = (int)(position.getX() / cellWidth);
+                
+                if(this.pursuitField != null) {
+                    this.pursuitField.addHealthyHuman(row, column);
+                }
+                
+                if(this.scentField != null) {
+                    this.scentField.addHealthyHuman(row, column);
+                }
+                
+                if(this.idleZombies != null) {
+                    this.idleZombies.addHealthyHuman(row, column);
+                }
+            }
+        }
+        
+        if(this.pursuitField != null) {
+            this.pursuitField.update();
+        }
+        
+        if(this.scentField != null) {
+            this.scentField.update();
+        }
+        
+        if(this.idleZombies != null) {
+            this.idleZombies.update();
+        }
+    }
+    
+    /**
+     * Updates the aggregated cells: counts the healthy humans and zombies kept as 
+     * agents, expands the aggregated agents of the cells where humans and zombies
+     * come near, aggregates the agents of the cells where they don't, and moves 
+     * the aggregated agents that remain. The global counters don't change, because
+     * the agents only change their representation.
+     */
+    private void updateAggregateCells() {
+        final int rows, columns, cellWidth, cellHeight;
+        int cell;
+        Point2D position;
+        
+        rows       = this.configuration.getEnvironment().getNumberOfRows();
+        columns    = this.configuration.getEnvironment().getNumberOfColumns();
+        cellWidth  = this.configuration.getEnvironment().getCellWidth();
+        cellHeight = this.configuration.getEnvironment().getCellHeight();
+        
+        this.passages.update(this.walls);
+        this.aggregateCells.clearAgents();
+        
+        for(BaseInformation information: this.population.values()) {
+            position = information.getPosition();
+            
+            if(!AgentsUtils.isHumanInformation(information)) {
+                this.aggregateCells.addZombieAgent((int)(position.getY() / cellHeight), (int)(position.getX() / cellWidth));
+            }
+            else if(((HumanInformation)information).getHealthStatus() == HumanHealthStatus.Healthy) {
+                this.aggregateCells.addHealthyHumanAgent((int)(position.getY() / cellHeight), (int)(position.getX() / cellWidth));
+            }
+        }
+        
+        this.aggregateCells.update();
+        
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                cell = row * columns + column;
+                
+                if(this.aggregateCells.isNearFrontier(row, column)) {
+                    if(this.aggregateCells.getHealthyHumans(cell) > 0 || this.aggregateCells.getZombies(cell) > 0) {
+                        this.expandCell(row, column);
+                    }
+                }
+                else if(this.aggregateCells.isQuiet(row, column) && this.environment.getCreatedCell(row, column) != null
+                        && this.environment.getCell(row, column).getNumberOfHumans() + this.environment.getCell(row, column).getNumberOfZombies() > 0) {
+                    
+                    this.collapseCell(row, column);
+                }
+            }
+        }
+        
+        this.aggregateCells.drift(this.random);
+    }
+    
+    /**
+     * Creates the agents of the aggregated healthy humans and zombies of a cell,
+     * at random positions of the cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    private void expandCell(int row, int column) {
+        final int cell, healthyHumans, zombies, latencyPeriod;
+        
+        cell          = row * this.configuration.getEnvironment().getNumberOfColumns() + column;
+        healthyHumans = this.aggregateCells.getHealthyHumans(cell);
+        zombies       = this.aggregateCells.getZombies(cell);
+        latencyPeriod = this.configuration.getZombieEpidemic().getInfectedLatencyPeriod();
+        
+        this.aggregateCells.clear(cell);
+        
+        for(int i = 0; i < healthyHumans; i++) {
+            this.addAgent(this.createHumanAgent(), 
+                          new HumanInformation(HumanHealthStatus.Healthy, this.getRandomXInCell(column), 
+                                               this.getRandomYInCell(row), latencyPeriod, false, 0));
+        }
+        
+        for(int i = 0; i < zombies; i++) {
+            this.addAgent(this.createZombieAgent(), 
+                          new ZombieInformation(this.getRandomXInCell(column), this.getRandomYInCell(row)));
+        }
+    }
+    
+    /**
+     * Removes the agents of a cell that can be aggregated (the healthy humans and
+     * the zombies without anything that tells them apart) and counts them in the
+     * aggregated cells.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    private void collapseCell(int row, int column) {
+        final int cell;
+        HumanAgent human;
+        ZombieAgent zombie;
+        
+        cell = row * this.configuration.getEnvironment().getNumberOfColumns() + column;
+        
+        for(Iterator<HumanAgent> iterator = this.environment.getCell(row, column).getHumans().iterator(); iterator.hasNext();) {
+            human = iterator.next();
+            
+            if(this.canBeAggregated(this.population.get(human))) {
+                iterator.remove();
+                this.population.remove(human);
+                this.aggregateCells.addHealthyHuman(cell);
+                
+                if(this.neighbourLists != null) {
+                    this.neighbourLists.remove(human);
+                }
+            }
+        }
+        
+        for(Iterator<ZombieAgent> iterator = this.environment.getCell(row, column).getZombies().iterator(); iterator.hasNext();) {
+            zombie = iterator.next();
+            
+            if(this.canBeAggregated(this.population.get(zombie))) {
+                iterator.remove();
+                this.population.remove(zombie);
+                this.aggregateCells.addZombie(cell);
+                
+                if(this.neighbourLists != null) {
+                    this.neighbourLists.remove(zombie);
+                }
+                
+                if(this.idleZombies != null) {
+                    this.idleZombies.remove(zombie);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Checks if an agent can be aggregated: it is a zombie or a healthy human
+     * without gunshot wounds, bullets or vaccine, so it can be created again 
+     * from the count of its cell.
+     * @param information the information of the agent
+     * @return <code>true</code> if the agent can be aggregated, <code>false</code> otherwise
+     */
+    private boolean canBeAggregated(BaseInformation information) {
+        final boolean aggregable;
+        HumanInformation humanInformation;
+        
+        if(AgentsUtils.isHumanInformation(information)) {
+            humanInformation = (HumanInformation)information;
+            aggregable       = humanInformation.getHealthStatus() == HumanHealthStatus.Healthy 
+                               && !humanInformation.isVaccinated() && humanInformation.getBullets() == 0
+                               && humanInformation.getGunshotWounds() == 0;
+        }
+        else {
+            aggregable = information.getGunshotWounds() == 0;
+        }
+        
+        return aggregable;
+    }
+    
+    /**
+     * Returns a random X component of the center of an agent placed inside a 
+     * column of cells (and inside the environment).
+     * @param column the column
+     * @return the X component
+     */
+    private double getRandomXInCell(int column) {
+        final double cellWidth, minX, maxX;
+        
+        cellWidth = this.configuration.getEnvironment().getCellWidth();
+        minX      = Math.max(column * cellWidth + this.configuration.getEnvironment().getAgentWidth() / 2.0, 
+                             this.configuration.getEnvironment().getAgentMinX());
+        maxX      = Math.min((column + 1) * cellWidth - this.configuration.getEnvironment().getAgentWidth() / 2.0, 
+                             this.configuration.getEnvironment().getAgentMaxX());
+        
+        return minX <= maxX ? minX + this.random.nextDouble() * (maxX - minX) : (column + 0.5) * cellWidth;
+    }
+    
+    /**
+     * Returns a random Y component of the center of an agent placed inside a 
+     * row of cells (and inside the environment).
+     * @param row the row
+     * @return the Y component
+     */
+    private double getRandomYInCell(int row) {
+        final double cellHeight, minY, maxY;
+        
+        cellHeight = this.configuration.getEnvironment().getCellHeight();
+        minY       = Math.max(row * cellHeight + this.configuration.getEnvironment().getAgentHeight() / 2.0, 
+                              this.configuration.getEnvironment().getAgentMinY());
+        maxY       = Math.min((row + 1) * cellHeight - this.configuration.getEnvironment().getAgentHeight() / 2.0, 
+                              this.configuration.getEnvironment().getAgentMaxY());
+        
+        return minY <= maxY ? minY + this.random.nextDouble() * (maxY - minY) : (row + 0.5) * cellHeight;
+    }
+    
+    /**
+     * Returns the index of the cell where a position is located.
+     * @param position the position
+     * @return the index of the cell (<code>row * columns + column</code>)
+     */
+    private int getCellIndex(Point2D position) {
+        return (int)(position.getY() / this.configuration.getEnvironment().getCellHeight()) 
+               * this.configuration.getEnvironment().getNumberOfColumns()
+               + (int)(position.getX() / this.configuration.getEnvironment().getCellWidth());
+    }
+    
+    /**
+     * Checks if a zombie has to be updated in a phase: it isn't asleep, it has
+     * slept for the whole period, or it would perceive something now (healthy 
+     * humans around it, the scent of a human or the path to a human).
+     * @param agent the zombie
+     * @param currentPhase the phase
+     * @return <code>true</code> if the zombie has to be updated, <code>false</code> otherwise
+     */
+    private boolean hasToUpdate(ZombieAgent agent, int currentPhase) {
+        final int row, column;
+        final boolean update;
+        Point2D position;
+        
+        if(this.idleZombies.isAsleep(agent)) {
+            position = this.population.get(agent).getPosition();
+            row      = (int)(position.getY() / this.configuration.getEnvironment().getCellHeight());
+            column   = (int)(position.getX() / this.configuration.getEnvironment().getCellWidth());
+            update   = this.idleZombies.hasToUpdate(agent, row, column, currentPhase)
+                       || (this.scentField != null && this.scentField.getScentDirection(row, column) != null)
+                       || (this.pursuitField != null && this.pursuitField.getPursuitTarget(row, column) != null);
+        }
+        else {
+            update = true;
+        }
+        
+        return update;
     }
     
     /**
@@ -955,6 +2094,7 @@ public class ZombieEpidemicEnvironment extends Environment {
     private HumanPerceptions getPerceptions(HumanAgent agent) {
         final int cellWidth, cellHeight, rows, columns, row, column, minRow, maxRow, minColumn, maxColumn, 
                   visionDistance, bullets, rowsVisionDistance, columnsVisionDistance;
+        int nearCells;
         final double x, y;
         final boolean vaccinated;
         HumanPerceptions perceptions;
@@ -962,6 +2102,8 @@ public class ZombieEpidemicEnvironment extends Environment {
         ZombieInformation nearZombieInformation;
         Point2D position, nearAgentPosition;
         EnvironmentCell cell;
+        List<HumanInformation> nearHumans;
+        List<ZombieInformation> nearZombies;
         
         rows                  = this.configuration.getEnvironment().getNumberOfRows();
         columns               = this.configuration.getEnvironment().getNumberOfColumns();
@@ -987,29 +2129,86 @@ public class ZombieEpidemicEnvironment extends Environment {
         //Add the walls seen by the human
         this.addNearWalls(perceptions, x, y, visionDistance);
         
-        //Add the positions of the agents seen by the human (they will be looked for in the near cells of the human)
-        //The positions will be relative to the position of the zombie.
-        for(int nearAgentRow = minRow; nearAgentRow <= maxRow; nearAgentRow++) {
-            for(int nearAgentColumn = minColumn; nearAgentColumn <= maxColumn; nearAgentColumn++) {
-                cell = this.environment[nearAgentRow][nearAgentColumn];
+        if(this.dangerField != null && !vaccinated && bullets == 0) {
+            //The human will escape from all the zombies seen: only the zombies of the near cells are looked for
+            //one by one, and the directions to escape from the other zombies are taken from the danger field
+            nearCells = this.dangerField.getNearCells();
+            
+            for(int nearAgentRow = Math.max(row - nearCells, 0); nearAgentRow <= Math.min(row + nearCells, rows - 1); 
+                nearAgentRow++) {
                 
-                for(HumanAgent nearHuman: cell.getHumans()) {
-                    if(agent != nearHuman) {
-                        nearHumanInformation = (HumanInformation)this.population.get(nearHuman);
-                        nearAgentPosition    = nearHumanInformation.getPosition();
+                for(int nearAgentColumn = Math.max(column - nearCells, 0); nearAgentColumn <= Math.min(column + nearCells, columns - 1); 
+                    nearAgentColumn++) {
+                    
+                    for(ZombieAgent nearZombie: this.environment.getCell(nearAgentRow, nearAgentColumn).getZombies()) {
+                        nearZombieInformation = (ZombieInformation)this.population.get(nearZombie);
+                        nearAgentPosition     = nearZombieInformation.getPosition();
 
                         if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
-                            perceptions.addNearHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                            perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
                         }
                     }
                 }
+            }
+            
+            this.dangerField.setFarZombies(perceptions, row, column);
+        }
+        else if(this.neighbourLists != null || this.sortedGrid != null) {
+            //Add the positions of the agents seen by the human (they will be looked for among the candidates of the
+            //neighbour list of the human or of the near cells of the sorted agents). The positions will be relative 
+            //to the position of the human.
+            nearHumans  = new ArrayList<>();
+            nearZombies = new ArrayList<>();
+            
+            if(this.neighbourLists != null) {
+                this.neighbourLists.getCandidates(agent, visionDistance, nearHumans, nearZombies);
+            }
+            else {
+                this.sortedGrid.getCandidates(minRow, maxRow, minColumn, maxColumn, position, visionDistance, 
+                                              information, nearHumans, nearZombies);
+            }
+            
+            for(HumanInformation nearHuman: nearHumans) {
+                nearAgentPosition = nearHuman.getPosition();
+                
+                if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+                    perceptions.addNearHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                }
+            }
+            
+            for(ZombieInformation nearZombie: nearZombies) {
+                nearAgentPosition = nearZombie.getPosition();
                 
-                for(ZombieAgent nearZombie: cell.getZombies()) {
-                    nearZombieInformation = (ZombieInformation)this.population.get(nearZombie);
-                    nearAgentPosition     = nearZombieInformation.getPosition();
+                if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+                    perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                }
+            }
+        }
+        else {
+            //Add the positions of the agents seen by the human (they will be looked for in the near cells of the human)
+            //The positions will be relative to the position of the zombie.
+            for(int nearAgentRow = minRow; nearAgentRow <= maxRow; nearAgentRow++) {
+                for(int nearAgentColumn = minColumn; nearAgentColumn <= maxColumn; nearAgentColumn++) {
+                    cell = this.environment.getCell(nearAgentRow, nearAgentColumn);
+                    
+                    for(HumanAgent nearHuman: cell.getHumans()) {
+                        if(agent != nearHuman) {
+                            nearHumanInformation = (HumanInformation)this.population.get(nearHuman);
+                            nearAgentPosition    = nearHumanInformation.getPosition();
+
+                            if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+                                perceptions.addNearHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                            }
+                        }
+                    }
                     
-                    if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
-                        perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                    for(ZombieAgent nearZombie: cell.getZombies()) {
+                        nearZombieInformation = (ZombieInformation)this.population.get(nearZombie);
+                        nearAgentPosition     = nearZombieInformation.getPosition();
+                        
+                        if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+                            perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                        }
                     }
                 }
             }
@@ -1029,17 +2228,18 @@ public class ZombieEpidemicEnvironment extends Environment {
                   maxPerceptionDistance;
         double x, y;
         ZombiePerceptions perceptions;
-        ZombieInformation information, nearZombieInformation;
-        HumanInformation nearHumanInformation;
-        Point2D position, nearAgentPosition;
+        ZombieInformation information;
+        Point2D position, pursuitTarget, scentDirection;
         EnvironmentCell cell;
+        List<HumanInformation> nearHumans;
+        List<ZombieInformation> nearZombies;
         
         rows                      = this.configuration.getEnvironment().getNumberOfRows();
         columns                   = this.configuration.getEnvironment().getNumberOfColumns();
         cellWidth                 = this.configuration.getEnvironment().getCellWidth();
         cellHeight                = this.configuration.getEnvironment().getCellHeight();
         visionDistance            = this.configuration.getZombieEpidemic().getZombieVisionDistance();
-        olfactoryDistance         = this.configuration.getZombieEpidemic().getZombieOlfactoryDistance();
+        olfactoryDistance         = this.scentField == null ? this.configuration.getZombieEpidemic().getZombieOlfactoryDistance() : 0;
         maxPerceptionDistance     = Math.max(visionDistance, olfactoryDistance);
         rowsPerceptionDistance    = (int)Math.ceil((double)maxPerceptionDistance / cellHeight);
         columnsPerceptionDistance = (int)Math.ceil((double)maxPerceptionDistance / cellWidth);
@@ -1059,56 +2259,140 @@ public class ZombieEpidemicEnvironment extends Environment {
         this.addNearWalls(perceptions, x, y, visionDistance);
         
         //Add the positions of the agents seen and smelled by the zombie (they will be looked for in the near cells of the zombie)
-        //The positions will be relative to the position of the zombie.
-        for(int nearAgentRow = minRow; nearAgentRow <= maxRow; nearAgentRow++) {
-            for(int nearAgentColumn = minColumn; nearAgentColumn <= maxColumn; nearAgentColumn++) {
-                cell = this.environment[nearAgentRow][nearAgentColumn];
+        //The positions will be relative to the position of the zombie. When the pursuit field tells that the near cells
+        //don't contain healthy humans the search is skipped, because the zombie only acts upon the healthy humans perceived.
+        if(this.pursuitField == null || this.pursuitField.containsHealthyHumans(minRow, maxRow, minColumn, maxColumn)) {
+            if(this.neighbourLists != null || this.sortedGrid != null) {
+                //The agents are looked for among the candidates of the neighbour list of the zombie or of the
+                //near cells of the sorted agents
+                nearHumans  = new ArrayList<>();
+                nearZombies = new ArrayList<>();
                 
-                for(HumanAgent nearHuman: cell.getHumans()) {
-                    nearHumanInformation = (HumanInformation)this.population.get(nearHuman);
-                    nearAgentPosition    = nearHumanInformation.getPosition();
-                    
-                    if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
-                        switch(nearHumanInformation.getHealthStatus()) {
-                            case Healthy:
-                                perceptions.addNearHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
-                                break;
-                            case Infected:
-                                perceptions.addNearInfectedHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
-                        }
-                    }
-                    
-                    if(position.distance(nearAgentPosition) < olfactoryDistance) {
-                        switch(nearHumanInformation.getHealthStatus()) {
-                            case Healthy:
-                                perceptions.addSmelledHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
-                                break;
-                            case Infected:
-                                perceptions.addSmelledInfectedHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
-                        }
-                    }
+                if(this.neighbourLists != null) {
+                    this.neighbourLists.getCandidates(agent, maxPerceptionDistance, nearHumans, nearZombies);
+                }
+                else {
+                    this.sortedGrid.getCandidates(minRow, maxRow, minColumn, maxColumn, position, maxPerceptionDistance,
+                                                  information, nearHumans, nearZombies);
                 }
                 
-                for(ZombieAgent nearZombie: cell.getZombies()) {
-                    if(agent != nearZombie) {
-                        nearZombieInformation = (ZombieInformation)this.population.get(nearZombie);
-                        nearAgentPosition     = nearZombieInformation.getPosition();
-
-                        if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
-                            perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                for(HumanInformation nearHumanInformation: nearHumans) {
+                    this.addPerceivedHuman(perceptions, position, visionDistance, olfactoryDistance, nearHumanInformation);
+                }
+                
+                for(ZombieInformation nearZombieInformation: nearZombies) {
+                    this.addPerceivedZombie(perceptions, position, visionDistance, olfactoryDistance, nearZombieInformation);
+                }
+            }
+            else {
+                for(int nearAgentRow = minRow; nearAgentRow <= maxRow; nearAgentRow++) {
+                    for(int nearAgentColumn = minColumn; nearAgentColumn <= maxColumn; nearAgentColumn++) {
+                        cell = this.environment.getCell(nearAgentRow, nearAgentColumn);
+                        
+                        for(HumanAgent nearHuman: cell.getHumans()) {
+                            this.addPerceivedHuman(perceptions, position, visionDistance, olfactoryDistance, 
+                                                   (HumanInformation)this.population.get(nearHuman));
                         }
                         
-                        if(position.distance(nearAgentPosition) < olfactoryDistance) {
-                            perceptions.addSmelledZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                        for(ZombieAgent nearZombie: cell.getZombies()) {
+                            if(agent != nearZombie) {
+                                this.addPerceivedZombie(perceptions, position, visionDistance, olfactoryDistance, 
+                                                        (ZombieInformation)this.population.get(nearZombie));
+                            }
                         }
                     }
                 }
             }
         }
         
+        //With the scent field the zombie doesn't smell the near humans, but the scent they leave. It will follow the 
+        //direction where the scent increases
+        if(this.scentField != null && perceptions.getNearHumans().isEmpty()) {
+            scentDirection = this.scentField.getScentDirection(row, column);
+            
+            if(scentDirection != null) {
+                perceptions.addSmelledHuman(scentDirection);
+            }
+        }
+        
+        //Without healthy humans perceived, the zombie will follow the shortest path to the nearest healthy human
+        if(this.pursuitField != null && perceptions.getNearHumans().isEmpty() && perceptions.getSmelledHumans().isEmpty()) {
+            pursuitTarget = this.pursuitField.getPursuitTarget(row, column);
+            
+            if(pursuitTarget != null) {
+                perceptions.setPursuitTarget(pursuitTarget.getX() - x, pursuitTarget.getY() - y);
+            }
+        }
+        
         return perceptions;
     }
     
+    /**
+     * Adds a human near a zombie to the perceptions of the zombie if it is seen
+     * or smelled.
+     * @param perceptions the perceptions of the zombie
+     * @param position the position of the zombie
+     * @param visionDistance the vision distance of the zombie
+     * @param olfactoryDistance the olfactory distance of the zombie
+     * @param nearHumanInformation the information of the human
+     */
+    private void addPerceivedHuman(ZombiePerceptions perceptions, Point2D position, int visionDistance, 
+                                   int olfactoryDistance, HumanInformation nearHumanInformation) {
+        final double x, y;
+        final Point2D nearAgentPosition;
+        
+        x                 = position.getX();
+        y                 = position.getY();
+        nearAgentPosition = nearHumanInformation.getPosition();
+        
+        if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+            switch(nearHumanInformation.getHealthStatus()) {
+                case Healthy:
+                    perceptions.addNearHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                    break;
+                case Infected:
+                    perceptions.addNearInfectedHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+            }
+        }
+        
+        if(position.distance(nearAgentPosition) < olfactoryDistance) {
+            switch(nearHumanInformation.getHealthStatus()) {
+                case Healthy:
+                    perceptions.addSmelledHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+                    break;
+                case Infected:
+                    perceptions.addSmelledInfectedHuman(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+            }
+        }
+    }
+    
+    /**
+     * Adds a zombie near another zombie to the perceptions of the last if it is
+     * seen or smelled.
+     * @param perceptions the perceptions of the zombie
+     * @param position the position of the zombie
+     * @param visionDistance the vision distance of the zombie
+     * @param olfactoryDistance the olfactory distance of the zombie
+     * @param nearZombieInformation the information of the near zombie
+     */
+    private void addPerceivedZombie(ZombiePerceptions perceptions, Point2D position, int visionDistance, 
+                                    int olfactoryDistance, ZombieInformation nearZombieInformation) {
+        final double x, y;
+        final Point2D nearAgentPosition;
+        
+        x                 = position.getX();
+        y                 = position.getY();
+        nearAgentPosition = nearZombieInformation.getPosition();
+        
+        if(this.nearAgentIsSeen(position, visionDistance, nearAgentPosition)) {
+            perceptions.addNearZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+        }
+        
+        if(position.distance(nearAgentPosition) < olfactoryDistance) {
+            perceptions.addSmelledZombie(nearAgentPosition.getX() - x, nearAgentPosition.getY() - y);
+        }
+    }
+    
     /**
      * Adds the walls seen by an agent to its perceptions.
      * @param perceptions the perceptions object where to store the walls 
@@ -1120,21 +2404,24 @@ public class ZombieEpidemicEnvironment extends Environment {
         double distance;
         Line2D visibleWall;
         
-        synchronized(this.walls) {
-           for(EnvironmentWall wall: this.walls) {
-               distance    = wall.ptSegDist(x, y);
+        //Only look for the walls if the nearest wall can be within the vision of the agent
+        if(this.wallDistances.getClearance(x, y) <= visionDistance) {
+            synchronized(this.walls) {
+               for(EnvironmentWall wall: this.walls) {
+                   distance    = wall.ptSegDist(x, y);
                
-               if(distance <= visionDistance) {
-                   //Clips the line within the vision area of the agent.
-                   //The coordinates of the clipped line will be relative to the agent position
-                   visibleWall = GeometryUtils.clipLine(- visionDistance, - visionDistance, visionDistance, visionDistance,
-                                                        wall.x1 - x, wall.y1 - y, wall.x2 - x, wall.y2 - y);
+                   if(distance <= visionDistance) {
+                       //Clips the line within the vision area of the agent.
+                       //The coordinates of the clipped line will be relative to the agent position
+                       visibleWall = GeometryUtils.clipLine(- visionDistance, - visionDistance, visionDistance, visionDistance,
+                                                            wall.x1 - x, wall.y1 - y, wall.x2 - x, wall.y2 - y);
                     
-                   //Add the clipped line to the agent's perceptions
-                   perceptions.addNearWall(visibleWall);
-                }
-           }
-        }  
+                       //Add the clipped line to the agent's perceptions
+                       perceptions.addNearWall(visibleWall);
+                    }
+               }
+            }  
+        }
     }
     
     /**
@@ -1184,8 +2471,15 @@ public class ZombieEpidemicEnvironment extends Environment {
      * @param action the decided action
      */
     private void update(ZombieAgent agent, ZombiePerceptions perceptions, ZombieAction action) {
-        final int speed;
-        final boolean humanInFieldOfView;
+        final int speed, phasesSinceUpdate, row, column;
+        final boolean humanInFieldOfView, idle;
+        Point2D position;
+        
+        //A zombie that has nothing to perceive moves as far as it would have moved 
+        //in all the phases it has been asleep
+        phasesSinceUpdate = this.idleZombies == null ? 1 : this.idleZombies.wake(agent, this.phase + 1);
+        idle              = perceptions.getNearHumans().isEmpty() && perceptions.getSmelledHumans().isEmpty()
+                            && perceptions.getPursuitTarget() == null;
         
         if(action.getActionType() == ActionType.Move) {
             humanInFieldOfView = !perceptions.getNearHumans().isEmpty();
@@ -1193,12 +2487,26 @@ public class ZombieEpidemicEnvironment extends Environment {
             if(humanInFieldOfView) {
                 speed = this.configuration.getZombieEpidemic().getZombieSpeed();
             }
+            else if(idle) {
+                speed = this.configuration.getZombieEpidemic().getZombieSpeedAtRest() * phasesSinceUpdate;
+            }
             else {
                 speed = this.configuration.getZombieEpidemic().getZombieSpeedAtRest();
             }
             
             this.updateWhenMove(agent, action.getDirection(), speed);
         }
+        
+        //The zombie falls asleep if there aren't healthy humans around it either
+        if(this.idleZombies != null && idle) {
+            position = this.population.get(agent).getPosition();
+            row      = (int)(position.getY() / this.configuration.getEnvironment().getCellHeight());
+            column   = (int)(position.getX() / this.configuration.getEnvironment().getCellWidth());
+            
+            if(this.idleZombies.canSleep(row, column)) {
+                this.idleZombies.sleep(agent, this.phase + 1);
+            }
+        }
     }
     
     /**
@@ -1219,17 +2527,26 @@ public class ZombieEpidemicEnvironment extends Environment {
         beforeRow       = (int)(position.getY() / cellHeight);
         beforeColumn    = (int)(position.getX() / cellWidth);
         
-        //Update the position of the agent
+        //Update the position of the agent (a position that isn't a finite point of
+        //the environment would break the cells and the checkpoints)
         moveDirection.setMagnitude(1);
         this.updateAgentPosition(position, moveDirection, speed);
         
+        if(!this.isInsideEnvironment(position)) {
+            throw new IllegalStateException("Un agent s'ha mogut fora de l'entorn.");
+        }
+        
+        if(this.neighbourLists != null) {
+            this.neighbourLists.moved(agent);
+        }
+        
         //Update the cell where the agent is located
         afterRow    = (int)(position.getY() / cellHeight);
         afterColumn = (int)(position.getX() / cellWidth);
         
         if(beforeRow != afterRow || beforeColumn != afterColumn) {
-            this.environment[beforeRow][beforeColumn].remove(agent);
-            this.environment[afterRow][afterColumn].add(agent);
+            this.environment.getCell(beforeRow, beforeColumn).remove(agent);
+            this.environment.getCell(afterRow, afterColumn).add(agent);
         }
     }
     
@@ -1252,7 +2569,7 @@ public class ZombieEpidemicEnvironment extends Environment {
         
         if(bulletTrajectoryDiversionDegrees > 0 ) {
             //Calculate the new trajectory from a random deviation
-            rnd                       = new Random();
+            rnd                       = this.random;
             actualTrajectoryDiversion = - bulletTrajectoryDiversionDegrees + rnd.nextInt(2* bulletTrajectoryDiversionDegrees + 1);
             
             shotDirection.rotate(Math.toRadians(actualTrajectoryDiversion));
@@ -1282,6 +2599,7 @@ public class ZombieEpidemicEnvironment extends Environment {
             
             //Store the shot trajectory (it will be processed at the end of the updating)
             this.humanShots.add(shotLine);
+            this.shotsFiredCount++;
         }
         
     }
@@ -1338,10 +2656,12 @@ public class ZombieEpidemicEnvironment extends Environment {
         columns    = this.configuration.getEnvironment().getNumberOfColumns();
         
         for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
+            for(int column = this.environment.nextCreatedColumn(row, 0); column < columns; 
+                column = this.environment.nextCreatedColumn(row, column + 1)) {
+                
                 cellGroups.clear();
                         
-                cell = this.environment[row][column];
+                cell = this.environment.getCell(row, column);
                 
                 //Calculate the different groups in the cell (the groups are separated
                 //by a wall)
@@ -1451,7 +2771,7 @@ public class ZombieEpidemicEnvironment extends Environment {
         zombieWinLoseRatioAgainstArmedHuman = this.configuration.getResources().getWeapon().getZombieWinLoseRatioAgainstArmedHuman();
         zombieKillInfectRatio               = this.configuration.getHumanZombieInteraction().getZombieKillInfectRatio();
         humanKillEscapeRatio                = this.configuration.getHumanZombieInteraction().getHumanKillEscapeRatio();
-        randomGenerator                     = new Random();
+        randomGenerator                     = this.random;
         zombiesIterator                     = zombies.iterator();
         
         for(HumanAgent human: humans) {
@@ -1479,9 +2799,14 @@ public class ZombieEpidemicEnvironment extends Environment {
                     //The zombie kill the human
                     humanInformation.setLifeStatus(AgentLifeStatus.Dead);
                     this.deadPopulation.add(humanInformation);
-                    this.environment[row][column].remove(human);
+                    this.environment.getCell(row, column).remove(human);
                     this.healthyCount--;
+                    this.humansKilledByZombiesCount++;
                     this.population.remove(human);
+                    
+                    if(this.neighbourLists != null) {
+                        this.neighbourLists.remove(human);
+                    }
                 }
                 else {
                     //The zombie infect the human 
@@ -1502,10 +2827,20 @@ public class ZombieEpidemicEnvironment extends Environment {
                     zombiesIterator.remove();
                     zombieInformation.setLifeStatus(AgentLifeStatus.Dead);
                     this.deadPopulation.add(zombieInformation);
-                    this.environment[row][column].remove(zombie);
+                    this.environment.getCell(row, column).remove(zombie);
                     this.population.remove(zombie);
                     this.zombifiedCount--;
                     
+                    if(this.neighbourLists != null) {
+                        this.neighbourLists.remove(zombie);
+                    }
+                    
+                    if(this.idleZombies != null) {
+                        this.idleZombies.remove(zombie);
+                    }
+                    
+                    this.zombiesKilledByHumansCount++;
+                    
                     if(humanHasWeapon) {
                         humanInformation.decrementOneBullet();
                     }
@@ -1523,22 +2858,16 @@ public class ZombieEpidemicEnvironment extends Environment {
         HumanInformation information;
         ZombieAgent newAgent;
         ZombieInformation newInformation;
-        final int cellWidth, cellHeight, agentWidth, agentHeight, zombieVisionDistance,
-                  zombieOlfactoryDistance, zombieSpeed, zombieSpeedAtRest;
-        int phasesToZombify, row, column; 
+        final int cellWidth, cellHeight;
+        int phasesToZombify, row, column, zombified; 
         Point2D position;
         Iterator<HumanAgent> infectedHumansIterator;
         
         
-        infectedHumansIterator  = this.infectedHumans.iterator();
-        agentWidth              = this.configuration.getEnvironment().getAgentWidth();
-        agentHeight             = this.configuration.getEnvironment().getAgentHeight();
-        cellWidth               = this.configuration.getEnvironment().getCellWidth();
-        cellHeight              = this.configuration.getEnvironment().getCellHeight();
-        zombieVisionDistance    = this.configuration.getZombieEpidemic().getZombieVisionDistance();
-        zombieOlfactoryDistance = this.configuration.getZombieEpidemic().getZombieOlfactoryDistance();
-        zombieSpeed             = this.configuration.getZombieEpidemic().getZombieSpeed();
-        zombieSpeedAtRest       = this.configuration.getZombieEpidemic().getZombieSpeedAtRest();
+        zombified              = 0;
+        infectedHumansIterator = this.infectedHumans.iterator();
+        cellWidth              = this.configuration.getEnvironment().getCellWidth();
+        cellHeight             = this.configuration.getEnvironment().getCellHeight();
         
         while(infectedHumansIterator.hasNext()) {
             agent           = infectedHumansIterator.next();
@@ -1553,8 +2882,7 @@ public class ZombieEpidemicEnvironment extends Environment {
                 //Transform the human agent into a zombie agent
                 
                 newInformation = new ZombieInformation(information);
-                newAgent       = new ZombieAgent(agentWidth, agentHeight, zombieVisionDistance, 
-                                                 zombieOlfactoryDistance, zombieSpeed, zombieSpeedAtRest);
+                newAgent       = this.createZombieAgent();
                 position       = information.getPosition();
                 row            = (int)(position.getY() / cellHeight);
                 column         = (int)(position.getX() / cellWidth);
@@ -1562,12 +2890,23 @@ public class ZombieEpidemicEnvironment extends Environment {
                 infectedHumansIterator.remove();
                 this.population.remove(agent);
                 this.population.put(newAgent, newInformation);
-                this.environment[row][column].remove(agent);
-                this.environment[row][column].add(newAgent);
+                this.environment.getCell(row, column).remove(agent);
+                this.environment.getCell(row, column).add(newAgent);
                 this.infectedCount--;
                 this.zombifiedCount++;
+                
+                if(this.neighbourLists != null) {
+                    this.neighbourLists.remove(agent);
+                    this.neighbourLists.add(newAgent, newInformation);
+                }
+                
+                zombified++;
             }
         }
+        
+        if(zombified > 0) {
+            SimulationEvents.zombificationBatch(this.phase + 1, zombified, this.infectedCount);
+        }
     }
     
     /**
@@ -1591,8 +2930,10 @@ public class ZombieEpidemicEnvironment extends Environment {
     
         //Look for cells containing the minimum number of zombies
         for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
-                cell = this.environment[row][column];
+            for(int column = this.environment.nextCreatedColumn(row, 0); column < columns; 
+                column = this.environment.nextCreatedColumn(row, column + 1)) {
+                
+                cell = this.environment.getCell(row, column);
                 
                 if(cell.getNumberOfZombies() >= zombiesNeededToBreakDownAWall 
                    && cell.getNumberOfDestructibleWalls() > 0) {
@@ -1613,6 +2954,12 @@ public class ZombieEpidemicEnvironment extends Environment {
                             //Destroy the crossing part of the wall
                             if(destroyedPart != null) {
                                 this.destroyWall(cellWall, destroyedPart);
+                                
+                                this.wallLengthDestroyed += destroyedPart.getP1().distance(destroyedPart.getP2());
+                                
+                                SimulationEvents.wallDestroyed(this.phase + 1, row, column, 
+                                                               destroyedPart.getP1().distance(destroyedPart.getP2()), 
+                                                               this.walls.size());
                             }
                         }
                         
@@ -1632,12 +2979,15 @@ public class ZombieEpidemicEnvironment extends Environment {
      */
     private void destroyWall(EnvironmentWall wall, Line2D destroyedPart) {
         boolean originalWallUsed;
-        double cellWidth, cellHeight, oldWallX2, oldWallY2, newWallX1, newWallY1, newWallX2, newWallY2;
+        double cellWidth, cellHeight, oldWallX1, oldWallY1, oldWallX2, oldWallY2, 
+               newWallX1, newWallY1, newWallX2, newWallY2;
         Vector2D wallDirection;
         EnvironmentWall newWall;
         
         wallDirection    = wall.getWallDirection();
         originalWallUsed = false;
+        oldWallX1        = wall.x1;
+        oldWallY1        = wall.y1;
         oldWallX2        = wall.x2;
         oldWallY2        = wall.y2;
         
@@ -1668,8 +3018,8 @@ public class ZombieEpidemicEnvironment extends Environment {
                 this.walls.add(newWall);
                 
                 for(Cell cell: GeometryUtils.getGridCellsCrossedByLine(newWall, cellWidth, cellHeight)) {
-                    this.environment[cell.getRow()][cell.getColumn()].remove(wall);
-                    this.environment[cell.getRow()][cell.getColumn()].add(newWall);
+                    this.environment.getCell(cell.getRow(), cell.getColumn()).remove(wall);
+                    this.environment.getCell(cell.getRow(), cell.getColumn()).add(newWall);
                    
                 }
             }
@@ -1678,18 +3028,27 @@ public class ZombieEpidemicEnvironment extends Environment {
             //The wall is completely removed
             this.walls.remove(wall);
         }
+        
+        this.wallDistances.removeWall(oldWallX1, oldWallY1, oldWallX2, oldWallY2);
+        
+        if(this.passages != null) {
+            this.passages.invalidateWalls();
+        }
     }
     
     /**
      * Calculate the impact point of the shots.
+     * @return the number of cells visited
      */
-    private void processShots() {
+    private int processShots() {
         final int cellWidth, cellHeight;
+        int cellsVisited;
         Collection<Cell> cellsCrossedByShot;
         boolean agentInjured;
         
-        cellWidth  = this.configuration.getEnvironment().getCellWidth();
-        cellHeight = this.configuration.getEnvironment().getCellHeight();
+        cellWidth    = this.configuration.getEnvironment().getCellWidth();
+        cellHeight   = this.configuration.getEnvironment().getCellHeight();
+        cellsVisited = 0;
         
         for(Line2D shotLine: this.humanShots) {
             //Obtain the cells that the shot will be cross.
@@ -1697,7 +3056,9 @@ public class ZombieEpidemicEnvironment extends Environment {
             
             for(Cell cell: cellsCrossedByShot) {
                 //Look for an agent injured by the shot in the cell
-                agentInjured = this.processShotInCell(shotLine, this.environment[cell.getRow()][cell.getColumn()]);
+                agentInjured = this.processShotInCell(shotLine, this.environment.getCell(cell.getRow(), cell.getColumn()));
+                
+                cellsVisited++;
                 
                 if(agentInjured) {
                     //An agent has been fount -> exit the loop
@@ -1705,6 +3066,8 @@ public class ZombieEpidemicEnvironment extends Environment {
                 }
             }
         }
+        
+        return cellsVisited;
     }
     
     /**
@@ -1774,7 +3137,17 @@ public class ZombieEpidemicEnvironment extends Environment {
                 cell.remove(injuredAgent);
                 this.population.remove(injuredAgent);
                 
+                if(this.neighbourLists != null) {
+                    this.neighbourLists.remove(injuredAgent);
+                }
+                
+                if(this.idleZombies != null && !AgentsUtils.isHuman(injuredAgent)) {
+                    this.idleZombies.remove((ZombieAgent)injuredAgent);
+                }
+                
                 if(AgentsUtils.isHuman(injuredAgent)) {
+                    this.humansKilledByShotsCount++;
+                    
                     switch(((HumanInformation)information).getHealthStatus()) {
                         case Healthy:
                             this.healthyCount--;
@@ -1786,6 +3159,7 @@ public class ZombieEpidemicEnvironment extends Environment {
                 }
                 else {
                     this.zombifiedCount--;
+                    this.zombiesKilledByShotsCount++;
                 }
             }
         }
@@ -1799,14 +3173,17 @@ public class ZombieEpidemicEnvironment extends Environment {
         
         thereIsAWallBetween = false;
         
-        synchronized(this.walls) {
-            //Look for a wall that intersects the imaginary line between the two points
-            for(EnvironmentWall wall: this.walls) {
-                thereIsAWallBetween = wall.intersectsLine(x1, y1, x2, y2);
+        //Only look for a wall if the nearest wall can be between the points
+        if(this.wallDistances.getClearance(x1, y1) <= Point2D.distance(x1, y1, x2, y2)) {
+            synchronized(this.walls) {
+                //Look for a wall that intersects the imaginary line between the two points
+                for(EnvironmentWall wall: this.walls) {
+                    thereIsAWallBetween = wall.intersectsLine(x1, y1, x2, y2);
 
-                if(thereIsAWallBetween) {
-                    //A wall has been found -> exit the loop
-                    break;
+                    if(thereIsAWallBetween) {
+                        //A wall has been found -> exit the loop
+                        break;
+                    }
                 }
             }
         }
@@ -1846,14 +3223,17 @@ public class ZombieEpidemicEnvironment extends Environment {
         y1                     = position.getY();
         x2                     = x1 + environmentHypot * direction.getDirectionX();
         y2                     = y1 + environmentHypot * direction.getDirectionY();
-                    
-        synchronized(this.walls) {
-            for(EnvironmentWall wall: this.walls) {
-                squaredWallDistance = wall.ptSegDistSq(x1, y1);
+        
+        //Only look for the walls if the nearest wall can be within the maximum distance
+        if(this.wallDistances.getClearance(x1, y1) < maxDist) {
+            synchronized(this.walls) {
+                for(EnvironmentWall wall: this.walls) {
+                    squaredWallDistance = wall.ptSegDistSq(x1, y1);
                 
-                if(squaredWallDistance < maxDist * maxDist && squaredWallDistance < minSquaredWallDistance && wall.intersectsLine(x1, y1, x2, y2)) {
-                    nearestWall            = wall;
-                    minSquaredWallDistance = squaredWallDistance;
+                    if(squaredWallDistance < maxDist * maxDist && squaredWallDistance < minSquaredWallDistance && wall.intersectsLine(x1, y1, x2, y2)) {
+                        nearestWall            = wall;
+                        minSquaredWallDistance = squaredWallDistance;
+                    }
                 }
             }
         }
@@ -1999,7 +3379,621 @@ public class ZombieEpidemicEnvironment extends Environment {
         return setValueBetween(y, agentMinY, agentMaxY);
     }
     
+    /**
+     * Creates a human agent with the parameters of the configuration and a 
+     * random numbers generator seeded from the generator of the environment.
+     * @return the human agent
+     */
+    private HumanAgent createHumanAgent() {
+        final HumanAgent human;
+        
+        human = new HumanAgent(this.configuration.getEnvironment().getAgentWidth(), 
+                               this.configuration.getEnvironment().getAgentHeight(), 
+                               this.configuration.getHuman().getVisionDistance(), 
+                               this.configuration.getHuman().getSpeed());
+        
+        human.getRandom().setSeed(this.random.nextLong());
+        
+        return human;
+    }
+    
+    /**
+     * Creates a zombie agent with the parameters of the configuration and a 
+     * random numbers generator seeded from the generator of the environment.
+     * @return the zombie agent
+     */
+    private ZombieAgent createZombieAgent() {
+        final ZombieAgent zombie;
+        
+        zombie = new ZombieAgent(this.configuration.getEnvironment().getAgentWidth(), 
+                                 this.configuration.getEnvironment().getAgentHeight(), 
+                                 this.configuration.getZombieEpidemic().getZombieVisionDistance(), 
+                                 this.configuration.getZombieEpidemic().getZombieOlfactoryDistance(), 
+                                 this.configuration.getZombieEpidemic().getZombieSpeed(), 
+                                 this.configuration.getZombieEpidemic().getZombieSpeedAtRest());
+        
+        zombie.getRandom().setSeed(this.random.nextLong());
+        
+        return zombie;
+    }
+    
+    /**
+     * Writes the information of an agent in a checkpoint.
+     * @param output the checkpoint output
+     * @param information the information of the agent
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeInformation(CheckpointOutput output, BaseInformation information) throws IOException {
+        final HumanInformation humanInformation;
+        
+        output.writeByte(AgentsUtils.isHumanInformation(information) ? HUMAN_KIND : ZOMBIE_KIND);
+        output.writeDouble(information.getPosition().getX());
+        output.writeDouble(information.getPosition().getY());
+        output.writeByte(information.getLifeStatus().ordinal());
+        output.writeInt(information.getGunshotWounds());
+        
+        if(AgentsUtils.isHumanInformation(information)) {
+            humanInformation = (HumanInformation)information;
+            
+            output.writeByte(humanInformation.getHealthStatus().ordinal());
+            output.writeInt(humanInformation.getPhasesToZombify());
+            output.writeBoolean(humanInformation.isVaccinated());
+            output.writeInt(humanInformation.getBullets());
+        }
+    }
+    
+    /**
+     * Reads the information of an agent written with <code>writeInformation</code>.
+     * @param input the checkpoint input
+     * @return the information of the agent
+     * @throws IOException if an I/O error occurs or the checkpoint isn't valid
+     */
+    private BaseInformation readInformation(CheckpointInput input) throws IOException {
+        final int kind;
+        final double x, y;
+        final AgentLifeStatus lifeStatus;
+        final int gunshotWounds;
+        final HumanHealthStatus healthStatus;
+        final int phasesToZombify, bullets;
+        final boolean vaccinated;
+        final BaseInformation information;
+        
+        kind          = input.readByte();
+        x             = input.readDouble();
+        y             = input.readDouble();
+        lifeStatus    = readEnumConstant(input, AgentLifeStatus.values());
+        gunshotWounds = input.readNonNegativeInt();
+        
+        switch(kind) {
+            case HUMAN_KIND:
+                healthStatus    = readEnumConstant(input, HumanHealthStatus.values());
+                phasesToZombify = input.readInt();
+                vaccinated      = input.readBoolean();
+                bullets         = input.readNonNegativeInt();
+                information     = new HumanInformation(healthStatus, x, y, phasesToZombify, vaccinated, bullets);
+                break;
+            case ZOMBIE_KIND:
+                information = new ZombieInformation(x, y);
+                break;
+            default:
+                throw new IOException("El fitxer de punt de control està malmès.");
+        }
+        
+        restoreLifeState(information, lifeStatus, gunshotWounds);
+        
+        return information;
+    }
+    
+    /**
+     * Creates an independent copy of the information of an agent (the position
+     * isn't shared with the original information).
+     * @param information the information of the agent
+     * @return the copy
+     */
+    private BaseInformation copyInformation(BaseInformation information) {
+        final BaseInformation copy;
+        final HumanInformation humanInformation;
+        final double x, y;
+        
+        x = information.getPosition().getX();
+        y = information.getPosition().getY();
+        
+        if(AgentsUtils.isHumanInformation(information)) {
+            humanInformation = (HumanInformation)information;
+            copy             = new HumanInformation(humanInformation.getHealthStatus(), x, y, 
+                                                    humanInformation.getPhasesToZombify(), 
+                                                    humanInformation.isVaccinated(), 
+                                                    humanInformation.getBullets());
+        }
+        else {
+            copy = new ZombieInformation(x, y);
+        }
+        
+        restoreLifeState(copy, information.getLifeStatus(), information.getGunshotWounds());
+        
+        return copy;
+    }
+    
+    /**
+     * Creates an agent with a given state and adds it in the environment (without
+     * updating the counters of the population).
+     * @param information the information of the agent
+     * @param randomState the state of the random numbers generator of the agent
+     * @param actionType the type of the current action of the agent
+     * @param directionX the X component of the direction of the current action
+     * @param directionY the Y component of the direction of the current action
+     * @return the agent
+     */
+    private BaseAgent<?, ?> restoreAgent(BaseInformation information, long randomState, 
+                                         ActionType actionType, double directionX, double directionY) {
+        final BaseAgent<?, ?> agent;
+        
+        if(AgentsUtils.isHumanInformation(information)) {
+            agent = this.createHumanAgent();
+        }
+        else {
+            agent = this.createZombieAgent();
+        }
+        
+        agent.getRandom().setState(randomState);
+        agent.getCurrentAction().set(actionType, directionX, directionY);
+        
+        this.addAgent(agent, information);
+        
+        return agent;
+    }
+    
+    /**
+     * Copies the state of another environment with the same configuration. This
+     * environment must be empty.
+     * @param original the environment whose state is copied
+     */
+    private void copyState(ZombieEpidemicEnvironment original) {
+        final IdentityHashMap<EnvironmentWall, EnvironmentWall> wallCopies;
+        final IdentityHashMap<Agent, BaseAgent<?, ?>> agentCopies;
+        Collection<EnvironmentWall> cellWalls;
+        EnvironmentWall wallCopy;
+        BaseAgent<?, ?> agent, agentCopy;
+        BaseAction action;
+        List<HumanAgent> cellHumans;
+        List<ZombieAgent> cellZombies;
+        
+        wallCopies  = new IdentityHashMap<>();
+        agentCopies = new IdentityHashMap<>();
+        
+        //Phase, counters and resources
+        this.phase                    = original.phase;
+        this.healthyCount             = original.healthyCount;
+        this.infectedCount            = original.infectedCount;
+        this.zombifiedCount           = original.zombifiedCount;
+        this.resourcesAvailable       = original.resourcesAvailable;
+        this.vaccinationKitsAvailable = original.vaccinationKitsAvailable;
+        this.wallLengthAvailable      = original.wallLengthAvailable;
+        this.weaponKitsAvailable      = original.weaponKitsAvailable;
+        
+        //Events counters
+        this.humansKilledByZombiesCount = original.humansKilledByZombiesCount;
+        this.zombiesKilledByHumansCount = original.zombiesKilledByHumansCount;
+        this.humansKilledByShotsCount   = original.humansKilledByShotsCount;
+        this.zombiesKilledByShotsCount  = original.zombiesKilledByShotsCount;
+        this.shotsFiredCount            = original.shotsFiredCount;
+        this.wallLengthDestroyed        = original.wallLengthDestroyed;
+        
+        //Walls (the indestructible walls are never modified, so they are shared)
+        synchronized(original.walls) {
+            for(EnvironmentWall wall: original.walls) {
+                if(wall.isDestructible()) {
+                    wallCopy = new EnvironmentWall(wall);
+                    
+                    wallCopies.put(wall, wallCopy);
+                    this.walls.add(wallCopy);
+                }
+                else {
+                    this.walls.add(wall);
+                }
+            }
+        }
+        
+        //Destructible walls of each cell
+        for(int i = 0; i < this.environment.getRows(); i++) {
+            for(int j = original.environment.nextCreatedColumn(i, 0); j < this.environment.getColumns(); 
+                j = original.environment.nextCreatedColumn(i, j + 1)) {
+                
+                cellWalls = original.environment.getCell(i, j).getDestructibleWalls();
+                
+                synchronized(cellWalls) {
+                    for(EnvironmentWall wall: cellWalls) {
+                        wallCopy = wallCopies.get(wall);
+                        
+                        if(wallCopy == null) {
+                            //The wall has already been removed from the environment
+                            wallCopy = new EnvironmentWall(wall);
+                            
+                            wallCopies.put(wall, wallCopy);
+                        }
+                        
+                        this.environment.getCell(i, j).add(wallCopy);
+                    }
+                }
+            }
+        }
+        
+        //Alive population (created before copying the environment's generator, 
+        //because the creation of agents consumes random numbers)
+        for(Map.Entry<Agent, BaseInformation> entry: original.population.entrySet()) {
+            agent     = (BaseAgent<?, ?>)entry.getKey();
+            action    = agent.getCurrentAction();
+            agentCopy = this.restoreAgent(this.copyInformation(entry.getValue()), agent.getRandom().getState(), 
+                                          action.getActionType(), action.getDirectionX(), action.getDirectionY());
+            
+            agentCopies.put(agent, agentCopy);
+            
+            if(this.idleZombies != null && !AgentsUtils.isHuman(agent) && original.idleZombies.isAsleep((ZombieAgent)agent)) {
+                this.idleZombies.sleep((ZombieAgent)agentCopy, original.idleZombies.getSleepPhase((ZombieAgent)agent));
+            }
+        }
+        
+        //Order of the agents in each cell (the conflicts between them are resolved in this order)
+        for(int i = 0; i < this.environment.getRows(); i++) {
+            for(int j = original.environment.nextCreatedColumn(i, 0); j < this.environment.getColumns(); 
+                j = original.environment.nextCreatedColumn(i, j + 1)) {
+                
+                cellHumans  = this.environment.getCell(i, j).getHumans();
+                cellZombies = this.environment.getCell(i, j).getZombies();
+                
+                cellHumans.clear();
+                cellZombies.clear();
+                
+                for(HumanAgent human: original.environment.getCell(i, j).getHumans()) {
+                    cellHumans.add((HumanAgent)agentCopies.get(human));
+                }
+                
+                for(ZombieAgent zombie: original.environment.getCell(i, j).getZombies()) {
+                    cellZombies.add((ZombieAgent)agentCopies.get(zombie));
+                }
+            }
+        }
+        
+        for(HumanAgent human: original.infectedHumans) {
+            this.infectedHumans.add((HumanAgent)agentCopies.get(human));
+        }
+        
+        //Dead population and shots of the last phase (they are never modified, so they are shared)
+        this.deadPopulation.addAll(original.deadPopulation);
+        this.humanShots.addAll(original.humanShots);
+        
+        //Random numbers generator of the environment
+        this.random.setState(original.random.getState());
+        
+        //Scent of the cells
+        if(this.scentField != null) {
+            this.scentField.copyScents(original.scentField);
+        }
+        
+        //Aggregated agents of the cells
+        if(this.aggregateCells != null) {
+            this.aggregateCells.copyCells(original.aggregateCells);
+        }
+    }
+    
+    /**
+     * Restores the state of the simulation from a checkpoint whose header and 
+     * configuration have already been read. The environment must be empty.
+     * @param input the checkpoint input
+     * @param version the version of the format of the checkpoint
+     * @throws IOException if an I/O error occurs or the checkpoint isn't valid
+     */
+    private void restoreState(CheckpointInput input, int version) throws IOException {
+        final EnvironmentWall[] wallsRead;
+        final BaseAgent<?, ?>[] agentsRead;
+        final boolean[] agentsPlaced;
+        final int populationSize, infectedHumansSize, deadPopulationSize, humanShotsSize;
+        int cellWallsSize, wallIndex, agentIndex, zombiesAsleep, sleepPhase;
+        List<HumanAgent> cellHumans;
+        List<ZombieAgent> cellZombies;
+        BaseInformation information;
+        ActionType actionType;
+        double directionX, directionY;
+        long randomState;
+        
+        //Phase, counters and resources
+        this.phase                    = input.readNonNegativeInt();
+        this.healthyCount             = input.readNonNegativeInt();
+        this.infectedCount            = input.readNonNegativeInt();
+        this.zombifiedCount           = input.readNonNegativeInt();
+        this.resourcesAvailable       = input.readNonNegativeInt();
+        this.vaccinationKitsAvailable = input.readNonNegativeInt();
+        this.wallLengthAvailable      = input.readNonNegativeInt();
+        this.weaponKitsAvailable      = input.readNonNegativeInt();
+        
+        //Counters of events (the checkpoints of versions 1 and 2 don't contain 
+        //them, and they are left at zero)
+        if(version > 2) {
+            this.humansKilledByZombiesCount = input.readNonNegativeInt();
+            this.zombiesKilledByHumansCount = input.readNonNegativeInt();
+            this.humansKilledByShotsCount   = input.readNonNegativeInt();
+            this.zombiesKilledByShotsCount  = input.readNonNegativeInt();
+            this.shotsFiredCount            = input.readNonNegativeInt();
+            this.wallLengthDestroyed        = input.readDouble();
+            
+            if(!(this.wallLengthDestroyed >= 0) || Double.isInfinite(this.wallLengthDestroyed)) {
+                throw new IOException("El fitxer de punt de control està malmès.");
+            }
+        }
+        
+        //Walls
+        wallsRead = new EnvironmentWall[input.readNonNegativeInt()];
+        
+        for(int i = 0; i < wallsRead.length; i++) {
+            wallsRead[i] = new EnvironmentWall(input.readDouble(), input.readDouble(), 
+                                               input.readDouble(), input.readDouble(), input.readBoolean());
+            
+            this.walls.add(wallsRead[i]);
+        }
+        
+        //Destructible walls of each cell
+        for(int row = 0; row < this.environment.getRows(); row++) {
+            for(int column = 0; column < this.environment.getColumns(); column++) {
+                cellWallsSize = input.readNonNegativeInt();
+                
+                for(int i = 0; i < cellWallsSize; i++) {
+                    wallIndex = input.readInt();
+                    
+                    if(wallIndex >= wallsRead.length) {
+                        throw new IOException("El fitxer de punt de control està malmès.");
+                    }
+                    else if(wallIndex >= 0) {
+                        this.environment.getCell(row, column).add(wallsRead[wallIndex]);
+                    }
+                }
+            }
+        }
+        
+        //Alive population (created before restoring the environment's generator, 
+        //because the creation of agents consumes random numbers)
+        populationSize = input.readNonNegativeInt();
+        agentsRead     = new BaseAgent<?, ?>[populationSize];
+        
+        for(int i = 0; i < populationSize; i++) {
+            information = this.readInformation(input);
+            randomState = input.readLong();
+            actionType  = readEnumConstant(input, ActionType.values());
+            directionX  = input.readDouble();
+            directionY  = input.readDouble();
+            
+            if(!this.isInsideEnvironment(information.getPosition())) {
+                throw new IOException("El fitxer de punt de control està malmès.");
+            }
+            
+            agentsRead[i] = this.restoreAgent(information, randomState, actionType, directionX, directionY);
+        }
+        
+        //Order of the agents in each cell (the checkpoints of version 1 don't contain
+        //it, and the agents are left in the order of the population)
+        if(version > 1) {
+            agentsPlaced = new boolean[populationSize];
+            
+            for(int row = 0; row < this.environment.getRows(); row++) {
+                for(int column = this.environment.nextCreatedColumn(row, 0); column < this.environment.getColumns(); 
+                    column = this.environment.nextCreatedColumn(row, column + 1)) {
+                    
+                    cellHumans  = this.environment.getCell(row, column).getHumans();
+                    cellZombies = this.environment.getCell(row, column).getZombies();
+                    
+                    for(int i = 0; i < cellHumans.size(); i++) {
+                        cellHumans.set(i, (HumanAgent)this.readCellAgent(input, agentsRead, agentsPlaced, row, column, true));
+                    }
+                    
+                    for(int i = 0; i < cellZombies.size(); i++) {
+                        cellZombies.set(i, (ZombieAgent)this.readCellAgent(input, agentsRead, agentsPlaced, row, column, false));
+                    }
+                }
+            }
+        }
+        
+        //Infected humans
+        infectedHumansSize = input.readNonNegativeInt();
+        
+        for(int i = 0; i < infectedHumansSize; i++) {
+            agentIndex = input.readNonNegativeInt();
+            
+            if(agentIndex >= populationSize || !AgentsUtils.isHuman(agentsRead[agentIndex])) {
+                throw new IOException("El fitxer de punt de control està malmès.");
+            }
+            
+            this.infectedHumans.add((HumanAgent)agentsRead[agentIndex]);
+        }
+        
+        //Dead population
+        deadPopulationSize = input.readNonNegativeInt();
+        
+        for(int i = 0; i < deadPopulationSize; i++) {
+            this.deadPopulation.add(this.readInformation(input));
+        }
+        
+        //Shots of the last phase
+        humanShotsSize = input.readNonNegativeInt();
+        
+        for(int i = 0; i < humanShotsSize; i++) {
+            this.humanShots.add(new Line2D.Double(input.readDouble(), input.readDouble(), 
+                                                  input.readDouble(), input.readDouble()));
+        }
+        
+        //Random numbers generator of the environment
+        this.random.setState(input.readLong());
+        
+        //Scent of the cells (only when the scent field is enabled)
+        if(this.scentField != null) {
+            this.scentField.readScents(input);
+        }
+        
+        //Zombies asleep (only when the idle zombies aren't updated in every phase)
+        if(this.idleZombies != null) {
+            zombiesAsleep = input.readNonNegativeInt();
+            
+            for(int i = 0; i < zombiesAsleep; i++) {
+                agentIndex = input.readNonNegativeInt();
+                sleepPhase = input.readNonNegativeInt();
+                
+                if(agentIndex >= populationSize || AgentsUtils.isHuman(agentsRead[agentIndex]) || sleepPhase > this.phase) {
+                    throw new IOException("El fitxer de punt de control està malmès.");
+                }
+                
+                this.idleZombies.sleep((ZombieAgent)agentsRead[agentIndex], sleepPhase);
+            }
+        }
+        
+        //Aggregated agents of the cells (only when the distant cells are aggregated)
+        if(this.aggregateCells != null) {
+            this.aggregateCells.readCells(input);
+        }
+    }
+    
+    /**
+     * Reads the index of the next agent of a cell from a checkpoint, checking that
+     * the agent is located in the cell and that it hasn't been read before.
+     * @param input the checkpoint input
+     * @param agentsRead the agents of the population restored
+     * @param agentsPlaced boolean values indicating if the agents of the population
+     * have already been read in a cell
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @param human boolean value indicating if the agent must be a human
+     * @return the agent
+     * @throws IOException if an I/O error occurs or the agent isn't valid
+     */
+    private BaseAgent<?, ?> readCellAgent(CheckpointInput input, BaseAgent<?, ?>[] agentsRead, boolean[] agentsPlaced,
+                                          int row, int column, boolean human) throws IOException {
+        
+        final int agentIndex;
+        Point2D position;
+        
+        agentIndex = input.readNonNegativeInt();
+        
+        if(agentIndex >= agentsRead.length || agentsPlaced[agentIndex] || AgentsUtils.isHuman(agentsRead[agentIndex]) != human) {
+            throw new IOException("El fitxer de punt de control està malmès.");
+        }
+        
+        position = this.population.get(agentsRead[agentIndex]).getPosition();
+        
+        if((int)(position.getY() / this.configuration.getEnvironment().getCellHeight()) != row
+           || (int)(position.getX() / this.configuration.getEnvironment().getCellWidth()) != column) {
+            
+            throw new IOException("El fitxer de punt de control està malmès.");
+        }
+        
+        agentsPlaced[agentIndex] = true;
+        
+        return agentsRead[agentIndex];
+    }
+    
+    /**
+     * Returns a boolean value indicating if a position is inside the environment.
+     * @param position the position
+     * @return <code>true</code> if the position is inside the environment
+     */
+    private boolean isInsideEnvironment(Point2D position) {
+        final double width, height;
+        
+        width  = this.configuration.getEnvironment().getNumberOfColumns() * this.configuration.getEnvironment().getCellWidth();
+        height = this.configuration.getEnvironment().getNumberOfRows() * this.configuration.getEnvironment().getCellHeight();
+        
+        return position.getX() >= 0 && position.getX() < width && position.getY() >= 0 && position.getY() < height;
+    }
+    
+    //Public Static Methods
+    /**
+     * Restores an environment from a checkpoint written with <code>writeCheckpoint</code>.
+     * The environment is returned stopped at the phase where the checkpoint was written.
+     * @param channel the channel where the checkpoint is read (it isn't closed)
+     * @return the environment
+     * @throws IOException if an I/O error occurs or the checkpoint isn't valid
+     */
+    public static ZombieEpidemicEnvironment readCheckpoint(ReadableByteChannel channel) throws IOException {
+        final CheckpointInput input;
+        final SimulationConfiguration configuration;
+        final ZombieEpidemicEnvironment environment;
+        final int version;
+        
+        input = new CheckpointInput(channel);
+        
+        if(input.readInt() != CHECKPOINT_MAGIC_NUMBER) {
+            throw new IOException("El fitxer no és un punt de control de la simulació.");
+        }
+        
+        version = input.readInt();
+        
+        if(version < 1 || version > CHECKPOINT_VERSION) {
+            throw new IOException("Versió del punt de control no suportada: " + version + ".");
+        }
+        
+        try {
+            configuration = new SimulationConfigurationFileAdapter().read(new ByteArrayInputStream(input.readBytes()));
+        }
+        catch (JAXBException | XMLFileError ex) {
+            throw new IOException("La configuració del punt de control no és vàlida.", ex);
+        }
+        
+        environment = new ZombieEpidemicEnvironment(new SimulationConfiguration(configuration), 0, false);
+        
+        try {
+            environment.restoreState(input, version);
+        }
+        catch (IOException | RuntimeException ex) {
+            environment.dispose();
+            
+            throw ex;
+        }
+        
+        return environment;
+    }
+    
+    /**
+     * Restores an environment from a checkpoint file.
+     * @param file the file
+     * @return the environment
+     * @throws IOException if an I/O error occurs or the checkpoint isn't valid
+     */
+    public static ZombieEpidemicEnvironment loadCheckpoint(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readCheckpoint(channel);
+        }
+    }
+    
     //Private Static Methods
+    /**
+     * Sets the life status and the number of gunshot wounds of a new agent's information.
+     * @param information the information of the agent (with 0 gunshot wounds)
+     * @param lifeStatus the life status
+     * @param gunshotWounds the number of gunshot wounds
+     */
+    private static void restoreLifeState(BaseInformation information, AgentLifeStatus lifeStatus, int gunshotWounds) {
+        information.setLifeStatus(lifeStatus);
+        
+        for(int i = 0; i < gunshotWounds; i++) {
+            information.incrementGunshotWounds();
+        }
+    }
+    
+    /**
+     * Reads a constant of an enumeration stored as its ordinal in a checkpoint.
+     * @param input the checkpoint input
+     * @param constants the constants of the enumeration
+     * @return the constant
+     * @throws IOException if an I/O error occurs or the ordinal isn't valid
+     */
+    private static <E extends Enum<E>> E readEnumConstant(CheckpointInput input, E[] constants) throws IOException {
+        final int ordinal;
+        
+        ordinal = input.readByte();
+        
+        if(ordinal < 0 || ordinal >= constants.length) {
+            throw new IOException("El fitxer de punt de control està malmès.");
+        }
+        
+        return constants[ordinal];
+    }
+    
     /**
      * Mantains a value in a given range
      * @param value the value
@@ -0,0 +1,156 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+/**
+ * Management interface of a zombie epidemic environment. It exposes the state 
+ * and the performance of the simulation to JMX clients (JConsole, Mission Control...) 
+ * and allows to control the pacing of its execution.
+ * @author Xavier
+ */
+public interface ZombieEpidemicEnvironmentMXBean {
+    /**
+     * Returns the number of phases executed.
+     * @return the number of phases
+     */
+    public int getPhase();
+    
+    /**
+     * Returns the number of healthy humans.
+     * @return the number of healthy humans
+     */
+    public int getHealthyCount();
+    
+    /**
+     * Returns the number of infected humans.
+     * @return the number of infected humans
+     */
+    public int getInfectedCount();
+    
+    /**
+     * Returns the number of zombies.
+     * @return the number of zombies
+     */
+    public int getZombifiedCount();
+    
+    /**
+     * Returns the number of resources available.
+     * @return the number of resources
+     */
+    public int getTotalResourcesAvailable();
+    
+    /**
+     * Returns the number of vaccination kits bought and not used.
+     * @return the number of vaccination kits
+     */
+    public int getVaccinationKitsAvailable();
+    
+    /**
+     * Returns the wall length bought and not built.
+     * @return the wall length
+     */
+    public int getWallLengthAvailable();
+    
+    /**
+     * Returns the number of weapon kits bought and not used.
+     * @return the number of weapon kits
+     */
+    public int getWeaponKitsAvailable();
+    
+    /**
+     * Returns the number of walls of the environment.
+     * @return the number of walls
+     */
+    public int getWallCount();
+    
+    /**
+     * Returns the number of phases executed per second.
+     * @return the phase rate
+     */
+    public double getPhaseRate();
+    
+    /**
+     * Returns the median of the phase duration.
+     * @return the duration in milliseconds
+     */
+    public double getPhaseDurationP50Millis();
+    
+    /**
+     * Returns the 99th percentile of the phase duration.
+     * @return the duration in milliseconds
+     */
+    public double getPhaseDurationP99Millis();
+    
+    /**
+     * Returns the agent updates per second of the last phase.
+     * @return the agent updates per second
+     */
+    public long getAgentUpdatesPerSecond();
+    
+    /**
+     * Returns the bytes allocated per second while running the phases.
+     * @return the allocation rate (negative if unknown)
+     */
+    public double getAllocationRate();
+    
+    /**
+     * Returns the minimum number of milliseconds between phases.
+     * @return the number of milliseconds
+     */
+    public long getMillisBetweenPhases();
+    
+    /**
+     * Changes the minimum number of milliseconds between phases of the current execution.
+     * @param millisBetweenPhases the number of milliseconds
+     */
+    public void setMillisBetweenPhases(long millisBetweenPhases);
+    
+    /**
+     * Returns the number of phases that started later than scheduled.
+     * @return the number of overruns
+     */
+    public long getPhaseOverruns();
+    
+    /**
+     * Checks if the environment is currently executing.
+     * @return <code>true</code> if the environment is executing, <code>false</code> otherwise
+     */
+    public boolean isRunning();
+    
+    /**
+     * Checks if the execution of the environment is paused.
+     * @return <code>true</code> if the execution is paused, <code>false</code> otherwise
+     */
+    public boolean isPaused();
+    
+    /**
+     * Checks if the simulation has reached a final state.
+     * @return <code>true</code> if the simulation has finished, <code>false</code> otherwise
+     */
+    public boolean isFinished();
+    
+    /**
+     * Pauses the current execution of the environment.
+     */
+    public void pause();
+    
+    /**
+     * Continues the execution of the environment if it was paused.
+     */
+    public void resume();
+}
@@ -0,0 +1,196 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Implementation of the management interface of a zombie epidemic environment. 
+ * Each environment registers its own monitor in the platform MBean server under
+ * the name <code>ZombieInvasion:type=ZombieEpidemicEnvironment,id=N</code>.
+ * @author Xavier
+ */
+class ZombieEpidemicEnvironmentMonitor implements ZombieEpidemicEnvironmentMXBean {
+    //Constants
+    private final static String OBJECT_NAME_PREFIX = "ZombieInvasion:type=ZombieEpidemicEnvironment,id=";
+    
+    private final static AtomicInteger NEXT_ID = new AtomicInteger();
+    
+    //Attributes
+    /**
+     * The monitored environment.
+     */
+    private final ZombieEpidemicEnvironment environment;
+    
+    //Public Constructors
+    public ZombieEpidemicEnvironmentMonitor(ZombieEpidemicEnvironment environment) {
+        this.environment = environment;
+    }
+    
+    //Overridden Methods
+    @Override
+    public int getPhase() {
+        return this.environment.getPhase();
+    }
+
+    @Override
+    public int getHealthyCount() {
+        return this.environment.getHealthyCount();
+    }
+
+    @Override
+    public int getInfectedCount() {
+        return this.environment.getInfectedCount();
+    }
+
+    @Override
+    public int getZombifiedCount() {
+        return this.environment.getZombifiedCount();
+    }
+
+    @Override
+    public int getTotalResourcesAvailable() {
+        return this.environment.getResourcesInformation().getTotalResourcesAvailable();
+    }
+
+    @Override
+    public int getVaccinationKitsAvailable() {
+        return this.environment.getResourcesInformation().getVaccinationKitsAvailable();
+    }
+
+    @Override
+    public int getWallLengthAvailable() {
+        return this.environment.getResourcesInformation().getWallLengthAvailable();
+    }
+
+    @Override
+    public int getWeaponKitsAvailable() {
+        return this.environment.getResourcesInformation().getWeaponKitsAvailable();
+    }
+
+    @Override
+    public int getWallCount() {
+        return this.environment.getWallCount();
+    }
+
+    @Override
+    public double getPhaseRate() {
+        return this.environment.getStatisticsInformation().getPhaseRate();
+    }
+
+    @Override
+    public double getPhaseDurationP50Millis() {
+        return this.environment.getStatisticsInformation().getPhaseDurationP50() / 1e6;
+    }
+
+    @Override
+    public double getPhaseDurationP99Millis() {
+        return this.environment.getStatisticsInformation().getPhaseDurationP99() / 1e6;
+    }
+
+    @Override
+    public long getAgentUpdatesPerSecond() {
+        return this.environment.getStatisticsInformation().getAgentUpdatesPerSecond();
+    }
+
+    @Override
+    public double getAllocationRate() {
+        return this.environment.getStatisticsInformation().getAllocationRate();
+    }
+
+    @Override
+    public long getMillisBetweenPhases() {
+        return this.environment.getMillisBetweenPhases();
+    }
+
+    @Override
+    public void setMillisBetweenPhases(long millisBetweenPhases) {
+        this.environment.setMillisBetweenPhases(millisBetweenPhases);
+    }
+
+    @Override
+    public long getPhaseOverruns() {
+        return this.environment.getPhaseOverruns();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.environment.isRunning();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return this.environment.isPaused();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return this.environment.finalStateAchieved();
+    }
+
+    @Override
+    public void pause() {
+        this.environment.pause();
+    }
+
+    @Override
+    public void resume() {
+        this.environment.resume();
+    }
+    
+    //Public Static Methods
+    /**
+     * Registers a monitor of the environment in the platform MBean server.
+     * @param environment the environment
+     * @return the name of the registered monitor, or <code>null</code> if it couldn't be registered
+     */
+    public static ObjectName register(ZombieEpidemicEnvironment environment) {
+        ObjectName name;
+        MBeanServer server;
+        
+        try {
+            server = ManagementFactory.getPlatformMBeanServer();
+            name   = new ObjectName(OBJECT_NAME_PREFIX + NEXT_ID.incrementAndGet());
+            
+            server.registerMBean(new ZombieEpidemicEnvironmentMonitor(environment), name);
+        } 
+        catch (JMException | SecurityException ex) {
+            //The simulation can be executed without being monitored
+            name = null;
+        }
+        
+        return name;
+    }
+    
+    /**
+     * Removes a monitor from the platform MBean server.
+     * @param name the name of the monitor
+     */
+    public static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } 
+        catch (JMException ex) {
+            //The monitor was already removed
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+/**
+ * Result of a projection of the simulation: the number of infected humans and 
+ * zombies of the next phases of two branches of the simulation, one without 
+ * changes (baseline) and another one with an intervention (alternative).
+ * @author Xavier
+ */
+public class ZombieEpidemicProjection {
+    //Attributes
+    /**
+     * Phase of the simulation where the branches start.
+     */
+    private final int startPhase;
+    
+    /**
+     * Number of infected humans of each projected phase of the baseline branch.
+     */
+    private final int[] baselineInfected;
+    
+    /**
+     * Number of zombies of each projected phase of the baseline branch.
+     */
+    private final int[] baselineZombified;
+    
+    /**
+     * Number of infected humans of each projected phase of the alternative branch.
+     */
+    private final int[] alternativeInfected;
+    
+    /**
+     * Number of zombies of each projected phase of the alternative branch.
+     */
+    private final int[] alternativeZombified;
+    
+    //Package Constructors
+    ZombieEpidemicProjection(int startPhase, int[] baselineInfected, int[] baselineZombified, 
+                             int[] alternativeInfected, int[] alternativeZombified) {
+        this.startPhase           = startPhase;
+        this.baselineInfected     = baselineInfected;
+        this.baselineZombified    = baselineZombified;
+        this.alternativeInfected  = alternativeInfected;
+        this.alternativeZombified = alternativeZombified;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the phase of the simulation where the branches start.
+     * @return the phase
+     */
+    public int getStartPhase() {
+        return this.startPhase;
+    }
+    
+    /**
+     * Returns the number of values of each curve (the number of projected phases 
+     * plus the start phase).
+     * @return the number of values
+     */
+    public int getLength() {
+        return this.baselineInfected.length;
+    }
+    
+    /**
+     * Returns the number of infected humans of the baseline branch.
+     * @param index the index of the phase (0 is the start phase)
+     * @return the number of infected humans
+     */
+    public int getBaselineInfected(int index) {
+        return this.baselineInfected[index];
+    }
+    
+    /**
+     * Returns the number of zombies of the baseline branch.
+     * @param index the index of the phase (0 is the start phase)
+     * @return the number of zombies
+     */
+    public int getBaselineZombified(int index) {
+        return this.baselineZombified[index];
+    }
+    
+    /**
+     * Returns the number of infected humans of the alternative branch.
+     * @param index the index of the phase (0 is the start phase)
+     * @return the number of infected humans
+     */
+    public int getAlternativeInfected(int index) {
+        return this.alternativeInfected[index];
+    }
+    
+    /**
+     * Returns the number of zombies of the alternative branch.
+     * @param index the index of the phase (0 is the start phase)
+     * @return the number of zombies
+     */
+    public int getAlternativeZombified(int index) {
+        return this.alternativeZombified[index];
+    }
+    
+    /**
+     * Returns the maximum value of all the curves.
+     * @return the maximum value
+     */
+    public int getMaxValue() {
+        int max;
+        
+        max = 0;
+        
+        for(int i = 0; i < this.getLength(); i++) {
+            max = Math.max(max, Math.max(Math.max(this.baselineInfected[i], this.baselineZombified[i]), 
+                                         Math.max(this.alternativeInfected[i], this.alternativeZombified[i])));
+        }
+        
+        return max;
+    }
+}
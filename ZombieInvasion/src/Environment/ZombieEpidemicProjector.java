@@ -0,0 +1,259 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class projects the evolution of a running simulation with and without an
+ * intervention (for example, a purchase), running two forks of the simulation 
+ * some phases ahead in background threads with low priority. Only the last 
+ * requested projection is executed: requesting a new one cancels the previous.
+ * @author Xavier
+ */
+public class ZombieEpidemicProjector {
+    //Attributes
+    /**
+     * Number of phases projected.
+     */
+    private final int phases;
+    
+    /**
+     * The task of the projection currently executing (<code>null</code> if there isn't any).
+     */
+    private ProjectionTask currentTask;
+    
+    /**
+     * The future of the projection currently executing (<code>null</code> if there isn't any).
+     */
+    private Future<?> currentProjection;
+    
+    //Public Constructors
+    public ZombieEpidemicProjector(int phases) {
+        if(phases <= 0) {
+            throw new IllegalArgumentException("El nombre de fases de la projecció ha de ser positiu.");
+        }
+        
+        this.phases = phases;
+    }
+    
+    //Public Methods
+    /**
+     * Starts a projection of the current state of an environment, cancelling the 
+     * previous projection if it hasn't finished yet. The listener is called from
+     * a background thread, unless the projection is cancelled.
+     * @param environment the environment
+     * @param intervention the intervention applied to the alternative branch
+     * @param listener the listener that receives the result
+     */
+    public synchronized void project(ZombieEpidemicEnvironment environment, Intervention intervention, Listener listener) {
+        this.cancel();
+        
+        this.currentTask       = new ProjectionTask(environment, intervention, listener);
+        this.currentProjection = ProjectionExecutorHolder.EXECUTOR.submit(this.currentTask);
+    }
+    
+    /**
+     * Cancels the projection currently executing (if any).
+     */
+    public synchronized void cancel() {
+        if(this.currentProjection != null) {
+            this.currentProjection.cancel(true);
+            
+            this.currentTask       = null;
+            this.currentProjection = null;
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Notifies the result of a projection, unless it has been cancelled or replaced 
+     * by a newer projection.
+     * @param task the task of the projection
+     * @param result the result
+     */
+    private synchronized void complete(ProjectionTask task, ZombieEpidemicProjection result) {
+        if(task == this.currentTask) {
+            this.currentTask       = null;
+            this.currentProjection = null;
+            
+            task.listener.projectionCompleted(result);
+        }
+    }
+    
+    //Private Static Methods
+    /**
+     * Executes phases of a branch and records the number of infected humans and
+     * zombies after every phase. The execution finishes early if the thread is 
+     * interrupted.
+     * @param branch the branch
+     * @param infected the array where the number of infected humans is recorded
+     * @param zombified the array where the number of zombies is recorded
+     * @return <code>true</code> if all the phases have been executed
+     */
+    private static boolean runBranch(ZombieEpidemicEnvironment branch, int[] infected, int[] zombified) {
+        boolean interrupted;
+        
+        interrupted = false;
+        
+        for(int i = 0; i < infected.length && !interrupted; i++) {
+            if(i > 0 && !branch.finalStateAchieved()) {
+                branch.runOnePhase();
+            }
+            
+            infected[i]  = branch.getInfectedCount();
+            zombified[i] = branch.getZombifiedCount();
+            interrupted  = Thread.currentThread().isInterrupted();
+        }
+        
+        return !interrupted;
+    }
+    
+    //Public Interfaces
+    /**
+     * Change applied to the alternative branch of a projection.
+     */
+    public interface Intervention {
+        /**
+         * Applies the change to the environment.
+         * @param environment the environment of the alternative branch
+         */
+        void apply(ZombieEpidemicEnvironment environment);
+    }
+    
+    /**
+     * Receiver of the results of the projections.
+     */
+    public interface Listener {
+        /**
+         * Called when a projection has finished.
+         * @param projection the result of the projection
+         */
+        void projectionCompleted(ZombieEpidemicProjection projection);
+    }
+    
+    //Private Classes
+    /**
+     * Task that executes a projection. The baseline branch is executed in the 
+     * task's thread and the alternative branch in another thread of the executor.
+     */
+    private class ProjectionTask implements Runnable {
+        private final ZombieEpidemicEnvironment environment;
+        private final Intervention intervention;
+        private final Listener listener;
+        
+        ProjectionTask(ZombieEpidemicEnvironment environment, Intervention intervention, Listener listener) {
+            this.environment  = environment;
+            this.intervention = intervention;
+            this.listener     = listener;
+        }
+        
+        @Override
+        public void run() {
+            final int[] baselineInfected, baselineZombified, alternativeInfected, alternativeZombified;
+            final ZombieEpidemicEnvironment baseline, alternative;
+            final Future<Boolean> alternativeExecution;
+            final AtomicBoolean alternativeClaimed;
+            final int startPhase;
+            boolean completed;
+            
+            baselineInfected     = new int[phases + 1];
+            baselineZombified    = new int[phases + 1];
+            alternativeInfected  = new int[phases + 1];
+            alternativeZombified = new int[phases + 1];
+            baseline             = this.environment.fork();
+            alternative          = baseline.fork();
+            startPhase           = baseline.getPhase();
+            alternativeClaimed   = new AtomicBoolean();
+            
+            this.intervention.apply(alternative);
+            
+            alternativeExecution = ProjectionExecutorHolder.EXECUTOR.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return alternativeClaimed.compareAndSet(false, true) && 
+                           runBranch(alternative, alternativeInfected, alternativeZombified);
+                }
+            });
+            
+            try {
+                completed = runBranch(baseline, baselineInfected, baselineZombified);
+                
+                if(completed && alternativeClaimed.compareAndSet(false, true)) {
+                    //The alternative branch hasn't started yet (all the threads are
+                    //busy), so it's executed in this thread
+                    completed = runBranch(alternative, alternativeInfected, alternativeZombified);
+                }
+                else if(completed) {
+                    completed = alternativeExecution.get();
+                }
+                
+                if(completed) {
+                    complete(this, new ZombieEpidemicProjection(startPhase, baselineInfected, baselineZombified, 
+                                                                alternativeInfected, alternativeZombified));
+                }
+            }
+            catch (InterruptedException | CancellationException ex) {
+                //The projection has been cancelled
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+            finally {
+                alternativeExecution.cancel(true);
+                baseline.dispose();
+                alternative.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Holder of the executor of the projections (it's created the first time it's 
+     * used). It has at least two threads, because each projection executes its 
+     * two branches in parallel, and its threads have the minimum priority, so the
+     * projections don't slow down the simulations that are being shown.
+     */
+    private static class ProjectionExecutorHolder {
+        private final static ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() - 1), 
+                new ThreadFactory() {
+                    final AtomicInteger threadNumber = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread;
+
+                        thread = new Thread(r, "Projection Thread " + this.threadNumber.incrementAndGet());
+
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+
+                        return thread;
+                    }
+                });
+    }
+}
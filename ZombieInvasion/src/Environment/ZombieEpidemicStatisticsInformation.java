@@ -0,0 +1,175 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+/**
+ * This class contains the performance measures and the population counters of
+ * the environment at a given moment.
+ * @author Xavier
+ */
+public class ZombieEpidemicStatisticsInformation {
+    //Attributes
+    
+    /**
+     * Number of phases executed.
+     */
+    private final int phase;
+    
+    /**
+     * Number of phases executed per second.
+     */
+    private final double phaseRate;
+    
+    /**
+     * Median of the phase duration (in nanoseconds).
+     */
+    private final long phaseDurationP50;
+    
+    /**
+     * 99th percentile of the phase duration (in nanoseconds).
+     */
+    private final long phaseDurationP99;
+    
+    /**
+     * Agent updates per second of the last phase.
+     */
+    private final long agentUpdatesPerSecond;
+    
+    /**
+     * Median of the agent updates per second.
+     */
+    private final long agentUpdatesPerSecondP50;
+    
+    /**
+     * Bytes allocated per second while running the phases (negative if unknown).
+     */
+    private final double allocationRate;
+    
+    /**
+     * Number of healthy humans.
+     */
+    private final int healthyCount;
+    
+    /**
+     * Number of infected humans.
+     */
+    private final int infectedCount;
+    
+    /**
+     * Number of zombies.
+     */
+    private final int zombifiedCount;
+    
+    //Public Constructors
+    public ZombieEpidemicStatisticsInformation(int phase, double phaseRate, long phaseDurationP50, 
+                                               long phaseDurationP99, long agentUpdatesPerSecond, 
+                                               long agentUpdatesPerSecondP50, double allocationRate, 
+                                               int healthyCount, int infectedCount, int zombifiedCount) {
+        this.phase                    = phase;
+        this.phaseRate                = phaseRate;
+        this.phaseDurationP50         = phaseDurationP50;
+        this.phaseDurationP99         = phaseDurationP99;
+        this.agentUpdatesPerSecond    = agentUpdatesPerSecond;
+        this.agentUpdatesPerSecondP50 = agentUpdatesPerSecondP50;
+        this.allocationRate           = allocationRate;
+        this.healthyCount             = healthyCount;
+        this.infectedCount            = infectedCount;
+        this.zombifiedCount           = zombifiedCount;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of phases executed.
+     * @return the number of phases
+     */
+    public int getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * Returns the number of phases executed per second.
+     * @return the phase rate
+     */
+    public double getPhaseRate() {
+        return this.phaseRate;
+    }
+
+    /**
+     * Returns the median of the phase duration.
+     * @return the duration (in nanoseconds)
+     */
+    public long getPhaseDurationP50() {
+        return this.phaseDurationP50;
+    }
+
+    /**
+     * Returns the 99th percentile of the phase duration.
+     * @return the duration (in nanoseconds)
+     */
+    public long getPhaseDurationP99() {
+        return this.phaseDurationP99;
+    }
+
+    /**
+     * Returns the agent updates per second of the last phase.
+     * @return the agent updates per second
+     */
+    public long getAgentUpdatesPerSecond() {
+        return this.agentUpdatesPerSecond;
+    }
+
+    /**
+     * Returns the median of the agent updates per second.
+     * @return the agent updates per second
+     */
+    public long getAgentUpdatesPerSecondP50() {
+        return this.agentUpdatesPerSecondP50;
+    }
+
+    /**
+     * Returns the bytes allocated per second while running the phases.
+     * @return the allocation rate (negative if it can't be measured)
+     */
+    public double getAllocationRate() {
+        return this.allocationRate;
+    }
+
+    /**
+     * Returns the number of healthy humans.
+     * @return the number of healthy humans
+     */
+    public int getHealthyCount() {
+        return this.healthyCount;
+    }
+
+    /**
+     * Returns the number of infected humans.
+     * @return the number of infected humans
+     */
+    public int getInfectedCount() {
+        return this.infectedCount;
+    }
+
+    /**
+     * Returns the number of zombies.
+     * @return the number of zombies
+     */
+    public int getZombifiedCount() {
+        return this.zombifiedCount;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Environment;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * This class contains the distances (through the accessible cells and without 
+ * crossing walls) from each cell of the environment to the nearest cell with 
+ * healthy humans. It is computed once per phase, so the zombies that don't perceive
+ * any human can follow the shortest path to a human by looking at the neighbouring 
+ * cells, even around the walls and the inaccessible cells.
+ * It also counts the healthy humans of the cells, so it can tell in constant time
+ * if a group of cells contains healthy humans.
+ * @author Xavier
+ */
+class ZombiePursuitField {
+    //Constants
+    /**
+     * Cost of the moves to an horizontal or vertical neighbouring cell and to a 
+     * diagonal neighbouring cell (approximately proportional to their lengths).
+     */
+    private final static int ORTHOGONAL_COST = 2, DIAGONAL_COST = 3;
+    
+    /**
+     * Distance of the cells from where no cell with healthy humans can be reached.
+     */
+    private final static int UNREACHABLE = Integer.MAX_VALUE;
+    
+    //Attributes
+    /**
+     * Number of rows and columns of the environment.
+     */
+    private final int rows, columns;
+    
+    /**
+     * Moves between the cells blocked by the walls or by the inaccessible cells.
+     */
+    private final CellPassages passages;
+    
+    /**
+     * Distance of each cell to the nearest cell with healthy humans 
+     * (indexed by <code>row * columns + column</code>).
+     */
+    private final int[] distances;
+    
+    /**
+     * Number of healthy humans of each cell.
+     */
+    private final int[] healthyHumans;
+    
+    /**
+     * Summed-area table of the healthy humans: the position 
+     * <code>row * (columns + 1) + column</code> contains the number of healthy 
+     * humans of the cells above and to the left of that row and column.
+     */
+    private final int[] healthyHumansSums;
+    
+    /**
+     * Cells pending to be visited, grouped by their distance modulo the number 
+     * of groups (the costs of the moves are lower than the number of groups).
+     */
+    private final int[][] buckets;
+    
+    /**
+     * Number of cells of each group of cells pending to be visited.
+     */
+    private final int[] bucketSizes;
+    
+    //Public Constructors
+    public ZombiePursuitField(CellPassages passages) {
+        this.rows              = passages.getRows();
+        this.columns           = passages.getColumns();
+        this.passages          = passages;
+        this.distances         = new int[this.rows * this.columns];
+        this.healthyHumans     = new int[this.rows * this.columns];
+        this.healthyHumansSums = new int[(this.rows + 1) * (this.columns + 1)];
+        this.buckets           = new int[DIAGONAL_COST + 1][16];
+        this.bucketSizes       = new int[DIAGONAL_COST + 1];
+        
+        Arrays.fill(this.distances, UNREACHABLE);
+    }
+    
+    //Public Methods
+    /**
+     * Removes the healthy humans counted in the cells.
+     */
+    public void clearHealthyHumans() {
+        Arrays.fill(this.healthyHumans, 0);
+    }
+    
+    /**
+     * Counts a healthy human in a cell.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void addHealthyHuman(int row, int column) {
+        this.healthyHumans[row * this.columns + column]++;
+    }
+    
+    /**
+     * Calculates the distances of the cells to the nearest cell with healthy humans 
+     * counted, and the summed-area table of the healthy humans. The passages
+     * must be up to date.
+     */
+    public void update() {
+        this.calculateHealthyHumansSums();
+        this.calculateDistances();
+    }
+    
+    /**
+     * Checks if there are healthy humans in a rectangle of cells.
+     * @param minRow the first row of the rectangle
+     * @param maxRow the last row of the rectangle
+     * @param minColumn the first column of the rectangle
+     * @param maxColumn the last column of the rectangle
+     * @return <code>true</code> if any cell of the rectangle contains healthy humans,
+     * <code>false</code> otherwise
+     */
+    public boolean containsHealthyHumans(int minRow, int maxRow, int minColumn, int maxColumn) {
+        final int width, sum;
+        
+        width = this.columns + 1;
+        sum   = this.healthyHumansSums[(maxRow + 1) * width + maxColumn + 1] 
+                - this.healthyHumansSums[minRow * width + maxColumn + 1]
+                - this.healthyHumansSums[(maxRow + 1) * width + minColumn]
+                + this.healthyHumansSums[minRow * width + minColumn];
+        
+        return sum > 0;
+    }
+    
+    /**
+     * Returns the center of the neighbouring cell that is the next step of the 
+     * shortest path from a cell to the nearest cell with healthy humans.
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the center of the next cell, or <code>null</code> if the cell contains
+     * healthy humans or no cell with healthy humans can be reached from it
+     */
+    public Point2D getPursuitTarget(int row, int column) {
+        final int cell, blocked;
+        int nextDirection, nextDistance, neighbour;
+        
+        cell          = row * this.columns + column;
+        blocked       = this.passages.getBlockedDirections(cell);
+        nextDirection = -1;
+        nextDistance  = this.distances[cell];
+        
+        if(nextDistance != UNREACHABLE) {
+            for(int direction = 0; direction < CellPassages.DIRECTIONS; direction++) {
+                if((blocked & (1 << direction)) == 0) {
+                    neighbour = this.passages.getNeighbour(cell, direction);
+                    
+                    if(this.distances[neighbour] < nextDistance) {
+                        nextDirection = direction;
+                        nextDistance  = this.distances[neighbour];
+                    }
+                }
+            }
+        }
+        
+        return nextDirection < 0 ? null : 
+               new Point2D.Double((column + CellPassages.COLUMN_OFFSETS[nextDirection] + 0.5) * this.passages.getCellWidth(), 
+                                  (row + CellPassages.ROW_OFFSETS[nextDirection] + 0.5) * this.passages.getCellHeight());
+    }
+    
+    //Private Methods
+    /**
+     * Calculates the summed-area table of the healthy humans of the cells.
+     */
+    private void calculateHealthyHumansSums() {
+        final int width;
+        int rowSum;
+        
+        width = this.columns + 1;
+        
+        for(int row = 0; row < this.rows; row++) {
+            rowSum = 0;
+            
+            for(int column = 0; column < this.columns; column++) {
+                rowSum += this.healthyHumans[row * this.columns + column];
+                
+                this.healthyHumansSums[(row + 1) * width + column + 1] = 
+                        this.healthyHumansSums[row * width + column + 1] + rowSum;
+            }
+        }
+    }
+    
+    /**
+     * Calculates the distances of the cells to the nearest cell with healthy humans.
+     * As the costs of the moves are small integers, the cells pending to be visited
+     * are kept in a ring of groups by distance instead of in a priority queue.
+     */
+    private void calculateDistances() {
+        int distance, pending, cell, bucket, neighbour, neighbourDistance, blocked;
+        int[] cells;
+        
+        Arrays.fill(this.distances, UNREACHABLE);
+        
+        pending = 0;
+        
+        for(cell = 0; cell < this.healthyHumans.length; cell++) {
+            if(this.healthyHumans[cell] > 0) {
+                this.distances[cell] = 0;
+                
+                this.push(0, cell);
+                pending++;
+            }
+        }
+        
+        for(distance = 0; pending > 0; distance++) {
+            bucket = distance % this.buckets.length;
+            
+            for(int i = 0; i < this.bucketSizes[bucket]; i++) {
+                cells = this.buckets[bucket];
+                cell  = cells[i];
+                
+                pending--;
+                
+                //Ignore the cells already visited with a lower distance
+                if(this.distances[cell] == distance) {
+                    blocked = this.passages.getBlockedDirections(cell);
+                    
+                    for(int direction = 0; direction < CellPassages.DIRECTIONS; direction++) {
+                        if((blocked & (1 << direction)) == 0) {
+                            neighbour         = this.passages.getNeighbour(cell, direction);
+                            neighbourDistance = distance + (CellPassages.ROW_OFFSETS[direction] != 0 
+                                                            && CellPassages.COLUMN_OFFSETS[direction] != 0 ? 
+                                                            DIAGONAL_COST : ORTHOGONAL_COST);
+                            
+                            if(neighbourDistance < this.distances[neighbour]) {
+                                this.distances[neighbour] = neighbourDistance;
+                                
+                                this.push(neighbourDistance, neighbour);
+                                pending++;
+                            }
+                        }
+                    }
+                }
+            }
+            
+            this.bucketSizes[bucket] = 0;
+        }
+    }
+    
+    /**
+     * Adds a cell pending to be visited.
+     * @param distance the distance of the cell
+     * @param cell the cell (<code>row * columns + column</code>)
+     */
+    private void push(int distance, int cell) {
+        final int bucket;
+        
+        bucket = distance % this.buckets.length;
+        
+        if(this.bucketSizes[bucket] == this.buckets[bucket].length) {
+            this.buckets[bucket] = Arrays.copyOf(this.buckets[bucket], 2 * this.buckets[bucket].length);
+        }
+        
+        this.buckets[bucket][this.bucketSizes[bucket]++] = cell;
+    }
+}
@@ -19,12 +19,23 @@ package GUI.Components.Specific.EnvironmentRepresentation;
 
 import Environment.ZombieEpidemicEnvironment;
 import Environment.ZombieEpidemicEnvironmentInformation;
+import Environment.ZombieEpidemicProjector;
 import Environment.ZombieEpidemicResourcesInformation;
+import Environment.ZombieEpidemicStatisticsInformation;
 import SimulationConfiguration.EnvironmentConfiguration;
 import SimulationConfiguration.SimulationConfiguration;
+import StandardAgentFramework.PhaseSchedulingMode;
 import StandardAgentFramework.RunEnvironmentEventsHandler;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents a swing component of the representation of a simulation.
@@ -33,6 +44,14 @@ import java.awt.geom.Point2D;
  * @author Xavier
  */
 public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEpidemicEnvironmentRepresentation {
+    //Constants
+    private final static Color STATISTICS_BACKGROUND_COLOR = new Color(0, 0, 0, 170),
+                               STATISTICS_TEXT_COLOR       = Color.WHITE;
+    
+    private final static int STATISTICS_MARGIN = 8;
+    
+    private final static long MILLIS_BETWEEN_PHASES = 100;
+    
     //Attributes
     /**
      * The simulation object.
@@ -40,15 +59,26 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
     private ZombieEpidemicEnvironment environment;
     
     /**
-     * The thread used for automatic execution.
+     * Boolean value indicating if the automatic execution has been started.
      */
-    private Thread runEnvironmentThread;
+    private boolean runningAutomatically;
+    
+    /**
+     * Boolean value indicating if the statistics overlay must be painted.
+     */
+    private boolean statisticsOverlayVisible;
     
     //Public Constructors
     public InteractiveZombieEpidemicEnvironmentRepresentation(SimulationConfiguration configuration) {
-        super(configuration.getEnvironment(), null);
+        this(new ZombieEpidemicEnvironment(configuration));
+    }
+    
+    public InteractiveZombieEpidemicEnvironmentRepresentation(ZombieEpidemicEnvironment environment) {
+        super(environment.getConfiguration().getEnvironment(), null);
         
-        this.environment = new ZombieEpidemicEnvironment(configuration);
+        this.environment              = environment;
+        this.statisticsOverlayVisible = false;
+        this.runningAutomatically     = false;
         
         this.environment.addRunEnvironmentEventsHandler(new RunEnvironmentEventsHandler() {
             @Override
@@ -62,11 +92,22 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
     //Overriden Methods
     @Override
     protected void paintComponent(Graphics g) {
+        final AffineTransform transform;
+        
         //Update the environment information 
         super.setEnvironmentInformation(this.environment.getEnvironmentInformation());
         
-        //Call the parent method
+        //Call the parent method (it scales the graphics, so the original transform is saved)
+        transform = ((Graphics2D)g).getTransform();
+        
         super.paintComponent(g);
+        
+        //Paint the statistics over the environment if necessary
+        if(this.statisticsOverlayVisible) {
+            ((Graphics2D)g).setTransform(transform);
+            
+            this.paintStatisticsOverlay((Graphics2D)g, this.environment.getStatisticsInformation());
+        }
     }
     
     @Override
@@ -90,6 +131,33 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
         this.environment.addRunEnvironmentEventsHandler(handler);
     }
     
+    /**
+     * Checks if the statistics overlay is painted.
+     * @return <code>true</code> if the overlay is painted, <code>false</code> otherwise
+     */
+    public boolean isStatisticsOverlayVisible() {
+        return this.statisticsOverlayVisible;
+    }
+    
+    /**
+     * Indicates if the statistics overlay (phase rate, phase latency, allocation
+     * rate and population counters) must be painted over the environment.
+     * @param statisticsOverlayVisible the boolean value indicating if the overlay must be painted
+     */
+    public void setStatisticsOverlayVisible(boolean statisticsOverlayVisible) {
+        this.statisticsOverlayVisible = statisticsOverlayVisible;
+        
+        this.repaint();
+    }
+    
+    /**
+     * Returns the performance measures of the last phases and the current population counters.
+     * @return the statistics information
+     */
+    public ZombieEpidemicStatisticsInformation getStatisticsInformation() {
+        return this.environment.getStatisticsInformation();
+    }
+    
     /**
      * Move the environment one phase: all agents receive the perceptions that they
      * sense, they decide the what action they will do and update the environment
@@ -105,11 +173,11 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
      * this method won't do anything.
      */
     public void runEnvironment(){
-        if(this.runEnvironmentThread == null) {
-            //Create a new thread and start it
-            this.runEnvironmentThread = createRunEnvironmentThread();
+        if(!this.runningAutomatically) {
+            //Execute the phases in the shared scheduler
+            this.runningAutomatically = true;
             
-            this.runEnvironmentThread.start();
+            this.environment.start(PhaseSchedulingMode.FixedRate, TimeUnit.MILLISECONDS.toNanos(MILLIS_BETWEEN_PHASES));
         }
     }
     
@@ -118,20 +186,60 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
      * currently stopped, this method won't do anything.
      */
     public void stopEnvironment() {
-        if(this.runEnvironmentThread != null) {
+        if(this.runningAutomatically) {
             this.environment.stop();
             
-            this.runEnvironmentThread = null;
+            this.runningAutomatically = false;
         }
     }
     
+    /**
+     * Stops the execution of the environment and releases its resources. The 
+     * component can't be used after calling this method.
+     */
+    public void disposeEnvironment() {
+        this.stopEnvironment();
+        this.environment.dispose();
+    }
+    
+    /**
+     * Writes a checkpoint of the simulation in a file. The simulation can be 
+     * executing (the checkpoint is written between two phases).
+     * @param file the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void saveCheckpoint(File file) throws IOException {
+        this.environment.saveCheckpoint(file);
+    }
+    
+    /**
+     * Starts a projection of the current state of the simulation with and without
+     * an intervention (see <code>ZombieEpidemicProjector</code>).
+     * @param projector the projector
+     * @param intervention the intervention
+     * @param listener the listener that receives the result
+     */
+    public void project(ZombieEpidemicProjector projector, ZombieEpidemicProjector.Intervention intervention, 
+                        ZombieEpidemicProjector.Listener listener) {
+        projector.project(this.environment, intervention, listener);
+    }
+    
+    /**
+     * Indicates if the automatic execution must be throttled (when the component
+     * isn't visible), so the rest of the simulations get priority.
+     * @param throttled the boolean value indicating if the execution must be throttled
+     */
+    public void setExecutionThrottled(boolean throttled) {
+        this.environment.setThrottled(throttled);
+    }
+    
     /**
      * Checks if the environment is currently executing
      * @return <code>true</code> if the environment is currently executing, 
      * <code>false</code> otherwise
      */
     public boolean isRunning() {
-        return this.runEnvironmentThread != null;
+        return this.runningAutomatically;
     }
     
     /**
@@ -297,22 +405,59 @@ public class InteractiveZombieEpidemicEnvironmentRepresentation extends ZombieEp
     
     //Private Methods
     /**
-     * Create a new thread to execute the environment.
-     * @return the thread
+     * Paints a box with the statistics of the simulation at the top-left corner of the component.
+     * @param g2d the Graphics2D object used to paint the component
+     * @param statistics the statistics to paint
      */
-    private Thread createRunEnvironmentThread() {
-        Thread thread;
+    private void paintStatisticsOverlay(Graphics2D g2d, ZombieEpidemicStatisticsInformation statistics) {
+        final String[] lines;
+        final FontMetrics fontMetrics;
+        final int lineHeight;
+        int boxWidth, boxHeight, y;
+        String allocationRate;
         
-        thread = new Thread("Run Environment Thread") {
-            @Override
-            public void run() {
-                InteractiveZombieEpidemicEnvironmentRepresentation.this.environment.run(100);
-            }
+        if(statistics.getAllocationRate() < 0) {
+            allocationRate = "n/d";
+        }
+        else {
+            allocationRate = String.format("%.1f MB/s", statistics.getAllocationRate() / (1024 * 1024));
+        }
+        
+        lines = new String[] {
+            "Fase: " + statistics.getPhase(),
+            String.format("Fases/s: %.1f", statistics.getPhaseRate()),
+            String.format("Durada fase p50/p99: %.2f / %.2f ms", statistics.getPhaseDurationP50() / 1e6, 
+                          statistics.getPhaseDurationP99() / 1e6),
+            String.format("Agents actualitzats/s: %,d", statistics.getAgentUpdatesPerSecond()),
+            "Memòria assignada: " + allocationRate,
+            "Sans: " + statistics.getHealthyCount() + "   Infectats: " + statistics.getInfectedCount() 
+            + "   Zombis: " + statistics.getZombifiedCount()
         };
         
-        thread.setDaemon(true);
+        g2d.setFont(g2d.getFont().deriveFont(Font.BOLD, 12f));
         
+        fontMetrics = g2d.getFontMetrics();
+        lineHeight  = fontMetrics.getHeight();
+        boxWidth    = 0;
+        boxHeight   = lines.length * lineHeight + 2 * STATISTICS_MARGIN;
         
-        return thread;
+        for(String line: lines) {
+            boxWidth = Math.max(boxWidth, fontMetrics.stringWidth(line));
+        }
+        
+        boxWidth += 2 * STATISTICS_MARGIN;
+        
+        //Paint the background box and the lines of text
+        g2d.setColor(STATISTICS_BACKGROUND_COLOR);
+        g2d.fillRect(STATISTICS_MARGIN, STATISTICS_MARGIN, boxWidth, boxHeight);
+        g2d.setColor(STATISTICS_TEXT_COLOR);
+        
+        y = 2 * STATISTICS_MARGIN + fontMetrics.getAscent();
+        
+        for(String line: lines) {
+            g2d.drawString(line, 2 * STATISTICS_MARGIN, y);
+            
+            y += lineHeight;
+        }
     }
 }
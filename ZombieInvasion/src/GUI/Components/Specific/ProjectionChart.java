@@ -0,0 +1,203 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package GUI.Components.Specific;
+
+import Environment.ZombieEpidemicProjection;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import javax.swing.JComponent;
+
+/**
+ * This class represents a chart of a projection of the simulation: the curves of 
+ * infected humans and zombies with the intervention (solid lines) and without it
+ * (dashed lines).
+ * @author Xavier
+ */
+public class ProjectionChart extends JComponent {
+    //Constants
+    private final static Color INFECTED_COLOR   = new Color(0xd4b000),
+                               ZOMBIE_COLOR     = new Color(0xcd2529),
+                               BACKGROUND_COLOR = Color.WHITE,
+                               AXIS_COLOR       = Color.GRAY,
+                               TEXT_COLOR       = Color.DARK_GRAY;
+    
+    private final static Stroke ALTERNATIVE_STROKE = new BasicStroke(2f),
+                                BASELINE_STROKE    = new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND, 
+                                                                     10f, new float[] {4f, 3f}, 0f);
+    
+    private final static int MARGIN = 6;
+    
+    //Attributes
+    /**
+     * The projection shown (<code>null</code> if the message is shown).
+     */
+    private ZombieEpidemicProjection projection;
+    
+    /**
+     * The message shown when there isn't any projection.
+     */
+    private String message;
+    
+    //Public Constructors
+    public ProjectionChart() {
+        super();
+        
+        this.projection = null;
+        this.message    = "";
+        
+        this.setToolTipText("Groc: infectats. Vermell: zombis.");
+        this.setPreferredSize(new Dimension(200, 130));
+        this.setMinimumSize(new Dimension(200, 130));
+    }
+    
+    //Overridden Methods
+    @Override
+    protected void paintComponent(Graphics g) {
+        final Graphics2D g2d;
+        final FontMetrics fontMetrics;
+        final int chartX, chartY, chartWidth, chartHeight;
+        
+        g2d = (Graphics2D)g.create();
+        
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setFont(g2d.getFont().deriveFont(Font.PLAIN, 10f));
+        
+        fontMetrics = g2d.getFontMetrics();
+        chartX      = MARGIN;
+        chartY      = MARGIN + fontMetrics.getHeight();
+        chartWidth  = this.getWidth() - 2 * MARGIN;
+        chartHeight = this.getHeight() - chartY - MARGIN - fontMetrics.getHeight();
+        
+        //Paint the background and the axes
+        g2d.setColor(BACKGROUND_COLOR);
+        g2d.fillRect(0, 0, this.getWidth(), this.getHeight());
+        g2d.setColor(AXIS_COLOR);
+        g2d.drawLine(chartX, chartY, chartX, chartY + chartHeight);
+        g2d.drawLine(chartX, chartY + chartHeight, chartX + chartWidth, chartY + chartHeight);
+        g2d.setColor(TEXT_COLOR);
+        
+        if(this.projection == null) {
+            g2d.drawString(this.message, chartX + MARGIN, chartY + chartHeight / 2);
+        }
+        else {
+            //Paint the title, the curves and the legend
+            g2d.drawString("Projecció des de la fase " + this.projection.getStartPhase() + 
+                           " (màx. " + this.projection.getMaxValue() + ")", chartX, MARGIN + fontMetrics.getAscent());
+            
+            this.paintCurves(g2d, chartX, chartY, chartWidth, chartHeight);
+            
+            g2d.setColor(TEXT_COLOR);
+            g2d.drawString("— amb compra   - - sense compra", chartX, this.getHeight() - MARGIN - fontMetrics.getDescent());
+        }
+        
+        g2d.dispose();
+    }
+    
+    //Public Methods
+    /**
+     * Shows a projection.
+     * @param projection the projection
+     */
+    public void showProjection(ZombieEpidemicProjection projection) {
+        this.projection = projection;
+        
+        this.repaint();
+    }
+    
+    /**
+     * Shows a message instead of a projection.
+     * @param message the message
+     */
+    public void showMessage(String message) {
+        this.projection = null;
+        this.message    = message;
+        
+        this.repaint();
+    }
+    
+    //Private Methods
+    /**
+     * Paints the curves of the projection.
+     * @param g2d the graphics object
+     * @param x the X coordinate of the chart area
+     * @param y the Y coordinate of the chart area
+     * @param width the width of the chart area
+     * @param height the height of the chart area
+     */
+    private void paintCurves(Graphics2D g2d, int x, int y, int width, int height) {
+        final int length, maxValue;
+        final double scaleX, scaleY;
+        final Path2D baselineInfected, baselineZombified, alternativeInfected, alternativeZombified;
+        double pointX;
+        
+        length               = this.projection.getLength();
+        maxValue             = Math.max(1, this.projection.getMaxValue());
+        scaleX               = width / (double)Math.max(1, length - 1);
+        scaleY               = height / (double)maxValue;
+        baselineInfected     = new Path2D.Double();
+        baselineZombified    = new Path2D.Double();
+        alternativeInfected  = new Path2D.Double();
+        alternativeZombified = new Path2D.Double();
+        
+        for(int i = 0; i < length; i++) {
+            pointX = x + i * scaleX;
+            
+            addPoint(baselineInfected, i, pointX, y + height - this.projection.getBaselineInfected(i) * scaleY);
+            addPoint(baselineZombified, i, pointX, y + height - this.projection.getBaselineZombified(i) * scaleY);
+            addPoint(alternativeInfected, i, pointX, y + height - this.projection.getAlternativeInfected(i) * scaleY);
+            addPoint(alternativeZombified, i, pointX, y + height - this.projection.getAlternativeZombified(i) * scaleY);
+        }
+        
+        g2d.setStroke(BASELINE_STROKE);
+        g2d.setColor(INFECTED_COLOR);
+        g2d.draw(baselineInfected);
+        g2d.setColor(ZOMBIE_COLOR);
+        g2d.draw(baselineZombified);
+        
+        g2d.setStroke(ALTERNATIVE_STROKE);
+        g2d.setColor(INFECTED_COLOR);
+        g2d.draw(alternativeInfected);
+        g2d.setColor(ZOMBIE_COLOR);
+        g2d.draw(alternativeZombified);
+    }
+    
+    //Private Static Methods
+    /**
+     * Adds a point to a curve.
+     * @param curve the curve
+     * @param index the index of the point
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     */
+    private static void addPoint(Path2D curve, int index, double x, double y) {
+        if(index == 0) {
+            curve.moveTo(x, y);
+        }
+        else {
+            curve.lineTo(x, y);
+        }
+    }
+}
@@ -17,8 +17,11 @@
 
 package GUI.Sections;
 
+import Environment.ZombieEpidemicEnvironment;
 import GUI.Components.General.ButtonTabComponent;
 import Media.Images.ImagesDirectory;
+import Replay.ReplayReader;
+import Replay.ReplayRecorder;
 import SimulationConfiguration.SimulationConfiguration;
 import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
 import SimulationConfigurationFileAdapter.XMLFileError;
@@ -30,6 +33,7 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -67,6 +71,16 @@ public class MainMenu extends JPanel {
      * The button for execute a simulation whose configuration is retrieved from a file.
      */
     private JButton openSimulationButton; 
+    
+    /**
+     * The button for resuming a simulation from a checkpoint file.
+     */
+    private JButton resumeSimulationButton;
+    
+    /**
+     * The button for playing a replay file.
+     */
+    private JButton playReplayButton;
             
     /**
      * The button for stopping the application.
@@ -93,6 +107,8 @@ public class MainMenu extends JPanel {
         this.newSimulationButton             = new JButton("Nova simulació");
         this.newSimulationFromExistingButton = new JButton("Nova simulació des d'existent");
         this.openSimulationButton            = new JButton("Obrir simulació");
+        this.resumeSimulationButton          = new JButton("Reprèn simulació");
+        this.playReplayButton                = new JButton("Reprodueix enregistrament");
         this.quitButton                      = new JButton("Sortir");
         
         //Set components' properties
@@ -100,12 +116,16 @@ public class MainMenu extends JPanel {
         this.setMenuButtonProperties(this.newSimulationButton);
         this.setMenuButtonProperties(this.newSimulationFromExistingButton);
         this.setMenuButtonProperties(this.openSimulationButton);
+        this.setMenuButtonProperties(this.resumeSimulationButton);
+        this.setMenuButtonProperties(this.playReplayButton);
         this.setMenuButtonProperties(this.quitButton);
         
         //Add buttons' listeneres
         this.newSimulationButton.addActionListener(this.createNewSimulationActionListener());
         this.newSimulationFromExistingButton.addActionListener(this.createNewSimulationFromExistingActionListener());
         this.openSimulationButton.addActionListener(this.createOpenSimulationActionListener());
+        this.resumeSimulationButton.addActionListener(this.createResumeSimulationActionListener());
+        this.playReplayButton.addActionListener(this.createPlayReplayActionListener());
         this.quitButton.addActionListener(this.createExitActionListener());
         
         //Place elements in panel
@@ -113,7 +133,9 @@ public class MainMenu extends JPanel {
         this.add(this.newSimulationButton, this.createConstraints(1, 1));
         this.add(this.newSimulationFromExistingButton, this.createConstraints(2, 1));
         this.add(this.openSimulationButton, this.createConstraints(3, 1));
-        this.add(this.quitButton, this.createConstraints(4, 1));
+        this.add(this.resumeSimulationButton, this.createConstraints(4, 1));
+        this.add(this.playReplayButton, this.createConstraints(5, 1));
+        this.add(this.quitButton, this.createConstraints(6, 1));
     }
     
     /**
@@ -273,11 +295,129 @@ public class MainMenu extends JPanel {
         };
     }
     
+    /**
+     * Creates the action listener of the button for resuming a simulation from
+     * a checkpoint file.
+     * @return the action listener
+     */
+    private ActionListener createResumeSimulationActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZombieEpidemicEnvironment environment;
+                JTabbedPane tabs;
+                File selectedFile;
+                ButtonTabComponent tabComponent;
+                final SimulationSection simulationSection;
+                
+                //Get the checkpoint file to open
+                selectedFile = getFile(new FileNameExtensionFilter("Punt de control", ZombieEpidemicEnvironment.CHECKPOINT_FILE_EXTENSION));
+                
+                if(selectedFile != null) {
+                    //Restore the simulation from the file and create a new tab with
+                    //a new simulation execution section. Add a listener when the tab 
+                    //is closed to stop the execution of the simulation
+                    try {
+                        environment       = ZombieEpidemicEnvironment.loadCheckpoint(selectedFile);
+                        tabs              = (JTabbedPane)MainMenu.this.getParent();
+                        simulationSection = new SimulationSection(environment);
+                        tabComponent      = new ButtonTabComponent(tabs);
+
+                        tabs.add("Execució \"" + selectedFile.getName() + "\"", simulationSection);
+                        tabs.setTabComponentAt(tabs.getTabCount() - 1, tabComponent);
+                        tabs.setSelectedIndex(tabs.getTabCount() - 1);
+                        tabComponent.addActionListenerOnCloseTabButton(new ActionListener() {
+                            @Override
+                            public void actionPerformed(ActionEvent e) {
+                                simulationSection.stop();
+                            }
+                        });
+                    }
+                    catch (IOException ex) {
+                        JOptionPane.showMessageDialog(MainMenu.this, "No s'ha pogut reprendre la simulació:\n" + ex.getMessage(), "ERROR", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Creates the action listener of the button for playing a replay file.
+     * @return the action listener
+     */
+    private ActionListener createPlayReplayActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ReplayReader reader;
+                JTabbedPane tabs;
+                File selectedFile;
+                ButtonTabComponent tabComponent;
+                final ReplaySection replaySection;
+                
+                //Get the replay file to open
+                selectedFile = getFile(new FileNameExtensionFilter("Enregistrament", ReplayRecorder.REPLAY_FILE_EXTENSION));
+                
+                if(selectedFile != null) {
+                    //Open the file and create a new tab with a replay section. 
+                    //Add a listener when the tab is closed to close the file
+                    reader = null;
+                    
+                    try {
+                        reader        = new ReplayReader(selectedFile);
+                        tabs          = (JTabbedPane)MainMenu.this.getParent();
+                        replaySection = new ReplaySection(reader);
+                        tabComponent  = new ButtonTabComponent(tabs);
+
+                        tabs.add("Enregistrament \"" + selectedFile.getName() + "\"", replaySection);
+                        tabs.setTabComponentAt(tabs.getTabCount() - 1, tabComponent);
+                        tabs.setSelectedIndex(tabs.getTabCount() - 1);
+                        tabComponent.addActionListenerOnCloseTabButton(new ActionListener() {
+                            @Override
+                            public void actionPerformed(ActionEvent e) {
+                                replaySection.stop();
+                            }
+                        });
+                    }
+                    catch (IOException ex) {
+                        closeQuietly(reader);
+                        
+                        JOptionPane.showMessageDialog(MainMenu.this, "No s'ha pogut obrir l'enregistrament:\n" + ex.getMessage(), "ERROR", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Closes a replay file, ignoring the errors.
+     * @param reader the reader of the file (it can be <code>null</code>)
+     */
+    private void closeQuietly(ReplayReader reader) {
+        if(reader != null) {
+            try {
+                reader.close();
+            }
+            catch (IOException ex) {
+                //The file is only read, so there isn't any data lost
+            }
+        }
+    }
+    
     /**
      * Opens a file chooser for opening XML files.
      * @return the file selected
      */
     private File getFile() {
+        return this.getFile(new FileNameExtensionFilter("XML", "xml"));
+    }
+    
+    /**
+     * Opens a file chooser for opening files.
+     * @param filter the filter of the files that can be selected
+     * @return the file selected
+     */
+    private File getFile(FileNameExtensionFilter filter) {
         int fileChooserValue;
         JFileChooser fileChooser;
         File selectedFile;
@@ -286,7 +426,7 @@ public class MainMenu extends JPanel {
         selectedFile = null;
         
         fileChooser.setAcceptAllFileFilterUsed(false);
-        fileChooser.setFileFilter(new FileNameExtensionFilter("XML", "xml"));
+        fileChooser.setFileFilter(filter);
 
         fileChooserValue = fileChooser.showOpenDialog(MainMenu.this);
         
@@ -0,0 +1,302 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package GUI.Sections;
+
+import GUI.Components.Specific.EnvironmentRepresentation.Anchor;
+import GUI.Components.Specific.EnvironmentRepresentation.ZombieEpidemicEnvironmentRepresentation;
+import Media.Images.ImagesDirectory;
+import Replay.ReplayReader;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import javax.swing.BorderFactory;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * This class represents the section of the application that plays a replay file.
+ * The replay can be played at different speeds, paused and scrubbed to any phase.
+ * @author Xavier
+ */
+public class ReplaySection extends JPanel {
+    //Constants
+    /**
+     * Milliseconds between updates of the representation while playing.
+     */
+    private final static int TIMER_DELAY_MILLIS = 40;
+    
+    /**
+     * Milliseconds per phase at normal speed.
+     */
+    private final static double PHASE_MILLIS = 100;
+    
+    /**
+     * Speeds of the reproduction (phases per <code>PHASE_MILLIS</code>) and their names.
+     */
+    private final static int[] SPEEDS = {1, 10, 100};
+    private final static String[] SPEED_NAMES = {"1×", "10×", "100×"};
+    
+    //Attributes
+    /**
+     * The reader of the replay file.
+     */
+    private final ReplayReader reader;
+    
+    /**
+     * The component that represents the environment in the current frame.
+     */
+    private ZombieEpidemicEnvironmentRepresentation environmentRepresentation;
+    
+    /**
+     * The button to play or pause the replay.
+     */
+    private JButton reproductionButton;
+    
+    /**
+     * The slider to select the frame.
+     */
+    private JSlider frameSlider;
+    
+    /**
+     * The selector of the speed of the reproduction.
+     */
+    private JComboBox<String> speedComboBox;
+    
+    /**
+     * The label of the current phase.
+     */
+    private JLabel phaseLabel;
+    
+    /**
+     * Timer that advances the frames while playing.
+     */
+    private Timer reproductionTimer;
+    
+    /**
+     * Fraction of frame accumulated by the timer that hasn't been shown yet.
+     */
+    private double pendingFrames;
+    
+    /**
+     * Boolean value indicating if the slider is being updated by the reproduction
+     * (instead of by the user).
+     */
+    private boolean updatingSlider;
+    
+    //Public Constructors
+    /**
+     * Creates a section that plays a replay.
+     * @param reader the reader of the replay file
+     * @throws IOException if the replay doesn't contain any frame or the first frame can't be read
+     */
+    public ReplaySection(ReplayReader reader) throws IOException {
+        super();
+        
+        this.reader = reader;
+        
+        if(this.reader.getFrameCount() == 0) {
+            throw new IOException("L'enregistrament no conté cap fase.");
+        }
+        
+        this.reader.seek(0);
+        this.initComponents();
+    }
+    
+    //Public Methods
+    /**
+     * Stops the reproduction and closes the replay file.
+     */
+    public void stop() {
+        this.reproductionTimer.stop();
+        
+        try {
+            this.reader.close();
+        }
+        catch (IOException ex) {
+            //The file is only read, so there isn't any data lost
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Creates and adds into the container the environment component and the 
+     * reproduction controls.
+     */
+    private void initComponents() {
+        JPanel controlsPanel;
+        
+        this.setLayout(new BorderLayout());
+        
+        this.environmentRepresentation = new ZombieEpidemicEnvironmentRepresentation(this.reader.getConfiguration().getEnvironment(),
+                                                                                     this.reader.getEnvironmentInformation());
+        this.reproductionButton        = new JButton(new ImageIcon(ImagesDirectory.PLAY_IMAGE));
+        this.frameSlider               = new JSlider(0, Math.max(0, this.reader.getFrameCount() - 1), 0);
+        this.speedComboBox             = new JComboBox<>(SPEED_NAMES);
+        this.phaseLabel                = new JLabel();
+        this.reproductionTimer         = new Timer(TIMER_DELAY_MILLIS, this.createReproductionTimerActionListener());
+        controlsPanel                  = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        
+        this.environmentRepresentation.setMantainAspectRatio(true);
+        this.environmentRepresentation.setMantainAspectRatioAnchor(Anchor.Center);
+        this.reproductionButton.setPreferredSize(new Dimension(40, 40));
+        this.reproductionButton.setToolTipText("Reprodueix");
+        this.frameSlider.setPreferredSize(new Dimension(400, this.frameSlider.getPreferredSize().height));
+        this.speedComboBox.setToolTipText("Velocitat de reproducció");
+        this.phaseLabel.setPreferredSize(new Dimension(90, 20));
+        this.updatePhaseLabel();
+        
+        this.reproductionButton.addActionListener(this.createPlayPauseActionListener());
+        this.frameSlider.addChangeListener(this.createFrameSliderChangeListener());
+        
+        controlsPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        controlsPanel.add(this.reproductionButton);
+        controlsPanel.add(this.frameSlider);
+        controlsPanel.add(this.speedComboBox);
+        controlsPanel.add(this.phaseLabel);
+        
+        this.add(this.environmentRepresentation, BorderLayout.CENTER);
+        this.add(controlsPanel, BorderLayout.SOUTH);
+    }
+    
+    /**
+     * Shows a frame of the replay.
+     * @param frame the index of the frame
+     */
+    private void showFrame(int frame) {
+        try {
+            this.reader.seek(frame);
+            
+            this.environmentRepresentation.setEnvironmentInformation(this.reader.getEnvironmentInformation());
+            this.environmentRepresentation.repaint();
+            this.updatePhaseLabel();
+        }
+        catch (IOException ex) {
+            this.pause();
+            
+            JOptionPane.showMessageDialog(this, "No s'ha pogut llegir l'enregistrament:\n" + ex.getMessage(), "ERROR", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Updates the label with the phase of the current frame.
+     */
+    private void updatePhaseLabel() {
+        this.phaseLabel.setText("Fase " + this.reader.getCurrentPhase());
+    }
+    
+    /**
+     * Starts the reproduction (from the start if the last frame is shown).
+     */
+    private void play() {
+        if(this.frameSlider.getValue() == this.frameSlider.getMaximum()) {
+            this.frameSlider.setValue(0);
+        }
+        
+        this.pendingFrames = 0;
+        
+        this.reproductionButton.setIcon(new ImageIcon(ImagesDirectory.PAUSE_IMAGE));
+        this.reproductionButton.setToolTipText("Pausa");
+        this.reproductionTimer.start();
+    }
+    
+    /**
+     * Pauses the reproduction.
+     */
+    private void pause() {
+        this.reproductionTimer.stop();
+        this.reproductionButton.setIcon(new ImageIcon(ImagesDirectory.PLAY_IMAGE));
+        this.reproductionButton.setToolTipText("Reprodueix");
+    }
+    
+    /**
+     * Creates the listener of the reproduction button.
+     * @return the listener
+     */
+    private ActionListener createPlayPauseActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if(reproductionTimer.isRunning()) {
+                    pause();
+                }
+                else {
+                    play();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Creates the listener of the timer that advances the frames while playing.
+     * @return the listener
+     */
+    private ActionListener createReproductionTimerActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                final int advance, frame;
+                
+                //Accumulate the frames to advance (at normal speed, less than 
+                //one frame per tick)
+                pendingFrames += SPEEDS[speedComboBox.getSelectedIndex()] * TIMER_DELAY_MILLIS / PHASE_MILLIS;
+                advance        = (int)pendingFrames;
+                pendingFrames -= advance;
+                
+                if(advance > 0) {
+                    frame = Math.min(frameSlider.getValue() + advance, frameSlider.getMaximum());
+                    
+                    updatingSlider = true;
+                    frameSlider.setValue(frame);
+                    updatingSlider = false;
+                    
+                    showFrame(frame);
+                    
+                    if(frame == frameSlider.getMaximum()) {
+                        pause();
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Creates the listener of the slider, which shows the frame selected by the user.
+     * @return the listener
+     */
+    private ChangeListener createFrameSliderChangeListener() {
+        return new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if(!updatingSlider) {
+                    showFrame(frameSlider.getValue());
+                }
+            }
+        };
+    }
+}
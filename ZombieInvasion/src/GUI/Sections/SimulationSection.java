@@ -17,9 +17,13 @@
 
 package GUI.Sections;
 
+import Environment.ZombieEpidemicEnvironment;
+import Environment.ZombieEpidemicProjection;
+import Environment.ZombieEpidemicProjector;
 import Environment.ZombieEpidemicResourcesInformation;
 import GUI.Components.Specific.EnvironmentRepresentation.Anchor;
 import GUI.Components.Specific.EnvironmentRepresentation.InteractiveZombieEpidemicEnvironmentRepresentation;
+import GUI.Components.Specific.ProjectionChart;
 import Media.Images.ImagesDirectory;
 import SimulationConfiguration.ResourcesConfiguration;
 import SimulationConfiguration.SimulationConfiguration;
@@ -35,16 +39,31 @@ import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionAdapter;
+import java.awt.event.MouseMotionListener;
 import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSeparator;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * This class represents the simulation execution section of the application.
@@ -55,6 +74,26 @@ public class SimulationSection extends JPanel {
     private final static Color AVAILABLE_RESOURCES_COLOR     = new Color(0x5CB85C),
                                NOT_AVAILABLE_RESOURCES_COLOR = Color.RED;
     
+    private final static int PROJECTION_PHASES      = 200,
+                             PROJECTION_DELAY_MILLIS = 150;
+    
+    private final static String PROJECTION_HINT_MESSAGE       = "Passa per sobre d'una compra",
+                                PROJECTION_CALCULATING_MESSAGE = "Calculant projecció...";
+    
+    private final static ZombieEpidemicProjector.Intervention VACCINATION_INTERVENTION = new ZombieEpidemicProjector.Intervention() {
+        @Override
+        public void apply(ZombieEpidemicEnvironment environment) {
+            environment.buyAndUseVaccinationKit();
+        }
+    };
+    
+    private final static ZombieEpidemicProjector.Intervention WEAPON_INTERVENTION = new ZombieEpidemicProjector.Intervention() {
+        @Override
+        public void apply(ZombieEpidemicEnvironment environment) {
+            environment.buyAndUseWeaponKit();
+        }
+    };
+    
     //Attributes
     /**
      * The configuration object with the values used in the execution.
@@ -77,44 +116,90 @@ public class SimulationSection extends JPanel {
      */
     private InteractiveZombieEpidemicEnvironmentRepresentation environmentRepresentation;
     
-    private JLabel reproductionLabel, restartLabel, buyVaccinesLabel, buyWeaponsLabel, wallModeLabel, 
-                   totalResourcesAvailableLabel;
-    private JButton reproductionButton, restartButton, 
+    private JLabel reproductionLabel, restartLabel, saveCheckpointLabel, buyVaccinesLabel, buyWeaponsLabel, 
+                   wallModeLabel, totalResourcesAvailableLabel;
+    private JButton reproductionButton, restartButton, saveCheckpointButton,
                     buyVaccinesButton, buyWeaponsButton, wallModeButton;
+    private JCheckBox statisticsCheckBox, projectionCheckBox;
+    
+    /**
+     * The chart of the projection of the purchase that the user is considering.
+     */
+    private ProjectionChart projectionChart;
+    
+    /**
+     * Projector of the purchases (it runs forks of the simulation in background).
+     */
+    private final ZombieEpidemicProjector projector;
+    
+    /**
+     * Timer that delays the start of a projection while the user is changing the
+     * purchase considered (for example, moving the end point of a wall).
+     */
+    private Timer projectionTimer;
+    
+    /**
+     * The intervention of the next projection started by the timer.
+     */
+    private ZombieEpidemicProjector.Intervention pendingIntervention;
     
     //Public Constructors
     public SimulationSection(SimulationConfiguration config) {
+        this(config, new ZombieEpidemicEnvironment(config));
+    }
+    
+    /**
+     * Creates a section that continues the execution of an existing simulation
+     * (for example, a simulation restored from a checkpoint).
+     * @param environment the environment of the simulation
+     */
+    public SimulationSection(ZombieEpidemicEnvironment environment) {
+        this(environment.getConfiguration(), environment);
+    }
+    
+    //Private Constructors
+    private SimulationSection(SimulationConfiguration config, ZombieEpidemicEnvironment environment) {
         super();
         
         this.configuration          = config;
         this.inWallConstructionMode = false;
         this.lastEnvironmentPoint   = null;
+        this.projector              = new ZombieEpidemicProjector(PROJECTION_PHASES);
         
-        initComponents(config);
+        initComponents(config, environment);
     }
-
+    
+    //Public Methods
     /**
-     * Stops the current execution of the simulation.
+     * Stops the current execution of the simulation and releases its resources.
      */
     public void stop() {
-        this.environmentRepresentation.stopEnvironment();
+        this.cancelProjection();
+        this.environmentRepresentation.disposeEnvironment();
     }
     
     //Private Methods
     /**
      * Creates and adds into the container the simulation component and the options panel.
      * @param config the configuration object
+     * @param environment the environment of the simulation
      */
-    private void initComponents(SimulationConfiguration config) {
+    private void initComponents(SimulationConfiguration config, ZombieEpidemicEnvironment environment) {
         JPanel optionsPanel;
         
         this.setLayout(new BorderLayout());
         
         optionsPanel                   = this.createOptionsPanel(config.getResources());
-        this.environmentRepresentation = createEnvironmentRepresentation(config);
+        this.environmentRepresentation = createEnvironmentRepresentation(environment);
         
         this.add(optionsPanel, BorderLayout.WEST);
         this.add(this.environmentRepresentation, BorderLayout.CENTER);
+        
+        //Show the resources of the environment (it can be a restored simulation)
+        this.updateResourcesInformation();
+        
+        //Throttle the simulation while its tab isn't selected
+        this.addComponentListener(this.createVisibilityComponentListener());
     }
     
     /**
@@ -146,21 +231,35 @@ public class SimulationSection extends JPanel {
         this.reproductionLabel            = this.createOptionLabel("Reprodueix");
         this.restartButton                = this.createOptionButton("Reinicia", ImagesDirectory.RESTART_IMAGE);
         this.restartLabel                 = this.createOptionLabel("Reinicia");
+        this.saveCheckpointButton         = this.createOptionButton("Desa punt de control", UIManager.getIcon("FileView.floppyDriveIcon"));
+        this.saveCheckpointLabel          = this.createOptionLabel("Desa punt de control");
         this.buyVaccinesButton            = this.createOptionButton(vaccineText, ImagesDirectory.VACCINE_IMAGE);
         this.buyVaccinesLabel             = this.createOptionLabel(vaccineText);
         this.buyWeaponsButton             = this.createOptionButton(weaponText, ImagesDirectory.GUN_IMAGE);
         this.buyWeaponsLabel              = this.createOptionLabel(weaponText);
         this.wallModeButton               = this.createOptionButton(wallText, ImagesDirectory.WALL_IMAGE);
         this.wallModeLabel                = this.createOptionLabel(wallText);
+        this.statisticsCheckBox           = new JCheckBox("Mostra estadístiques");
+        this.projectionCheckBox           = new JCheckBox("Projecta les compres");
+        this.projectionChart              = new ProjectionChart();
+        this.projectionTimer              = new Timer(PROJECTION_DELAY_MILLIS, this.createStartProjectionActionListener());
         verticalSeparator                 = new JSeparator(SwingConstants.VERTICAL);
         horizontalSeparator               = new JSeparator(SwingConstants.HORIZONTAL);
         
         //Add listeners to the components
         this.reproductionButton.addActionListener(this.createPlayPauseEnvironmentActionListener());
         this.restartButton.addActionListener(this.createRestartEnvironmentActionListener());
+        this.saveCheckpointButton.addActionListener(this.createSaveCheckpointActionListener());
         this.buyVaccinesButton.addActionListener(this.createBuyVaccinationKitActionListener());
         this.buyWeaponsButton.addActionListener(this.createBuyWeaponKitActionListener());
         this.wallModeButton.addActionListener(this.createWallModeActionListener());
+        this.statisticsCheckBox.addActionListener(this.createStatisticsActionListener());
+        this.projectionCheckBox.addActionListener(this.createProjectionActionListener());
+        this.buyVaccinesButton.addMouseListener(this.createProjectionMouseListener(VACCINATION_INTERVENTION));
+        this.buyWeaponsButton.addMouseListener(this.createProjectionMouseListener(WEAPON_INTERVENTION));
+        this.projectionTimer.setRepeats(false);
+        this.projectionChart.setVisible(false);
+        this.projectionChart.showMessage(PROJECTION_HINT_MESSAGE);
         
         //Add the components into the container
         optionsPanel.add(this.reproductionButton, this.createOptionButtonConstraints(0, 0));
@@ -169,6 +268,9 @@ public class SimulationSection extends JPanel {
         optionsPanel.add(this.restartButton, this.createOptionButtonConstraints(1, 0));
         optionsPanel.add(this.restartLabel, this.createOptionLabelConstraints(1, 1));
         
+        optionsPanel.add(this.saveCheckpointButton, this.createOptionButtonConstraints(2, 0));
+        optionsPanel.add(this.saveCheckpointLabel, this.createOptionLabelConstraints(2, 1));
+        
         constraints            = new GridBagConstraints();
         constraints.gridx      = 0;
         constraints.gridy      = 2;
@@ -193,17 +295,41 @@ public class SimulationSection extends JPanel {
         optionsPanel.add(this.wallModeButton, this.createOptionButtonConstraints(2, 4));
         optionsPanel.add(this.wallModeLabel, this.createOptionLabelConstraints(2, 5));
         
+        constraints           = new GridBagConstraints();
+        constraints.gridx     = 0;
+        constraints.gridy     = 6;
+        constraints.gridwidth = 3;
+        constraints.anchor    = GridBagConstraints.WEST;
+        constraints.insets    = new Insets(20, 5, 0, 5);
+        
+        optionsPanel.add(this.statisticsCheckBox, constraints);
+        
+        constraints           = new GridBagConstraints();
+        constraints.gridx     = 0;
+        constraints.gridy     = 7;
+        constraints.gridwidth = 3;
+        constraints.anchor    = GridBagConstraints.WEST;
+        constraints.insets    = new Insets(0, 5, 0, 5);
+        optionsPanel.add(this.projectionCheckBox, constraints);
+        
+        constraints           = new GridBagConstraints();
+        constraints.gridx     = 0;
+        constraints.gridy     = 8;
+        constraints.gridwidth = 3;
+        constraints.insets    = new Insets(5, 5, 0, 5);
+        optionsPanel.add(this.projectionChart, constraints);
+        
         constraints            = new GridBagConstraints();
         constraints.gridx      = 3;
         constraints.gridy      = 0;
-        constraints.gridheight = 8;
+        constraints.gridheight = 10;
         constraints.fill       = GridBagConstraints.VERTICAL;
         optionsPanel.add(verticalSeparator, constraints);
         
         
         constraints            = new GridBagConstraints();
         constraints.gridx      = 0;
-        constraints.gridy      = 7;
+        constraints.gridy      = 9;
         constraints.weighty    = 1;
         optionsPanel.add(new JLabel(), constraints);
         
@@ -244,9 +370,19 @@ public class SimulationSection extends JPanel {
      * @return the button
      */
     private JButton createOptionButton(String buttonText, Image buttonImage) {
+        return this.createOptionButton(buttonText, new ImageIcon(buttonImage));
+    }
+    
+    /**
+     * Creates a button of the options panel.
+     * @param buttonText the text of the action of the button
+     * @param buttonIcon the icon to display in the button
+     * @return the button
+     */
+    private JButton createOptionButton(String buttonText, Icon buttonIcon) {
         JButton optionButton;
   
-        optionButton = new JButton(new ImageIcon(buttonImage));
+        optionButton = new JButton(buttonIcon);
         
         optionButton.setPreferredSize(new Dimension(60, 60));
         optionButton.setMinimumSize(new Dimension(60, 60));
@@ -370,10 +506,12 @@ public class SimulationSection extends JPanel {
                 }
                 
                 //Remove the simulation component
+                thisPanel.cancelProjection();
+                thisPanel.environmentRepresentation.disposeEnvironment();
                 thisPanel.remove(thisPanel.environmentRepresentation);
                 
                 //Create a new simulation component and add into the container
-                thisPanel.environmentRepresentation = thisPanel.createEnvironmentRepresentation(thisPanel.configuration);
+                thisPanel.environmentRepresentation = thisPanel.createEnvironmentRepresentation(new ZombieEpidemicEnvironment(thisPanel.configuration));
                 
                 thisPanel.add(thisPanel.environmentRepresentation, BorderLayout.CENTER);
                 
@@ -389,6 +527,42 @@ public class SimulationSection extends JPanel {
         };
     }
     
+    /**
+     * Creates the listener of the button for saving a checkpoint of the simulation.
+     * @return the listener
+     */
+    private ActionListener createSaveCheckpointActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JFileChooser fileChooser;
+                File selectedFile;
+                
+                //Create a file chooser for saving a checkpoint file and shows it
+                fileChooser = new JFileChooser();
+                
+                fileChooser.setAcceptAllFileFilterUsed(false);
+                fileChooser.setFileFilter(new FileNameExtensionFilter("Punt de control", ZombieEpidemicEnvironment.CHECKPOINT_FILE_EXTENSION));
+                
+                if(fileChooser.showSaveDialog(SimulationSection.this) == JFileChooser.APPROVE_OPTION) {
+                    selectedFile = fileChooser.getSelectedFile();
+                    
+                    //Force the file to has the checkpoint extension
+                    if(!selectedFile.getName().endsWith("." + ZombieEpidemicEnvironment.CHECKPOINT_FILE_EXTENSION)) {
+                        selectedFile = new File(selectedFile.getAbsolutePath() + "." + ZombieEpidemicEnvironment.CHECKPOINT_FILE_EXTENSION);
+                    }
+                    
+                    try {
+                        environmentRepresentation.saveCheckpoint(selectedFile);
+                    }
+                    catch (IOException ex) {
+                        JOptionPane.showMessageDialog(SimulationSection.this, "No s'ha pogut desar el punt de control:\n" + ex.getMessage(), "ERROR", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        };
+    }
+    
     /**
      * Creates the listener of the button for buy and use vaccines.
      * @return the listener
@@ -403,8 +577,9 @@ public class SimulationSection extends JPanel {
                 bought = SimulationSection.this.environmentRepresentation.buyAndUseVaccinationKit();
                 
                 if(bought) {
-                    //Update the options panel
+                    //Update the options panel and the projection of the next purchase
                     SimulationSection.this.updateResourcesInformation();
+                    SimulationSection.this.requestProjection(VACCINATION_INTERVENTION);
                 }
             }
         };
@@ -424,8 +599,9 @@ public class SimulationSection extends JPanel {
                 bought = SimulationSection.this.environmentRepresentation.buyAndUseWeaponKit();
                 
                 if(bought) {
-                    //Update the options panel
+                    //Update the options panel and the projection of the next purchase
                     SimulationSection.this.updateResourcesInformation();
+                    SimulationSection.this.requestProjection(WEAPON_INTERVENTION);
                 }
             }
         };
@@ -454,6 +630,8 @@ public class SimulationSection extends JPanel {
                 }
                 else {
                     //Exit the wall construction mode
+                    SimulationSection.this.cancelProjection();
+                    
                     buttonImage = ImagesDirectory.WALL_IMAGE;
                     labelText   = "Entrar mode construcció (-" + wallUnitCost +  "€/metre)";
                 }
@@ -466,6 +644,158 @@ public class SimulationSection extends JPanel {
         };
     }
     
+    /**
+     * Creates the listener of the check box for showing and hiding the statistics of the simulation.
+     * @return the listener
+     */
+    private ActionListener createStatisticsActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                environmentRepresentation.setStatisticsOverlayVisible(statisticsCheckBox.isSelected());
+            }
+        };
+    }
+    
+    /**
+     * Creates the listener that throttles the execution of the simulation when the
+     * section is hidden (another tab is selected) and restores it when it's shown.
+     * @return the listener
+     */
+    private ComponentListener createVisibilityComponentListener() {
+        return new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                environmentRepresentation.setExecutionThrottled(false);
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                environmentRepresentation.setExecutionThrottled(true);
+            }
+        };
+    }
+    
+    /**
+     * Creates the listener of the check box for activating and deactivating the
+     * projection of the purchases.
+     * @return the listener
+     */
+    private ActionListener createProjectionActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                SimulationSection.this.cancelProjection();
+                SimulationSection.this.projectionChart.setVisible(projectionCheckBox.isSelected());
+            }
+        };
+    }
+    
+    /**
+     * Creates the listener of the timer that starts the projections.
+     * @return the listener
+     */
+    private ActionListener createStartProjectionActionListener() {
+        return new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                environmentRepresentation.project(projector, pendingIntervention, new ZombieEpidemicProjector.Listener() {
+                    @Override
+                    public void projectionCompleted(final ZombieEpidemicProjection projection) {
+                        //Show the result in the event dispatch thread
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                if(projectionCheckBox.isSelected()) {
+                                    projectionChart.showProjection(projection);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        };
+    }
+    
+    /**
+     * Creates the mouse listener of a purchase button that projects the purchase
+     * while the mouse is over the button.
+     * @param intervention the purchase of the button
+     * @return the listener
+     */
+    private MouseListener createProjectionMouseListener(final ZombieEpidemicProjector.Intervention intervention) {
+        return new MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                if(((JButton)e.getSource()).isEnabled()) {
+                    SimulationSection.this.requestProjection(intervention);
+                }
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                SimulationSection.this.cancelProjection();
+            }
+        };
+    }
+    
+    /**
+     * Creates the mouse motion listener of the environment component that projects
+     * the wall that the user is sketching in the wall construction mode.
+     * @return the listener
+     */
+    private MouseMotionListener createSketchWallMouseMotionListener() {
+        return new MouseMotionAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                final Point2D wallStart, wallEnd;
+                
+                if(inWallConstructionMode && lastEnvironmentPoint != null) {
+                    wallStart = (Point2D)lastEnvironmentPoint.clone();
+                    wallEnd   = environmentRepresentation.getEnvironmentPoint(e.getPoint());
+                    
+                    if(wallEnd != null) {
+                        SimulationSection.this.requestProjection(new ZombieEpidemicProjector.Intervention() {
+                            @Override
+                            public void apply(ZombieEpidemicEnvironment environment) {
+                                environment.buyAndBuildWall(wallStart, wallEnd, true);
+                            }
+                        });
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Requests a projection of a purchase if the projection mode is active. The
+     * previous projection is cancelled and the new one starts after a short delay,
+     * so only the last purchase considered by the user is projected.
+     * @param intervention the purchase
+     */
+    private void requestProjection(ZombieEpidemicProjector.Intervention intervention) {
+        if(this.projectionCheckBox.isSelected()) {
+            this.projector.cancel();
+            
+            this.pendingIntervention = intervention;
+            
+            this.projectionChart.showMessage(PROJECTION_CALCULATING_MESSAGE);
+            this.projectionTimer.restart();
+        }
+    }
+    
+    /**
+     * Cancels the current projection (if any).
+     */
+    private void cancelProjection() {
+        this.projectionTimer.stop();
+        this.projector.cancel();
+        
+        this.pendingIntervention = null;
+        
+        this.projectionChart.showMessage(PROJECTION_HINT_MESSAGE);
+    }
+    
     /**
      * Update the resources options.
      */
@@ -506,17 +836,20 @@ public class SimulationSection extends JPanel {
     
     /**
      * Creates a simulation component
-     * @param config the configuration object of the simulation
+     * @param simulation the environment of the simulation
      * @return the component
      */
-    private InteractiveZombieEpidemicEnvironmentRepresentation createEnvironmentRepresentation(SimulationConfiguration config) {
+    private InteractiveZombieEpidemicEnvironmentRepresentation createEnvironmentRepresentation(ZombieEpidemicEnvironment simulation) {
         InteractiveZombieEpidemicEnvironmentRepresentation environment;
         
-        environment = new InteractiveZombieEpidemicEnvironmentRepresentation(config);
+        environment = new InteractiveZombieEpidemicEnvironmentRepresentation(simulation);
         
         environment.setMantainAspectRatio(true);
         environment.setMantainAspectRatioAnchor(Anchor.Center);
+        environment.setStatisticsOverlayVisible(this.statisticsCheckBox.isSelected());
+        environment.setExecutionThrottled(!this.isVisible());
         environment.addMouseListener(this.createClickEnvironmentMouseListener());
+        environment.addMouseMotionListener(this.createSketchWallMouseMotionListener());
         environment.addRunEnvironmentEventsHandler(new RunEnvironmentEventsHandler() {
             @Override
             public void whenFinalStateAchieved() {
@@ -561,6 +894,8 @@ public class SimulationSection extends JPanel {
                         case MouseEvent.BUTTON3:
                             //Remove the last environment point
                             lastEnvironmentPoint = null;
+                            
+                            SimulationSection.this.cancelProjection();
                     }
                 }
             }
@@ -0,0 +1,188 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Main;
+
+import Sweep.GoalSeek;
+import Sweep.ResultCache;
+import Sweep.SweepDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Execution of a search of the minimum value of a parameter that contains the
+ * outbreak, without graphical interface.
+ * <p>
+ * Options:
+ * <ul>
+ *   <li><code>--goal-seek file</code>: definition of the search: a sweep definition
+ *   (see <code>SweepDefinition</code>) with one parameter, whose grid values are 
+ *   the candidates, and the maximum number of replicas of each value</li>
+ *   <li><code>--target probability</code>: target probability of containing the 
+ *   outbreak (0.9 by default)</li>
+ *   <li><code>--confidence value</code>: confidence of the decisions (0.95 by default)</li>
+ *   <li><code>--cache directory</code>: cache of outcomes shared between executions</li>
+ * </ul>
+ * @author Xavier
+ */
+public class GoalSeekExecution {
+    //Constants
+    /**
+     * Option that activates the execution of a search.
+     */
+    public final static String GOAL_SEEK_OPTION = "--goal-seek";
+    
+    /**
+     * Default target probability and confidence.
+     */
+    private final static double DEFAULT_TARGET = 0.9, DEFAULT_CONFIDENCE = 0.95;
+    
+    //Attributes
+    /**
+     * Definition file of the search.
+     */
+    private File definitionFile;
+    
+    /**
+     * Target probability of containing the outbreak.
+     */
+    private double target;
+    
+    /**
+     * Confidence of the decisions.
+     */
+    private double confidence;
+    
+    /**
+     * Directory of the cache of outcomes (<code>null</code> to not use a cache).
+     */
+    private File cacheDirectory;
+    
+    /**
+     * Stream where the progress of the search is written.
+     */
+    private final PrintStream out;
+    
+    //Public Constructors
+    /**
+     * Creates a search execution from the command line arguments.
+     * @param args the command line arguments
+     * @param out the stream where the progress of the search is written
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    public GoalSeekExecution(String[] args, PrintStream out) {
+        this.out        = out;
+        this.target     = DEFAULT_TARGET;
+        this.confidence = DEFAULT_CONFIDENCE;
+        
+        this.parseArguments(args);
+    }
+    
+    //Public Methods
+    /**
+     * Executes the search.
+     * @throws IOException if a file can't be read or written
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        final SweepDefinition definition;
+        final ResultCache cache;
+        final GoalSeek goalSeek;
+        final double minimumValue;
+        
+        definition   = SweepDefinition.load(this.definitionFile);
+        cache        = (this.cacheDirectory != null) ? new ResultCache(this.cacheDirectory) : null;
+        goalSeek     = new GoalSeek(definition, this.target, this.confidence, cache);
+        minimumValue = goalSeek.run(this.out);
+        
+        if(Double.isNaN(minimumValue)) {
+            this.out.println("Cap valor de " + definition.getParameters().get(0).getPath() + " assoleix l'objectiu.");
+        }
+        else {
+            this.out.println("Valor mínim de " + definition.getParameters().get(0).getPath() + ": " 
+                             + GoalSeek.formatValue(minimumValue, definition.isIntegerParameter(0)));
+        }
+        
+        this.out.println("Execucions: " + goalSeek.getExecutions());
+    }
+    
+    //Private Methods
+    /**
+     * Reads the command line arguments.
+     * @param args the arguments
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    private void parseArguments(String[] args) {
+        String option;
+        
+        for(int i = 0; i < args.length; i++) {
+            option = args[i];
+            
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de l'opció " + option + ".");
+            }
+            
+            i++;
+            
+            try {
+                switch(option) {
+                    case GOAL_SEEK_OPTION:
+                        this.definitionFile = new File(args[i]);
+                        break;
+                    case "--target":
+                        this.target = Double.parseDouble(args[i]);
+                        break;
+                    case "--confidence":
+                        this.confidence = Double.parseDouble(args[i]);
+                        break;
+                    case "--cache":
+                        this.cacheDirectory = new File(args[i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opció desconeguda: " + option + ".");
+                }
+            }
+            catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("El valor de l'opció " + option + " ha de ser un nombre: " + args[i] + ".");
+            }
+        }
+        
+        if(this.definitionFile == null) {
+            throw new IllegalArgumentException("Cal indicar " + GOAL_SEEK_OPTION + ".");
+        }
+    }
+    
+    //Public Static Methods
+    /**
+     * Returns a boolean value indicating if the command line arguments request 
+     * the execution of a search.
+     * @param args the command line arguments
+     * @return <code>true</code> if a search has to be executed
+     */
+    public static boolean isGoalSeek(String[] args) {
+        boolean goalSeek;
+        
+        goalSeek = false;
+        
+        for(String arg: args) {
+            goalSeek |= arg.equals(GOAL_SEEK_OPTION);
+        }
+        
+        return goalSeek;
+    }
+}
@@ -0,0 +1,419 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Main;
+
+import Environment.ZombieEpidemicEnvironment;
+import Replay.ReplayRecorder;
+import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import SimulationConfigurationFileAdapter.XMLFileError;
+import TimeSeries.DensityCubeExporter;
+import TimeSeries.TimeSeriesCsvExporter;
+import TimeSeries.TimeSeriesRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Execution of a simulation without graphical interface. The simulation can be
+ * started from a configuration file or resumed from a checkpoint file, and 
+ * checkpoints can be written periodically and at the end of the execution. The
+ * phases executed can also be recorded in a replay file, their metrics in a
+ * time series file and the counts of agents of each cell in a density cube file.
+ * <p>
+ * Options:
+ * <ul>
+ *   <li><code>--config file</code>: configuration file of a new simulation</li>
+ *   <li><code>--seed n</code>: seed of the random numbers generator of a new simulation</li>
+ *   <li><code>--phases n</code>: maximum phase to execute (by default until the final state)</li>
+ *   <li><code>--checkpoint file</code>: file where the checkpoints are written</li>
+ *   <li><code>--checkpoint-every n</code>: number of phases between checkpoints</li>
+ *   <li><code>--resume file</code>: checkpoint file of the simulation to resume</li>
+ *   <li><code>--record file</code>: replay file where the phases are recorded</li>
+ *   <li><code>--keyframe-every n</code>: number of phases between keyframes of the replay</li>
+ *   <li><code>--timeseries file</code>: time series file where the metrics of the phases are recorded</li>
+ *   <li><code>--timeseries-csv file</code>: CSV file where the time series is exported at the end</li>
+ *   <li><code>--density-cube file</code>: density cube file where the counts of each cell are exported</li>
+ *   <li><code>--density-cube-every n</code>: number of phases between frames of the density cube (the last phase is always exported)</li>
+ * </ul>
+ * @author Xavier
+ */
+public class HeadlessSimulation {
+    //Constants
+    /**
+     * Option that activates the execution without graphical interface.
+     */
+    public final static String HEADLESS_OPTION = "--headless";
+    
+    /**
+     * Default number of phases between frames of the density cube.
+     */
+    private final static int DEFAULT_DENSITY_CUBE_PERIOD = 10;
+    
+    //Attributes
+    /**
+     * Configuration file of a new simulation.
+     */
+    private File configurationFile;
+    
+    /**
+     * Seed of the random numbers generator of a new simulation (<code>null</code> for a random seed).
+     */
+    private Long seed;
+    
+    /**
+     * Maximum phase to execute (negative to execute until the final state).
+     */
+    private int maxPhase;
+    
+    /**
+     * File where the checkpoints are written (<code>null</code> if no checkpoints are written).
+     */
+    private File checkpointFile;
+    
+    /**
+     * Number of phases between checkpoints (0 to write only the final checkpoint).
+     */
+    private int checkpointPeriod;
+    
+    /**
+     * Checkpoint file of the simulation to resume (<code>null</code> for a new simulation).
+     */
+    private File resumeFile;
+    
+    /**
+     * Replay file where the phases are recorded (<code>null</code> if they aren't recorded).
+     */
+    private File recordFile;
+    
+    /**
+     * Number of phases between keyframes of the replay.
+     */
+    private int keyframePeriod;
+    
+    /**
+     * Time series file where the metrics of the phases are recorded (<code>null</code>
+     * if they aren't recorded).
+     */
+    private File timeSeriesFile;
+    
+    /**
+     * CSV file where the time series is exported at the end of the execution 
+     * (<code>null</code> if it isn't exported).
+     */
+    private File timeSeriesCsvFile;
+    
+    /**
+     * Density cube file where the counts of agents of each cell are exported 
+     * (<code>null</code> if they aren't exported).
+     */
+    private File densityCubeFile;
+    
+    /**
+     * Number of phases between frames of the density cube.
+     */
+    private int densityCubePeriod;
+    
+    /**
+     * Stream where the progress of the simulation is written.
+     */
+    private final PrintStream out;
+    
+    //Public Constructors
+    /**
+     * Creates a headless simulation from the command line arguments.
+     * @param args the command line arguments
+     * @param out the stream where the progress of the simulation is written
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    public HeadlessSimulation(String[] args, PrintStream out) {
+        this.maxPhase          = -1;
+        this.checkpointPeriod  = 0;
+        this.keyframePeriod    = ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL;
+        this.densityCubePeriod = DEFAULT_DENSITY_CUBE_PERIOD;
+        this.out               = out;
+        
+        this.parseArguments(args);
+    }
+    
+    //Public Methods
+    /**
+     * Executes the simulation.
+     * @throws IOException if a configuration or checkpoint file can't be read or written
+     */
+    public void run() throws IOException {
+        final ZombieEpidemicEnvironment environment;
+        
+        environment = this.createEnvironment();
+        
+        try {
+            try(ReplayRecorder recorder = this.createReplayRecorder(environment);
+                TimeSeriesRecorder timeSeriesRecorder = this.createTimeSeriesRecorder();
+                DensityCubeExporter densityCubeExporter = this.createDensityCubeExporter(environment)) {
+                
+                this.recordPhase(environment, recorder, timeSeriesRecorder, densityCubeExporter);
+                this.out.println("Inici: " + this.describe(environment));
+                
+                while(!environment.finalStateAchieved() && (this.maxPhase < 0 || environment.getPhase() < this.maxPhase)) {
+                    environment.runOnePhase();
+                    
+                    this.recordPhase(environment, recorder, timeSeriesRecorder, densityCubeExporter);
+                    
+                    if(this.checkpointFile != null && this.checkpointPeriod > 0 && 
+                       environment.getPhase() % this.checkpointPeriod == 0) {
+                        environment.saveCheckpoint(this.checkpointFile);
+                    }
+                }
+                
+                if(this.checkpointFile != null) {
+                    environment.saveCheckpoint(this.checkpointFile);
+                }
+                
+                if(densityCubeExporter != null) {
+                    densityCubeExporter.recordLastPhase(environment);
+                }
+                
+                this.out.println("Final: " + this.describe(environment));
+            }
+            
+            if(this.timeSeriesCsvFile != null) {
+                TimeSeriesCsvExporter.export(this.timeSeriesFile, this.timeSeriesCsvFile);
+            }
+        }
+        finally {
+            environment.dispose();
+        }
+    }
+    
+    //Private Methods
+    /**
+     * Reads the command line arguments.
+     * @param args the arguments
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    private void parseArguments(String[] args) {
+        String option;
+        
+        for(int i = 0; i < args.length; i++) {
+            option = args[i];
+            
+            if(option.equals(HEADLESS_OPTION)) {
+                continue;
+            }
+            
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de l'opció " + option + ".");
+            }
+            
+            i++;
+            
+            switch(option) {
+                case "--config":
+                    this.configurationFile = new File(args[i]);
+                    break;
+                case "--seed":
+                    this.seed = parseLong(option, args[i]);
+                    break;
+                case "--phases":
+                    this.maxPhase = (int)parseLong(option, args[i]);
+                    break;
+                case "--checkpoint":
+                    this.checkpointFile = new File(args[i]);
+                    break;
+                case "--checkpoint-every":
+                    this.checkpointPeriod = (int)parseLong(option, args[i]);
+                    break;
+                case "--resume":
+                    this.resumeFile = new File(args[i]);
+                    break;
+                case "--record":
+                    this.recordFile = new File(args[i]);
+                    break;
+                case "--keyframe-every":
+                    this.keyframePeriod = (int)parseLong(option, args[i]);
+                    break;
+                case "--timeseries":
+                    this.timeSeriesFile = new File(args[i]);
+                    break;
+                case "--timeseries-csv":
+                    this.timeSeriesCsvFile = new File(args[i]);
+                    break;
+                case "--density-cube":
+                    this.densityCubeFile = new File(args[i]);
+                    break;
+                case "--density-cube-every":
+                    this.densityCubePeriod = (int)parseLong(option, args[i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opció desconeguda: " + option + ".");
+            }
+        }
+        
+        if((this.configurationFile == null) == (this.resumeFile == null)) {
+            throw new IllegalArgumentException("Cal indicar o bé --config o bé --resume.");
+        }
+        else if(this.checkpointPeriod < 0) {
+            throw new IllegalArgumentException("El nombre de fases entre punts de control no pot ser negatiu.");
+        }
+        else if(this.keyframePeriod <= 0) {
+            throw new IllegalArgumentException("El nombre de fases entre fotogrames clau ha de ser positiu.");
+        }
+        else if(this.timeSeriesCsvFile != null && this.timeSeriesFile == null) {
+            throw new IllegalArgumentException("Cal indicar --timeseries per exportar la sèrie temporal a CSV.");
+        }
+        else if(this.densityCubePeriod <= 0) {
+            throw new IllegalArgumentException("El nombre de fases entre fotogrames del cub de densitat ha de ser positiu.");
+        }
+    }
+    
+    /**
+     * Creates the environment of the simulation, reading the configuration file
+     * or the checkpoint file.
+     * @return the environment
+     * @throws IOException if the file can't be read
+     */
+    private ZombieEpidemicEnvironment createEnvironment() throws IOException {
+        final ZombieEpidemicEnvironment environment;
+        SimulationConfiguration configuration;
+        
+        if(this.resumeFile != null) {
+            environment = ZombieEpidemicEnvironment.loadCheckpoint(this.resumeFile);
+        }
+        else {
+            try {
+                configuration = new SimulationConfigurationFileAdapter().read(this.configurationFile);
+            }
+            catch (JAXBException | XMLFileError ex) {
+                throw new IOException("El fitxer XML no té el format correcte.", ex);
+            }
+            
+            configuration = new SimulationConfiguration(configuration);
+            
+            if(this.seed != null) {
+                environment = new ZombieEpidemicEnvironment(configuration, this.seed);
+            }
+            else {
+                environment = new ZombieEpidemicEnvironment(configuration);
+            }
+        }
+        
+        return environment;
+    }
+    
+    /**
+     * Creates the recorder of the replay file, if it has been requested.
+     * @param environment the environment of the simulation
+     * @return the recorder (<code>null</code> if the phases aren't recorded)
+     * @throws IOException if the file can't be created
+     */
+    private ReplayRecorder createReplayRecorder(ZombieEpidemicEnvironment environment) throws IOException {
+        return this.recordFile == null ? null : new ReplayRecorder(this.recordFile, environment.getConfiguration(), this.keyframePeriod);
+    }
+    
+    /**
+     * Creates the recorder of the time series file, if it has been requested.
+     * @return the recorder (<code>null</code> if the metrics aren't recorded)
+     * @throws IOException if the file can't be created
+     */
+    private TimeSeriesRecorder createTimeSeriesRecorder() throws IOException {
+        return this.timeSeriesFile == null ? null : new TimeSeriesRecorder(this.timeSeriesFile, 0);
+    }
+    
+    /**
+     * Creates the exporter of the density cube file, if it has been requested.
+     * @param environment the environment of the simulation
+     * @return the exporter (<code>null</code> if the counts aren't exported)
+     * @throws IOException if the file can't be created
+     */
+    private DensityCubeExporter createDensityCubeExporter(ZombieEpidemicEnvironment environment) throws IOException {
+        return this.densityCubeFile == null ? null : new DensityCubeExporter(this.densityCubeFile, environment.getConfiguration().getEnvironment(), 
+                                                                             this.densityCubePeriod);
+    }
+    
+    /**
+     * Records the last phase executed in the replay, time series and density cube files.
+     * @param environment the environment of the simulation
+     * @param recorder the recorder of the replay (<code>null</code> if there isn't any)
+     * @param timeSeriesRecorder the recorder of the time series (<code>null</code> if there isn't any)
+     * @param densityCubeExporter the exporter of the density cube (<code>null</code> if there isn't any)
+     * @throws IOException if an I/O error occurs
+     */
+    private void recordPhase(ZombieEpidemicEnvironment environment, ReplayRecorder recorder, 
+                             TimeSeriesRecorder timeSeriesRecorder, DensityCubeExporter densityCubeExporter) throws IOException {
+        if(recorder != null) {
+            recorder.recordPhase(environment);
+        }
+        
+        if(timeSeriesRecorder != null) {
+            timeSeriesRecorder.recordPhase(environment);
+        }
+        
+        if(densityCubeExporter != null) {
+            densityCubeExporter.recordPhase(environment);
+        }
+    }
+    
+    /**
+     * Returns a description of the state of the simulation.
+     * @param environment the environment
+     * @return the description
+     */
+    private String describe(ZombieEpidemicEnvironment environment) {
+        return "fase " + environment.getPhase() + 
+               ", sans " + environment.getHealthyCount() + 
+               ", infectats " + environment.getInfectedCount() + 
+               ", zombis " + environment.getZombifiedCount();
+    }
+    
+    //Public Static Methods
+    /**
+     * Returns a boolean value indicating if the command line arguments request 
+     * an execution without graphical interface.
+     * @param args the command line arguments
+     * @return <code>true</code> if the execution is headless
+     */
+    public static boolean isHeadless(String[] args) {
+        boolean headless;
+        
+        headless = false;
+        
+        for(String arg: args) {
+            headless |= arg.equals(HEADLESS_OPTION);
+        }
+        
+        return headless;
+    }
+    
+    //Private Static Methods
+    /**
+     * Converts the value of an option to a number.
+     * @param option the option
+     * @param value the value
+     * @return the number
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El valor de l'opció " + option + " ha de ser un nombre: " + value + ".");
+        }
+    }
+}
@@ -30,22 +30,54 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         MainWindow window;
-   
-        //Set the look and feel of the aplication as the operating system look and feel.
-        UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         
-        //Show a JOptionPane with the message of all uncaught exceptions.
-        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
-            @Override
-            public void uncaughtException(Thread t, Throwable e) {
-                JOptionPane.showMessageDialog(null, getUncaughtExceptionMessage(e), "ERROR", JOptionPane.ERROR_MESSAGE);
+        if(HeadlessSimulation.isHeadless(args)) {
+            //Execute the simulation without graphical interface
+            try {
+                new HeadlessSimulation(args, System.out).run();
             }
-        });
-        
-        //Create a new application window and make it visible
-        window = new MainWindow();
-        
-        window.setVisible(true);
+            catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.exit(1);
+            }
+        }
+        else if(SweepExecution.isSweep(args)) {
+            //Execute a parameter sweep without graphical interface
+            try {
+                new SweepExecution(args, System.out).run();
+            }
+            catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.exit(1);
+            }
+        }
+        else if(GoalSeekExecution.isGoalSeek(args)) {
+            //Execute a search of the minimum value of a parameter without graphical interface
+            try {
+                new GoalSeekExecution(args, System.out).run();
+            }
+            catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.exit(1);
+            }
+        }
+        else {
+            //Set the look and feel of the aplication as the operating system look and feel.
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+
+            //Show a JOptionPane with the message of all uncaught exceptions.
+            Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    JOptionPane.showMessageDialog(null, getUncaughtExceptionMessage(e), "ERROR", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+
+            //Create a new application window and make it visible
+            window = new MainWindow();
+
+            window.setVisible(true);
+        }
     }
     
     /**
@@ -0,0 +1,150 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Main;
+
+import Sweep.ParameterSweep;
+import Sweep.ResultCache;
+import Sweep.SweepDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Execution of a parameter sweep without graphical interface.
+ * <p>
+ * Options:
+ * <ul>
+ *   <li><code>--sweep file</code>: definition of the sweep (see <code>SweepDefinition</code>)</li>
+ *   <li><code>--results file</code>: CSV results table (if it exists, the sweep is resumed)</li>
+ *   <li><code>--cache directory</code>: cache of outcomes shared between sweeps
+ *   (the executions stored in it aren't simulated again)</li>
+ * </ul>
+ * @author Xavier
+ */
+public class SweepExecution {
+    //Constants
+    /**
+     * Option that activates the execution of a sweep.
+     */
+    public final static String SWEEP_OPTION = "--sweep";
+    
+    //Attributes
+    /**
+     * Definition file of the sweep.
+     */
+    private File definitionFile;
+    
+    /**
+     * Results table of the sweep.
+     */
+    private File resultsFile;
+    
+    /**
+     * Directory of the cache of outcomes (<code>null</code> to not use a cache).
+     */
+    private File cacheDirectory;
+    
+    /**
+     * Stream where the progress of the sweep is written.
+     */
+    private final PrintStream out;
+    
+    //Public Constructors
+    /**
+     * Creates a sweep execution from the command line arguments.
+     * @param args the command line arguments
+     * @param out the stream where the progress of the sweep is written
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    public SweepExecution(String[] args, PrintStream out) {
+        this.out = out;
+        
+        this.parseArguments(args);
+    }
+    
+    //Public Methods
+    /**
+     * Executes the sweep.
+     * @throws IOException if a file can't be read or written
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        final ResultCache cache;
+        
+        cache = (this.cacheDirectory != null) ? new ResultCache(this.cacheDirectory) : null;
+        
+        new ParameterSweep(SweepDefinition.load(this.definitionFile), this.resultsFile, cache).run(this.out);
+    }
+    
+    //Private Methods
+    /**
+     * Reads the command line arguments.
+     * @param args the arguments
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    private void parseArguments(String[] args) {
+        String option;
+        
+        for(int i = 0; i < args.length; i++) {
+            option = args[i];
+            
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de l'opció " + option + ".");
+            }
+            
+            i++;
+            
+            switch(option) {
+                case SWEEP_OPTION:
+                    this.definitionFile = new File(args[i]);
+                    break;
+                case "--results":
+                    this.resultsFile = new File(args[i]);
+                    break;
+                case "--cache":
+                    this.cacheDirectory = new File(args[i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opció desconeguda: " + option + ".");
+            }
+        }
+        
+        if(this.definitionFile == null || this.resultsFile == null) {
+            throw new IllegalArgumentException("Cal indicar --sweep i --results.");
+        }
+    }
+    
+    //Public Static Methods
+    /**
+     * Returns a boolean value indicating if the command line arguments request 
+     * the execution of a sweep.
+     * @param args the command line arguments
+     * @return <code>true</code> if a sweep has to be executed
+     */
+    public static boolean isSweep(String[] args) {
+        boolean sweep;
+        
+        sweep = false;
+        
+        for(String arg: args) {
+            sweep |= arg.equals(SWEEP_OPTION);
+        }
+        
+        return sweep;
+    }
+}
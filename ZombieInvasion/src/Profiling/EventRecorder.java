@@ -0,0 +1,88 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+/**
+ * Emitter of the simulation events. Its implementation with the flight recorder
+ * (<code>FlightRecorderEvents</code>) is in the source folder <code>src-jfr</code>, 
+ * which is only compiled when the JDK contains the <code>jdk.jfr</code> API, and
+ * it is loaded by name, so the rest of the application doesn't depend on it.
+ * @author Xavier
+ */
+interface EventRecorder {
+    /**
+     * Starts a phase event.
+     * @param phase the number of the phase
+     * @return the event (<code>null</code> if the event isn't enabled)
+     */
+    Object beginPhase(int phase);
+    
+    /**
+     * Ends and commits a phase event.
+     * @param phaseEvent the event returned by <code>beginPhase</code>
+     * @param agents the number of agents updated in the phase
+     * @param healthyCount the number of healthy humans at the end of the phase
+     * @param infectedCount the number of infected humans at the end of the phase
+     * @param zombifiedCount the number of zombies at the end of the phase
+     */
+    void endPhase(Object phaseEvent, int agents, int healthyCount, int infectedCount, int zombifiedCount);
+    
+    /**
+     * Starts an update stage event.
+     * @param phase the number of the phase
+     * @param stage the name of the stage
+     * @return the event (<code>null</code> if the event isn't enabled)
+     */
+    Object beginUpdateStage(int phase, String stage);
+    
+    /**
+     * Ends and commits an update stage event.
+     * @param updateStageEvent the event returned by <code>beginUpdateStage</code>
+     * @param agents the number of agents processed in the stage
+     * @param cellsVisited the number of cells visited in the stage
+     */
+    void endUpdateStage(Object updateStageEvent, int agents, int cellsVisited);
+    
+    /**
+     * Commits a wall destruction event.
+     * @param phase the number of the phase
+     * @param row the row of the cell where the wall has been destroyed
+     * @param column the column of the cell where the wall has been destroyed
+     * @param destroyedLength the length of the destroyed part
+     * @param walls the number of walls after the destruction
+     */
+    void wallDestroyed(int phase, int row, int column, double destroyedLength, int walls);
+    
+    /**
+     * Commits a zombification event.
+     * @param phase the number of the phase
+     * @param zombified the number of humans transformed into zombies
+     * @param infected the number of humans that remain infected
+     */
+    void zombificationBatch(int phase, int zombified, int infected);
+    
+    /**
+     * Commits a purchase event.
+     * @param phase the number of the phase
+     * @param resource the name of the resource bought
+     * @param units the number of units bought
+     * @param cost the total cost of the units
+     * @param resourcesAvailable the resources available after the purchase
+     */
+    void purchase(int phase, String resource, int units, int cost, int resourcesAvailable);
+}
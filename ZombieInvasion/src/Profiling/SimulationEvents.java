@@ -0,0 +1,159 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Profiling;
+
+/**
+ * Entry point of the profiling events of the simulation. The events are emitted 
+ * through the Java Flight Recorder, so the stages of the simulation can be compared 
+ * with the garbage collector and compiler activity. They are enabled with the 
+ * settings profile <code>ZombieInvasion.jfc</code> of this package, for example:
+ * <pre>
+ * java -XX:StartFlightRecording=settings=ZombieInvasion.jfc,filename=simulation.jfr -jar ZombieInvasion.jar
+ * </pre>
+ * If the flight recorder isn't available in the virtual machine (or the application
+ * was built with a JDK without it) or the events aren't enabled in the current 
+ * recording, the functions of this class don't do anything and the <code>begin</code> 
+ * functions return <code>null</code>.
+ * @author Xavier
+ */
+public final class SimulationEvents {
+    //Constants
+    public final static String AGENTS_UPDATE_STAGE     = "Agents update",
+                               CONFLICTS_STAGE         = "Conflicts resolution",
+                               ZOMBIFICATION_STAGE     = "Zombification",
+                               WALLS_DESTRUCTION_STAGE = "Walls destruction",
+                               SHOTS_STAGE             = "Shots processing";
+    
+    /**
+     * Name of the class that emits the events through the flight recorder.
+     */
+    private final static String FLIGHT_RECORDER_EVENTS_CLASS = "Profiling.FlightRecorderEvents";
+    
+    /**
+     * Emitter of the events (<code>null</code> if the flight recorder can't be used).
+     */
+    private final static EventRecorder RECORDER = createRecorder();
+    
+    //Private Constructors
+    private SimulationEvents() {}
+    
+    //Public Static Methods
+    /**
+     * Starts the event of a phase.
+     * @param phase the number of the phase
+     * @return the event (<code>null</code> if it isn't recorded)
+     */
+    public static Object beginPhase(int phase) {
+        return RECORDER != null ? RECORDER.beginPhase(phase) : null;
+    }
+    
+    /**
+     * Ends the event of a phase.
+     * @param event the event returned by <code>beginPhase</code>
+     * @param agents the number of agents updated in the phase
+     * @param healthyCount the number of healthy humans at the end of the phase
+     * @param infectedCount the number of infected humans at the end of the phase
+     * @param zombifiedCount the number of zombies at the end of the phase
+     */
+    public static void endPhase(Object event, int agents, int healthyCount, int infectedCount, int zombifiedCount) {
+        if(event != null) {
+            RECORDER.endPhase(event, agents, healthyCount, infectedCount, zombifiedCount);
+        }
+    }
+    
+    /**
+     * Starts the event of a stage of the update of the environment.
+     * @param phase the number of the phase
+     * @param stage the name of the stage (one of the <code>_STAGE</code> constants)
+     * @return the event (<code>null</code> if it isn't recorded)
+     */
+    public static Object beginUpdateStage(int phase, String stage) {
+        return RECORDER != null ? RECORDER.beginUpdateStage(phase, stage) : null;
+    }
+    
+    /**
+     * Ends the event of a stage of the update of the environment.
+     * @param event the event returned by <code>beginUpdateStage</code>
+     * @param agents the number of agents processed in the stage
+     * @param cellsVisited the number of cells visited in the stage
+     */
+    public static void endUpdateStage(Object event, int agents, int cellsVisited) {
+        if(event != null) {
+            RECORDER.endUpdateStage(event, agents, cellsVisited);
+        }
+    }
+    
+    /**
+     * Records the destruction of a part of a wall.
+     * @param phase the number of the phase
+     * @param row the row of the cell where the wall has been destroyed
+     * @param column the column of the cell where the wall has been destroyed
+     * @param destroyedLength the length of the destroyed part
+     * @param walls the number of walls after the destruction
+     */
+    public static void wallDestroyed(int phase, int row, int column, double destroyedLength, int walls) {
+        if(RECORDER != null) {
+            RECORDER.wallDestroyed(phase, row, column, destroyedLength, walls);
+        }
+    }
+    
+    /**
+     * Records the transformation of a batch of infected humans into zombies.
+     * @param phase the number of the phase
+     * @param zombified the number of humans transformed into zombies
+     * @param infected the number of humans that remain infected
+     */
+    public static void zombificationBatch(int phase, int zombified, int infected) {
+        if(RECORDER != null) {
+            RECORDER.zombificationBatch(phase, zombified, infected);
+        }
+    }
+    
+    /**
+     * Records a purchase of resources.
+     * @param phase the number of the phase
+     * @param resource the name of the resource bought
+     * @param units the number of units bought
+     * @param cost the total cost of the units
+     * @param resourcesAvailable the resources available after the purchase
+     */
+    public static void purchase(int phase, String resource, int units, int cost, int resourcesAvailable) {
+        if(RECORDER != null) {
+            RECORDER.purchase(phase, resource, units, cost, resourcesAvailable);
+        }
+    }
+    
+    //Private Static Methods
+    /**
+     * Creates the emitter of the events through the flight recorder, if it has 
+     * been compiled and the flight recorder can be used in this virtual machine.
+     * @return the emitter (<code>null</code> if it can't be used)
+     */
+    private static EventRecorder createRecorder() {
+        EventRecorder recorder;
+        
+        try {
+            recorder = (EventRecorder)Class.forName(FLIGHT_RECORDER_EVENTS_CLASS).newInstance();
+        } 
+        catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+            recorder = null;
+        }
+        
+        return recorder;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Replay;
+
+import Agents.Base.AgentLifeStatus;
+import Agents.Base.AgentsUtils;
+import Agents.Base.BaseInformation;
+import Agents.Human.HumanHealthStatus;
+import Agents.Human.HumanInformation;
+import Agents.Zombie.ZombieInformation;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and functions of the format of the replay files.
+ * <p>
+ * A replay file contains a header (magic number, version and configuration of the
+ * simulation as XML) followed by chunks. Each chunk is compressed independently 
+ * and contains a keyframe (the complete state of a phase) followed by frames that
+ * only contain the changes from the previous frame, so a replay can be read from
+ * any chunk. Positions are quantized to fixed-point integers and the movements 
+ * are stored as differences of the quantized positions.
+ * @author Xavier
+ */
+final class ReplayEncoding {
+    //Constants
+    /**
+     * Number identifying the replay files ("ZREP").
+     */
+    final static int MAGIC_NUMBER = 0x5A524550;
+    
+    /**
+     * Version of the format of the replay files.
+     */
+    final static int VERSION = 1;
+    
+    /**
+     * Number of quantization steps per unit of length of the environment.
+     */
+    final static double QUANTUM_PER_UNIT = 64;
+    
+    /**
+     * Bits of the state of an agent: kind (healthy, infected or zombie), 
+     * vaccinated and armed.
+     */
+    final static int HEALTHY = 0, INFECTED = 1, ZOMBIE = 2, KIND_MASK = 3, 
+                     VACCINATED = 4, ARMED = 8;
+    
+    /**
+     * Bits of the changes of an agent in a delta frame.
+     */
+    final static int MOVED = 1, STATE_CHANGED = 2;
+    
+    //Private Constructors
+    private ReplayEncoding() {
+    }
+    
+    //Package Static Methods
+    /**
+     * Converts a coordinate of the environment to its quantized value.
+     * @param coordinate the coordinate
+     * @return the quantized value
+     */
+    static int quantize(double coordinate) {
+        return (int)Math.round(coordinate * QUANTUM_PER_UNIT);
+    }
+    
+    /**
+     * Converts a quantized value to a coordinate of the environment.
+     * @param value the quantized value
+     * @return the coordinate
+     */
+    static double dequantize(int value) {
+        return value / QUANTUM_PER_UNIT;
+    }
+    
+    /**
+     * Returns the state of an agent as it's stored in the replay.
+     * @param information the information of the agent
+     * @return the state
+     */
+    static int getState(BaseInformation information) {
+        final HumanInformation human;
+        int state;
+        
+        if(AgentsUtils.isHumanInformation(information)) {
+            human = (HumanInformation)information;
+            state = human.getHealthStatus() == HumanHealthStatus.Healthy ? HEALTHY : INFECTED;
+            
+            if(human.isVaccinated()) {
+                state |= VACCINATED;
+            }
+            
+            if(human.getBullets() > 0) {
+                state |= ARMED;
+            }
+        }
+        else {
+            state = ZOMBIE;
+        }
+        
+        return state;
+    }
+    
+    /**
+     * Creates the information of an agent from its state in the replay.
+     * @param state the state
+     * @param x the quantized X component of the position
+     * @param y the quantized Y component of the position
+     * @param dead boolean value indicating if the agent is dead
+     * @return the information of the agent
+     */
+    static BaseInformation createInformation(int state, int x, int y, boolean dead) {
+        final BaseInformation information;
+        final HumanHealthStatus healthStatus;
+        
+        if((state & KIND_MASK) == ZOMBIE) {
+            information = new ZombieInformation(dequantize(x), dequantize(y));
+        }
+        else {
+            healthStatus = (state & KIND_MASK) == HEALTHY ? HumanHealthStatus.Healthy : HumanHealthStatus.Infected;
+            information  = new HumanInformation(healthStatus, dequantize(x), dequantize(y), 0, 
+                                                (state & VACCINATED) != 0, (state & ARMED) != 0 ? 1 : 0);
+        }
+        
+        if(dead) {
+            information.setLifeStatus(AgentLifeStatus.Dead);
+        }
+        
+        return information;
+    }
+    
+    /**
+     * Writes a non-negative integer with a variable number of bytes (7 bits per byte).
+     * @param out the output
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            
+            value >>>= 7;
+        }
+        
+        out.writeByte(value);
+    }
+    
+    /**
+     * Reads an integer written with <code>writeVarInt</code>.
+     * @param in the input
+     * @return the value
+     * @throws IOException if an I/O error occurs or the value isn't valid
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value, shift, b;
+        
+        value = 0;
+        shift = 0;
+        
+        do {
+            if(shift > 28) {
+                throw new IOException("El fitxer d'enregistrament està malmès.");
+            }
+            
+            b      = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        
+        return value;
+    }
+    
+    /**
+     * Writes an integer with a variable number of bytes, using less bytes for the
+     * values near to 0 (positive or negative).
+     * @param out the output
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+    
+    /**
+     * Reads an integer written with <code>writeSignedVarInt</code>.
+     * @param in the input
+     * @return the value
+     * @throws IOException if an I/O error occurs or the value isn't valid
+     */
+    static int readSignedVarInt(DataInput in) throws IOException {
+        final int value;
+        
+        value = readVarInt(in);
+        
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
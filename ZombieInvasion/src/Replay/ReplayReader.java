@@ -0,0 +1,490 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Replay;
+
+import Agents.Base.BaseInformation;
+import Environment.EnvironmentWall;
+import Environment.ZombieEpidemicEnvironmentInformation;
+import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import SimulationConfigurationFileAdapter.XMLFileError;
+import java.awt.geom.Line2D;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.zip.InflaterInputStream;
+import javax.xml.bind.JAXBException;
+
+/**
+ * This class reads a replay file written by <code>ReplayRecorder</code>. The frames
+ * can be read in any order: seeking a frame decodes the keyframe of its chunk and
+ * applies the changes of the following frames.
+ * @author Xavier
+ */
+public class ReplayReader implements Closeable {
+    //Constants
+    /**
+     * Size of the header of a chunk (first frame, number of frames and length).
+     */
+    private final static int CHUNK_HEADER_SIZE = 12;
+    
+    //Attributes
+    /**
+     * The replay file.
+     */
+    private final RandomAccessFile file;
+    
+    /**
+     * The configuration of the simulation recorded.
+     */
+    private final SimulationConfiguration configuration;
+    
+    /**
+     * Offset in the file of the compressed data of each chunk.
+     */
+    private final ArrayList<Long> chunkOffsets;
+    
+    /**
+     * Length of the compressed data of each chunk.
+     */
+    private final ArrayList<Integer> chunkLengths;
+    
+    /**
+     * Index of the first frame of each chunk.
+     */
+    private final ArrayList<Integer> chunkFirstFrames;
+    
+    /**
+     * Number of frames of the replay.
+     */
+    private final int frameCount;
+    
+    /**
+     * Index of the chunk being decoded (-1 if there isn't any).
+     */
+    private int currentChunk;
+    
+    /**
+     * The decompressed content of the chunk being decoded.
+     */
+    private DataInputStream chunk;
+    
+    /**
+     * Index of the current frame (-1 if there isn't any frame decoded).
+     */
+    private int currentFrame;
+    
+    /**
+     * Phase of the simulation in the current frame.
+     */
+    private int currentPhase;
+    
+    /**
+     * State and quantized position of each alive agent, by its identifier.
+     */
+    private final LinkedHashMap<Integer, int[]> alivePopulation;
+    
+    /**
+     * The dead population in the current frame.
+     */
+    private final ArrayList<BaseInformation> deadPopulation;
+    
+    /**
+     * The walls in the current frame.
+     */
+    private ArrayList<EnvironmentWall> walls;
+    
+    /**
+     * The shots in the current frame.
+     */
+    private ArrayList<Line2D> shots;
+    
+    //Public Constructors
+    /**
+     * Opens a replay file.
+     * @param replayFile the file
+     * @throws IOException if the file can't be read or it isn't a valid replay file
+     */
+    public ReplayReader(File replayFile) throws IOException {
+        final byte[] configurationXML;
+        int chunkFrames, chunkLength, frames;
+        long offset;
+        
+        this.file             = new RandomAccessFile(replayFile, "r");
+        this.chunkOffsets     = new ArrayList<>();
+        this.chunkLengths     = new ArrayList<>();
+        this.chunkFirstFrames = new ArrayList<>();
+        this.alivePopulation  = new LinkedHashMap<>();
+        this.deadPopulation   = new ArrayList<>();
+        this.walls            = new ArrayList<>();
+        this.shots            = new ArrayList<>();
+        this.currentChunk     = -1;
+        this.currentFrame     = -1;
+        
+        try {
+            if(this.file.readInt() != ReplayEncoding.MAGIC_NUMBER) {
+                throw new IOException("El fitxer no és un enregistrament de simulació.");
+            }
+            
+            if(this.file.readInt() != ReplayEncoding.VERSION) {
+                throw new IOException("La versió del fitxer d'enregistrament no està suportada.");
+            }
+            
+            configurationXML = new byte[this.file.readInt()];
+            
+            this.file.readFully(configurationXML);
+            
+            this.configuration = new SimulationConfiguration(new SimulationConfigurationFileAdapter().read(new ByteArrayInputStream(configurationXML)));
+            
+            //Index the chunks (an incomplete chunk at the end of the file, left by 
+            //a recording that hasn't been closed, is ignored)
+            frames = 0;
+            offset = this.file.getFilePointer();
+            
+            while(offset + CHUNK_HEADER_SIZE <= this.file.length()) {
+                this.file.seek(offset);
+                
+                this.file.readInt();
+                
+                chunkFrames = this.file.readInt();
+                chunkLength = this.file.readInt();
+                offset     += CHUNK_HEADER_SIZE;
+                
+                if(offset + chunkLength <= this.file.length()) {
+                    this.chunkOffsets.add(offset);
+                    this.chunkLengths.add(chunkLength);
+                    this.chunkFirstFrames.add(frames);
+                    
+                    frames += chunkFrames;
+                }
+                
+                offset += chunkLength;
+            }
+            
+            this.frameCount = frames;
+        }
+        catch (IOException | RuntimeException ex) {
+            this.file.close();
+            
+            throw ex;
+        }
+        catch (JAXBException | XMLFileError ex) {
+            this.file.close();
+            
+            throw new IOException("La configuració de l'enregistrament no és vàlida.", ex);
+        }
+    }
+    
+    //Overridden Methods
+    /**
+     * Closes the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+    
+    //Public Methods
+    /**
+     * Returns the configuration of the simulation recorded.
+     * @return the configuration
+     */
+    public SimulationConfiguration getConfiguration() {
+        return this.configuration;
+    }
+    
+    /**
+     * Returns the number of frames of the replay.
+     * @return the number of frames
+     */
+    public int getFrameCount() {
+        return this.frameCount;
+    }
+    
+    /**
+     * Returns the index of the current frame.
+     * @return the index of the frame (-1 if there isn't any frame decoded)
+     */
+    public int getCurrentFrame() {
+        return this.currentFrame;
+    }
+    
+    /**
+     * Returns the phase of the simulation in the current frame.
+     * @return the phase
+     */
+    public int getCurrentPhase() {
+        return this.currentPhase;
+    }
+    
+    /**
+     * Decodes a frame of the replay, which becomes the current frame.
+     * @param frame the index of the frame
+     * @throws IOException if an I/O error occurs or the file is corrupted
+     */
+    public void seek(int frame) throws IOException {
+        final int frameChunk;
+        
+        if(frame < 0 || frame >= this.frameCount) {
+            throw new IndexOutOfBoundsException("El fotograma " + frame + " no existeix.");
+        }
+        
+        frameChunk = this.getChunkOfFrame(frame);
+        
+        //Frames before the current one or in another chunk need to decode the 
+        //chunk from its keyframe
+        if(frameChunk != this.currentChunk || frame < this.currentFrame) {
+            this.loadChunk(frameChunk);
+            this.readKeyframe();
+            
+            this.currentFrame = this.chunkFirstFrames.get(frameChunk);
+        }
+        
+        while(this.currentFrame < frame) {
+            this.readDeltaFrame();
+            
+            this.currentFrame++;
+        }
+    }
+    
+    /**
+     * Returns the information of the environment in the current frame.
+     * @return the information of the environment
+     */
+    public ZombieEpidemicEnvironmentInformation getEnvironmentInformation() {
+        final Collection<BaseInformation> alive;
+        
+        alive = new ArrayList<>(this.alivePopulation.size());
+        
+        for(int[] agent: this.alivePopulation.values()) {
+            alive.add(ReplayEncoding.createInformation(agent[0], agent[1], agent[2], false));
+        }
+        
+        return new ZombieEpidemicEnvironmentInformation(new ArrayList<>(this.deadPopulation), alive,
+                                                        new ArrayList<>(this.walls), new ArrayList<>(this.shots));
+    }
+    
+    //Private Methods
+    /**
+     * Returns the index of the chunk that contains a frame.
+     * @param frame the index of the frame
+     * @return the index of the chunk
+     */
+    private int getChunkOfFrame(int frame) {
+        int low, high, middle;
+        
+        low  = 0;
+        high = this.chunkFirstFrames.size() - 1;
+        
+        while(low < high) {
+            middle = (low + high + 1) >>> 1;
+            
+            if(this.chunkFirstFrames.get(middle) <= frame) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Reads and decompresses a chunk.
+     * @param index the index of the chunk
+     * @throws IOException if an I/O error occurs
+     */
+    private void loadChunk(int index) throws IOException {
+        final byte[] compressed;
+        
+        compressed = new byte[this.chunkLengths.get(index)];
+        
+        this.file.seek(this.chunkOffsets.get(index));
+        this.file.readFully(compressed);
+        
+        this.chunk        = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+        this.currentChunk = index;
+    }
+    
+    /**
+     * Decodes the keyframe at the start of the current chunk.
+     * @throws IOException if an I/O error occurs
+     */
+    private void readKeyframe() throws IOException {
+        final int aliveCount, deadCount;
+        
+        this.alivePopulation.clear();
+        this.deadPopulation.clear();
+        
+        this.currentPhase = ReplayEncoding.readVarInt(this.chunk);
+        aliveCount        = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < aliveCount; i++) {
+            this.readAgent();
+        }
+        
+        deadCount = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < deadCount; i++) {
+            this.readDeadAgent();
+        }
+        
+        this.readWalls();
+        this.readShots();
+    }
+    
+    /**
+     * Decodes the changes of the next frame of the current chunk.
+     * @throws IOException if an I/O error occurs or the file is corrupted
+     */
+    private void readDeltaFrame() throws IOException {
+        final int removedCount, addedCount, changedCount, deadCount;
+        int[] agent;
+        int changes;
+        
+        this.currentPhase = ReplayEncoding.readVarInt(this.chunk);
+        
+        //Agents that have disappeared
+        removedCount = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < removedCount; i++) {
+            this.alivePopulation.remove(ReplayEncoding.readVarInt(this.chunk));
+        }
+        
+        //Agents that have appeared
+        addedCount = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < addedCount; i++) {
+            this.readAgent();
+        }
+        
+        //Agents that have moved or changed their state
+        changedCount = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < changedCount; i++) {
+            agent   = this.alivePopulation.get(ReplayEncoding.readVarInt(this.chunk));
+            changes = this.chunk.readUnsignedByte();
+            
+            if(agent == null) {
+                throw new IOException("El fitxer d'enregistrament està malmès.");
+            }
+            
+            if((changes & ReplayEncoding.MOVED) != 0) {
+                agent[1] += ReplayEncoding.readSignedVarInt(this.chunk);
+                agent[2] += ReplayEncoding.readSignedVarInt(this.chunk);
+            }
+            
+            if((changes & ReplayEncoding.STATE_CHANGED) != 0) {
+                agent[0] = this.chunk.readUnsignedByte();
+            }
+        }
+        
+        //New dead agents
+        deadCount = ReplayEncoding.readVarInt(this.chunk);
+        
+        for(int i = 0; i < deadCount; i++) {
+            this.readDeadAgent();
+        }
+        
+        //Walls (only if they have been modified) and shots
+        if(this.chunk.readBoolean()) {
+            this.readWalls();
+        }
+        
+        this.readShots();
+    }
+    
+    /**
+     * Reads an alive agent and adds it in the alive population.
+     * @throws IOException if an I/O error occurs
+     */
+    private void readAgent() throws IOException {
+        final int id, state, x, y;
+        
+        id    = ReplayEncoding.readVarInt(this.chunk);
+        state = this.chunk.readUnsignedByte();
+        x     = ReplayEncoding.readSignedVarInt(this.chunk);
+        y     = ReplayEncoding.readSignedVarInt(this.chunk);
+        
+        this.alivePopulation.put(id, new int[] {state, x, y});
+    }
+    
+    /**
+     * Reads a dead agent and adds it in the dead population.
+     * @throws IOException if an I/O error occurs
+     */
+    private void readDeadAgent() throws IOException {
+        final int state, x, y;
+        
+        state = this.chunk.readUnsignedByte();
+        x     = ReplayEncoding.readSignedVarInt(this.chunk);
+        y     = ReplayEncoding.readSignedVarInt(this.chunk);
+        
+        this.deadPopulation.add(ReplayEncoding.createInformation(state, x, y, true));
+    }
+    
+    /**
+     * Reads the list of walls, which replaces the current one.
+     * @throws IOException if an I/O error occurs
+     */
+    private void readWalls() throws IOException {
+        final int count;
+        double x1, y1, x2, y2;
+        
+        count      = ReplayEncoding.readVarInt(this.chunk);
+        this.walls = new ArrayList<>(count);
+        
+        for(int i = 0; i < count; i++) {
+            x1 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            y1 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            x2 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            y2 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            
+            this.walls.add(new EnvironmentWall(x1, y1, x2, y2, this.chunk.readBoolean()));
+        }
+    }
+    
+    /**
+     * Reads the shots of the frame.
+     * @throws IOException if an I/O error occurs
+     */
+    private void readShots() throws IOException {
+        final int count;
+        double x1, y1, x2, y2;
+        
+        count      = ReplayEncoding.readVarInt(this.chunk);
+        this.shots = new ArrayList<>(count);
+        
+        for(int i = 0; i < count; i++) {
+            x1 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            y1 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            x2 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            y2 = ReplayEncoding.dequantize(ReplayEncoding.readSignedVarInt(this.chunk));
+            
+            this.shots.add(new Line2D.Double(x1, y1, x2, y2));
+        }
+    }
+}
@@ -0,0 +1,521 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Replay;
+
+import Agents.Base.BaseInformation;
+import Environment.EnvironmentWall;
+import Environment.ZombieEpidemicEnvironment;
+import Environment.ZombieEpidemicEnvironmentInformation;
+import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import java.awt.geom.Line2D;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import javax.xml.bind.JAXBException;
+
+/**
+ * This class records the phases of a simulation in a replay file, which can be
+ * played with <code>ReplayReader</code> without executing the simulation again.
+ * Each recorded phase only stores the changes from the previous one (agents that
+ * appear, disappear, move or change their state, new dead agents, modified walls
+ * and shots), except the keyframes, which are written periodically.
+ * @author Xavier
+ */
+public class ReplayRecorder implements Closeable {
+    //Constants
+    /**
+     * Extension of the replay files.
+     */
+    public final static String REPLAY_FILE_EXTENSION = "zrp";
+    
+    /**
+     * Default number of frames between keyframes.
+     */
+    public final static int DEFAULT_KEYFRAME_INTERVAL = 100;
+    
+    //Attributes
+    /**
+     * The output of the file.
+     */
+    private final DataOutputStream output;
+    
+    /**
+     * Number of frames between keyframes (the frames of a chunk).
+     */
+    private final int keyframeInterval;
+    
+    /**
+     * Compressor of the chunks.
+     */
+    private final Deflater deflater;
+    
+    /**
+     * The uncompressed content of the current chunk.
+     */
+    private final ByteArrayOutputStream chunkBytes;
+    
+    /**
+     * The compressed output of the current chunk (<code>null</code> if there isn't
+     * any chunk started).
+     */
+    private DeflaterOutputStream chunkStream;
+    
+    /**
+     * The output of the current chunk.
+     */
+    private DataOutputStream chunk;
+    
+    /**
+     * Index of the first frame of the current chunk.
+     */
+    private int chunkFirstFrame;
+    
+    /**
+     * Number of frames of the current chunk.
+     */
+    private int chunkFrames;
+    
+    /**
+     * Number of frames recorded.
+     */
+    private int frames;
+    
+    /**
+     * State recorded of each alive agent, by its information object.
+     */
+    private IdentityHashMap<BaseInformation, RecordedAgent> agents;
+    
+    /**
+     * Identifier of the next agent that appears.
+     */
+    private int nextAgentId;
+    
+    /**
+     * Number of dead agents recorded.
+     */
+    private int deadRecorded;
+    
+    /**
+     * Quantized walls recorded in the last frame (5 values per wall).
+     */
+    private int[] walls;
+    
+    //Public Constructors
+    /**
+     * Creates a replay file.
+     * @param file the file
+     * @param configuration the configuration of the simulation recorded
+     * @param keyframeInterval the number of frames between keyframes
+     * @throws IOException if the file can't be created
+     */
+    public ReplayRecorder(File file, SimulationConfiguration configuration, int keyframeInterval) throws IOException {
+        final ByteArrayOutputStream configurationXML;
+        
+        if(keyframeInterval <= 0) {
+            throw new IllegalArgumentException("El nombre de fases entre fotogrames clau ha de ser positiu.");
+        }
+        
+        configurationXML = new ByteArrayOutputStream();
+        
+        try {
+            new SimulationConfigurationFileAdapter().write(configuration, configurationXML);
+        }
+        catch (JAXBException ex) {
+            throw new IOException(ex);
+        }
+        
+        this.output           = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        this.keyframeInterval = keyframeInterval;
+        this.deflater         = new Deflater(Deflater.BEST_SPEED);
+        this.chunkBytes       = new ByteArrayOutputStream();
+        this.agents           = new IdentityHashMap<>();
+        this.walls            = new int[0];
+        
+        this.output.writeInt(ReplayEncoding.MAGIC_NUMBER);
+        this.output.writeInt(ReplayEncoding.VERSION);
+        this.output.writeInt(configurationXML.size());
+        configurationXML.writeTo(this.output);
+    }
+    
+    //Overridden Methods
+    /**
+     * Writes the last chunk and closes the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.finishChunk();
+        }
+        finally {
+            this.output.close();
+            this.deflater.end();
+        }
+    }
+    
+    //Public Methods
+    /**
+     * Records the current state of an environment as the next frame of the replay.
+     * It must be called between phases (not while the environment is executing one).
+     * @param environment the environment
+     * @throws IOException if an I/O error occurs
+     */
+    public void recordPhase(ZombieEpidemicEnvironment environment) throws IOException {
+        final ZombieEpidemicEnvironmentInformation information;
+        
+        information = environment.getEnvironmentInformation();
+        
+        if(this.chunk == null || this.chunkFrames == this.keyframeInterval) {
+            this.finishChunk();
+            this.startChunk();
+            this.writeKeyframe(environment.getPhase(), information);
+        }
+        else {
+            this.writeDeltaFrame(environment.getPhase(), information);
+        }
+        
+        this.chunkFrames++;
+        this.frames++;
+    }
+    
+    /**
+     * Returns the number of frames recorded.
+     * @return the number of frames
+     */
+    public int getFrameCount() {
+        return this.frames;
+    }
+    
+    //Private Methods
+    /**
+     * Starts a new chunk.
+     */
+    private void startChunk() {
+        this.chunkBytes.reset();
+        this.deflater.reset();
+        
+        this.chunkStream     = new DeflaterOutputStream(this.chunkBytes, this.deflater);
+        this.chunk           = new DataOutputStream(this.chunkStream);
+        this.chunkFirstFrame = this.frames;
+        this.chunkFrames     = 0;
+    }
+    
+    /**
+     * Compresses the current chunk (if any) and writes it in the file.
+     * @throws IOException if an I/O error occurs
+     */
+    private void finishChunk() throws IOException {
+        if(this.chunk != null) {
+            this.chunk.flush();
+            this.chunkStream.finish();
+            
+            this.output.writeInt(this.chunkFirstFrame);
+            this.output.writeInt(this.chunkFrames);
+            this.output.writeInt(this.chunkBytes.size());
+            this.chunkBytes.writeTo(this.output);
+            this.output.flush();
+            
+            this.chunk       = null;
+            this.chunkStream = null;
+        }
+    }
+    
+    /**
+     * Writes a frame with the complete state of the simulation.
+     * @param phase the phase of the simulation
+     * @param information the information of the environment
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeKeyframe(int phase, ZombieEpidemicEnvironmentInformation information) throws IOException {
+        final IdentityHashMap<BaseInformation, RecordedAgent> currentAgents;
+        final Collection<BaseInformation> alive, dead;
+        RecordedAgent agent;
+        
+        alive         = information.getAlivePopulation();
+        dead          = information.getDeadPopulation();
+        currentAgents = new IdentityHashMap<>(alive.size());
+        
+        ReplayEncoding.writeVarInt(this.chunk, phase);
+        
+        //Alive population
+        ReplayEncoding.writeVarInt(this.chunk, alive.size());
+        
+        for(BaseInformation agentInformation: alive) {
+            agent = this.agents.get(agentInformation);
+            
+            if(agent == null) {
+                agent = new RecordedAgent(this.nextAgentId++);
+            }
+            
+            agent.state = ReplayEncoding.getState(agentInformation);
+            agent.x     = ReplayEncoding.quantize(agentInformation.getPosition().getX());
+            agent.y     = ReplayEncoding.quantize(agentInformation.getPosition().getY());
+            
+            currentAgents.put(agentInformation, agent);
+            this.writeAgent(agent);
+        }
+        
+        this.agents = currentAgents;
+        
+        //Dead population
+        ReplayEncoding.writeVarInt(this.chunk, dead.size());
+        
+        for(BaseInformation agentInformation: dead) {
+            this.writeDeadAgent(agentInformation);
+        }
+        
+        this.deadRecorded = dead.size();
+        
+        //Walls and shots
+        this.walls = quantizeWalls(information.getWalls());
+        
+        this.writeWalls(this.walls);
+        this.writeShots(information.getShots());
+    }
+    
+    /**
+     * Writes a frame with the changes from the previous frame.
+     * @param phase the phase of the simulation
+     * @param information the information of the environment
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeDeltaFrame(int phase, ZombieEpidemicEnvironmentInformation information) throws IOException {
+        final IdentityHashMap<BaseInformation, RecordedAgent> currentAgents;
+        final ArrayList<RecordedAgent> addedAgents, changedAgents;
+        final Collection<BaseInformation> alive, dead;
+        final int[] currentWalls;
+        RecordedAgent agent;
+        int state, x, y, index;
+        
+        alive         = information.getAlivePopulation();
+        dead          = information.getDeadPopulation();
+        currentAgents = new IdentityHashMap<>(alive.size());
+        addedAgents   = new ArrayList<>();
+        changedAgents = new ArrayList<>();
+        
+        //Compare the alive population with the previous frame
+        for(BaseInformation agentInformation: alive) {
+            agent = this.agents.remove(agentInformation);
+            state = ReplayEncoding.getState(agentInformation);
+            x     = ReplayEncoding.quantize(agentInformation.getPosition().getX());
+            y     = ReplayEncoding.quantize(agentInformation.getPosition().getY());
+            
+            if(agent == null) {
+                agent       = new RecordedAgent(this.nextAgentId++);
+                agent.state = state;
+                agent.x     = x;
+                agent.y     = y;
+                
+                addedAgents.add(agent);
+            }
+            else {
+                agent.changes = 0;
+                agent.dx      = x - agent.x;
+                agent.dy      = y - agent.y;
+                
+                if(agent.dx != 0 || agent.dy != 0) {
+                    agent.changes |= ReplayEncoding.MOVED;
+                }
+                
+                if(state != agent.state) {
+                    agent.changes |= ReplayEncoding.STATE_CHANGED;
+                }
+                
+                if(agent.changes != 0) {
+                    agent.state = state;
+                    agent.x     = x;
+                    agent.y     = y;
+                    
+                    changedAgents.add(agent);
+                }
+            }
+            
+            currentAgents.put(agentInformation, agent);
+        }
+        
+        ReplayEncoding.writeVarInt(this.chunk, phase);
+        
+        //Agents that have disappeared (the ones that haven't been found)
+        ReplayEncoding.writeVarInt(this.chunk, this.agents.size());
+        
+        for(RecordedAgent removedAgent: this.agents.values()) {
+            ReplayEncoding.writeVarInt(this.chunk, removedAgent.id);
+        }
+        
+        //Agents that have appeared
+        ReplayEncoding.writeVarInt(this.chunk, addedAgents.size());
+        
+        for(RecordedAgent addedAgent: addedAgents) {
+            this.writeAgent(addedAgent);
+        }
+        
+        //Agents that have moved or changed their state
+        ReplayEncoding.writeVarInt(this.chunk, changedAgents.size());
+        
+        for(RecordedAgent changedAgent: changedAgents) {
+            ReplayEncoding.writeVarInt(this.chunk, changedAgent.id);
+            this.chunk.writeByte(changedAgent.changes);
+            
+            if((changedAgent.changes & ReplayEncoding.MOVED) != 0) {
+                ReplayEncoding.writeSignedVarInt(this.chunk, changedAgent.dx);
+                ReplayEncoding.writeSignedVarInt(this.chunk, changedAgent.dy);
+            }
+            
+            if((changedAgent.changes & ReplayEncoding.STATE_CHANGED) != 0) {
+                this.chunk.writeByte(changedAgent.state);
+            }
+        }
+        
+        this.agents = currentAgents;
+        
+        //New dead agents (the dead population only grows)
+        ReplayEncoding.writeVarInt(this.chunk, dead.size() - this.deadRecorded);
+        
+        index = 0;
+        
+        for(BaseInformation agentInformation: dead) {
+            if(index >= this.deadRecorded) {
+                this.writeDeadAgent(agentInformation);
+            }
+            
+            index++;
+        }
+        
+        this.deadRecorded = dead.size();
+        
+        //Walls (only if they have been modified) and shots
+        currentWalls = quantizeWalls(information.getWalls());
+        
+        if(Arrays.equals(currentWalls, this.walls)) {
+            this.chunk.writeBoolean(false);
+        }
+        else {
+            this.chunk.writeBoolean(true);
+            this.writeWalls(currentWalls);
+            
+            this.walls = currentWalls;
+        }
+        
+        this.writeShots(information.getShots());
+    }
+    
+    /**
+     * Writes the identifier, the state and the position of an agent.
+     * @param agent the agent
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeAgent(RecordedAgent agent) throws IOException {
+        ReplayEncoding.writeVarInt(this.chunk, agent.id);
+        this.chunk.writeByte(agent.state);
+        ReplayEncoding.writeSignedVarInt(this.chunk, agent.x);
+        ReplayEncoding.writeSignedVarInt(this.chunk, agent.y);
+    }
+    
+    /**
+     * Writes the state and the position of a dead agent.
+     * @param information the information of the agent
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeDeadAgent(BaseInformation information) throws IOException {
+        this.chunk.writeByte(ReplayEncoding.getState(information));
+        ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(information.getPosition().getX()));
+        ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(information.getPosition().getY()));
+    }
+    
+    /**
+     * Writes a list of quantized walls.
+     * @param quantizedWalls the walls (5 values per wall: the coordinates and the 
+     * destructible flag)
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeWalls(int[] quantizedWalls) throws IOException {
+        ReplayEncoding.writeVarInt(this.chunk, quantizedWalls.length / 5);
+        
+        for(int i = 0; i < quantizedWalls.length; i += 5) {
+            ReplayEncoding.writeSignedVarInt(this.chunk, quantizedWalls[i]);
+            ReplayEncoding.writeSignedVarInt(this.chunk, quantizedWalls[i + 1]);
+            ReplayEncoding.writeSignedVarInt(this.chunk, quantizedWalls[i + 2]);
+            ReplayEncoding.writeSignedVarInt(this.chunk, quantizedWalls[i + 3]);
+            this.chunk.writeBoolean(quantizedWalls[i + 4] != 0);
+        }
+    }
+    
+    /**
+     * Writes the shots of a phase.
+     * @param shots the shots
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeShots(Collection<Line2D> shots) throws IOException {
+        ReplayEncoding.writeVarInt(this.chunk, shots.size());
+        
+        for(Line2D shot: shots) {
+            ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(shot.getX1()));
+            ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(shot.getY1()));
+            ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(shot.getX2()));
+            ReplayEncoding.writeSignedVarInt(this.chunk, ReplayEncoding.quantize(shot.getY2()));
+        }
+    }
+    
+    //Private Static Methods
+    /**
+     * Quantizes a list of walls.
+     * @param walls the walls
+     * @return the quantized walls (5 values per wall)
+     */
+    private static int[] quantizeWalls(Collection<EnvironmentWall> walls) {
+        final int[] quantizedWalls;
+        int i;
+        
+        quantizedWalls = new int[walls.size() * 5];
+        i              = 0;
+        
+        for(EnvironmentWall wall: walls) {
+            quantizedWalls[i++] = ReplayEncoding.quantize(wall.getX1());
+            quantizedWalls[i++] = ReplayEncoding.quantize(wall.getY1());
+            quantizedWalls[i++] = ReplayEncoding.quantize(wall.getX2());
+            quantizedWalls[i++] = ReplayEncoding.quantize(wall.getY2());
+            quantizedWalls[i++] = wall.isDestructible() ? 1 : 0;
+        }
+        
+        return quantizedWalls;
+    }
+    
+    //Private Classes
+    /**
+     * State of an agent in the last recorded frame.
+     */
+    private static class RecordedAgent {
+        private final int id;
+        private int state, x, y, dx, dy, changes;
+        
+        RecordedAgent(int id) {
+            this.id = id;
+        }
+    }
+}
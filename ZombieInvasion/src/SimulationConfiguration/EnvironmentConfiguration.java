@@ -79,6 +79,30 @@ public class EnvironmentConfiguration {
     @XmlElementWrapper(name="InaccessibleCells") 
     @XmlElement(name="Cell")
     private Set<Cell> inaccessibleCells;
+    
+    /**
+     * Extra distance of the lists of neighbour candidates kept by the agents 
+     * between phases (optional, 0 by default: the neighbours are looked for in 
+     * the cells every phase).
+     */
+    @XmlElement(name = "NeighbourListSkin")
+    private int neighbourListSkin;
+    
+    /**
+     * Boolean value indicating if the cells far from the places where humans and
+     * zombies meet only keep the number of agents of each kind instead of the 
+     * agents (optional, disabled by default).
+     */
+    @XmlElement(name = "AggregateDistantCells")
+    private boolean aggregateDistantCells;
+    
+    /**
+     * Boolean value indicating if the agents are sorted by cell every phase, so
+     * the perceptions read the agents of the near cells from contiguous arrays 
+     * (optional, disabled by default).
+     */
+    @XmlElement(name = "SortedCellRanges")
+    private boolean sortedCellRanges;
        
     //Public Constructors
     public EnvironmentConfiguration(int numberOfRows, int numberOfColumns,
@@ -86,19 +110,33 @@ public class EnvironmentConfiguration {
                                     int agentWidth, int agentHeight,
                                     Collection<Cell> inaccessibleCells) {
         
-        this.numberOfRows      = numberOfRows;
-        this.numberOfColumns   = numberOfColumns;
-        this.cellWidth         = cellWidth;
-        this.cellHeight        = cellHeight;
-        this.agentWidth        = agentWidth;
-        this.agentHeight       = agentHeight;
-        this.inaccessibleCells = new HashSet<>(inaccessibleCells);
+        this(numberOfRows, numberOfColumns, cellWidth, cellHeight, agentWidth, 
+             agentHeight, inaccessibleCells, 0, false, false);
+    }
+    
+    public EnvironmentConfiguration(int numberOfRows, int numberOfColumns,
+                                    int cellWidth, int cellHeight, 
+                                    int agentWidth, int agentHeight,
+                                    Collection<Cell> inaccessibleCells, int neighbourListSkin,
+                                    boolean aggregateDistantCells, boolean sortedCellRanges) {
+        
+        this.numberOfRows          = numberOfRows;
+        this.numberOfColumns       = numberOfColumns;
+        this.cellWidth             = cellWidth;
+        this.cellHeight            = cellHeight;
+        this.agentWidth            = agentWidth;
+        this.agentHeight           = agentHeight;
+        this.inaccessibleCells     = new HashSet<>(inaccessibleCells);
+        this.neighbourListSkin     = neighbourListSkin;
+        this.aggregateDistantCells = aggregateDistantCells;
+        this.sortedCellRanges      = sortedCellRanges;
     }
     
     public EnvironmentConfiguration(EnvironmentConfiguration original) {
         this(original.numberOfRows, original.numberOfColumns, original.cellWidth,
              original.cellHeight, original.agentWidth, original.agentHeight,
-             original.inaccessibleCells);
+             original.inaccessibleCells, original.neighbourListSkin, original.aggregateDistantCells,
+             original.sortedCellRanges);
     }
     
     //Necessary for XML serialization purposes
@@ -163,6 +201,32 @@ public class EnvironmentConfiguration {
         return this.inaccessibleCells;
     }
 
+    /**
+     * Returns the extra distance of the lists of neighbour candidates of the agents.
+     * @return the skin distance (0 if the neighbour lists aren't used)
+     */
+    public int getNeighbourListSkin() {
+        return this.neighbourListSkin;
+    }
+    
+    /**
+     * Returns if the cells far from the places where humans and zombies meet 
+     * only keep the number of agents of each kind.
+     * @return <code>true</code> if the distant cells are aggregated, <code>false</code> otherwise
+     */
+    public boolean isAggregateDistantCells() {
+        return this.aggregateDistantCells;
+    }
+    
+    /**
+     * Returns if the agents are sorted by cell every phase to find the agents 
+     * perceived.
+     * @return <code>true</code> if the agents are sorted by cell, <code>false</code> otherwise
+     */
+    public boolean isSortedCellRanges() {
+        return this.sortedCellRanges;
+    }
+
     /**
      * Returns the width of the environment;
      * @return the width 
@@ -299,4 +363,30 @@ public class EnvironmentConfiguration {
         this.inaccessibleCells.clear();
         this.inaccessibleCells.addAll(inaccessibleCells);
     }
+
+    /**
+     * Sets the extra distance of the lists of neighbour candidates of the agents.
+     * @param neighbourListSkin the skin distance (0 to not use the neighbour lists)
+     */
+    public void setNeighbourListSkin(int neighbourListSkin) {
+        this.neighbourListSkin = neighbourListSkin;
+    }
+    
+    /**
+     * Sets if the cells far from the places where humans and zombies meet only
+     * keep the number of agents of each kind.
+     * @param aggregateDistantCells <code>true</code> to aggregate the distant cells
+     */
+    public void setAggregateDistantCells(boolean aggregateDistantCells) {
+        this.aggregateDistantCells = aggregateDistantCells;
+    }
+    
+    /**
+     * Sets if the agents are sorted by cell every phase to find the agents 
+     * perceived.
+     * @param sortedCellRanges <code>true</code> to sort the agents by cell
+     */
+    public void setSortedCellRanges(boolean sortedCellRanges) {
+        this.sortedCellRanges = sortedCellRanges;
+    }
 }
@@ -42,14 +42,27 @@ public class HumanConfiguration {
     @XmlElement(name = "VisionDistance")
     private int visionDistance;
     
+    /**
+     * Boolean value indicating if the humans that escape from the zombies take the 
+     * zombies that aren't near from a field shared by all the humans (optional, 
+     * disabled by default).
+     */
+    @XmlElement(name = "DangerFieldEnabled")
+    private boolean dangerFieldEnabled;
+    
     //Public Constructors
     public HumanConfiguration(int speed, int visionDistance) {
-        this.speed          = speed;
-        this.visionDistance = visionDistance;
+        this(speed, visionDistance, false);
+    }
+    
+    public HumanConfiguration(int speed, int visionDistance, boolean dangerFieldEnabled) {
+        this.speed              = speed;
+        this.visionDistance     = visionDistance;
+        this.dangerFieldEnabled = dangerFieldEnabled;
     }
     
     public HumanConfiguration(HumanConfiguration original) {
-        this(original.speed, original.visionDistance);
+        this(original.speed, original.visionDistance, original.dangerFieldEnabled);
     }
     
     //Necessary for XML serialization purposes
@@ -74,6 +87,15 @@ public class HumanConfiguration {
         return this.visionDistance;
     }
 
+    /**
+     * Returns if the humans that escape from the zombies take the zombies that 
+     * aren't near from a field shared by all the humans.
+     * @return <code>true</code> if the danger field is enabled, <code>false</code> otherwise
+     */
+    public boolean isDangerFieldEnabled() {
+        return this.dangerFieldEnabled;
+    }
+
     /**
      * Sets the speed of humans.
      * @param speed the speed
@@ -89,4 +111,13 @@ public class HumanConfiguration {
     public void setVisionDistance(int visionDistance) {
         this.visionDistance = visionDistance;
     }
+
+    /**
+     * Sets if the humans that escape from the zombies take the zombies that 
+     * aren't near from a field shared by all the humans.
+     * @param dangerFieldEnabled <code>true</code> to enable the danger field
+     */
+    public void setDangerFieldEnabled(boolean dangerFieldEnabled) {
+        this.dangerFieldEnabled = dangerFieldEnabled;
+    }
 }
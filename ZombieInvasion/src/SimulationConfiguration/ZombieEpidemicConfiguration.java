@@ -62,21 +62,57 @@ public class ZombieEpidemicConfiguration {
     @XmlElement(name = "ZombieOlfactoryDistance")
     private int zombieOlfactoryDistance;
     
+    /**
+     * Boolean value indicating if the zombies that don't perceive any human follow
+     * the shortest path to the nearest healthy human (optional, disabled by default).
+     */
+    @XmlElement(name = "PursuitFieldEnabled")
+    private boolean pursuitFieldEnabled;
+    
+    /**
+     * Boolean value indicating if the zombies smell the scent that the healthy 
+     * humans leave in the cells instead of the humans within the olfactory distance
+     * (optional, disabled by default).
+     */
+    @XmlElement(name = "ScentFieldEnabled")
+    private boolean scentFieldEnabled;
+    
+    /**
+     * Number of phases between the updates of the zombies that have nothing to
+     * perceive around them (optional, 1 updates all the zombies in every phase).
+     */
+    @XmlElement(name = "IdleZombieUpdatePeriod")
+    private int idleZombieUpdatePeriod;
+    
     //Public Constructors
     public ZombieEpidemicConfiguration(int infectedLatencyPeriod, int zombieSpeed, 
                                        int zombieSpeedAtRest, int zombieVisionDistance,
                                        int zombieOlfactoryDistance) {
         
+        this(infectedLatencyPeriod, zombieSpeed, zombieSpeedAtRest, zombieVisionDistance,
+             zombieOlfactoryDistance, false, false, 1);
+    }
+    
+    public ZombieEpidemicConfiguration(int infectedLatencyPeriod, int zombieSpeed, 
+                                       int zombieSpeedAtRest, int zombieVisionDistance,
+                                       int zombieOlfactoryDistance, boolean pursuitFieldEnabled,
+                                       boolean scentFieldEnabled, int idleZombieUpdatePeriod) {
+        
         this.infectedLatencyPeriod   = infectedLatencyPeriod;
         this.zombieSpeed             = zombieSpeed;
         this.zombieSpeedAtRest       = zombieSpeedAtRest;
         this.zombieVisionDistance    = zombieVisionDistance;
         this.zombieOlfactoryDistance = zombieOlfactoryDistance;
+        this.pursuitFieldEnabled     = pursuitFieldEnabled;
+        this.scentFieldEnabled       = scentFieldEnabled;
+        this.idleZombieUpdatePeriod  = idleZombieUpdatePeriod;
     }
     
     public ZombieEpidemicConfiguration(ZombieEpidemicConfiguration original) {
         this(original.infectedLatencyPeriod, original.zombieSpeed, original.zombieSpeedAtRest,
-             original.zombieVisionDistance, original.zombieOlfactoryDistance);
+             original.zombieVisionDistance, original.zombieOlfactoryDistance, 
+             original.pursuitFieldEnabled, original.scentFieldEnabled, 
+             original.idleZombieUpdatePeriod);
     }
 
     //Necessary for XML serialization purposes
@@ -124,6 +160,34 @@ public class ZombieEpidemicConfiguration {
     public int getZombieOlfactoryDistance() {
         return zombieOlfactoryDistance;
     }
+    
+    /**
+     * Returns if the zombies that don't perceive any human follow the shortest 
+     * path to the nearest healthy human.
+     * @return <code>true</code> if the pursuit field is enabled, <code>false</code> otherwise
+     */
+    public boolean isPursuitFieldEnabled() {
+        return pursuitFieldEnabled;
+    }
+    
+    /**
+     * Returns if the zombies smell the scent that the healthy humans leave in 
+     * the cells instead of the humans within the olfactory distance.
+     * @return <code>true</code> if the scent field is enabled, <code>false</code> otherwise
+     */
+    public boolean isScentFieldEnabled() {
+        return scentFieldEnabled;
+    }
+    
+    /**
+     * Returns the number of phases between the updates of the zombies that 
+     * have nothing to perceive around them.
+     * @return the number of phases (1 or less if all the zombies are updated
+     * in every phase)
+     */
+    public int getIdleZombieUpdatePeriod() {
+        return idleZombieUpdatePeriod;
+    }
 
     /**
      * Sets the number of phases needed for infected humans to become zombies.
@@ -164,4 +228,32 @@ public class ZombieEpidemicConfiguration {
     public void setZombieOlfactoryDistance(int zombieOlfactoryDistance) {
         this.zombieOlfactoryDistance = zombieOlfactoryDistance;
     }
+
+    /**
+     * Sets if the zombies that don't perceive any human follow the shortest 
+     * path to the nearest healthy human.
+     * @param pursuitFieldEnabled <code>true</code> to enable the pursuit field
+     */
+    public void setPursuitFieldEnabled(boolean pursuitFieldEnabled) {
+        this.pursuitFieldEnabled = pursuitFieldEnabled;
+    }
+    
+    /**
+     * Sets if the zombies smell the scent that the healthy humans leave in 
+     * the cells instead of the humans within the olfactory distance.
+     * @param scentFieldEnabled <code>true</code> to enable the scent field
+     */
+    public void setScentFieldEnabled(boolean scentFieldEnabled) {
+        this.scentFieldEnabled = scentFieldEnabled;
+    }
+    
+    /**
+     * Sets the number of phases between the updates of the zombies that have
+     * nothing to perceive around them.
+     * @param idleZombieUpdatePeriod the number of phases (1 or less to update
+     * all the zombies in every phase)
+     */
+    public void setIdleZombieUpdatePeriod(int idleZombieUpdatePeriod) {
+        this.idleZombieUpdatePeriod = idleZombieUpdatePeriod;
+    }
 }
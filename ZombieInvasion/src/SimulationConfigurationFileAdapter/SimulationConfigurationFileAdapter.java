@@ -20,6 +20,7 @@ package SimulationConfigurationFileAdapter;
 import SimulationConfiguration.SimulationConfiguration;
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -68,6 +69,16 @@ public class SimulationConfigurationFileAdapter {
         marshaller.marshal(config, file);
     }
     
+    /**
+     * Writes a <code>SimulationConfiguration</code> object as XML in an output stream.
+     * @param config the <code>SimulationConfiguration</code> object.
+     * @param out the output stream
+     * @throws JAXBException thrown if a problem occurs during the writing of the XML
+     */
+    public void write(SimulationConfiguration config, OutputStream out) throws JAXBException {
+        marshaller.marshal(config, out);
+    }
+    
     /**
      * Reads a <code>SimulationConfiguration</code> object from an input stream 
      * of a valid XML file.
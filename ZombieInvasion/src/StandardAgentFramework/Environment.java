@@ -18,8 +18,9 @@
 package StandardAgentFramework;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents the environment of a simulation based on intelligent agents.
@@ -30,16 +31,57 @@ public abstract class Environment {
     /**
      * List of handlers of the execution of the environment.
      */
-    private final ArrayList<RunEnvironmentEventsHandler> eventsHandler;
+    private final CopyOnWriteArrayList<RunEnvironmentEventsHandler> eventsHandler;
     
     /**
-     * Boolean flag used to stop manually the current execution of the environment.
+     * The current automatic execution of the environment (<code>null</code> if 
+     * it isn't executing).
      */
-    private volatile boolean stop;
+    private volatile PhaseExecution execution;
+    
+    /**
+     * Boolean flag used to pause manually the current execution of the environment.
+     */
+    private volatile boolean paused;
+    
+    /**
+     * The nanoseconds between phases of the automatic execution (its meaning 
+     * depends on the scheduling mode).
+     */
+    private volatile long phasePeriodNanos;
+    
+    /**
+     * Ratio between the simulated time and the real time used in the 
+     * <code>RealTimeFactor</code> scheduling mode.
+     */
+    private volatile double realTimeFactor;
+    
+    /**
+     * Number of phases that started later than scheduled.
+     */
+    private volatile long phaseOverruns;
+    
+    /**
+     * Boolean value indicating if the automatic execution must use only a fraction
+     * of the processor time (for example, when the simulation isn't visible).
+     */
+    private volatile boolean throttled;
+    
+    /**
+     * Object used to block the execution while it's paused.
+     */
+    private final Object pauseLock;
     
     //PublicConstructors
     public Environment() {
-        this.eventsHandler = new ArrayList<>();
+        this.eventsHandler    = new CopyOnWriteArrayList<>();
+        this.execution        = null;
+        this.pauseLock        = new Object();
+        this.paused           = false;
+        this.phasePeriodNanos = 0;
+        this.realTimeFactor   = 1;
+        this.phaseOverruns    = 0;
+        this.throttled        = false;
     }
     
     //Abstract Methods
@@ -118,55 +160,297 @@ public abstract class Environment {
     }
     
     /**
-     * Move the environment automatically until the simulation is finished or the user
-     * stops it manually (with the <code>stop</code> function). 
-     * @param millisBetweenPhases the minimum number of milliseconds between phases
+     * Move the environment automatically in the calling thread until the simulation 
+     * is finished, the user stops it manually (with the <code>stop</code> function)
+     * or the thread is interrupted. The phases start at a fixed rate.
+     * @param millisBetweenPhases the number of milliseconds between the start of two phases
      */
     public void run(long millisBetweenPhases) {
-        long time, sleepTime;
+        this.run(PhaseSchedulingMode.FixedRate, TimeUnit.MILLISECONDS.toNanos(millisBetweenPhases));
+    }
+    
+    /**
+     * Move the environment automatically in the calling thread until the simulation 
+     * is finished, the user stops it manually (with the <code>stop</code> function)
+     * or the thread is interrupted (the interrupted status is kept).
+     * @param mode the scheduling mode of the phases
+     * @param phasePeriodNanos the nanoseconds between phases (its meaning depends on the mode)
+     */
+    public void run(PhaseSchedulingMode mode, long phasePeriodNanos) {
+        final PhaseExecution newExecution;
         
-        this.stop = false;
+        this.setPhasePeriodNanos(phasePeriodNanos);
         
-        while(!stop && !this.finalStateAchieved()) {
-            time = - System.currentTimeMillis();
-            
-            //Execute the handlers before running the phase
-            for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
-                handler.beforeRunOnePhase();
-            }
+        newExecution = new PhaseExecution(this, mode, null);
+        
+        this.startExecution(newExecution);
+        newExecution.runBlocking();
+    }
+    
+    /**
+     * Starts the automatic execution of the environment in the shared phase scheduler 
+     * and returns immediately. The execution finishes when the simulation is finished
+     * or the user stops it manually (with the <code>stop</code> function).
+     * @param mode the scheduling mode of the phases
+     * @param phasePeriodNanos the nanoseconds between phases (its meaning depends on the mode)
+     */
+    public void start(PhaseSchedulingMode mode, long phasePeriodNanos) {
+        this.start(PhaseScheduler.getSharedScheduler(), mode, phasePeriodNanos);
+    }
+    
+    /**
+     * Starts the automatic execution of the environment in a phase scheduler and 
+     * returns immediately. The execution finishes when the simulation is finished
+     * or the user stops it manually (with the <code>stop</code> function).
+     * @param scheduler the scheduler that will execute the phases
+     * @param mode the scheduling mode of the phases
+     * @param phasePeriodNanos the nanoseconds between phases (its meaning depends on the mode)
+     */
+    public void start(PhaseScheduler scheduler, PhaseSchedulingMode mode, long phasePeriodNanos) {
+        final PhaseExecution newExecution;
+        
+        this.setPhasePeriodNanos(phasePeriodNanos);
+        
+        newExecution = new PhaseExecution(this, mode, scheduler.getExecutor());
+        
+        this.startExecution(newExecution);
+        newExecution.start();
+    }
+    
+    /**
+     * Stop the environment execution manually.
+     */
+    public void stop() {
+        final PhaseExecution currentExecution;
+        
+        currentExecution = this.execution;
+        
+        if(currentExecution != null) {
+            currentExecution.stop();
+        }
+        
+        //Wake up the execution if it's paused
+        this.resume();
+    }
+    
+    /**
+     * Pauses the current execution of the environment after the phase in progress.
+     * The execution can be continued with the <code>resume</code> function.
+     */
+    public void pause() {
+        this.paused = true;
+    }
+    
+    /**
+     * Continues the execution of the environment if it was paused.
+     */
+    public void resume() {
+        final PhaseExecution currentExecution;
+        
+        synchronized(this.pauseLock) {
+            this.paused      = false;
+            currentExecution = this.execution;
             
-            //Run the environment one phase
-            this.runOnePhase();
+            this.pauseLock.notifyAll();
             
-            //Execute the handlers after running the phase
-            for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
-                handler.afterRunOnePhase();
+            if(currentExecution != null) {
+                currentExecution.unpark();
             }
+        }
+    }
+    
+    /**
+     * Checks if the execution of the environment is paused.
+     * @return <code>true</code> if the execution is paused, <code>false</code> otherwise
+     */
+    public boolean isPaused() {
+        return this.paused;
+    }
+    
+    /**
+     * Checks if the environment is currently executing automatically.
+     * @return <code>true</code> if the environment is executing, <code>false</code> otherwise
+     */
+    public boolean isRunning() {
+        return this.execution != null;
+    }
+    
+    /**
+     * Returns the scheduling mode of the current execution.
+     * @return the scheduling mode (<code>null</code> if the environment isn't executing)
+     */
+    public PhaseSchedulingMode getSchedulingMode() {
+        final PhaseExecution currentExecution;
+        
+        currentExecution = this.execution;
+        
+        return currentExecution == null ? null : currentExecution.getMode();
+    }
+    
+    /**
+     * Returns the nanoseconds between phases of the current (or last) execution.
+     * @return the number of nanoseconds
+     */
+    public long getPhasePeriodNanos() {
+        return this.phasePeriodNanos;
+    }
+    
+    /**
+     * Changes the nanoseconds between phases of the current execution.
+     * @param phasePeriodNanos the number of nanoseconds
+     */
+    public void setPhasePeriodNanos(long phasePeriodNanos) {
+        if(phasePeriodNanos < 0) {
+            throw new IllegalArgumentException("El temps entre fases no pot ser negatiu.");
+        }
+        
+        this.phasePeriodNanos = phasePeriodNanos;
+    }
+    
+    /**
+     * Returns the number of milliseconds between phases of the current (or last) execution.
+     * @return the number of milliseconds
+     */
+    public long getMillisBetweenPhases() {
+        return TimeUnit.NANOSECONDS.toMillis(this.phasePeriodNanos);
+    }
+    
+    /**
+     * Changes the number of milliseconds between phases of the current execution.
+     * @param millisBetweenPhases the number of milliseconds
+     */
+    public void setMillisBetweenPhases(long millisBetweenPhases) {
+        if(millisBetweenPhases < 0) {
+            throw new IllegalArgumentException("El nombre de mil·lisegons entre fases no pot ser negatiu.");
+        }
+        
+        this.phasePeriodNanos = TimeUnit.MILLISECONDS.toNanos(millisBetweenPhases);
+    }
+    
+    /**
+     * Returns the ratio between the simulated time and the real time used in the
+     * <code>RealTimeFactor</code> scheduling mode.
+     * @return the real time factor
+     */
+    public double getRealTimeFactor() {
+        return this.realTimeFactor;
+    }
+    
+    /**
+     * Changes the ratio between the simulated time and the real time used in the
+     * <code>RealTimeFactor</code> scheduling mode (for example, with a factor of 2 
+     * the phases are executed twice as fast as the simulated time they represent).
+     * @param realTimeFactor the real time factor
+     */
+    public void setRealTimeFactor(double realTimeFactor) {
+        if(!(realTimeFactor > 0) || Double.isInfinite(realTimeFactor)) {
+            throw new IllegalArgumentException("El factor de temps real ha de ser positiu.");
+        }
+        
+        this.realTimeFactor = realTimeFactor;
+    }
+    
+    /**
+     * Returns the number of phases that started later than scheduled.
+     * @return the number of overruns
+     */
+    public long getPhaseOverruns() {
+        return this.phaseOverruns;
+    }
+    
+    /**
+     * Checks if the automatic execution is throttled.
+     * @return <code>true</code> if the execution is throttled, <code>false</code> otherwise
+     */
+    public boolean isThrottled() {
+        return this.throttled;
+    }
+    
+    /**
+     * Indicates if the automatic execution must be throttled. A throttled execution
+     * waits between phases at least three times the duration of the last phase, so 
+     * it doesn't use more than a quarter of the time of a thread of the scheduler 
+     * and lets the rest of the environments execute first.
+     * @param throttled the boolean value indicating if the execution must be throttled
+     */
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+    
+    //Package Methods
+    /**
+     * Returns the object used to block the execution while it's paused.
+     * @return the lock object
+     */
+    Object getPauseLock() {
+        return this.pauseLock;
+    }
+    
+    /**
+     * Runs one phase executing the handlers before and after it.
+     */
+    void runOnePhaseWithHandlers() {
+        //Execute the handlers before running the phase
+        for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
+            handler.beforeRunOnePhase();
+        }
+
+        //Run the environment one phase
+        this.runOnePhase();
+
+        //Execute the handlers after running the phase
+        for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
+            handler.afterRunOnePhase();
+        }
+    }
+    
+    /**
+     * Reports that a phase started later than scheduled.
+     * @param latenessNanos the nanoseconds of delay
+     */
+    void phaseOverrun(long latenessNanos) {
+        this.phaseOverruns++;
+        
+        for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
+            handler.whenPhaseOverrun(latenessNanos);
+        }
+    }
+    
+    /**
+     * Called when an execution finishes.
+     * @param finishedExecution the execution
+     */
+    void executionFinished(PhaseExecution finishedExecution) {
+        final boolean isCurrentExecution;
+        
+        synchronized(this.pauseLock) {
+            isCurrentExecution = this.execution == finishedExecution;
             
-            time += System.currentTimeMillis();
-            
-            //Sleep the thread if necessary 
-            sleepTime = millisBetweenPhases - time;
-                        
-            if(sleepTime > 0) {
-                try {
-                    Thread.sleep(sleepTime);
-                } catch (InterruptedException ex) {}
+            if(isCurrentExecution) {
+                this.execution = null;
             }
         }
         
         //Execute handlers if necessary
-        if(this.finalStateAchieved()) {
+        if(isCurrentExecution && this.finalStateAchieved()) {
             for(RunEnvironmentEventsHandler handler: this.eventsHandler) {
                 handler.whenFinalStateAchieved();
             }
         }
     }
     
+    //Private Methods
     /**
-     * Stop the environment execution manually.
+     * Sets the current execution of the environment, stopping the previous one.
+     * @param newExecution the new execution
      */
-    public void stop() {
-        this.stop = true;
+    private void startExecution(PhaseExecution newExecution) {
+        synchronized(this.pauseLock) {
+            if(this.execution != null) {
+                this.execution.stop();
+            }
+            
+            this.execution = newExecution;
+        }
     }
 }
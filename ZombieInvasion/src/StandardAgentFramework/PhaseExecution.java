@@ -0,0 +1,376 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package StandardAgentFramework;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents one automatic execution of an environment. It calculates
+ * when each phase must start according to the scheduling mode, measuring the time
+ * with <code>System.nanoTime</code> from a fixed reference so the timing errors 
+ * don't accumulate. The execution can run in the calling thread (<code>runBlocking</code>)
+ * or as a chain of tasks of a phase scheduler (one task per phase).
+ * @author Xavier
+ */
+class PhaseExecution implements Runnable {
+    //Constants
+    /**
+     * Maximum number of phases that a fixed rate execution will try to catch up.
+     * If the execution is later, the reference time will be reset.
+     */
+    private final static int MAX_CATCH_UP_PHASES = 10;
+    
+    /**
+     * Maximum fraction of the time of a thread that a throttled execution can use.
+     */
+    private final static double THROTTLED_DUTY_CYCLE = 0.25;
+    
+    //Attributes
+    /**
+     * The environment executed.
+     */
+    private final Environment environment;
+    
+    /**
+     * The scheduling mode of the execution.
+     */
+    private final PhaseSchedulingMode mode;
+    
+    /**
+     * The executor of the phases (<code>null</code> if the execution runs in the calling thread).
+     */
+    private final ScheduledExecutorService executor;
+    
+    /**
+     * Boolean flag used to stop the execution.
+     */
+    private volatile boolean stopped;
+    
+    /**
+     * Boolean value indicating if the execution is waiting to be resumed (only used 
+     * when the execution runs in a scheduler). It's protected by the pause lock of
+     * the environment.
+     */
+    private boolean parked;
+    
+    /**
+     * Reference time (in nanoseconds) from which the start of the phases is calculated.
+     */
+    private long referenceTime;
+    
+    /**
+     * Number of phases executed since the reference time.
+     */
+    private long phasesSinceReference;
+    
+    /**
+     * Nanoseconds between the start of two phases used since the reference time.
+     */
+    private long referenceInterval;
+    
+    //Public Constructors
+    public PhaseExecution(Environment environment, PhaseSchedulingMode mode, ScheduledExecutorService executor) {
+        this.environment = environment;
+        this.mode        = mode;
+        this.executor    = executor;
+        this.stopped     = false;
+        this.parked      = false;
+    }
+    
+    //Overridden Methods
+    /**
+     * Executes one phase and schedules the next one.
+     */
+    @Override
+    public void run() {
+        final long delay, phaseStartTime;
+        
+        if(this.stopped || this.environment.finalStateAchieved()) {
+            this.environment.executionFinished(this);
+            
+            return;
+        }
+        
+        synchronized(this.environment.getPauseLock()) {
+            if(this.environment.isPaused()) {
+                //Wait until the environment is resumed
+                this.parked = true;
+                
+                return;
+            }
+        }
+        
+        phaseStartTime = System.nanoTime();
+        
+        try {
+            this.environment.runOnePhaseWithHandlers();
+        } 
+        catch (RuntimeException | Error ex) {
+            //Finish the execution and report the error (the scheduler would hide it)
+            this.stopped = true;
+            
+            this.environment.executionFinished(this);
+            
+            Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), ex);
+            
+            return;
+        }
+        
+        delay = this.calculateNextPhaseDelay(phaseStartTime, System.nanoTime());
+        
+        this.schedule(delay);
+    }
+    
+    //Public Methods
+    /**
+     * Starts the execution in the phase scheduler.
+     */
+    public void start() {
+        this.setReferenceTime(System.nanoTime());
+        this.schedule(0);
+    }
+    
+    /**
+     * Executes the phases in the calling thread until the execution is stopped,
+     * the thread is interrupted or the environment reaches a final state.
+     */
+    public void runBlocking() {
+        long delay, phaseStartTime;
+        
+        this.setReferenceTime(System.nanoTime());
+        
+        try {
+            while(!this.stopped && !this.environment.finalStateAchieved()) {
+                //Wait while the execution is paused
+                if(this.waitWhilePaused()) {
+                    this.setReferenceTime(System.nanoTime());
+                }
+
+                if(!this.stopped) {
+                    //Run the phase and wait until the next one must start
+                    phaseStartTime = System.nanoTime();
+                    
+                    this.environment.runOnePhaseWithHandlers();
+
+                    delay = this.calculateNextPhaseDelay(phaseStartTime, System.nanoTime());
+
+                    if(delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                }
+            }
+        } 
+        catch (InterruptedException ex) {
+            //Restore the interrupted status and stop the execution
+            Thread.currentThread().interrupt();
+            
+            this.stopped = true;
+        }
+        finally {
+            this.environment.executionFinished(this);
+        }
+    }
+    
+    /**
+     * Stops the execution after the current phase.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+    
+    /**
+     * Continues the execution if it was waiting to be resumed. It must be called 
+     * with the pause lock of the environment held.
+     */
+    public void unpark() {
+        if(this.parked) {
+            this.parked = false;
+            
+            this.setReferenceTime(System.nanoTime());
+            this.schedule(0);
+        }
+    }
+    
+    /**
+     * Returns the scheduling mode of the execution.
+     * @return the scheduling mode
+     */
+    public PhaseSchedulingMode getMode() {
+        return this.mode;
+    }
+    
+    //Private Methods
+    /**
+     * Schedules the execution of the next phase.
+     * @param delay the nanoseconds to wait before executing the phase
+     */
+    private void schedule(long delay) {
+        try {
+            this.executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+        } 
+        catch (RejectedExecutionException ex) {
+            //The scheduler has been shut down
+            this.stopped = true;
+            
+            this.environment.executionFinished(this);
+        }
+    }
+    
+    /**
+     * Blocks the calling thread while the environment is paused and the execution
+     * hasn't been stopped.
+     * @return <code>true</code> if the thread has been blocked, <code>false</code> otherwise
+     * @throws InterruptedException if the thread is interrupted while it's blocked
+     */
+    private boolean waitWhilePaused() throws InterruptedException {
+        final Object pauseLock;
+        boolean waited;
+        
+        pauseLock = this.environment.getPauseLock();
+        waited    = false;
+        
+        synchronized(pauseLock) {
+            while(this.environment.isPaused() && !this.stopped) {
+                pauseLock.wait();
+                
+                waited = true;
+            }
+        }
+        
+        return waited;
+    }
+    
+    /**
+     * Sets the reference time from which the start of the next phases is calculated.
+     * @param time the reference time (in nanoseconds)
+     */
+    private void setReferenceTime(long time) {
+        this.referenceTime        = time;
+        this.phasesSinceReference = 0;
+        this.referenceInterval    = this.getPhaseInterval();
+    }
+    
+    /**
+     * Returns the nanoseconds between the start of two phases according to the 
+     * current period and real time factor of the environment.
+     * @return the nanoseconds between phases
+     */
+    private long getPhaseInterval() {
+        final long interval;
+        
+        if(this.mode == PhaseSchedulingMode.RealTimeFactor) {
+            interval = (long)(this.environment.getPhasePeriodNanos() / this.environment.getRealTimeFactor());
+        }
+        else {
+            interval = this.environment.getPhasePeriodNanos();
+        }
+        
+        return interval;
+    }
+    
+    /**
+     * Calculates the nanoseconds to wait before starting the next phase. If the 
+     * environment is throttled, the delay is enlarged so the execution doesn't use
+     * more than a fraction of the time of a thread (the overruns aren't reported 
+     * in this case).
+     * @param phaseStartTime the time when the last phase started (in nanoseconds)
+     * @param now the current time (in nanoseconds)
+     * @return the nanoseconds to wait (0 if the next phase must start immediately)
+     */
+    private long calculateNextPhaseDelay(long phaseStartTime, long now) {
+        final long minThrottledDelay, modeDelay;
+        final long delay;
+        
+        if(this.environment.isThrottled()) {
+            minThrottledDelay = (long)((now - phaseStartTime) * (1 / THROTTLED_DUTY_CYCLE - 1));
+            modeDelay         = this.mode == PhaseSchedulingMode.MaxThroughput ? 0 : this.getPhaseInterval();
+            delay             = Math.max(minThrottledDelay, modeDelay);
+            
+            //Start counting from the next phase when the execution isn't throttled anymore
+            this.setReferenceTime(now + delay);
+        }
+        else {
+            delay = this.calculateScheduledDelay(now);
+        }
+        
+        return delay;
+    }
+    
+    /**
+     * Calculates the nanoseconds to wait before starting the next phase according
+     * to the scheduling mode and reports the overrun if the next phase should 
+     * already have started.
+     * @param now the current time (in nanoseconds)
+     * @return the nanoseconds to wait (0 if the next phase must start immediately)
+     */
+    private long calculateScheduledDelay(long now) {
+        final long interval, lateness;
+        long delay;
+        
+        switch(this.mode) {
+            case MaxThroughput:
+                delay = 0;
+                break;
+            case FixedDelay:
+                delay = this.environment.getPhasePeriodNanos();
+                break;
+            default:
+                interval = this.getPhaseInterval();
+                
+                if(interval == 0) {
+                    //Without interval the phases start immediately, as in the MaxThroughput
+                    //mode, and they are never late (the reference is kept updated, so 
+                    //the counting starts again if the interval changes)
+                    this.setReferenceTime(now);
+                    
+                    delay = 0;
+                }
+                else if(interval != this.referenceInterval) {
+                    //The period has changed: start counting from the next phase
+                    this.setReferenceTime(now + interval);
+                    
+                    delay = interval;
+                }
+                else {
+                    this.phasesSinceReference++;
+                    
+                    delay = this.referenceTime + this.phasesSinceReference * interval - now;
+                    
+                    if(delay < 0) {
+                        //The next phase should already have started
+                        lateness = -delay;
+                        delay    = 0;
+                        
+                        this.environment.phaseOverrun(lateness);
+                        
+                        if(this.mode == PhaseSchedulingMode.RealTimeFactor 
+                           || lateness > MAX_CATCH_UP_PHASES * interval) {
+                            
+                            //Delay the rest of the phases instead of catching up
+                            this.setReferenceTime(now);
+                        }
+                    }
+                }
+                break;
+        }
+        
+        return delay;
+    }
+}
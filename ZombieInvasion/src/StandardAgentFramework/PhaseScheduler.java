@@ -0,0 +1,108 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package StandardAgentFramework;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class executes the phases of several environments using a fixed number of 
+ * threads. Each phase is scheduled as an independent task, so the environments 
+ * don't need a dedicated thread while they are waiting for the next phase.
+ * @author Xavier
+ */
+public class PhaseScheduler {
+    //Attributes
+    /**
+     * Executor of the phases.
+     */
+    private final ScheduledThreadPoolExecutor executor;
+    
+    //Public Constructors
+    public PhaseScheduler(int numberOfThreads) {
+        if(numberOfThreads <= 0) {
+            throw new IllegalArgumentException("El nombre de fils ha de ser positiu.");
+        }
+        
+        this.executor = new ScheduledThreadPoolExecutor(numberOfThreads, createThreadFactory());
+        
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+    
+    //Public Static Methods
+    /**
+     * Returns the scheduler shared by all the environments of the application. It
+     * uses one thread per available processor except one (reserved for the user 
+     * interface), so the simulations can't use all the processors.
+     * @return the shared scheduler
+     */
+    public static PhaseScheduler getSharedScheduler() {
+        return SharedSchedulerHolder.SHARED_SCHEDULER;
+    }
+    
+    //Public Methods
+    /**
+     * Stops the scheduler. The environments executing with this scheduler will finish
+     * after its current phase.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+    
+    //Package Methods
+    /**
+     * Returns the executor of the phases.
+     * @return the executor
+     */
+    ScheduledExecutorService getExecutor() {
+        return this.executor;
+    }
+    
+    //Private Static Methods
+    /**
+     * Creates the factory of the threads of a scheduler (daemon threads, so they 
+     * don't prevent the application from exiting).
+     * @return the factory
+     */
+    private static ThreadFactory createThreadFactory() {
+        return new ThreadFactory() {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread;
+                
+                thread = new Thread(r, "Phase Scheduler Thread " + this.threadNumber.incrementAndGet());
+                
+                thread.setDaemon(true);
+                
+                return thread;
+            }
+        };
+    }
+    
+    //Private Classes
+    /**
+     * Holder of the shared scheduler (it's created the first time it's used).
+     */
+    private static class SharedSchedulerHolder {
+        private final static PhaseScheduler SHARED_SCHEDULER = new PhaseScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package StandardAgentFramework;
+
+/**
+ * Modes of pacing the phases of the automatic execution of an environment.
+ * @author Xavier
+ */
+public enum PhaseSchedulingMode {
+    /**
+     * The phases start at a fixed rate (one phase every period) measured from the 
+     * beginning of the execution, so the timing errors don't accumulate. When a phase
+     * takes longer than the period, the next phases are executed without waiting 
+     * until the execution catches up.
+     */
+    FixedRate,
+    
+    /**
+     * The execution waits the period between the end of a phase and the beginning 
+     * of the next one.
+     */
+    FixedDelay,
+    
+    /**
+     * The phases are executed as fast as possible (the period is ignored).
+     */
+    MaxThroughput,
+    
+    /**
+     * The period is the simulated time represented by a phase and the phases are
+     * executed at a rate proportional to the real time (the real time factor of 
+     * the environment). When a phase takes longer than expected, the simulated time
+     * is delayed instead of executing the next phases without waiting.
+     */
+    RealTimeFactor
+}
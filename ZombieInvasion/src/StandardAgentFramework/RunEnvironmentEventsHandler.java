@@ -36,6 +36,13 @@ public abstract class RunEnvironmentEventsHandler {
      */
     public void afterRunOnePhase() {}
     
+    /**
+     * Function that will be called when a phase of the execution of an environment
+     * starts later than scheduled.
+     * @param latenessNanos the nanoseconds of delay
+     */
+    public void whenPhaseOverrun(long latenessNanos) {}
+    
     /**
      * Function that will be called when the simulation has reached a final state
      * (a finishing state).
@@ -0,0 +1,118 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package StandardAgentFramework;
+
+import java.util.Random;
+
+/**
+ * Random numbers generator whose internal state can be read and restored, so a 
+ * simulation can be saved and resumed with the same sequence of random numbers.
+ * It generates exactly the same sequences as <code>java.util.Random</code> (it 
+ * uses the same linear congruential generator), but it isn't thread-safe.
+ * @author Xavier
+ */
+public class SimulationRandom extends Random {
+    //Constants
+    private final static long MULTIPLIER = 0x5DEECE66DL,
+                              ADDEND     = 0xBL,
+                              MASK       = (1L << 48) - 1;
+    
+    //Attributes
+    /**
+     * Current state of the generator (48 bits).
+     */
+    private long state;
+    
+    /**
+     * Second gaussian value generated by the last call of <code>nextGaussian</code>.
+     */
+    private double nextNextGaussian;
+    
+    /**
+     * Boolean value indicating if <code>nextNextGaussian</code> has to be returned
+     * in the next call of <code>nextGaussian</code>.
+     */
+    private boolean haveNextNextGaussian;
+    
+    //Public Constructors
+    public SimulationRandom() {
+        super();
+    }
+    
+    public SimulationRandom(long seed) {
+        super(seed);
+    }
+    
+    //Overridden Methods
+    @Override
+    public void setSeed(long seed) {
+        //NOTE: this function is called by the constructor of Random
+        this.state                = (seed ^ MULTIPLIER) & MASK;
+        this.haveNextNextGaussian = false;
+    }
+    
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        
+        return (int)(this.state >>> (48 - bits));
+    }
+    
+    @Override
+    public double nextGaussian() {
+        final double gaussian;
+        double v1, v2, s, multiplier;
+        
+        if(this.haveNextNextGaussian) {
+            this.haveNextNextGaussian = false;
+            gaussian                  = this.nextNextGaussian;
+        }
+        else {
+            do {
+                v1 = 2 * this.nextDouble() - 1;
+                v2 = 2 * this.nextDouble() - 1;
+                s  = v1 * v1 + v2 * v2;
+            } while(s >= 1 || s == 0);
+            
+            multiplier                = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+            this.nextNextGaussian     = v2 * multiplier;
+            this.haveNextNextGaussian = true;
+            gaussian                  = v1 * multiplier;
+        }
+        
+        return gaussian;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the current internal state of the generator.
+     * @return the state
+     */
+    public long getState() {
+        return this.state;
+    }
+    
+    /**
+     * Restores an internal state of the generator obtained with <code>getState</code>.
+     * @param state the state
+     */
+    public void setState(long state) {
+        this.state                = state & MASK;
+        this.haveNextNextGaussian = false;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import SimulationConfiguration.SimulationConfiguration;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class finds the minimum value of a parameter (for example, the total 
+ * resources available with a purchase policy) for which the probability of 
+ * containing the outbreak reaches a target. The values of the parameter are 
+ * the grid values of the only parameter of a sweep definition, and the probability
+ * is assumed to grow with the value, so they are searched by bisection.
+ * <p>
+ * Each value is evaluated executing replicas (up to the replicas of the definition)
+ * until the Wilson interval of the probability is entirely above or below the
+ * target: clear values are decided with a few executions. The decision is taken 
+ * on the replicas in order, so it doesn't depend on which executions finish first,
+ * and the replicas use the same seeds for all the values (common random numbers).
+ * @author Xavier
+ */
+public class GoalSeek {
+    //Attributes
+    /**
+     * The definition of the search (a sweep with one parameter).
+     */
+    private final SweepDefinition definition;
+    
+    /**
+     * Target probability of containing the outbreak.
+     */
+    private final double target;
+    
+    /**
+     * Critical value of the confidence of the decisions.
+     */
+    private final double criticalValue;
+    
+    /**
+     * The cache of outcomes (<code>null</code> if the outcomes aren't cached).
+     */
+    private final ResultCache cache;
+    
+    /**
+     * Number of executions performed by the search.
+     */
+    private int executions;
+    
+    //Public Constructors
+    /**
+     * Creates a search.
+     * @param definition the definition (a sweep with one parameter with grid values,
+     * sorted in ascending order)
+     * @param target the target probability of containing the outbreak
+     * @param confidence the confidence of the decisions
+     * @param cache the cache of outcomes (<code>null</code> to not use a cache)
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    public GoalSeek(SweepDefinition definition, double target, double confidence, ResultCache cache) {
+        if(definition.getParameters().size() != 1 || !definition.getParameters().get(0).hasGridLevels()) {
+            throw new IllegalArgumentException("La cerca ha de tenir un únic paràmetre amb un nombre finit de valors.");
+        }
+        else if(target <= 0 || target >= 1) {
+            throw new IllegalArgumentException("L'objectiu ha de ser una probabilitat entre 0 i 1.");
+        }
+        else if(confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("La confiança ha de ser entre 0 i 1.");
+        }
+        
+        this.definition    = definition;
+        this.target        = target;
+        this.criticalValue = StatisticsUtils.getCriticalValue(confidence);
+        this.cache         = cache;
+    }
+    
+    //Public Methods
+    /**
+     * Executes the search.
+     * @param progress the stream where the progress is written (<code>null</code>
+     * to not write it)
+     * @return the minimum value that reaches the target (<code>NaN</code> if
+     * the maximum value doesn't reach it)
+     * @throws IOException if an outcome can't be stored in the cache
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public double run(PrintStream progress) throws IOException, InterruptedException {
+        final ExecutorService executor;
+        final double minimumValue;
+        int lowerLevel, upperLevel, level;
+        
+        executor        = Executors.newFixedThreadPool(this.definition.getThreads(), ParameterSweep.createThreadFactory());
+        this.executions = 0;
+        
+        try {
+            //The values below the lower level don't reach the target, and the
+            //upper level reaches it
+            lowerLevel = -1;
+            upperLevel = this.definition.getParameters().get(0).getGridLevels() - 1;
+            
+            if(this.reachesTarget(upperLevel, executor, progress)) {
+                while(upperLevel - lowerLevel > 1) {
+                    level = (lowerLevel + upperLevel) / 2;
+                    
+                    if(this.reachesTarget(level, executor, progress)) {
+                        upperLevel = level;
+                    }
+                    else {
+                        lowerLevel = level;
+                    }
+                }
+                
+                minimumValue = this.getValue(upperLevel);
+            }
+            else {
+                minimumValue = Double.NaN;
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        
+        return minimumValue;
+    }
+    
+    /**
+     * Returns the number of executions performed by the last search.
+     * @return the number of executions
+     */
+    public int getExecutions() {
+        return this.executions;
+    }
+    
+    //Private Methods
+    /**
+     * Returns a value of the parameter (rounded if its field is an integer).
+     * @param level the index of the grid value
+     * @return the value
+     */
+    private double getValue(int level) {
+        final double value;
+        
+        value = this.definition.getParameters().get(0).getGridValue(level);
+        
+        return this.definition.getAppliedValue(0, value);
+    }
+    
+    /**
+     * Decides if a value of the parameter reaches the target, executing replicas
+     * until the decision is clear or there aren't more replicas. The executions 
+     * still running when the decision is taken are cancelled.
+     * @param level the index of the grid value
+     * @param executor the executor of the replicas
+     * @param progress the stream where the progress is written (<code>null</code>
+     * to not write it)
+     * @return <code>true</code> if the value reaches the target
+     * @throws IOException if an outcome can't be stored in the cache
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private boolean reachesTarget(int level, ExecutorService executor, PrintStream progress) 
+            throws IOException, InterruptedException {
+        final CompletionService<Boolean> completionService;
+        final Map<Future<Boolean>, Integer> running;
+        final Boolean[] contained;
+        final double value;
+        final int replicas;
+        Future<Boolean> execution;
+        Boolean decision;
+        double lowerBound, upperBound;
+        int submitted, decided, successes;
+        
+        value             = this.getValue(level);
+        completionService = new ExecutorCompletionService<>(executor);
+        running           = new IdentityHashMap<>();
+        replicas          = this.definition.getReplicas();
+        contained         = new Boolean[replicas];
+        decision          = null;
+        lowerBound        = 0;
+        upperBound        = 1;
+        submitted         = 0;
+        decided           = 0;
+        successes         = 0;
+        
+        try {
+            while(submitted < Math.min(this.definition.getThreads(), replicas)) {
+                running.put(completionService.submit(this.createExecution(value, submitted)), submitted);
+                submitted++;
+            }
+            
+            while(decision == null) {
+                execution = completionService.take();
+                
+                contained[running.remove(execution)] = execution.get();
+                
+                this.executions++;
+                
+                //Update the decision with the replicas finished in order
+                while(decision == null && decided < replicas && contained[decided] != null) {
+                    if(contained[decided]) {
+                        successes++;
+                    }
+                    
+                    decided++;
+                    
+                    lowerBound = StatisticsUtils.getWilsonLowerBound(successes, decided, this.criticalValue);
+                    upperBound = StatisticsUtils.getWilsonUpperBound(successes, decided, this.criticalValue);
+                    
+                    if(lowerBound >= this.target) {
+                        decision = true;
+                    }
+                    else if(upperBound < this.target) {
+                        decision = false;
+                    }
+                    else if(decided == replicas) {
+                        decision = (double)successes / decided >= this.target;
+                    }
+                }
+                
+                if(decision == null && submitted < replicas) {
+                    running.put(completionService.submit(this.createExecution(value, submitted)), submitted);
+                    submitted++;
+                }
+            }
+        }
+        catch (ExecutionException ex) {
+            if(ex.getCause() instanceof IOException) {
+                throw (IOException)ex.getCause();
+            }
+            
+            throw new IllegalStateException("Ha fallat una execució de la cerca.", ex.getCause());
+        }
+        finally {
+            for(Future<Boolean> runningExecution: running.keySet()) {
+                runningExecution.cancel(true);
+            }
+        }
+        
+        if(progress != null) {
+            progress.println(String.format(Locale.ROOT, "Valor %s: %d/%d contencions, interval [%.3f, %.3f] -> %s", 
+                                           formatValue(value, this.definition.isIntegerParameter(0)), 
+                                           successes, decided, lowerBound, upperBound, 
+                                           decision ? "assoleix l'objectiu" : "no assoleix l'objectiu"));
+        }
+        
+        return decision;
+    }
+    
+    /**
+     * Creates the task of a replica of a value.
+     * @param value the value of the parameter
+     * @param replica the index of the replica
+     * @return the task, which returns a boolean value indicating if the outbreak
+     * was contained
+     */
+    private Callable<Boolean> createExecution(final double value, final int replica) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                final SimulationConfiguration configuration;
+                final SimulationOutcome outcome;
+                final long seed;
+                
+                seed          = definition.getExecutionSeed(replica);
+                configuration = definition.createConfiguration(new double[] {value});
+                
+                if(cache != null) {
+                    outcome = cache.simulate(configuration, definition.getPurchasePolicy(), seed, definition.getMaxPhases());
+                }
+                else {
+                    outcome = SimulationOutcome.simulate(configuration, definition.getPurchasePolicy(), seed, definition.getMaxPhases());
+                }
+                
+                return outcome.isOutbreakContained();
+            }
+        };
+    }
+    
+    //Public Static Methods
+    /**
+     * Formats a value of the parameter.
+     * @param value the value
+     * @param integer boolean value indicating if the field of the parameter is an integer
+     * @return the text of the value
+     */
+    public static String formatValue(double value, boolean integer) {
+        return integer ? Long.toString((long)value) : Double.toString(value);
+    }
+}
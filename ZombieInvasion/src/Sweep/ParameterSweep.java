@@ -0,0 +1,505 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import SimulationConfiguration.SimulationConfiguration;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class executes a parameter sweep: every point of the sweep is simulated
+ * as many times as replicas, using several threads, and the outcome of each 
+ * execution is written as a row of a CSV results table. The table is also the
+ * progress of the sweep: when the sweep is executed with an existing table, 
+ * the executions already written are skipped.
+ * @author Xavier
+ */
+public class ParameterSweep {
+    //Constants
+    /**
+     * Columns of the results table before the parameters and after them.
+     */
+    private final static String[] KEY_COLUMNS = {"punt", "replica", "llavor"},
+                                  OUTCOME_COLUMNS = {"fases", "sans", "infectats", "zombis", "morts", 
+                                                     "recursos_gastats", "estat_final"};
+    
+    //Attributes
+    /**
+     * The definition of the sweep.
+     */
+    private final SweepDefinition definition;
+    
+    /**
+     * The results table.
+     */
+    private final File resultsFile;
+    
+    /**
+     * The cache of outcomes (<code>null</code> if the outcomes aren't cached).
+     */
+    private final ResultCache cache;
+    
+    //Public Constructors
+    public ParameterSweep(SweepDefinition definition, File resultsFile, ResultCache cache) {
+        this.definition  = definition;
+        this.resultsFile = resultsFile;
+        this.cache       = cache;
+    }
+    
+    public ParameterSweep(SweepDefinition definition, File resultsFile) {
+        this(definition, resultsFile, null);
+    }
+    
+    //Public Methods
+    /**
+     * Executes the executions of the sweep that aren't in the results table yet.
+     * If the sweep has a stopping rule, the replicas of a point are executed in
+     * order until the rule is satisfied by the first replicas; then, its pending
+     * replicas are cancelled and the threads execute the replicas of the other 
+     * points (the replicas finished before the cancellation are also written).
+     * @param progress the stream where the progress is written (<code>null</code>
+     * to not write it)
+     * @return the number of executions performed
+     * @throws IOException if the results table can't be read or written, or it 
+     * doesn't correspond to the sweep
+     * @throws InterruptedException if the thread is interrupted (the executions
+     * written are kept, so the sweep can be resumed)
+     */
+    public int run(PrintStream progress) throws IOException, InterruptedException {
+        final List<double[]> points;
+        final Map<Long, SimulationOutcome> completed;
+        final Map<Future<SimulationOutcome>, Long> running;
+        final ExecutorService executor;
+        final CompletionService<SimulationOutcome> completionService;
+        final SimulationOutcome[] outcomes;
+        final PointState[] states;
+        final int replicas, total;
+        Future<SimulationOutcome> execution;
+        long executionKey;
+        int pending, done, performed, point, replica;
+        
+        points    = this.definition.createPoints();
+        replicas  = this.definition.getReplicas();
+        total     = points.size() * replicas;
+        completed = this.readCompletedExecutions(points);
+        running   = new IdentityHashMap<>();
+        outcomes  = new SimulationOutcome[total];
+        states    = new PointState[points.size()];
+        pending   = 0;
+        done      = completed.size();
+        performed = 0;
+        executor  = Executors.newFixedThreadPool(this.definition.getThreads(), createThreadFactory());
+        
+        completionService = new ExecutorCompletionService<>(executor);
+        
+        for(Map.Entry<Long, SimulationOutcome> entry: completed.entrySet()) {
+            outcomes[(int)(long)entry.getKey()] = entry.getValue();
+        }
+        
+        for(point = 0; point < points.size(); point++) {
+            states[point] = new PointState();
+            
+            this.updatePointState(states[point], outcomes, point);
+        }
+        
+        try(Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.resultsFile, true), StandardCharsets.UTF_8))) {
+            if(completed.isEmpty()) {
+                output.write(this.createHeader() + "\n");
+                output.flush();
+            }
+            
+            for(point = 0; point < points.size(); point++) {
+                for(replica = 0; replica < replicas && !states[point].stopped; replica++) {
+                    if(outcomes[point * replicas + replica] == null) {
+                        execution = completionService.submit(this.createExecution(points.get(point), replica));
+                        
+                        running.put(execution, (long)point * replicas + replica);
+                        
+                        pending++;
+                    }
+                }
+            }
+            
+            if(progress != null) {
+                progress.println("Execucions: " + done + " fetes, " + pending + " pendents de " + total + ".");
+            }
+            
+            //Write the rows as the executions finish (each row is flushed, so
+            //an interrupted sweep loses only the executions in progress)
+            for(int i = 0; i < pending; i++) {
+                execution    = completionService.take();
+                executionKey = running.remove(execution);
+                
+                if(!execution.isCancelled()) {
+                    point   = (int)(executionKey / replicas);
+                    replica = (int)(executionKey % replicas);
+                    
+                    outcomes[(int)executionKey] = execution.get();
+                    
+                    output.write(this.createRow(point, points.get(point), replica, outcomes[(int)executionKey]) + "\n");
+                    output.flush();
+                    
+                    done++;
+                    performed++;
+                    
+                    if(progress != null) {
+                        progress.println("Execucions completades: " + done + "/" + total);
+                    }
+                    
+                    if(!states[point].stopped && this.updatePointState(states[point], outcomes, point)) {
+                        this.cancelExecutions(running, point);
+                        
+                        if(progress != null) {
+                            progress.println("Punt " + point + " aturat després de " + states[point].replicas + " rèpliques.");
+                        }
+                    }
+                }
+            }
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("Ha fallat una execució de l'escombrat.", ex.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        
+        if(progress != null && this.cache != null) {
+            progress.println("Memòria cau: " + this.cache.getHits() + " resultats reutilitzats, " 
+                             + this.cache.getMisses() + " simulats.");
+        }
+        
+        return performed;
+    }
+    
+    //Private Methods
+    /**
+     * Creates the header of the results table.
+     * @return the header
+     */
+    private String createHeader() {
+        final StringBuilder header;
+        
+        header = new StringBuilder();
+        
+        for(String column: KEY_COLUMNS) {
+            header.append(column).append(',');
+        }
+        
+        for(SweepParameter parameter: this.definition.getParameters()) {
+            header.append(parameter.getPath()).append(',');
+        }
+        
+        for(String column: OUTCOME_COLUMNS) {
+            header.append(column).append(',');
+        }
+        
+        header.setLength(header.length() - 1);
+        
+        return header.toString();
+    }
+    
+    /**
+     * Creates a row of the results table.
+     * @param point the index of the point
+     * @param values the values of the parameters of the point
+     * @param replica the index of the replica
+     * @param outcome the outcome of the execution
+     * @return the row
+     */
+    private String createRow(int point, double[] values, int replica, SimulationOutcome outcome) {
+        final StringBuilder row;
+        
+        row = new StringBuilder();
+        
+        row.append(point).append(',').append(replica).append(',').append(this.definition.getExecutionSeed(replica));
+        
+        //Values applied to the fields (the values of the integer fields are rounded)
+        for(int i = 0; i < values.length; i++) {
+            row.append(',').append(this.definition.getAppliedValue(i, values[i]));
+        }
+        
+        row.append(',').append(outcome.getPhases())
+           .append(',').append(outcome.getHealthy())
+           .append(',').append(outcome.getInfected())
+           .append(',').append(outcome.getZombies())
+           .append(',').append(outcome.getDead())
+           .append(',').append(outcome.getResourcesSpent())
+           .append(',').append(outcome.isFinalState());
+        
+        return row.toString();
+    }
+    
+    /**
+     * Adds the consecutive replicas finished of a point to its state and checks 
+     * the stopping rule.
+     * @param state the state of the point
+     * @param outcomes the outcomes of the executions (<code>null</code> if they 
+     * haven't finished)
+     * @param point the index of the point
+     * @return <code>true</code> if the point has been stopped
+     */
+    private boolean updatePointState(PointState state, SimulationOutcome[] outcomes, int point) {
+        final StoppingRule rule;
+        final int replicas;
+        double value;
+        
+        rule     = this.definition.getStoppingRule();
+        replicas = this.definition.getReplicas();
+        
+        while(rule != null && !state.stopped && state.replicas < replicas 
+              && outcomes[point * replicas + state.replicas] != null) {
+            value = rule.getValue(outcomes[point * replicas + state.replicas]);
+            
+            state.replicas++;
+            state.sum          += value;
+            state.sumOfSquares += value * value;
+            state.stopped       = rule.isSatisfied(state.replicas, state.sum, state.sumOfSquares);
+        }
+        
+        return state.stopped;
+    }
+    
+    /**
+     * Cancels the executions of a point that haven't finished.
+     * @param running the executions that haven't finished (execution of the sweep 
+     * of each one)
+     * @param point the index of the point
+     */
+    private void cancelExecutions(Map<Future<SimulationOutcome>, Long> running, int point) {
+        for(Map.Entry<Future<SimulationOutcome>, Long> entry: running.entrySet()) {
+            if(entry.getValue() / this.definition.getReplicas() == point) {
+                entry.getKey().cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * Reads the executions already written in the results table. An incomplete
+     * last row (left by an interrupted sweep) is removed from the file.
+     * @param points the points of the sweep
+     * @return the outcomes of the executions written (by point * replicas + replica)
+     * @throws IOException if the table can't be read or it doesn't correspond to the sweep
+     */
+    private Map<Long, SimulationOutcome> readCompletedExecutions(List<double[]> points) throws IOException {
+        final Map<Long, SimulationOutcome> completed;
+        final List<String> rows;
+        final String header;
+        final int columns, replicas;
+        String row;
+        String[] values;
+        int point, replica;
+        
+        completed = new HashMap<>();
+        rows      = new ArrayList<>();
+        header    = this.createHeader();
+        columns   = header.split(",").length;
+        replicas  = this.definition.getReplicas();
+        
+        if(this.resultsFile.exists() && this.resultsFile.length() > 0) {
+            try(BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(this.resultsFile), StandardCharsets.UTF_8))) {
+                if(!header.equals(input.readLine())) {
+                    throw new IOException("El fitxer de resultats " + this.resultsFile + " no correspon a l'escombrat.");
+                }
+                
+                rows.add(header);
+                
+                row = input.readLine();
+                
+                while(row != null) {
+                    values = row.split(",");
+                    
+                    if(values.length == columns && isBoolean(values[columns - 1])) {
+                        point   = Integer.parseInt(values[0]);
+                        replica = Integer.parseInt(values[1]);
+                        
+                        if(!this.isRowOf(values, points, point, replica)) {
+                            throw new IOException("El fitxer de resultats " + this.resultsFile + " no correspon a l'escombrat.");
+                        }
+                        
+                        completed.put((long)point * replicas + replica, parseOutcome(values));
+                        rows.add(row);
+                    }
+                    
+                    row = input.readLine();
+                }
+            }
+            
+            //Rewrite the table without the invalid rows, so the new rows are
+            //appended after a complete row
+            try(Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.resultsFile), StandardCharsets.UTF_8))) {
+                for(String validRow: rows) {
+                    output.write(validRow + "\n");
+                }
+            }
+        }
+        
+        return completed;
+    }
+    
+    /**
+     * Returns a boolean value indicating if a row of the results table is an
+     * execution of the sweep (its point exists and has the same values).
+     * @param values the values of the row
+     * @param points the points of the sweep
+     * @param point the index of the point of the row
+     * @param replica the index of the replica of the row
+     * @return <code>true</code> if it's an execution of the sweep
+     */
+    private boolean isRowOf(String[] values, List<double[]> points, int point, int replica) {
+        boolean valid;
+        
+        valid = point >= 0 && point < points.size() && replica >= 0 && replica < this.definition.getReplicas() 
+                && values[2].equals(Long.toString(this.definition.getExecutionSeed(replica)));
+        
+        for(int i = 0; valid && i < this.definition.getParameters().size(); i++) {
+            valid = values[KEY_COLUMNS.length + i].equals(Double.toString(this.definition.getAppliedValue(i, points.get(point)[i])));
+        }
+        
+        return valid;
+    }
+    
+    /**
+     * Creates the task of an execution of the sweep. If there's a cache, the
+     * outcome is taken from it when it has been stored by a previous execution
+     * with the same configuration and seed (of this sweep or another one).
+     * @param values the values of the parameters of the point
+     * @param replica the index of the replica
+     * @return the task, which returns the outcome of the execution
+     */
+    private Callable<SimulationOutcome> createExecution(final double[] values, final int replica) {
+        return new Callable<SimulationOutcome>() {
+            @Override
+            public SimulationOutcome call() throws Exception {
+                final SimulationConfiguration configuration;
+                final SimulationOutcome outcome;
+                final long seed;
+                
+                seed          = definition.getExecutionSeed(replica);
+                configuration = definition.createConfiguration(values);
+                
+                if(cache != null) {
+                    outcome = cache.simulate(configuration, definition.getPurchasePolicy(), seed, definition.getMaxPhases());
+                }
+                else {
+                    outcome = SimulationOutcome.simulate(configuration, definition.getPurchasePolicy(), seed, definition.getMaxPhases());
+                }
+                
+                return outcome;
+            }
+        };
+    }
+    
+    //Package Static Methods
+    /**
+     * Creates the factory of the threads of the sweep (daemon threads, so they 
+     * don't prevent the application from exiting).
+     * @return the factory
+     */
+    static ThreadFactory createThreadFactory() {
+        return new ThreadFactory() {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread;
+                
+                thread = new Thread(r, "Sweep Thread " + this.threadNumber.incrementAndGet());
+                
+                thread.setDaemon(true);
+                
+                return thread;
+            }
+        };
+    }
+    
+    //Private Static Methods
+    /**
+     * Returns a boolean value indicating if a value of the table is a boolean.
+     * @param value the value
+     * @return <code>true</code> if it's "true" or "false"
+     */
+    private static boolean isBoolean(String value) {
+        return value.equals("true") || value.equals("false");
+    }
+    
+    /**
+     * Reads the outcome of a row of the results table (its last columns).
+     * @param values the values of the row
+     * @return the outcome
+     * @throws NumberFormatException if a value isn't a number
+     */
+    private static SimulationOutcome parseOutcome(String[] values) {
+        final int first;
+        
+        first = values.length - OUTCOME_COLUMNS.length;
+        
+        return new SimulationOutcome(Integer.parseInt(values[first]), Integer.parseInt(values[first + 1]), 
+                                     Integer.parseInt(values[first + 2]), Integer.parseInt(values[first + 3]), 
+                                     Integer.parseInt(values[first + 4]), Integer.parseInt(values[first + 5]), 
+                                     Boolean.parseBoolean(values[first + 6]));
+    }
+    
+    //Private Classes
+    /**
+     * State of the stopping rule of a point.
+     */
+    private static class PointState {
+        /**
+         * Number of consecutive replicas (from the first one) finished.
+         */
+        int replicas;
+        
+        /**
+         * Sum of the values of the metric of the replicas.
+         */
+        double sum;
+        
+        /**
+         * Sum of the squares of the values of the metric of the replicas.
+         */
+        double sumOfSquares;
+        
+        /**
+         * Boolean value indicating if the rule has been satisfied.
+         */
+        boolean stopped;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import Environment.ZombieEpidemicEnvironment;
+
+/**
+ * Purchases made automatically in the batch executions, where there isn't a 
+ * user buying resources. The resources are spent at the start of the simulation,
+ * buying only the kits needed to cover all the healthy humans.
+ * @author Xavier
+ */
+public enum PurchasePolicy {
+    /**
+     * Nothing is bought.
+     */
+    None,
+    
+    /**
+     * Vaccination kits are bought and used.
+     */
+    Vaccination,
+    
+    /**
+     * Weapon kits are bought and used.
+     */
+    Weapons;
+    
+    //Public Methods
+    /**
+     * Makes the purchases of the policy. It must be called before every phase, 
+     * but it only buys before the first one.
+     * @param environment the environment
+     */
+    public void apply(ZombieEpidemicEnvironment environment) {
+        final int humansPerKit;
+        int kits;
+        
+        if(environment.getPhase() == 0) {
+            switch(this) {
+                case Vaccination:
+                    humansPerKit = environment.getConfiguration().getResources().getVaccination().getVaccinatedPerVaccinationKit();
+                    kits         = (humansPerKit > 0) ? environment.buyVaccinationKits(ceilDivision(environment.getHealthyCount(), humansPerKit)) : 0;
+                    
+                    while(kits-- > 0) {
+                        environment.useVaccinationKit();
+                    }
+                    break;
+                case Weapons:
+                    humansPerKit = environment.getConfiguration().getResources().getWeapon().getArmedPerWeaponKit();
+                    kits         = (humansPerKit > 0) ? environment.buyWeaponKits(ceilDivision(environment.getHealthyCount(), humansPerKit)) : 0;
+                    
+                    while(kits-- > 0) {
+                        environment.useWeaponKit();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    //Public Static Methods
+    /**
+     * Converts the name of a policy, as it's written in the definitions and the 
+     * command line (<code>none</code>, <code>vaccination</code> or 
+     * <code>weapons</code>), to its value.
+     * @param name the name
+     * @return the policy
+     * @throws IllegalArgumentException if the name isn't valid
+     */
+    public static PurchasePolicy parse(String name) {
+        final PurchasePolicy policy;
+        
+        switch(name.trim()) {
+            case "none":
+                policy = None;
+                break;
+            case "vaccination":
+                policy = Vaccination;
+                break;
+            case "weapons":
+                policy = Weapons;
+                break;
+            default:
+                throw new IllegalArgumentException("Política de compres desconeguda: " + name + ".");
+        }
+        
+        return policy;
+    }
+    
+    //Private Static Methods
+    /**
+     * Divides two positive integers rounding up.
+     * @param dividend the dividend
+     * @param divisor the divisor
+     * @return the quotient rounded up
+     */
+    private static int ceilDivision(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import Environment.ZombieEpidemicEnvironment;
+import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Persistent cache of the outcomes of the simulations, stored in a directory 
+ * (one file per outcome). An outcome is identified by a hash of the configuration
+ * in canonical form (the inaccessible cells are sorted, so the order of the set
+ * doesn't matter), the purchase policy, the seed, the maximum number of phases
+ * and the version of the simulation engine. The cache can be shared by several threads and processes:
+ * the files are written to a temporary file and renamed.
+ * @author Xavier
+ */
+public class ResultCache {
+    //Constants
+    /**
+     * Number identifying the outcome files ("ZOUT").
+     */
+    private final static int MAGIC_NUMBER = 0x5A4F5554;
+    
+    /**
+     * Extension of the outcome files.
+     */
+    private final static String OUTCOME_FILE_EXTENSION = ".outcome";
+    
+    //Attributes
+    /**
+     * The directory of the cache.
+     */
+    private final File directory;
+    
+    /**
+     * Number of outcomes found in the cache.
+     */
+    private final AtomicInteger hits;
+    
+    /**
+     * Number of outcomes not found in the cache.
+     */
+    private final AtomicInteger misses;
+    
+    //Public Constructors
+    /**
+     * Opens a cache (the directory is created if it doesn't exist).
+     * @param directory the directory of the cache
+     * @throws IOException if the directory can't be created
+     */
+    public ResultCache(File directory) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("No s'ha pogut crear el directori de la memòria cau " + directory + ".");
+        }
+        
+        this.directory = directory;
+        this.hits      = new AtomicInteger();
+        this.misses    = new AtomicInteger();
+    }
+    
+    //Public Methods
+    /**
+     * Returns the outcome of a simulation, from the cache if it has been stored
+     * or executing the simulation (and storing its outcome) otherwise.
+     * @param configuration the configuration of the simulation
+     * @param seed the seed of the random numbers generator
+     * @param maxPhases the maximum number of phases (negative to execute until 
+     * the final state)
+     * @return the outcome of the simulation
+     * @throws IOException if the outcome can't be stored
+     * @throws InterruptedException if the thread is interrupted during the execution
+     */
+    public SimulationOutcome simulate(SimulationConfiguration configuration, long seed, int maxPhases) 
+            throws IOException, InterruptedException {
+        return this.simulate(configuration, PurchasePolicy.None, seed, maxPhases);
+    }
+    
+    /**
+     * Returns the outcome of a simulation with a purchase policy, from the cache
+     * if it has been stored or executing the simulation (and storing its outcome)
+     * otherwise.
+     * @param configuration the configuration of the simulation
+     * @param policy the purchase policy
+     * @param seed the seed of the random numbers generator
+     * @param maxPhases the maximum number of phases (negative to execute until 
+     * the final state)
+     * @return the outcome of the simulation
+     * @throws IOException if the outcome can't be stored
+     * @throws InterruptedException if the thread is interrupted during the execution
+     */
+    public SimulationOutcome simulate(SimulationConfiguration configuration, PurchasePolicy policy, long seed, int maxPhases) 
+            throws IOException, InterruptedException {
+        final String key;
+        SimulationOutcome outcome;
+        
+        key     = computeKey(configuration, policy, seed, maxPhases);
+        outcome = this.get(key);
+        
+        if(outcome == null) {
+            outcome = SimulationOutcome.simulate(configuration, policy, seed, maxPhases);
+            
+            this.misses.incrementAndGet();
+            this.put(key, outcome);
+        }
+        else {
+            this.hits.incrementAndGet();
+        }
+        
+        return outcome;
+    }
+    
+    /**
+     * Returns a stored outcome.
+     * @param key the key of the outcome (see <code>computeKey</code>)
+     * @return the outcome (<code>null</code> if it isn't stored or its file is damaged)
+     */
+    public SimulationOutcome get(String key) {
+        final File file;
+        SimulationOutcome outcome;
+        
+        file    = this.getFile(key);
+        outcome = null;
+        
+        if(file.isFile()) {
+            try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if(input.readInt() == MAGIC_NUMBER) {
+                    outcome = new SimulationOutcome(input.readInt(), input.readInt(), input.readInt(), 
+                                                    input.readInt(), input.readInt(), input.readInt(), 
+                                                    input.readBoolean());
+                }
+            }
+            catch (IOException ex) {
+                //A damaged file is considered as not stored (it will be overwritten)
+                outcome = null;
+            }
+        }
+        
+        return outcome;
+    }
+    
+    /**
+     * Stores an outcome.
+     * @param key the key of the outcome (see <code>computeKey</code>)
+     * @param outcome the outcome
+     * @throws IOException if the outcome can't be stored
+     */
+    public void put(String key, SimulationOutcome outcome) throws IOException {
+        final File file, temporaryFile;
+        
+        file = this.getFile(key);
+        
+        if(!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("No s'ha pogut crear el directori " + file.getParentFile() + ".");
+        }
+        
+        temporaryFile = File.createTempFile(key, ".tmp", file.getParentFile());
+        
+        try {
+            try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC_NUMBER);
+                output.writeInt(outcome.getPhases());
+                output.writeInt(outcome.getHealthy());
+                output.writeInt(outcome.getInfected());
+                output.writeInt(outcome.getZombies());
+                output.writeInt(outcome.getDead());
+                output.writeInt(outcome.getResourcesSpent());
+                output.writeBoolean(outcome.isFinalState());
+            }
+            
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+    
+    /**
+     * Returns the number of outcomes found in the cache by <code>simulate</code>.
+     * @return the number of outcomes found
+     */
+    public int getHits() {
+        return this.hits.get();
+    }
+    
+    /**
+     * Returns the number of outcomes not found in the cache by <code>simulate</code>
+     * (the simulations executed).
+     * @return the number of outcomes not found
+     */
+    public int getMisses() {
+        return this.misses.get();
+    }
+    
+    //Private Methods
+    /**
+     * Returns the file of an outcome (the files are distributed in subdirectories
+     * by the first characters of the key).
+     * @param key the key of the outcome
+     * @return the file
+     */
+    private File getFile(String key) {
+        return new File(new File(this.directory, key.substring(0, 2)), key + OUTCOME_FILE_EXTENSION);
+    }
+    
+    //Public Static Methods
+    /**
+     * Computes the key of the outcome of a simulation: the SHA-256 hash of the 
+     * version of the engine, the purchase policy, the seed, the maximum number 
+     * of phases and the configuration in canonical form.
+     * @param configuration the configuration of the simulation
+     * @param policy the purchase policy
+     * @param seed the seed of the random numbers generator
+     * @param maxPhases the maximum number of phases (negative to execute until 
+     * the final state)
+     * @return the key (hexadecimal)
+     */
+    public static String computeKey(SimulationConfiguration configuration, PurchasePolicy policy, long seed, int maxPhases) {
+        final MessageDigest digest;
+        final StringBuilder key;
+        
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        
+        digest.update((ZombieEpidemicEnvironment.ENGINE_VERSION + ";" + policy + ";" + seed + ";" + Math.max(-1, maxPhases) + ";")
+                      .getBytes(StandardCharsets.UTF_8));
+        digest.update(toCanonicalXML(configuration));
+        
+        key = new StringBuilder();
+        
+        for(byte b: digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        
+        return key.toString();
+    }
+    
+    //Private Static Methods
+    /**
+     * Converts a configuration to XML in canonical form: the children of the 
+     * inaccessible cells element are sorted by their content.
+     * @param configuration the configuration
+     * @return the XML
+     */
+    private static byte[] toCanonicalXML(SimulationConfiguration configuration) {
+        final ByteArrayOutputStream xml, canonicalXML;
+        final Document document;
+        final NodeList cellsLists;
+        final List<Element> cells;
+        Node cellsList, child;
+        
+        xml          = new ByteArrayOutputStream();
+        canonicalXML = new ByteArrayOutputStream();
+        cells        = new ArrayList<>();
+        
+        try {
+            new SimulationConfigurationFileAdapter().write(configuration, xml);
+            
+            document   = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml.toByteArray()));
+            cellsLists = document.getElementsByTagName("InaccessibleCells");
+            
+            for(int i = 0; i < cellsLists.getLength(); i++) {
+                cellsList = cellsLists.item(i);
+                
+                cells.clear();
+                
+                //Remove the children and add the cells sorted (without whitespace)
+                while(cellsList.getFirstChild() != null) {
+                    child = cellsList.removeChild(cellsList.getFirstChild());
+                    
+                    if(child instanceof Element) {
+                        cells.add((Element)child);
+                    }
+                }
+                
+                Collections.sort(cells, new Comparator<Element>() {
+                    @Override
+                    public int compare(Element cell1, Element cell2) {
+                        return getContentKey(cell1).compareTo(getContentKey(cell2));
+                    }
+                });
+                
+                for(Element cell: cells) {
+                    cellsList.appendChild(cell);
+                }
+            }
+            
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(canonicalXML));
+        }
+        catch (JAXBException | ParserConfigurationException | SAXException | IOException | TransformerException ex) {
+            throw new IllegalStateException(ex);
+        }
+        
+        return canonicalXML.toByteArray();
+    }
+    
+    /**
+     * Returns the content of an element as a string of the names and values of
+     * its descendants, to sort the elements.
+     * @param element the element
+     * @return the string
+     */
+    private static String getContentKey(Element element) {
+        final StringBuilder key;
+        
+        key = new StringBuilder(element.getTagName());
+        
+        for(Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if(child instanceof Element) {
+                key.append('<').append(getContentKey((Element)child)).append('>');
+            }
+            else {
+                key.append(child.getTextContent().trim());
+            }
+        }
+        
+        return key.toString();
+    }
+}
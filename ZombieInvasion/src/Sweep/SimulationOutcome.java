@@ -0,0 +1,199 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import Environment.ZombieEpidemicEnvironment;
+import SimulationConfiguration.SimulationConfiguration;
+
+/**
+ * The final state of an execution of a simulation, as it's stored in the results
+ * of the batch executions.
+ * @author Xavier
+ */
+public class SimulationOutcome {
+    //Attributes
+    /**
+     * Number of phases executed.
+     */
+    private final int phases;
+    
+    /**
+     * Number of healthy humans at the end.
+     */
+    private final int healthy;
+    
+    /**
+     * Number of infected humans at the end.
+     */
+    private final int infected;
+    
+    /**
+     * Number of zombies at the end.
+     */
+    private final int zombies;
+    
+    /**
+     * Number of dead agents at the end.
+     */
+    private final int dead;
+    
+    /**
+     * Resources spent.
+     */
+    private final int resourcesSpent;
+    
+    /**
+     * Boolean value indicating if the simulation achieved its final state.
+     */
+    private final boolean finalState;
+    
+    //Public Constructors
+    public SimulationOutcome(int phases, int healthy, int infected, int zombies, int dead, 
+                             int resourcesSpent, boolean finalState) {
+        this.phases         = phases;
+        this.healthy        = healthy;
+        this.infected       = infected;
+        this.zombies        = zombies;
+        this.dead           = dead;
+        this.resourcesSpent = resourcesSpent;
+        this.finalState     = finalState;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the number of phases executed.
+     * @return the number of phases
+     */
+    public int getPhases() {
+        return this.phases;
+    }
+    
+    /**
+     * Returns the number of healthy humans at the end.
+     * @return the number of healthy humans
+     */
+    public int getHealthy() {
+        return this.healthy;
+    }
+    
+    /**
+     * Returns the number of infected humans at the end.
+     * @return the number of infected humans
+     */
+    public int getInfected() {
+        return this.infected;
+    }
+    
+    /**
+     * Returns the number of zombies at the end.
+     * @return the number of zombies
+     */
+    public int getZombies() {
+        return this.zombies;
+    }
+    
+    /**
+     * Returns the number of dead agents at the end.
+     * @return the number of dead agents
+     */
+    public int getDead() {
+        return this.dead;
+    }
+    
+    /**
+     * Returns the resources spent.
+     * @return the resources spent
+     */
+    public int getResourcesSpent() {
+        return this.resourcesSpent;
+    }
+    
+    /**
+     * Returns a boolean value indicating if the simulation achieved its final state
+     * (otherwise, it was stopped at the maximum number of phases).
+     * @return <code>true</code> if the final state was achieved
+     */
+    public boolean isFinalState() {
+        return this.finalState;
+    }
+    
+    /**
+     * Returns a boolean value indicating if the outbreak was contained: there 
+     * weren't infected humans nor zombies at the end.
+     * @return <code>true</code> if the outbreak was contained
+     */
+    public boolean isOutbreakContained() {
+        return this.infected == 0 && this.zombies == 0;
+    }
+    
+    //Public Static Methods
+    /**
+     * Executes a simulation until its final state or a maximum number of phases.
+     * @param configuration the configuration of the simulation
+     * @param seed the seed of the random numbers generator
+     * @param maxPhases the maximum number of phases (negative to execute until 
+     * the final state)
+     * @return the outcome of the simulation
+     * @throws InterruptedException if the thread is interrupted during the execution
+     */
+    public static SimulationOutcome simulate(SimulationConfiguration configuration, long seed, int maxPhases) 
+            throws InterruptedException {
+        return simulate(configuration, PurchasePolicy.None, seed, maxPhases);
+    }
+    
+    /**
+     * Executes a simulation until its final state or a maximum number of phases,
+     * making the purchases of a policy.
+     * @param configuration the configuration of the simulation
+     * @param policy the purchase policy
+     * @param seed the seed of the random numbers generator
+     * @param maxPhases the maximum number of phases (negative to execute until 
+     * the final state)
+     * @return the outcome of the simulation
+     * @throws InterruptedException if the thread is interrupted during the execution
+     */
+    public static SimulationOutcome simulate(SimulationConfiguration configuration, PurchasePolicy policy, 
+                                             long seed, int maxPhases) throws InterruptedException {
+        final ZombieEpidemicEnvironment environment;
+        final int resourcesSpent;
+        
+        environment = new ZombieEpidemicEnvironment(configuration, seed);
+        
+        try {
+            while(!environment.finalStateAchieved() && (maxPhases < 0 || environment.getPhase() < maxPhases)) {
+                if(Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                
+                policy.apply(environment);
+                environment.runOnePhase();
+            }
+            
+            resourcesSpent = configuration.getResources().getTotalResourcesAvailable() 
+                             - environment.getResourcesInformation().getTotalResourcesAvailable();
+            
+            return new SimulationOutcome(environment.getPhase(), environment.getHealthyCount(), 
+                                         environment.getInfectedCount(), environment.getZombifiedCount(), 
+                                         environment.getDeadCount(), 
+                                         resourcesSpent, environment.finalStateAchieved());
+        }
+        finally {
+            environment.dispose();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+/**
+ * This class contains util methods of statistics for the batch executions.
+ * @author Xavier
+ */
+public class StatisticsUtils {
+    //Public Static Methods
+    /**
+     * Returns the inverse of the cumulative distribution of the standard normal
+     * distribution (rational approximation of Acklam, with a relative error 
+     * below 1.15e-9).
+     * @param p the probability (between 0 and 1)
+     * @return the value
+     */
+    public static double inverseNormalDistribution(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 
+                            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 
+                            6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, 
+                            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 
+                            3.754408661907416e+00};
+        final double low, q, r;
+        double value;
+        
+        low = 0.02425;
+        
+        if(p <= 0) {
+            value = Double.NEGATIVE_INFINITY;
+        }
+        else if(p >= 1) {
+            value = Double.POSITIVE_INFINITY;
+        }
+        else if(p < low) {
+            q     = Math.sqrt(-2 * Math.log(p));
+            value = (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / 
+                    ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        else if(p <= 1 - low) {
+            q     = p - 0.5;
+            r     = q * q;
+            value = (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q / 
+                    (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+        }
+        else {
+            q     = Math.sqrt(-2 * Math.log(1 - p));
+            value = -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / 
+                     ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Returns the value of the standard normal distribution that leaves a 
+     * probability outside a two-sided confidence interval (for example, 1.96 
+     * for a confidence of 0.95).
+     * @param confidence the confidence (between 0 and 1)
+     * @return the value
+     */
+    public static double getCriticalValue(double confidence) {
+        return inverseNormalDistribution(1 - (1 - confidence) / 2);
+    }
+    
+    /**
+     * Returns the lower bound of the Wilson score interval of a proportion.
+     * @param successes the number of successes
+     * @param trials the number of trials (positive)
+     * @param criticalValue the critical value of the confidence (see <code>getCriticalValue</code>)
+     * @return the lower bound
+     */
+    public static double getWilsonLowerBound(int successes, int trials, double criticalValue) {
+        return getWilsonCenter(successes, trials, criticalValue) - getWilsonHalfWidth(successes, trials, criticalValue);
+    }
+    
+    /**
+     * Returns the upper bound of the Wilson score interval of a proportion.
+     * @param successes the number of successes
+     * @param trials the number of trials (positive)
+     * @param criticalValue the critical value of the confidence (see <code>getCriticalValue</code>)
+     * @return the upper bound
+     */
+    public static double getWilsonUpperBound(int successes, int trials, double criticalValue) {
+        return getWilsonCenter(successes, trials, criticalValue) + getWilsonHalfWidth(successes, trials, criticalValue);
+    }
+    
+    //Private Static Methods
+    /**
+     * Returns the center of the Wilson score interval of a proportion.
+     * @param successes the number of successes
+     * @param trials the number of trials
+     * @param criticalValue the critical value of the confidence
+     * @return the center
+     */
+    private static double getWilsonCenter(int successes, int trials, double criticalValue) {
+        final double z2;
+        
+        z2 = criticalValue * criticalValue;
+        
+        return (successes + z2 / 2) / (trials + z2);
+    }
+    
+    /**
+     * Returns the half of the width of the Wilson score interval of a proportion.
+     * @param successes the number of successes
+     * @param trials the number of trials
+     * @param criticalValue the critical value of the confidence
+     * @return the half of the width
+     */
+    private static double getWilsonHalfWidth(int successes, int trials, double criticalValue) {
+        final double z2, p;
+        
+        z2 = criticalValue * criticalValue;
+        p  = (double)successes / trials;
+        
+        return criticalValue / (trials + z2) * Math.sqrt(p * (1 - p) * trials + z2 / 4);
+    }
+}
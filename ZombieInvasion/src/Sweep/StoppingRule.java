@@ -0,0 +1,151 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+/**
+ * Sequential stopping rule of the replicas of a point: the point stops executing
+ * replicas when the confidence interval of a metric of its outcomes is narrower 
+ * than a target width. The metrics are:
+ * <ul>
+ *   <li><code>containment</code>: probability of containing the outbreak (Wilson
+ *   score interval)</li>
+ *   <li><code>healthy</code>, <code>infected</code>, <code>zombies</code> and 
+ *   <code>dead</code>: mean of the final counts (normal approximation interval)</li>
+ * </ul>
+ * @author Xavier
+ */
+public class StoppingRule {
+    //Constants
+    /**
+     * Names of the metrics.
+     */
+    private final static String CONTAINMENT = "containment", HEALTHY = "healthy", INFECTED = "infected", 
+                                ZOMBIES = "zombies", DEAD = "dead";
+    
+    //Attributes
+    /**
+     * The metric.
+     */
+    private final String metric;
+    
+    /**
+     * Target width of the confidence interval.
+     */
+    private final double width;
+    
+    /**
+     * Critical value of the confidence of the interval.
+     */
+    private final double criticalValue;
+    
+    /**
+     * Minimum number of replicas before the rule is checked.
+     */
+    private final int minReplicas;
+    
+    //Public Constructors
+    /**
+     * Creates a stopping rule.
+     * @param metric the name of the metric
+     * @param width the target width of the confidence interval
+     * @param confidence the confidence of the interval
+     * @param minReplicas the minimum number of replicas before the rule is checked
+     * @throws IllegalArgumentException if the arguments aren't valid
+     */
+    public StoppingRule(String metric, double width, double confidence, int minReplicas) {
+        switch(metric) {
+            case CONTAINMENT:
+            case HEALTHY:
+            case INFECTED:
+            case ZOMBIES:
+            case DEAD:
+                break;
+            default:
+                throw new IllegalArgumentException("Mètrica de la regla d'aturada desconeguda: " + metric + ".");
+        }
+        
+        if(width <= 0) {
+            throw new IllegalArgumentException("L'amplada de l'interval de la regla d'aturada ha de ser positiva.");
+        }
+        else if(confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("La confiança de la regla d'aturada ha de ser entre 0 i 1.");
+        }
+        else if(minReplicas < 2) {
+            throw new IllegalArgumentException("La regla d'aturada necessita almenys 2 rèpliques.");
+        }
+        
+        this.metric        = metric;
+        this.width         = width;
+        this.criticalValue = StatisticsUtils.getCriticalValue(confidence);
+        this.minReplicas   = minReplicas;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the value of the metric of an outcome.
+     * @param outcome the outcome
+     * @return the value (1 or 0 for the containment)
+     */
+    public double getValue(SimulationOutcome outcome) {
+        final double value;
+        
+        switch(this.metric) {
+            case CONTAINMENT:
+                value = outcome.isOutbreakContained() ? 1 : 0;
+                break;
+            case HEALTHY:
+                value = outcome.getHealthy();
+                break;
+            case INFECTED:
+                value = outcome.getInfected();
+                break;
+            case ZOMBIES:
+                value = outcome.getZombies();
+                break;
+            default:
+                value = outcome.getDead();
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Returns a boolean value indicating if a point can stop executing replicas.
+     * @param replicas the number of replicas of the point
+     * @param sum the sum of the values of the metric of the replicas
+     * @param sumOfSquares the sum of the squares of the values of the metric
+     * @return <code>true</code> if the confidence interval is narrower than the target
+     */
+    public boolean isSatisfied(int replicas, double sum, double sumOfSquares) {
+        final double intervalWidth, variance;
+        
+        if(replicas < this.minReplicas) {
+            intervalWidth = Double.POSITIVE_INFINITY;
+        }
+        else if(this.metric.equals(CONTAINMENT)) {
+            intervalWidth = StatisticsUtils.getWilsonUpperBound((int)sum, replicas, this.criticalValue) 
+                            - StatisticsUtils.getWilsonLowerBound((int)sum, replicas, this.criticalValue);
+        }
+        else {
+            variance      = Math.max(0, (sumOfSquares - sum * sum / replicas) / (replicas - 1));
+            intervalWidth = 2 * this.criticalValue * Math.sqrt(variance / replicas);
+        }
+        
+        return intervalWidth <= this.width;
+    }
+}
@@ -0,0 +1,758 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+import SimulationConfiguration.SimulationConfiguration;
+import SimulationConfigurationFileAdapter.SimulationConfigurationFileAdapter;
+import SimulationConfigurationFileAdapter.XMLFileError;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Definition of a parameter sweep, read from a properties file:
+ * <ul>
+ *   <li><code>config</code>: the base configuration file (relative to the 
+ *   definition file)</li>
+ *   <li><code>sampling</code>: <code>grid</code>, <code>lhs</code> (Latin hypercube)
+ *   or <code>random</code></li>
+ *   <li><code>samples</code>: number of points of the Latin hypercube and random samplings</li>
+ *   <li><code>replicas</code>: number of executions of each point (1 by default)</li>
+ *   <li><code>phases</code>: maximum number of phases of each execution (by default 
+ *   until the final state)</li>
+ *   <li><code>policy</code>: purchase policy of the executions (<code>none</code>,
+ *   <code>vaccination</code> or <code>weapons</code>, see <code>PurchasePolicy</code>;
+ *   <code>none</code> by default)</li>
+ *   <li><code>stop.metric</code>, <code>stop.width</code>, <code>stop.confidence</code>
+ *   and <code>stop.min-replicas</code>: stopping rule of the replicas of each point 
+ *   (see <code>StoppingRule</code>; the confidence is 0.95 and the minimum replicas
+ *   are 10 by default). With a rule, <code>replicas</code> is the maximum number
+ *   of replicas</li>
+ *   <li><code>seed</code>: seed of the sampling and of the executions (0 by default)</li>
+ *   <li><code>threads</code>: number of executions in parallel (by default, the 
+ *   number of processors)</li>
+ *   <li><code>parameter.path</code>: a parameter of the sweep (see <code>SweepParameter</code>)</li>
+ * </ul>
+ * Each point of the sweep is a copy of the base configuration with the values 
+ * of the parameters applied to the elements of its XML.
+ * @author Xavier
+ */
+public class SweepDefinition {
+    //Constants
+    /**
+     * Prefix of the properties of the parameters.
+     */
+    private final static String PARAMETER_PREFIX = "parameter.";
+    
+    //Attributes
+    /**
+     * The XML of the base configuration.
+     */
+    private final byte[] baseConfigurationXML;
+    
+    /**
+     * The parameters of the sweep (sorted by path).
+     */
+    private final List<SweepParameter> parameters;
+    
+    /**
+     * Boolean values indicating if the field of each parameter is an integer.
+     */
+    private final boolean[] integerParameters;
+    
+    /**
+     * The sampling method.
+     */
+    private final SweepSampling sampling;
+    
+    /**
+     * Number of points of the Latin hypercube and random samplings.
+     */
+    private final int samples;
+    
+    /**
+     * Number of executions of each point.
+     */
+    private final int replicas;
+    
+    /**
+     * Maximum number of phases of each execution (negative to execute until the
+     * final state).
+     */
+    private final int maxPhases;
+    
+    /**
+     * Purchase policy of the executions.
+     */
+    private final PurchasePolicy policy;
+    
+    /**
+     * Stopping rule of the replicas of each point (<code>null</code> to execute
+     * all the replicas).
+     */
+    private final StoppingRule stoppingRule;
+    
+    /**
+     * Seed of the sampling and of the executions.
+     */
+    private final long seed;
+    
+    /**
+     * Number of executions in parallel.
+     */
+    private final int threads;
+    
+    //Public Constructors
+    /**
+     * Creates a sweep definition.
+     * @param baseConfiguration the base configuration
+     * @param parameters the parameters
+     * @param sampling the sampling method
+     * @param samples the number of points of the Latin hypercube and random samplings
+     * @param replicas the number of executions of each point
+     * @param maxPhases the maximum number of phases of each execution (negative
+     * to execute until the final state)
+     * @param policy the purchase policy of the executions
+     * @param stoppingRule the stopping rule of the replicas of each point 
+     * (<code>null</code> to execute all the replicas)
+     * @param seed the seed of the sampling and of the executions
+     * @param threads the number of executions in parallel
+     * @throws IllegalArgumentException if the definition isn't valid
+     */
+    public SweepDefinition(SimulationConfiguration baseConfiguration, List<SweepParameter> parameters, 
+                           SweepSampling sampling, int samples, int replicas, int maxPhases, 
+                           PurchasePolicy policy, StoppingRule stoppingRule, long seed, int threads) {
+        final ByteArrayOutputStream xml;
+        
+        xml = new ByteArrayOutputStream();
+        
+        try {
+            new SimulationConfigurationFileAdapter().write(baseConfiguration, xml);
+        }
+        catch (JAXBException ex) {
+            throw new IllegalArgumentException("No s'ha pogut convertir la configuració base a XML.", ex);
+        }
+        
+        this.baseConfigurationXML = xml.toByteArray();
+        this.parameters           = Collections.unmodifiableList(new ArrayList<>(parameters));
+        this.integerParameters    = new boolean[parameters.size()];
+        this.sampling             = sampling;
+        this.samples              = samples;
+        this.replicas             = replicas;
+        this.maxPhases            = maxPhases;
+        this.policy               = policy;
+        this.stoppingRule         = stoppingRule;
+        this.seed                 = seed;
+        this.threads              = threads;
+        
+        this.validate();
+    }
+    
+    //Public Methods
+    /**
+     * Returns the parameters of the sweep.
+     * @return the parameters
+     */
+    public List<SweepParameter> getParameters() {
+        return this.parameters;
+    }
+    
+    /**
+     * Returns the sampling method.
+     * @return the sampling method
+     */
+    public SweepSampling getSampling() {
+        return this.sampling;
+    }
+    
+    /**
+     * Returns the number of executions of each point.
+     * @return the number of replicas
+     */
+    public int getReplicas() {
+        return this.replicas;
+    }
+    
+    /**
+     * Returns the maximum number of phases of each execution.
+     * @return the maximum number of phases (negative to execute until the final state)
+     */
+    public int getMaxPhases() {
+        return this.maxPhases;
+    }
+    
+    /**
+     * Returns the purchase policy of the executions.
+     * @return the purchase policy
+     */
+    public PurchasePolicy getPurchasePolicy() {
+        return this.policy;
+    }
+    
+    /**
+     * Returns the stopping rule of the replicas of each point.
+     * @return the stopping rule (<code>null</code> if all the replicas are executed)
+     */
+    public StoppingRule getStoppingRule() {
+        return this.stoppingRule;
+    }
+    
+    /**
+     * Returns a boolean value indicating if the field of a parameter is an integer
+     * (its values are rounded). It's determined by the type of the field of the
+     * configuration bound to the element of the parameter.
+     * @param parameter the index of the parameter
+     * @return <code>true</code> if the field is an integer
+     */
+    public boolean isIntegerParameter(int parameter) {
+        return this.integerParameters[parameter];
+    }
+    
+    /**
+     * Returns the value that is applied to the field of a parameter for a value
+     * of the parameter (rounded if the field is an integer).
+     * @param parameter the index of the parameter
+     * @param value the value of the parameter
+     * @return the value applied
+     */
+    public double getAppliedValue(int parameter, double value) {
+        return this.integerParameters[parameter] ? Math.rint(value) : value;
+    }
+    
+    /**
+     * Returns the seed of the sampling and of the executions.
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+    
+    /**
+     * Returns the number of executions in parallel.
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+    
+    /**
+     * Creates the points of the sweep. The points only depend on the definition,
+     * so they are the same when an interrupted sweep is resumed. The values of 
+     * the integer fields are rounded.
+     * @return the values of the parameters of each point
+     */
+    public List<double[]> createPoints() {
+        final List<double[]> points;
+        
+        switch(this.sampling) {
+            case Grid:
+                points = this.createGridPoints();
+                break;
+            case LatinHypercube:
+                points = this.createLatinHypercubePoints();
+                break;
+            default:
+                points = this.createRandomPoints();
+        }
+        
+        for(double[] point: points) {
+            for(int i = 0; i < point.length; i++) {
+                point[i] = this.getAppliedValue(i, point[i]);
+            }
+        }
+        
+        return points;
+    }
+    
+    /**
+     * Creates the configuration of a point of the sweep. The values of the integer
+     * fields are rounded.
+     * @param point the values of the parameters
+     * @return the configuration
+     * @throws IllegalArgumentException if the configuration with the values isn't valid
+     */
+    public SimulationConfiguration createConfiguration(double[] point) {
+        final Document document;
+        final ByteArrayOutputStream xml;
+        Element element;
+        String value;
+        
+        document = this.parseBaseConfiguration();
+        xml      = new ByteArrayOutputStream();
+        
+        for(int i = 0; i < this.parameters.size(); i++) {
+            element = findElement(document, this.parameters.get(i).getPath());
+            
+            if(this.integerParameters[i]) {
+                value = Long.toString((long)this.getAppliedValue(i, point[i]));
+            }
+            else {
+                value = Double.toString(point[i]);
+            }
+            
+            element.setTextContent(value);
+        }
+        
+        try {
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(xml));
+            
+            return new SimulationConfiguration(new SimulationConfigurationFileAdapter().read(new ByteArrayInputStream(xml.toByteArray())));
+        }
+        catch (TransformerException | JAXBException ex) {
+            throw new IllegalStateException(ex);
+        }
+        catch (XMLFileError ex) {
+            throw new IllegalArgumentException("La configuració del punt no és vàlida: " + ex.getMessage(), ex);
+        }
+    }
+    
+    /**
+     * Returns the seed of an execution of a point. The replicas with the same index
+     * use the same seed in all the points (common random numbers), so the 
+     * differences between points are less affected by the randomness.
+     * @param replica the index of the replica
+     * @return the seed
+     */
+    public long getExecutionSeed(int replica) {
+        long z;
+        
+        //SplitMix64 of the seed and the replica
+        z = this.seed + (replica + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        
+        return z ^ (z >>> 31);
+    }
+    
+    //Private Methods
+    /**
+     * Checks that the definition is valid and finds the integer fields.
+     * @throws IllegalArgumentException if it isn't valid
+     */
+    private void validate() {
+        final Document document;
+        Class<?> fieldType;
+        String path;
+        
+        if(this.parameters.isEmpty()) {
+            throw new IllegalArgumentException("L'escombrat ha de tenir almenys un paràmetre.");
+        }
+        else if(this.sampling != SweepSampling.Grid && this.samples <= 0) {
+            throw new IllegalArgumentException("El nombre de mostres ha de ser positiu.");
+        }
+        else if(this.replicas <= 0) {
+            throw new IllegalArgumentException("El nombre de rèpliques ha de ser positiu.");
+        }
+        else if(this.threads <= 0) {
+            throw new IllegalArgumentException("El nombre de fils ha de ser positiu.");
+        }
+        
+        document = this.parseBaseConfiguration();
+        
+        for(int i = 0; i < this.parameters.size(); i++) {
+            path      = this.parameters.get(i).getPath();
+            fieldType = getFieldType(path);
+            
+            findElement(document, path);
+            
+            if(fieldType == int.class || fieldType == long.class || fieldType == Integer.class || fieldType == Long.class) {
+                this.integerParameters[i] = true;
+            }
+            else if(fieldType == double.class || fieldType == float.class || fieldType == Double.class || fieldType == Float.class) {
+                this.integerParameters[i] = false;
+            }
+            else {
+                throw new IllegalArgumentException("El camp " + path + " de la configuració no és numèric.");
+            }
+            
+            if(this.sampling == SweepSampling.Grid && !this.parameters.get(i).hasGridLevels()) {
+                throw new IllegalArgumentException("El paràmetre " + this.parameters.get(i).getPath() + " no es pot utilitzar en un mostreig en graella.");
+            }
+        }
+    }
+    
+    /**
+     * Parses the XML of the base configuration.
+     * @return the document
+     */
+    private Document parseBaseConfiguration() {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(this.baseConfigurationXML));
+        }
+        catch (ParserConfigurationException | SAXException | IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    /**
+     * Creates all the combinations of the grid values of the parameters.
+     * @return the points
+     */
+    private List<double[]> createGridPoints() {
+        final List<double[]> points;
+        final int[] levels;
+        double[] point;
+        int parameter;
+        boolean finished;
+        
+        points   = new ArrayList<>();
+        levels   = new int[this.parameters.size()];
+        finished = false;
+        
+        while(!finished) {
+            point = new double[levels.length];
+            
+            for(int i = 0; i < levels.length; i++) {
+                point[i] = this.parameters.get(i).getGridValue(levels[i]);
+            }
+            
+            points.add(point);
+            
+            //Next combination (the last parameter changes first)
+            parameter = levels.length - 1;
+            
+            while(parameter >= 0 && ++levels[parameter] == this.parameters.get(parameter).getGridLevels()) {
+                levels[parameter] = 0;
+                parameter--;
+            }
+            
+            finished = parameter < 0;
+        }
+        
+        return points;
+    }
+    
+    /**
+     * Creates the points of a Latin hypercube sampling.
+     * @return the points
+     */
+    private List<double[]> createLatinHypercubePoints() {
+        final List<double[]> points;
+        final List<Integer> intervals;
+        final Random random;
+        
+        points    = new ArrayList<>(this.samples);
+        intervals = new ArrayList<>(this.samples);
+        random    = new Random(this.seed);
+        
+        for(int i = 0; i < this.samples; i++) {
+            points.add(new double[this.parameters.size()]);
+            intervals.add(i);
+        }
+        
+        for(int parameter = 0; parameter < this.parameters.size(); parameter++) {
+            //Assign a different interval of the parameter to each sample
+            Collections.shuffle(intervals, random);
+            
+            for(int i = 0; i < this.samples; i++) {
+                points.get(i)[parameter] = this.parameters.get(parameter)
+                                               .getQuantileValue((intervals.get(i) + random.nextDouble()) / this.samples);
+            }
+        }
+        
+        return points;
+    }
+    
+    /**
+     * Creates the points of a random sampling.
+     * @return the points
+     */
+    private List<double[]> createRandomPoints() {
+        final List<double[]> points;
+        final Random random;
+        double[] point;
+        
+        points = new ArrayList<>(this.samples);
+        random = new Random(this.seed);
+        
+        for(int i = 0; i < this.samples; i++) {
+            point = new double[this.parameters.size()];
+            
+            for(int parameter = 0; parameter < point.length; parameter++) {
+                point[parameter] = this.parameters.get(parameter).getQuantileValue(random.nextDouble());
+            }
+            
+            points.add(point);
+        }
+        
+        return points;
+    }
+    
+    //Public Static Methods
+    /**
+     * Reads a sweep definition from a properties file.
+     * @param file the file
+     * @return the sweep definition
+     * @throws IOException if a file can't be read
+     * @throws IllegalArgumentException if the definition isn't valid
+     */
+    public static SweepDefinition load(File file) throws IOException {
+        final Properties properties;
+        final TreeMap<String, String> parameterDefinitions;
+        final List<SweepParameter> parameters;
+        final SimulationConfiguration baseConfiguration;
+        final SweepSampling sampling;
+        final StoppingRule stoppingRule;
+        final String configurationPath;
+        File configurationFile;
+        
+        properties           = new Properties();
+        parameterDefinitions = new TreeMap<>();
+        parameters           = new ArrayList<>();
+        
+        try(InputStream input = new FileInputStream(file); Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        
+        //Base configuration
+        configurationPath = properties.getProperty("config");
+        
+        if(configurationPath == null) {
+            throw new IllegalArgumentException("Falta la configuració base (config).");
+        }
+        
+        configurationFile = new File(configurationPath);
+        
+        if(!configurationFile.isAbsolute()) {
+            configurationFile = new File(file.getAbsoluteFile().getParentFile(), configurationPath);
+        }
+        
+        try {
+            baseConfiguration = new SimulationConfiguration(new SimulationConfigurationFileAdapter().read(configurationFile));
+        }
+        catch (JAXBException | XMLFileError ex) {
+            throw new IOException("El fitxer XML no té el format correcte.", ex);
+        }
+        
+        //Parameters
+        for(String name: properties.stringPropertyNames()) {
+            if(name.startsWith(PARAMETER_PREFIX)) {
+                parameterDefinitions.put(name.substring(PARAMETER_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        
+        for(Map.Entry<String, String> entry: parameterDefinitions.entrySet()) {
+            parameters.add(SweepParameter.parse(entry.getKey(), entry.getValue()));
+        }
+        
+        sampling = parseSampling(properties.getProperty("sampling", "grid"));
+        
+        //Stopping rule
+        if(properties.getProperty("stop.metric") != null) {
+            stoppingRule = new StoppingRule(properties.getProperty("stop.metric").trim(), 
+                                            parseDouble(properties, "stop.width", 0), 
+                                            parseDouble(properties, "stop.confidence", 0.95), 
+                                            parseInt(properties, "stop.min-replicas", 10));
+        }
+        else {
+            stoppingRule = null;
+        }
+        
+        return new SweepDefinition(baseConfiguration, parameters, sampling, 
+                                   parseInt(properties, "samples", 0), parseInt(properties, "replicas", 1), 
+                                   parseInt(properties, "phases", -1), 
+                                   PurchasePolicy.parse(properties.getProperty("policy", "none")), stoppingRule, 
+                                   parseLong(properties, "seed", 0), 
+                                   parseInt(properties, "threads", Runtime.getRuntime().availableProcessors()));
+    }
+    
+    //Private Static Methods
+    /**
+     * Finds the element of a field in the configuration XML.
+     * @param document the configuration XML
+     * @param path the path of the element (the names of the elements from the
+     * root, separated by "/")
+     * @return the element
+     * @throws IllegalArgumentException if the element doesn't exist or it isn't a field
+     */
+    private static Element findElement(Document document, String path) {
+        Element element;
+        Node child;
+        boolean found;
+        
+        element = document.getDocumentElement();
+        
+        for(String name: path.split("/")) {
+            child = element.getFirstChild();
+            found = false;
+            
+            while(child != null && !found) {
+                found = child instanceof Element && ((Element)child).getTagName().equals(name);
+                
+                if(!found) {
+                    child = child.getNextSibling();
+                }
+            }
+            
+            if(!found) {
+                throw new IllegalArgumentException("El camp " + path + " no existeix a la configuració.");
+            }
+            
+            element = (Element)child;
+        }
+        
+        for(child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if(child instanceof Element) {
+                throw new IllegalArgumentException("L'element " + path + " de la configuració no és un camp.");
+            }
+        }
+        
+        return element;
+    }
+    
+    /**
+     * Returns the type of the field of the configuration classes bound to an 
+     * element of the configuration XML.
+     * @param path the path of the element (the names of the elements from the
+     * root, separated by "/")
+     * @return the type of the field
+     * @throws IllegalArgumentException if no field is bound to the element
+     */
+    private static Class<?> getFieldType(String path) {
+        Class<?> type;
+        Field[] fields;
+        XmlElement binding;
+        int index;
+        
+        type = SimulationConfiguration.class;
+        
+        for(String name: path.split("/")) {
+            fields = type.getDeclaredFields();
+            index  = 0;
+            
+            while(index < fields.length && ((binding = fields[index].getAnnotation(XmlElement.class)) == null || 
+                                            !binding.name().equals(name))) {
+                index++;
+            }
+            
+            if(index == fields.length) {
+                throw new IllegalArgumentException("El camp " + path + " no existeix a la configuració.");
+            }
+            
+            type = fields[index].getType();
+        }
+        
+        return type;
+    }
+    
+    /**
+     * Converts the name of a sampling method to its value.
+     * @param name the name
+     * @return the sampling method
+     * @throws IllegalArgumentException if the name isn't valid
+     */
+    private static SweepSampling parseSampling(String name) {
+        final SweepSampling sampling;
+        
+        switch(name.trim()) {
+            case "grid":
+                sampling = SweepSampling.Grid;
+                break;
+            case "lhs":
+                sampling = SweepSampling.LatinHypercube;
+                break;
+            case "random":
+                sampling = SweepSampling.Random;
+                break;
+            default:
+                throw new IllegalArgumentException("Mostreig desconegut: " + name + ".");
+        }
+        
+        return sampling;
+    }
+    
+    /**
+     * Reads an integer property.
+     * @param properties the properties
+     * @param name the name of the property
+     * @param defaultValue the value if the property doesn't exist
+     * @return the value
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    private static int parseInt(Properties properties, String name, int defaultValue) {
+        return (int)parseLong(properties, name, defaultValue);
+    }
+    
+    /**
+     * Reads an integer property.
+     * @param properties the properties
+     * @param name the name of the property
+     * @param defaultValue the value if the property doesn't exist
+     * @return the value
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    private static long parseLong(Properties properties, String name, long defaultValue) {
+        final String value;
+        
+        value = properties.getProperty(name);
+        
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El valor de " + name + " ha de ser un nombre: " + value + ".");
+        }
+    }
+    
+    /**
+     * Reads a real property.
+     * @param properties the properties
+     * @param name the name of the property
+     * @param defaultValue the value if the property doesn't exist
+     * @return the value
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    private static double parseDouble(Properties properties, String name, double defaultValue) {
+        final String value;
+        
+        value = properties.getProperty(name);
+        
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El valor de " + name + " ha de ser un nombre: " + value + ".");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+/**
+ * A parameter of a sweep: a field of the configuration, identified by the path
+ * of its element in the XML file (for example, 
+ * <code>HumanZombieInteraction/ZombieWinLoseRatio</code>), and the values it
+ * takes. The values are defined as:
+ * <ul>
+ *   <li><code>range min max levels</code>: values between <code>min</code> and 
+ *   <code>max</code> (<code>levels</code> equally spaced values in a grid sampling)</li>
+ *   <li><code>values v1 v2 ...</code>: a list of values</li>
+ *   <li><code>normal mean deviation</code>: a normal distribution (it can't be used
+ *   in a grid sampling)</li>
+ * </ul>
+ * @author Xavier
+ */
+public class SweepParameter {
+    //Constants
+    /**
+     * Kinds of definition of the values.
+     */
+    private final static String RANGE = "range", VALUES = "values", NORMAL = "normal";
+    
+    //Attributes
+    /**
+     * Path of the element of the field in the configuration XML.
+     */
+    private final String path;
+    
+    /**
+     * Kind of definition of the values.
+     */
+    private final String kind;
+    
+    /**
+     * Arguments of the definition of the values.
+     */
+    private final double[] arguments;
+    
+    //Private Constructors
+    private SweepParameter(String path, String kind, double[] arguments) {
+        this.path      = path;
+        this.kind      = kind;
+        this.arguments = arguments;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the path of the element of the field in the configuration XML.
+     * @return the path
+     */
+    public String getPath() {
+        return this.path;
+    }
+    
+    /**
+     * Returns a boolean value indicating if the parameter can be used in a grid
+     * sampling.
+     * @return <code>true</code> if it has a finite number of values
+     */
+    public boolean hasGridLevels() {
+        return !this.kind.equals(NORMAL);
+    }
+    
+    /**
+     * Returns the number of values of the parameter in a grid sampling.
+     * @return the number of values
+     */
+    public int getGridLevels() {
+        final int levels;
+        
+        switch(this.kind) {
+            case RANGE:
+                levels = (int)this.arguments[2];
+                break;
+            case VALUES:
+                levels = this.arguments.length;
+                break;
+            default:
+                throw new IllegalStateException("El paràmetre " + this.path + " no té un nombre finit de valors.");
+        }
+        
+        return levels;
+    }
+    
+    /**
+     * Returns a value of the parameter in a grid sampling.
+     * @param level the index of the value
+     * @return the value
+     */
+    public double getGridValue(int level) {
+        final double value;
+        final int levels;
+        
+        levels = this.getGridLevels();
+        
+        if(this.kind.equals(VALUES)) {
+            value = this.arguments[level];
+        }
+        else if(levels == 1) {
+            value = this.arguments[0];
+        }
+        else {
+            value = this.arguments[0] + (this.arguments[1] - this.arguments[0]) * level / (levels - 1);
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Returns the value of the parameter for a quantile (the inverse of the 
+     * cumulative distribution of its values). The random and Latin hypercube
+     * samplings convert uniform values to values of the parameter with it.
+     * @param quantile the quantile (between 0 and 1, 1 excluded)
+     * @return the value
+     */
+    public double getQuantileValue(double quantile) {
+        final double value;
+        
+        switch(this.kind) {
+            case RANGE:
+                value = this.arguments[0] + (this.arguments[1] - this.arguments[0]) * quantile;
+                break;
+            case VALUES:
+                value = this.arguments[Math.min((int)(quantile * this.arguments.length), this.arguments.length - 1)];
+                break;
+            default:
+                value = this.arguments[0] + this.arguments[1] * StatisticsUtils.inverseNormalDistribution(quantile);
+        }
+        
+        return value;
+    }
+    
+    //Public Static Methods
+    /**
+     * Creates a parameter from the definition of its values.
+     * @param path the path of the element of the field in the configuration XML
+     * @param definition the definition of the values
+     * @return the parameter
+     * @throws IllegalArgumentException if the definition isn't valid
+     */
+    public static SweepParameter parse(String path, String definition) {
+        final String[] tokens;
+        final String kind;
+        final double[] arguments;
+        
+        tokens    = definition.trim().split("\\s+");
+        kind      = tokens[0];
+        arguments = new double[tokens.length - 1];
+        
+        for(int i = 1; i < tokens.length; i++) {
+            try {
+                arguments[i - 1] = Double.parseDouble(tokens[i]);
+            }
+            catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("El valor " + tokens[i] + " del paràmetre " + path + " no és un nombre.");
+            }
+        }
+        
+        switch(kind) {
+            case RANGE:
+                if(arguments.length != 3 || arguments[2] < 1 || arguments[2] != Math.rint(arguments[2]) || arguments[1] < arguments[0]) {
+                    throw new IllegalArgumentException("El paràmetre " + path + " ha de tenir el format: range mínim màxim nivells.");
+                }
+                break;
+            case VALUES:
+                if(arguments.length == 0) {
+                    throw new IllegalArgumentException("El paràmetre " + path + " ha de tenir almenys un valor.");
+                }
+                break;
+            case NORMAL:
+                if(arguments.length != 2 || arguments[1] < 0) {
+                    throw new IllegalArgumentException("El paràmetre " + path + " ha de tenir el format: normal mitjana desviació.");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Tipus de valors desconegut del paràmetre " + path + ": " + kind + ".");
+        }
+        
+        return new SweepParameter(path, kind, arguments);
+    }
+}
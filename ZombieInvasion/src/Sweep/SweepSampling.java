@@ -0,0 +1,41 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package Sweep;
+
+/**
+ * Methods of selecting the points of a parameter sweep.
+ * @author Xavier
+ */
+public enum SweepSampling {
+    /**
+     * All the combinations of the values of the parameters.
+     */
+    Grid,
+    
+    /**
+     * Latin hypercube sampling: the range of each parameter is divided in as many
+     * intervals of equal probability as samples, and each interval is used by 
+     * exactly one sample.
+     */
+    LatinHypercube,
+    
+    /**
+     * Independent random values of each parameter.
+     */
+    Random
+}
@@ -0,0 +1,327 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package TimeSeries;
+
+import Environment.ZombieEpidemicEnvironment;
+import SimulationConfiguration.EnvironmentConfiguration;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class exports the number of healthy humans, infected humans, zombies and 
+ * dead agents of each cell every K phases (and in the last phase) to a density 
+ * cube file, which is written incrementally through memory mapping while the 
+ * simulation is executed.
+ * <p>
+ * The file contains a header of 8 integers (magic number, version, rows, columns,
+ * statuses, phases between frames, first phase and number of frames) followed by
+ * the frames. Each frame contains its phase followed by the counts, as a 
+ * <code>[row][column][status]</code> array of integers. The statuses are in the
+ * order of the cell counts of the environment (healthy, infected, zombie and dead).
+ * All the integers are little endian, so the file can be mapped directly by the 
+ * analysis tools. The number of frames of the header is updated after writing 
+ * each frame.
+ * @author Xavier
+ */
+public class DensityCubeExporter implements Closeable {
+    //Constants
+    /**
+     * Extension of the density cube files.
+     */
+    public final static String DENSITY_CUBE_FILE_EXTENSION = "zdc";
+    
+    /**
+     * Number identifying the density cube files ("ZDCB").
+     */
+    private final static int MAGIC_NUMBER = 0x5A444342;
+    
+    /**
+     * Version of the format of the density cube files (the version 1 didn't 
+     * store the phase of each frame).
+     */
+    private final static int VERSION = 2;
+    
+    /**
+     * Size of the header in bytes.
+     */
+    private final static int HEADER_SIZE = 8 * 4;
+    
+    /**
+     * Position in the header of the first phase and of the number of frames.
+     */
+    private final static int FIRST_PHASE_POSITION = 6, FRAMES_POSITION = 7;
+    
+    /**
+     * Minimum size in bytes of the regions of the file mapped to write the frames 
+     * (a region contains at least one frame).
+     */
+    private final static long MIN_REGION_SIZE = 8 * 1024 * 1024;
+    
+    //Attributes
+    /**
+     * The file.
+     */
+    private final RandomAccessFile file;
+    
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+    
+    /**
+     * The header of the file, mapped in memory.
+     */
+    private final MappedByteBuffer headerBuffer;
+    
+    /**
+     * The integers of the header of the file.
+     */
+    private final IntBuffer header;
+    
+    /**
+     * Number of phases between frames.
+     */
+    private final int period;
+    
+    /**
+     * Buffer of the counts of a frame.
+     */
+    private final int[] counts;
+    
+    /**
+     * Size in bytes of a frame.
+     */
+    private final long frameSize;
+    
+    /**
+     * Number of frames of each mapped region.
+     */
+    private final int regionCapacity;
+    
+    /**
+     * The region of the file where the frames are being written, mapped in memory 
+     * (<code>null</code> if no frame has been written yet).
+     */
+    private MappedByteBuffer regionBuffer;
+    
+    /**
+     * The integers of the region where the frames are being written.
+     */
+    private IntBuffer region;
+    
+    /**
+     * Number of frames written in the current region.
+     */
+    private int regionFrames;
+    
+    /**
+     * First phase exported (-1 if no frame has been exported yet).
+     */
+    private int firstPhase;
+    
+    /**
+     * Phase of the last frame written (-1 if no frame has been written yet).
+     */
+    private int lastPhase;
+    
+    /**
+     * Number of frames written.
+     */
+    private int frames;
+    
+    //Public Constructors
+    /**
+     * Creates a density cube file.
+     * @param cubeFile the file
+     * @param configuration the configuration of the environment exported
+     * @param period the number of phases between frames
+     * @throws IOException if the file can't be created
+     */
+    public DensityCubeExporter(File cubeFile, EnvironmentConfiguration configuration, int period) throws IOException {
+        final int rows, columns;
+        
+        if(period <= 0) {
+            throw new IllegalArgumentException("El nombre de fases entre fotogrames ha de ser positiu.");
+        }
+        
+        rows    = configuration.getNumberOfRows();
+        columns = configuration.getNumberOfColumns();
+        
+        this.file           = new RandomAccessFile(cubeFile, "rw");
+        this.channel        = this.file.getChannel();
+        this.period         = period;
+        this.counts         = new int[rows * columns * ZombieEpidemicEnvironment.CELL_COUNTS];
+        this.frameSize      = (1 + (long)this.counts.length) * 4;
+        this.regionCapacity = (int)Math.max(1, MIN_REGION_SIZE / this.frameSize);
+        this.firstPhase     = -1;
+        this.lastPhase      = -1;
+        
+        try {
+            this.file.setLength(0);
+            
+            this.headerBuffer = this.map(0, HEADER_SIZE);
+            this.header       = this.headerBuffer.asIntBuffer();
+            
+            this.header.put(MAGIC_NUMBER).put(VERSION).put(rows).put(columns)
+                       .put(ZombieEpidemicEnvironment.CELL_COUNTS).put(period).put(0).put(0);
+        }
+        catch (IOException | RuntimeException ex) {
+            this.file.close();
+            
+            throw ex;
+        }
+    }
+    
+    //Overridden Methods
+    /**
+     * Writes the mapped regions to the file, removes the unused part of the last
+     * region and closes the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(this.regionBuffer != null) {
+                this.regionBuffer.force();
+            }
+            
+            this.headerBuffer.force();
+            
+            try {
+                this.channel.truncate(HEADER_SIZE + this.frames * this.frameSize);
+            }
+            catch (IOException ex) {
+                //Some systems don't allow to truncate a file while it's mapped: the 
+                //unused part is left at the end (the header contains the frames written)
+            }
+        }
+        finally {
+            this.file.close();
+        }
+    }
+    
+    //Public Methods
+    /**
+     * Writes a frame with the current counts of an environment if the current
+     * phase corresponds to a frame (the first phase exported and then every
+     * <code>period</code> phases). It must be called after each phase.
+     * @param environment the environment
+     * @throws IOException if an I/O error occurs
+     */
+    public void recordPhase(ZombieEpidemicEnvironment environment) throws IOException {
+        final int phase;
+        
+        phase = environment.getPhase();
+        
+        if(this.firstPhase < 0) {
+            this.firstPhase = phase;
+            
+            this.header.put(FIRST_PHASE_POSITION, phase);
+        }
+        
+        if((phase - this.firstPhase) % this.period == 0) {
+            this.writeFrame(environment, phase);
+        }
+    }
+    
+    /**
+     * Writes a frame with the current counts of an environment if the current 
+     * phase hasn't been written yet, so the file contains the final state of the 
+     * simulation. It must be called when the simulation finishes.
+     * @param environment the environment
+     * @throws IOException if an I/O error occurs
+     */
+    public void recordLastPhase(ZombieEpidemicEnvironment environment) throws IOException {
+        if(this.firstPhase < 0) {
+            this.recordPhase(environment);
+        }
+        else if(environment.getPhase() != this.lastPhase) {
+            this.writeFrame(environment, environment.getPhase());
+        }
+    }
+    
+    /**
+     * Returns the number of frames written.
+     * @return the number of frames
+     */
+    public int getFrameCount() {
+        return this.frames;
+    }
+    
+    //Private Methods
+    /**
+     * Writes a frame with the current counts of an environment after the last 
+     * frame written.
+     * @param environment the environment
+     * @param phase the current phase
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeFrame(ZombieEpidemicEnvironment environment, int phase) throws IOException {
+        if(this.regionBuffer == null || this.regionFrames == this.regionCapacity) {
+            this.mapNextRegion();
+        }
+        
+        environment.countAgentsByCell(this.counts);
+        
+        this.region.put(phase).put(this.counts);
+        
+        this.regionFrames++;
+        this.frames++;
+        this.lastPhase = phase;
+        
+        this.header.put(FRAMES_POSITION, this.frames);
+    }
+    
+    /**
+     * Writes the current region to the file (if any) and maps the region where
+     * the next frames are written.
+     * @throws IOException if an I/O error occurs
+     */
+    private void mapNextRegion() throws IOException {
+        if(this.regionBuffer != null) {
+            this.regionBuffer.force();
+        }
+        
+        this.regionBuffer = this.map(HEADER_SIZE + this.frames * this.frameSize, this.regionCapacity * this.frameSize);
+        this.region       = this.regionBuffer.asIntBuffer();
+        this.regionFrames = 0;
+    }
+    
+    /**
+     * Maps a region of the file in memory (the file is extended if it's necessary).
+     * @param position the position of the region
+     * @param size the size of the region
+     * @return the buffer of the region (little endian)
+     * @throws IOException if an I/O error occurs
+     */
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        final MappedByteBuffer buffer;
+        
+        buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        
+        return buffer;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package TimeSeries;
+
+/**
+ * View of a time series with a bounded number of points, for long executions.
+ * Each point summarizes a fixed number of consecutive phases: the level metrics
+ * keep the value of the last phase and the event metrics the total of the phases.
+ * When all the points are used, the consecutive pairs of points are merged, so 
+ * the number of phases per point is doubled.
+ * @author Xavier
+ */
+public class DownsampledTimeSeries {
+    //Attributes
+    /**
+     * The metrics of the series.
+     */
+    private final TimeSeriesMetric[] metrics;
+    
+    /**
+     * Last phase of each point.
+     */
+    private final int[] phases;
+    
+    /**
+     * Values of each point, by metric.
+     */
+    private final double[][] values;
+    
+    /**
+     * Number of points used.
+     */
+    private int points;
+    
+    /**
+     * Number of phases summarized by each point.
+     */
+    private int phasesPerPoint;
+    
+    /**
+     * Number of phases summarized by the last point.
+     */
+    private int lastPointPhases;
+    
+    //Public Constructors
+    /**
+     * Creates an empty view.
+     * @param maxPoints the maximum number of points (at least 2)
+     */
+    public DownsampledTimeSeries(int maxPoints) {
+        if(maxPoints < 2) {
+            throw new IllegalArgumentException("La vista reduïda ha de tenir almenys 2 punts.");
+        }
+        
+        this.metrics        = TimeSeriesMetric.values();
+        this.phases         = new int[maxPoints - maxPoints % 2];
+        this.values         = new double[this.metrics.length][this.phases.length];
+        this.phasesPerPoint = 1;
+    }
+    
+    //Public Methods
+    /**
+     * Adds the values of a phase.
+     * @param phase the phase
+     * @param phaseValues the values of the metrics, in the order of <code>TimeSeriesMetric</code>
+     */
+    public synchronized void add(int phase, double[] phaseValues) {
+        final int point;
+        
+        if(this.points == 0 || this.lastPointPhases == this.phasesPerPoint) {
+            //The last point is complete -> start a new one
+            if(this.points == this.phases.length) {
+                this.mergePoints();
+            }
+            
+            point                = this.points++;
+            this.lastPointPhases = 1;
+            
+            for(int i = 0; i < this.metrics.length; i++) {
+                this.values[i][point] = phaseValues[i];
+            }
+        }
+        else {
+            point = this.points - 1;
+            
+            this.lastPointPhases++;
+            
+            for(int i = 0; i < this.metrics.length; i++) {
+                if(this.metrics[i].isLevel()) {
+                    this.values[i][point] = phaseValues[i];
+                }
+                else {
+                    this.values[i][point] += phaseValues[i];
+                }
+            }
+        }
+        
+        this.phases[point] = phase;
+    }
+    
+    /**
+     * Returns the number of points of the view.
+     * @return the number of points
+     */
+    public synchronized int getPointCount() {
+        return this.points;
+    }
+    
+    /**
+     * Returns the number of phases summarized by each point (except the last
+     * point, which can summarize less phases).
+     * @return the number of phases
+     */
+    public synchronized int getPhasesPerPoint() {
+        return this.phasesPerPoint;
+    }
+    
+    /**
+     * Returns the last phase summarized by a point.
+     * @param point the index of the point
+     * @return the phase
+     */
+    public synchronized int getPhase(int point) {
+        return this.phases[this.checkPoint(point)];
+    }
+    
+    /**
+     * Returns the value of a metric in a point.
+     * @param metric the metric
+     * @param point the index of the point
+     * @return the value
+     */
+    public synchronized double getValue(TimeSeriesMetric metric, int point) {
+        return this.values[metric.ordinal()][this.checkPoint(point)];
+    }
+    
+    //Private Methods
+    /**
+     * Merges the consecutive pairs of points.
+     */
+    private void mergePoints() {
+        for(int point = 0; point < this.points / 2; point++) {
+            this.phases[point] = this.phases[2 * point + 1];
+            
+            for(int i = 0; i < this.metrics.length; i++) {
+                if(this.metrics[i].isLevel()) {
+                    this.values[i][point] = this.values[i][2 * point + 1];
+                }
+                else {
+                    this.values[i][point] = this.values[i][2 * point] + this.values[i][2 * point + 1];
+                }
+            }
+        }
+        
+        this.points         /= 2;
+        this.phasesPerPoint *= 2;
+    }
+    
+    /**
+     * Checks the index of a point.
+     * @param point the index of the point
+     * @return the index
+     * @throws IndexOutOfBoundsException if the point doesn't exist
+     */
+    private int checkPoint(int point) {
+        if(point < 0 || point >= this.points) {
+            throw new IndexOutOfBoundsException("El punt " + point + " no existeix.");
+        }
+        
+        return point;
+    }
+}
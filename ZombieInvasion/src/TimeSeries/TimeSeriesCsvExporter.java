@@ -0,0 +1,158 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package TimeSeries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class exports a time series file written by <code>TimeSeriesRecorder</code>
+ * to CSV (one row per phase, one column per metric). The file is read block by
+ * block, so the memory used doesn't depend on the length of the series.
+ * @author Xavier
+ */
+public class TimeSeriesCsvExporter {
+    //Private Constructors
+    private TimeSeriesCsvExporter() {
+    }
+    
+    //Public Static Methods
+    /**
+     * Exports a time series file to a CSV file.
+     * @param timeSeriesFile the time series file
+     * @param csvFile the CSV file
+     * @throws IOException if a file can't be read or written, or the time series
+     * file isn't valid
+     */
+    public static void export(File timeSeriesFile, File csvFile) throws IOException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(timeSeriesFile)));
+            Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8))) {
+            
+            export(input, output);
+        }
+    }
+    
+    /**
+     * Exports a time series to CSV.
+     * @param input the input of the time series
+     * @param output the output of the CSV
+     * @throws IOException if an I/O error occurs or the time series isn't valid
+     */
+    public static void export(DataInputStream input, Writer output) throws IOException {
+        final int columns;
+        final boolean[] integral;
+        double[][] values;
+        Integer rows;
+        
+        //Header
+        if(input.readInt() != TimeSeriesRecorder.MAGIC_NUMBER) {
+            throw new IOException("El fitxer no és una sèrie temporal de simulació.");
+        }
+        
+        if(input.readInt() != TimeSeriesRecorder.VERSION) {
+            throw new IOException("La versió del fitxer de sèrie temporal no està suportada.");
+        }
+        
+        columns  = input.readInt();
+        integral = new boolean[columns];
+        values   = new double[columns][0];
+        
+        for(int column = 0; column < columns; column++) {
+            output.write((column > 0 ? "," : "") + input.readUTF());
+            
+            integral[column] = input.readBoolean();
+        }
+        
+        output.write("\n");
+        
+        //Blocks (an incomplete block at the end of the file, left by a recording
+        //that hasn't been closed, is ignored)
+        rows = readBlockRows(input);
+        
+        while(rows != null) {
+            if(values[0].length < rows) {
+                values = new double[columns][rows];
+            }
+            
+            try {
+                for(int column = 0; column < columns; column++) {
+                    for(int i = 0; i < rows; i++) {
+                        values[column][i] = integral[column] ? input.readInt() : input.readDouble();
+                    }
+                }
+            }
+            catch (EOFException ex) {
+                break;
+            }
+            
+            for(int i = 0; i < rows; i++) {
+                for(int column = 0; column < columns; column++) {
+                    if(column > 0) {
+                        output.write(',');
+                    }
+                    
+                    if(integral[column]) {
+                        output.write(Integer.toString((int)values[column][i]));
+                    }
+                    else {
+                        output.write(Double.toString(values[column][i]));
+                    }
+                }
+                
+                output.write('\n');
+            }
+            
+            rows = readBlockRows(input);
+        }
+        
+        output.flush();
+    }
+    
+    //Private Static Methods
+    /**
+     * Reads the number of rows of the next block.
+     * @param input the input of the time series
+     * @return the number of rows (<code>null</code> at the end of the file)
+     * @throws IOException if an I/O error occurs or the number isn't valid
+     */
+    private static Integer readBlockRows(DataInputStream input) throws IOException {
+        Integer rows;
+        
+        try {
+            rows = input.readInt();
+        }
+        catch (EOFException ex) {
+            rows = null;
+        }
+        
+        if(rows != null && rows <= 0) {
+            throw new IOException("El fitxer de sèrie temporal està malmès.");
+        }
+        
+        return rows;
+    }
+}
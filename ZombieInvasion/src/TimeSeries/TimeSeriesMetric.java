@@ -0,0 +1,134 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package TimeSeries;
+
+import Environment.ZombieEpidemicEnvironment;
+
+/**
+ * Metrics recorded in each phase of a time series. The level metrics are the
+ * value at the end of the phase (for example, the number of zombies) and the 
+ * event metrics are the total of the phase (for example, the shots fired).
+ * @author Xavier
+ */
+public enum TimeSeriesMetric {
+    Healthy("sans", true, true),
+    Infected("infectats", true, true),
+    Zombies("zombis", true, true),
+    HumansKilledByZombies("humans_morts_per_zombis", false, true),
+    ZombiesKilledByHumans("zombis_morts_per_humans", false, true),
+    HumansKilledByShots("humans_morts_per_trets", false, true),
+    ZombiesKilledByShots("zombis_morts_per_trets", false, true),
+    ShotsFired("trets", false, true),
+    WallLengthDestroyed("mur_destruit", false, false),
+    ResourcesSpent("recursos_gastats", false, true);
+    
+    //Attributes
+    /**
+     * Name of the metric in the exported files.
+     */
+    private final String columnName;
+    
+    /**
+     * Boolean value indicating if it's a level metric (otherwise it's an event metric).
+     */
+    private final boolean level;
+    
+    /**
+     * Boolean value indicating if the values of the metric are integers.
+     */
+    private final boolean integral;
+    
+    //Private Constructors
+    private TimeSeriesMetric(String columnName, boolean level, boolean integral) {
+        this.columnName = columnName;
+        this.level      = level;
+        this.integral   = integral;
+    }
+    
+    //Public Methods
+    /**
+     * Returns the name of the metric in the exported files.
+     * @return the name
+     */
+    public String getColumnName() {
+        return this.columnName;
+    }
+    
+    /**
+     * Returns a boolean value indicating if it's a level metric (the value at 
+     * the end of the phase) or an event metric (the total of the phase).
+     * @return <code>true</code> if it's a level metric
+     */
+    public boolean isLevel() {
+        return this.level;
+    }
+    
+    /**
+     * Returns a boolean value indicating if the values of the metric are integers.
+     * @return <code>true</code> if the values are integers
+     */
+    public boolean isIntegral() {
+        return this.integral;
+    }
+    
+    //Package Methods
+    /**
+     * Reads the current value of the metric in an environment. For the event 
+     * metrics, it's the total since the environment was created.
+     * @param environment the environment
+     * @return the value
+     */
+    double sample(ZombieEpidemicEnvironment environment) {
+        final double value;
+        
+        switch(this) {
+            case Healthy:
+                value = environment.getHealthyCount();
+                break;
+            case Infected:
+                value = environment.getInfectedCount();
+                break;
+            case Zombies:
+                value = environment.getZombifiedCount();
+                break;
+            case HumansKilledByZombies:
+                value = environment.getHumansKilledByZombiesCount();
+                break;
+            case ZombiesKilledByHumans:
+                value = environment.getZombiesKilledByHumansCount();
+                break;
+            case HumansKilledByShots:
+                value = environment.getHumansKilledByShotsCount();
+                break;
+            case ZombiesKilledByShots:
+                value = environment.getZombiesKilledByShotsCount();
+                break;
+            case ShotsFired:
+                value = environment.getShotsFiredCount();
+                break;
+            case WallLengthDestroyed:
+                value = environment.getWallLengthDestroyed();
+                break;
+            default:
+                value = environment.getConfiguration().getResources().getTotalResourcesAvailable() 
+                        - environment.getResourcesInformation().getTotalResourcesAvailable();
+        }
+        
+        return value;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+  This file is part of ZombiesSimulator.
+
+  ZombiesSimulator is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  ZombiesSimulator is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with ZombiesSimulator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package TimeSeries;
+
+import Environment.ZombieEpidemicEnvironment;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * This class records the metrics of each phase of a simulation in an append-only
+ * columnar file. The rows are buffered in memory and written in blocks; inside
+ * a block, the values of each column are contiguous. A file that hasn't been
+ * closed can be read until its last complete block.
+ * <p>
+ * Format: magic number, version, number of columns and, for each column, its name
+ * and whether its values are integers (<code>int</code>) or not (<code>double</code>).
+ * Then, the blocks: number of rows, the column of phases and the column of each 
+ * metric, in the order of <code>TimeSeriesMetric</code>.
+ * @author Xavier
+ */
+public class TimeSeriesRecorder implements Closeable {
+    //Constants
+    /**
+     * Extension of the time series files.
+     */
+    public final static String TIME_SERIES_FILE_EXTENSION = "zts";
+    
+    /**
+     * Number identifying the time series files ("ZTSR").
+     */
+    final static int MAGIC_NUMBER = 0x5A545352;
+    
+    /**
+     * Version of the format of the time series files.
+     */
+    final static int VERSION = 1;
+    
+    /**
+     * Name of the column of phases.
+     */
+    final static String PHASE_COLUMN_NAME = "fase";
+    
+    /**
+     * Number of rows of a block.
+     */
+    private final static int BLOCK_ROWS = 1024;
+    
+    //Attributes
+    /**
+     * The output of the file.
+     */
+    private final DataOutputStream output;
+    
+    /**
+     * The metrics recorded.
+     */
+    private final TimeSeriesMetric[] metrics;
+    
+    /**
+     * Phases of the rows of the current block.
+     */
+    private final int[] phases;
+    
+    /**
+     * Values of the rows of the current block, by metric.
+     */
+    private final double[][] values;
+    
+    /**
+     * Number of rows of the current block.
+     */
+    private int rows;
+    
+    /**
+     * Values of the metrics sampled in the current row and in the last row (the
+     * totals of the event metrics).
+     */
+    private double[] sample, lastSample;
+    
+    /**
+     * Boolean value indicating if a row has been recorded.
+     */
+    private boolean started;
+    
+    /**
+     * The downsampled view of the series (<code>null</code> if there isn't any).
+     */
+    private final DownsampledTimeSeries downsampledView;
+    
+    /**
+     * Buffer of the values of a row.
+     */
+    private final double[] row;
+    
+    //Public Constructors
+    /**
+     * Creates a time series file.
+     * @param file the file
+     * @param downsampledPoints maximum number of points of the downsampled view 
+     * kept in memory (0 to not keep it)
+     * @throws IOException if the file can't be created
+     */
+    public TimeSeriesRecorder(File file, int downsampledPoints) throws IOException {
+        if(downsampledPoints < 0) {
+            throw new IllegalArgumentException("El nombre de punts de la vista reduïda no pot ser negatiu.");
+        }
+        
+        this.output          = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        this.metrics         = TimeSeriesMetric.values();
+        this.phases          = new int[BLOCK_ROWS];
+        this.values          = new double[this.metrics.length][BLOCK_ROWS];
+        this.row             = new double[this.metrics.length];
+        this.sample          = new double[this.metrics.length];
+        this.lastSample      = new double[this.metrics.length];
+        this.downsampledView = downsampledPoints > 0 ? new DownsampledTimeSeries(downsampledPoints) : null;
+        
+        this.output.writeInt(MAGIC_NUMBER);
+        this.output.writeInt(VERSION);
+        this.output.writeInt(this.metrics.length + 1);
+        this.output.writeUTF(PHASE_COLUMN_NAME);
+        this.output.writeBoolean(true);
+        
+        for(TimeSeriesMetric metric: this.metrics) {
+            this.output.writeUTF(metric.getColumnName());
+            this.output.writeBoolean(metric.isIntegral());
+        }
+    }
+    
+    //Overridden Methods
+    /**
+     * Writes the rows buffered and closes the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        }
+        finally {
+            this.output.close();
+        }
+    }
+    
+    //Public Methods
+    /**
+     * Records the metrics of the last phase executed by an environment. The first
+     * row recorded is the initial state: its event metrics are 0. It must be called
+     * between phases (not while the environment is executing one).
+     * @param environment the environment
+     * @throws IOException if an I/O error occurs
+     */
+    public void recordPhase(ZombieEpidemicEnvironment environment) throws IOException {
+        final double[] swap;
+        
+        for(int i = 0; i < this.metrics.length; i++) {
+            this.sample[i] = this.metrics[i].sample(environment);
+            
+            if(this.metrics[i].isLevel()) {
+                this.row[i] = this.sample[i];
+            }
+            else {
+                this.row[i] = this.started ? this.sample[i] - this.lastSample[i] : 0;
+            }
+            
+            this.values[i][this.rows] = this.row[i];
+        }
+        
+        swap                   = this.lastSample;
+        this.lastSample        = this.sample;
+        this.sample            = swap;
+        this.started           = true;
+        this.phases[this.rows] = environment.getPhase();
+        this.rows++;
+        
+        if(this.downsampledView != null) {
+            this.downsampledView.add(environment.getPhase(), this.row);
+        }
+        
+        if(this.rows == BLOCK_ROWS) {
+            this.flush();
+        }
+    }
+    
+    /**
+     * Writes the rows buffered in the file.
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        if(this.rows > 0) {
+            this.output.writeInt(this.rows);
+            
+            for(int i = 0; i < this.rows; i++) {
+                this.output.writeInt(this.phases[i]);
+            }
+            
+            for(int metric = 0; metric < this.metrics.length; metric++) {
+                for(int i = 0; i < this.rows; i++) {
+                    if(this.metrics[metric].isIntegral()) {
+                        this.output.writeInt((int)this.values[metric][i]);
+                    }
+                    else {
+                        this.output.writeDouble(this.values[metric][i]);
+                    }
+                }
+            }
+            
+            this.rows = 0;
+        }
+        
+        this.output.flush();
+    }
+    
+    /**
+     * Returns the downsampled view of the series kept in memory.
+     * @return the view (<code>null</code> if the recorder doesn't keep it)
+     */
+    public DownsampledTimeSeries getDownsampledView() {
+        return this.downsampledView;
+    }
+}